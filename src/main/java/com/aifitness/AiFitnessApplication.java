@@ -10,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main Spring Boot Application Entry Point
@@ -20,6 +21,7 @@ import org.springframework.core.env.Environment;
  * The server will be available at: http://localhost:8080/api
  */
 @SpringBootApplication
+@EnableScheduling
 public class AiFitnessApplication {
 
     private static final Logger logger = LoggerFactory.getLogger(AiFitnessApplication.class);
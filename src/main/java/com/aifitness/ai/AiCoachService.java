@@ -1,6 +1,7 @@
 package com.aifitness.ai;
 
 import com.aifitness.dto.*;
+import com.aifitness.entity.DailyCheckInRollup;
 import com.aifitness.entity.User;
 import com.aifitness.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,7 @@ import java.util.Map;
  * - Uses WeeklyProgressService to get weekly progress data
  * - Uses NutritionService to get calorie/macro targets
  * - Uses MealPlanService to get meal plan data
+ * - Uses AiInsightsService to get weight trend and plateau signals
  */
 @Service
 public class AiCoachService {
@@ -308,18 +310,24 @@ public class AiCoachService {
     private final NutritionService nutritionService;
     private final MealPlanService mealPlanService;
     private final BodyMetricsService bodyMetricsService;
+    private final AiInsightsService aiInsightsService;
+    private final StreakService streakService;
     
     @Autowired
     public AiCoachService(WeeklyProgressService weeklyProgressService,
                          DailyCheckInService dailyCheckInService,
                          NutritionService nutritionService,
                          MealPlanService mealPlanService,
-                         BodyMetricsService bodyMetricsService) {
+                         BodyMetricsService bodyMetricsService,
+                         AiInsightsService aiInsightsService,
+                         StreakService streakService) {
         this.weeklyProgressService = weeklyProgressService;
         this.dailyCheckInService = dailyCheckInService;
         this.nutritionService = nutritionService;
         this.mealPlanService = mealPlanService;
         this.bodyMetricsService = bodyMetricsService;
+        this.aiInsightsService = aiInsightsService;
+        this.streakService = streakService;
     }
     
     /**
@@ -383,7 +391,7 @@ public class AiCoachService {
         }
         
         // Build weekly progress latest
-        List<WeeklyProgressResponse> weeklyProgressList = weeklyProgressService.getRecentProgressForUser(user, 1);
+        List<WeeklyProgressResponse> weeklyProgressList = weeklyProgressService.getRecentProgressForUser(user.getId(), 1);
         if (!weeklyProgressList.isEmpty()) {
             WeeklyProgressResponse latest = weeklyProgressList.get(0);
             AiContextResponse.WeeklyProgressLatest weeklyProgress = new AiContextResponse.WeeklyProgressLatest();
@@ -424,22 +432,11 @@ public class AiCoachService {
         // Build gamification
         AiContextResponse.Gamification gamification = new AiContextResponse.Gamification();
         gamification.setXp(user.getXp());
-        gamification.setCurrentStreakDays(user.getCurrentStreakDays());
-        gamification.setLongestStreakDays(user.getLongestStreakDays());
+        StreakService.Streaks streaks = streakService.getStreaks(user.getId(), user.getLongestStreakDays());
+        gamification.setCurrentStreakDays(streaks.currentStreakDays());
+        gamification.setLongestStreakDays(streaks.longestStreakDays());
         
-        // Parse badges JSON string to List
-        try {
-            String badgesJson = user.getBadges();
-            if (badgesJson != null && !badgesJson.trim().isEmpty() && !badgesJson.equals("[]")) {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                List<String> badges = mapper.readValue(badgesJson, new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {});
-                gamification.setBadges(badges);
-            } else {
-                gamification.setBadges(new ArrayList<>());
-            }
-        } catch (Exception e) {
-            gamification.setBadges(new ArrayList<>());
-        }
+        gamification.setBadges(Badge.namesOf(user.getBadgeMask()));
         response.setGamification(gamification);
         
         return response;
@@ -457,7 +454,7 @@ public class AiCoachService {
         List<AiHistoryResponse.HistoryEntry> entries = new ArrayList<>();
         
         // Get weekly progress entries
-        List<WeeklyProgressResponse> weeklyProgressList = weeklyProgressService.getRecentProgressForUser(user, limit);
+        List<WeeklyProgressResponse> weeklyProgressList = weeklyProgressService.getRecentProgressForUser(user.getId(), limit);
         for (WeeklyProgressResponse progress : weeklyProgressList) {
             AiHistoryResponse.HistoryEntry entry = new AiHistoryResponse.HistoryEntry();
             entry.setType("weekly_progress");
@@ -689,12 +686,19 @@ public class AiCoachService {
         // Get daily check-ins (last N days)
         LocalDate startDate = targetDate.minusDays(daysBack);
         List<DailyCheckInResponse> checkIns = dailyCheckInService.getCheckInsForDateRange(
-                user, startDate, targetDate);
+                user.getId(), startDate, targetDate);
         context.setRecentCheckIns(checkIns);
         
+        // Get check-in rollups for the last 4 logged weeks (one row per week)
+        context.setRecentWeeklyRollups(dailyCheckInService.getRollups(
+                user.getId(), DailyCheckInRollup.PERIOD_WEEK, 4));
+        
+        // Get weight trend, adherence windows and plateau status (one row, no history scan)
+        context.setTrendInsights(aiInsightsService.getTrendAnalysis(user.getId(), targetDate));
+        
         // Get weekly progress (last 8 weeks) if available
         List<WeeklyProgressResponse> weeklyProgress = weeklyProgressService
-                .getRecentProgressForUser(user, 8);
+                .getRecentProgressForUser(user.getId(), 8);
         context.setRecentWeeklyProgress(weeklyProgress);
         
         // Get meal plan if available (simplified)
@@ -766,6 +770,17 @@ public class AiCoachService {
                     summary.append(String.format("Weight change: %.1f kg. ", weightChange));
                 }
             }
+            
+            // Longer-range consistency from the weekly rollups
+            List<CheckInRollupResponse> rollups = context.getRecentWeeklyRollups();
+            if (rollups != null && rollups.size() >= 2) {
+                double workoutsPerWeek = rollups.stream()
+                        .mapToInt(CheckInRollupResponse::getWorkoutCount)
+                        .average()
+                        .orElse(0.0);
+                summary.append(String.format("Over your last %d logged weeks: %.1f workouts/week. ",
+                        rollups.size(), workoutsPerWeek));
+            }
         } else if (!weeklyProgress.isEmpty()) {
             // Fall back to weekly progress
             summary.append(buildSummaryFromWeekly(user, weeklyProgress));
@@ -2474,10 +2489,28 @@ public class AiCoachService {
      * Builds a plan to break through a fat-loss plateau.
      */
     private String buildFatLossPlateauPlan(User user, CoachContext context, String language) {
+        TrendInsightsResponse trend = context != null ? context.getTrendInsights() : null;
+        String plateauStatus = trend != null && trend.getPlateauStatus() != null
+                ? trend.getPlateauStatus()
+                : TrendInsightsResponse.STATUS_INSUFFICIENT_DATA;
+        boolean stillLosing = TrendInsightsResponse.STATUS_ON_TRACK.equals(plateauStatus)
+                && trend.getWeeklyWeightChange() != null && trend.getWeeklyWeightChange() <= -0.1;
+        
         Double goalCalories = context != null ? context.getGoalCalories() : null;
         Double tdee = context != null ? context.getTdee() : null;
         double baseCalories = goalCalories != null ? goalCalories : (tdee != null ? tdee - 400 : 0);
-        double adjustedCalories = baseCalories > 0 ? Math.max(baseCalories - 180, baseCalories * 0.9) : 0;
+        // Size the calorie cut from the weight trend: hold while still losing, trim when slowing,
+        // full 10-12% drop for a confirmed plateau (or when there is no trend to go on)
+        double adjustedCalories;
+        if (baseCalories <= 0) {
+            adjustedCalories = 0;
+        } else if (stillLosing) {
+            adjustedCalories = baseCalories;
+        } else if (TrendInsightsResponse.STATUS_SLOWING.equals(plateauStatus)) {
+            adjustedCalories = Math.max(baseCalories - 100, baseCalories * 0.95);
+        } else {
+            adjustedCalories = Math.max(baseCalories - 180, baseCalories * 0.9);
+        }
         double proteinTarget = context != null && context.getProteinTarget() != null
                 ? context.getProteinTarget()
                 : (user.getWeight() != null ? user.getWeight() * 1.8 : 130);
@@ -2489,17 +2522,38 @@ public class AiCoachService {
         int workouts = countRecentWorkouts(checkIns);
         double avgSteps = calculateAverageSteps(checkIns);
         int estWeeklyWorkouts = daysLogged > 0 ? (int) Math.round((double) workouts / daysLogged * 7) : workouts;
-        
-        String calorieLineEn = adjustedCalories > 0
-                ? String.format("- Tighten calories from %.0f → ~%.0f kcal (10-12%% drop) for the next 10-14 days.\n", baseCalories, adjustedCalories)
-                : "- Trim an additional 150-200 kcal from your current intake for the next 10-14 days.\n";
+        List<CheckInRollupResponse> weeklyRollups = context != null ? context.getRecentWeeklyRollups() : null;
+        TrendInsightsResponse.AdherenceWindow last4Weeks = trend != null ? trend.getLast4Weeks() : null;
+        if (last4Weeks != null && last4Weeks.getDaysLogged() >= 7) {
+            // Workouts over the last 28 days, including days without a check-in
+            estWeeklyWorkouts = (int) Math.round(last4Weeks.getWorkouts() / 4.0);
+        } else if (weeklyRollups != null && weeklyRollups.size() >= 2) {
+            // Weekly rollups give a steadier estimate than the last few days
+            estWeeklyWorkouts = (int) Math.round(weeklyRollups.stream()
+                    .mapToInt(CheckInRollupResponse::getWorkoutCount)
+                    .average()
+                    .orElse(estWeeklyWorkouts));
+        }
+        String trendLine = describePlateauTrend(trend, plateauStatus, language);
+        
+        String calorieLineEn;
+        String calorieLineVi;
+        if (adjustedCalories <= 0) {
+            calorieLineEn = "- Trim an additional 150-200 kcal from your current intake for the next 10-14 days.\n";
+            calorieLineVi = "- Giảm thêm 150-200 kcal mỗi ngày trong 10-14 ngày tới.\n";
+        } else if (stillLosing) {
+            calorieLineEn = String.format("- Hold calories at ~%.0f kcal for another 7 days; your trend is still moving down.\n", baseCalories);
+            calorieLineVi = String.format("- Giữ calo ở ~%.0f kcal thêm 7 ngày; xu hướng cân nặng vẫn đang giảm.\n", baseCalories);
+        } else if (TrendInsightsResponse.STATUS_SLOWING.equals(plateauStatus)) {
+            calorieLineEn = String.format("- Trim calories from %.0f → ~%.0f kcal (about 5%%) and re-check the trend in 7 days.\n", baseCalories, adjustedCalories);
+            calorieLineVi = String.format("- Giảm calo từ %.0f → ~%.0f kcal (khoảng 5%%) và xem lại xu hướng sau 7 ngày.\n", baseCalories, adjustedCalories);
+        } else {
+            calorieLineEn = String.format("- Tighten calories from %.0f → ~%.0f kcal (10-12%% drop) for the next 10-14 days.\n", baseCalories, adjustedCalories);
+            calorieLineVi = String.format("- Giảm calo từ %.0f → ~%.0f kcal (10-12%%) trong 10-14 ngày tới.\n", baseCalories, adjustedCalories);
+        }
         String macroLineEn = adjustedCalories > 0
                 ? String.format("- Macros example: Protein %.0f g | Carbs ~%.0f g | Fats ~%.0f g.\n", proteinTarget, carbs, fats)
                 : String.format("- Keep protein near %.0f g/day; split remaining calories 40%% carbs / 25%% fats.\n", proteinTarget);
-        
-        String calorieLineVi = adjustedCalories > 0
-                ? String.format("- Giảm calo từ %.0f → ~%.0f kcal (10-12%%) trong 10-14 ngày tới.\n", baseCalories, adjustedCalories)
-                : "- Giảm thêm 150-200 kcal mỗi ngày trong 10-14 ngày tới.\n";
         String macroLineVi = adjustedCalories > 0
                 ? String.format("- Gợi ý macro: Đạm %.0f g | Carb ~%.0f g | Chất béo ~%.0f g.\n", proteinTarget, carbs, fats)
                 : String.format("- Giữ đạm quanh %.0f g/ngày; carb 40%% và chất béo 25%% lượng calo còn lại.\n", proteinTarget);
@@ -2507,8 +2561,9 @@ public class AiCoachService {
         if ("vi".equals(language)) {
             StringBuilder plan = new StringBuilder();
             plan.append("KẾ HOẠCH PHÁ VỮNG PLATEAU GIẢM MỠ\n");
-            plan.append(String.format("Nhật ký gần đây: %d buổi tập/tuần ước tính, bước trung bình ~%.0f bước/ngày.\n\n",
+            plan.append(String.format("Nhật ký gần đây: %d buổi tập/tuần ước tính, bước trung bình ~%.0f bước/ngày.\n",
                     estWeeklyWorkouts, avgSteps));
+            plan.append(trendLine).append("\n");
             plan.append("1. Điều chỉnh dinh dưỡng\n");
             plan.append(calorieLineVi);
             plan.append(macroLineVi);
@@ -2528,8 +2583,9 @@ public class AiCoachService {
         
         StringBuilder plan = new StringBuilder();
         plan.append("FAT-LOSS RESET PLAN\n");
-        plan.append(String.format("Recent data: about %d workouts/week and ~%.0f steps/day logged.\n\n",
+        plan.append(String.format("Recent data: about %d workouts/week and ~%.0f steps/day logged.\n",
                 estWeeklyWorkouts, avgSteps));
+        plan.append(trendLine).append("\n");
         plan.append("1. Nutrition tune-up\n");
         plan.append(calorieLineEn);
         plan.append(macroLineEn);
@@ -2547,6 +2603,42 @@ public class AiCoachService {
         return plan.toString();
     }
     
+    /**
+     * One-line summary of the weight trend behind the plateau plan.
+     */
+    private String describePlateauTrend(TrendInsightsResponse trend, String plateauStatus, String language) {
+        boolean vi = "vi".equals(language);
+        Double weeklyChange = trend != null ? trend.getWeeklyWeightChange() : null;
+        switch (plateauStatus) {
+            case TrendInsightsResponse.STATUS_PLATEAU:
+                return vi
+                        ? String.format("Xu hướng: giảm ~%.2f kg/tuần đến %s, từ đó chỉ ~%.2f kg/tuần – đây là plateau thật.\n",
+                                -trend.getPreviousWeeklyRate(), trend.getChangePointDate(), -trend.getCurrentWeeklyRate())
+                        : String.format("Trend check: you lost ~%.2f kg/week until %s and ~%.2f kg/week since - a real plateau.\n",
+                                -trend.getPreviousWeeklyRate(), trend.getChangePointDate(), -trend.getCurrentWeeklyRate());
+            case TrendInsightsResponse.STATUS_SLOWING:
+                return vi
+                        ? String.format("Xu hướng: tốc độ giảm cân chậm lại từ %s (trước đó ~%.2f kg/tuần); chưa phải plateau hoàn toàn.\n",
+                                trend.getChangePointDate(), -trend.getPreviousWeeklyRate())
+                        : String.format("Trend check: loss has slowed since %s (was ~%.2f kg/week); not a full plateau yet.\n",
+                                trend.getChangePointDate(), -trend.getPreviousWeeklyRate());
+            case TrendInsightsResponse.STATUS_FLAT:
+                return vi
+                        ? String.format("Xu hướng: cân nặng giữ quanh %.1f kg trong nhiều tuần (%+.2f kg/tuần).\n",
+                                trend.getSmoothedWeight(), weeklyChange)
+                        : String.format("Trend check: weight has held near %.1f kg for weeks (%+.2f kg/week).\n",
+                                trend.getSmoothedWeight(), weeklyChange);
+            case TrendInsightsResponse.STATUS_ON_TRACK:
+                return vi
+                        ? String.format("Xu hướng: vẫn đang thay đổi %+.2f kg/tuần; cân đứng vài ngày thường chỉ là nước.\n", weeklyChange)
+                        : String.format("Trend check: still moving %+.2f kg/week; a few flat days on the scale are usually water.\n", weeklyChange);
+            default:
+                return vi
+                        ? "Xu hướng: hãy cân ít nhất 3 lần/tuần để tôi xác nhận plateau từ dữ liệu của bạn.\n"
+                        : "Trend check: weigh in at least 3x/week so I can confirm the plateau from your trend.\n";
+        }
+    }
+    
     private double calculateAverageSleepHours(CoachContext context) {
         if (context == null || context.getRecentWeeklyProgress() == null) {
             return 0.0;
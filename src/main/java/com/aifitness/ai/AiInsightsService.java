@@ -1,51 +1,168 @@
 package com.aifitness.ai;
 
+import com.aifitness.dto.TrendInsightsResponse;
+import com.aifitness.dto.WeightForecastResponse;
+import com.aifitness.entity.UserTrendState;
+import com.aifitness.repository.UserTrendStateRepository;
+import com.aifitness.service.CheckInTrendService;
+import com.aifitness.service.WeightForecastService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
 /**
  * AI Insights Service
- * 
+ *
  * Provides long-term trend analysis and predictive insights based on user data.
- * 
+ *
+ * Trend analysis reads the per-user trend state that CheckInTrendService updates on every
+ * daily check-in and weekly progress weight, so a read costs one row regardless of history:
+ * - Weight trend: smoothed weight (EWMA) and the weighted regression slope in kg/week
+ * - Adherence: logged, workout and step-goal days over the last 7 and 28 days
+ * - Plateau status: from the CUSUM change-point statistic (see TrendInsightsResponse statuses)
+ *
+ * Predictions come from the user's cached damped-trend weight model (WeightForecastService),
+ * which is refitted only after new check-ins.
+ *
  * Future Features:
- * - Analyze weight, body metrics, and nutrition trends over time
- * - Predict future progress based on current trajectory
- * - Identify patterns in user behavior (e.g., weight fluctuations, adherence)
- * - Provide personalized recommendations based on historical data
  * - Generate progress reports and summaries
- * - Alert users to potential issues or plateaus
- * 
+ *
  * Integration Points:
- * - Called from AiInsightsController or ProfileController (to be created)
- * - Requires new ProfileHistory entity to store historical data
- * - Uses ProfileService to get current profile
- * - May integrate with time-series analysis libraries
- * 
+ * - Called from AiInsightsController and AiCoachService (coach context)
+ * - Uses UserTrendStateRepository for the trend state
+ * - Uses WeightForecastService for weight forecasts
+ *
  * Example Usage (Future):
- * - GET /api/ai/insights/trends?userId={id}&metric={bmi|weight|bodyFat} - Get trend analysis
- * - GET /api/ai/insights/predictions?userId={id} - Get future predictions
- * - GET /api/ai/insights/report?userId={id}&period={week|month|year} - Get progress report
- * - GET /api/ai/insights/patterns?userId={id} - Identify behavioral patterns
+ * - GET /api/ai/insights/report?period={week|month|year} - Get progress report
  */
 @Service
 public class AiInsightsService {
-    
+
+    /**
+     * CUSUM level (kg of smoothed weight above the baseline trend) that signals a change
+     */
+    private static final double CHANGE_THRESHOLD_KG = 0.6;
+
     /**
-     * Placeholder for future AI insights implementation.
-     * This service will analyze historical user data to provide
-     * trend analysis and predictive insights.
+     * Baseline trend (kg/week) that counts as a loss phase before a plateau
      */
-    public AiInsightsService() {
-        // TODO: Initialize AI client when ready
-        // TODO: May require ProfileHistory repository for historical data
+    private static final double LOSS_PHASE_RATE = -0.2;
+
+    /**
+     * Trend (kg/week) above which loss counts as stopped
+     */
+    private static final double STALLED_RATE = -0.1;
+
+    private static final int PLATEAU_MIN_DAYS = 14;
+    private static final int FLAT_MIN_SPAN_DAYS = 21;
+    private static final int STALE_WEIGHT_DAYS = 21;
+
+    private final UserTrendStateRepository trendStateRepository;
+    private final CheckInTrendService checkInTrendService;
+    private final WeightForecastService weightForecastService;
+
+    @Autowired
+    public AiInsightsService(UserTrendStateRepository trendStateRepository,
+                             CheckInTrendService checkInTrendService,
+                             WeightForecastService weightForecastService) {
+        this.trendStateRepository = trendStateRepository;
+        this.checkInTrendService = checkInTrendService;
+        this.weightForecastService = weightForecastService;
     }
-    
-    // TODO: Implement methods:
-    // - getTrendAnalysis(Long userId, String metric, String period)
-    // - getPredictions(Long userId, int daysAhead)
-    // - getProgressReport(Long userId, String period)
-    // - identifyPatterns(Long userId)
-    // - getPlateauAlerts(Long userId)
-    // - generateInsightsSummary(Long userId)
-}
 
+    /**
+     * Gets the weight trend, adherence windows and plateau status of a user.
+     *
+     * Users who logged data before the trend engine existed get their state built once from
+     * history on the first read or saved check-in, whichever comes first.
+     *
+     * @param userId The user ID
+     * @param asOf Day the adherence windows end on (usually today)
+     * @return Trend insights
+     */
+    public TrendInsightsResponse getTrendAnalysis(Long userId, LocalDate asOf) {
+        UserTrendState state = trendStateRepository.findByUserId(userId)
+                .orElseGet(() -> checkInTrendService.rebuild(userId));
+
+        TrendInsightsResponse response = new TrendInsightsResponse();
+        response.setAsOf(asOf);
+        response.setLastWeek(adherenceWindow(state, asOf, 7));
+        response.setLast4Weeks(adherenceWindow(state, asOf, 28));
+        response.setWeightEntries(state.getWeightCount());
+        response.setLastWeightDate(state.getLastWeightDate());
+        response.setLatestWeight(state.getLastWeight());
+        response.setSmoothedWeight(round(state.getWeightEwma(), 1));
+
+        Double slope = state.getTrendSlope();
+        response.setWeeklyWeightChange(slope != null ? round(slope * 7, 2) : null);
+        response.setPlateauStatus(classifyPlateau(state, slope, asOf, response));
+        return response;
+    }
+
+    /**
+     * Forecasts the user's weight with 80% and 95% bands.
+     *
+     * @param userId The user ID
+     * @param daysAhead Number of days after today (between 1 and 90)
+     * @return Weight forecast
+     */
+    public WeightForecastResponse getPredictions(Long userId, int daysAhead) {
+        return weightForecastService.getForecast(userId, LocalDate.now(), daysAhead);
+    }
+
+    /**
+     * Turns the change-point statistic into a plateau status, filling in the change details
+     * when the test has fired.
+     */
+    private String classifyPlateau(UserTrendState state, Double slope, LocalDate asOf,
+                                   TrendInsightsResponse response) {
+        if (slope == null || state.getLastWeightDate().isBefore(asOf.minusDays(STALE_WEIGHT_DAYS))) {
+            return TrendInsightsResponse.STATUS_INSUFFICIENT_DATA;
+        }
+        // The CUSUM baseline is the regression slope, except after a settled change where the
+        // regression still lags and the baseline holds the post-change rate
+        double weeklyRate = (state.getBaselineRate() != null ? state.getBaselineRate() : slope) * 7;
+        boolean flat = Math.abs(weeklyRate) < -STALLED_RATE
+                && ChronoUnit.DAYS.between(state.getFirstWeightDate(), state.getLastWeightDate()) >= FLAT_MIN_SPAN_DAYS;
+
+        if (state.getCusum() < CHANGE_THRESHOLD_KG || state.getBaselineRate() == null) {
+            return flat ? TrendInsightsResponse.STATUS_FLAT : TrendInsightsResponse.STATUS_ON_TRACK;
+        }
+
+        double previousRate = state.getBaselineRate() * 7;
+        long daysSinceChange = ChronoUnit.DAYS.between(state.getChangePointDate(), state.getLastWeightDate());
+        Double currentRate = daysSinceChange > 0
+                ? (state.getWeightEwma() - state.getChangePointEwma()) / daysSinceChange * 7
+                : null;
+        response.setChangePointDate(state.getChangePointDate());
+        response.setPreviousWeeklyRate(round(previousRate, 2));
+        response.setCurrentWeeklyRate(round(currentRate, 2));
+
+        if (previousRate > LOSS_PHASE_RATE) {
+            // Weight was not coming down before the change, so it is rising rather than stalling
+            return flat ? TrendInsightsResponse.STATUS_FLAT : TrendInsightsResponse.STATUS_ON_TRACK;
+        }
+        if (daysSinceChange >= PLATEAU_MIN_DAYS && currentRate != null && currentRate > STALLED_RATE) {
+            return TrendInsightsResponse.STATUS_PLATEAU;
+        }
+        return TrendInsightsResponse.STATUS_SLOWING;
+    }
+
+    private TrendInsightsResponse.AdherenceWindow adherenceWindow(UserTrendState state, LocalDate asOf, int days) {
+        return new TrendInsightsResponse.AdherenceWindow(
+                days,
+                state.getLoggedDays(asOf, days),
+                state.getWorkoutDays(asOf, days),
+                state.getStepGoalDays(asOf, days));
+    }
+
+    private static Double round(Double value, int decimals) {
+        if (value == null) {
+            return null;
+        }
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+}
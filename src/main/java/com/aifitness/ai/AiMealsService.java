@@ -1,50 +1,217 @@
 package com.aifitness.ai;
 
+import com.aifitness.ai.data.CuisineKnowledgeBaseReloadedEvent;
+import com.aifitness.ai.data.MealSubstitutionIndex;
+import com.aifitness.dto.MealSubstituteDTO;
+import com.aifitness.entity.MealPlan;
+import com.aifitness.entity.MealPlanEntry;
+import com.aifitness.entity.User;
+import com.aifitness.service.MealPlanService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * AI Meals Service
  * 
  * Generates personalized meal plans and grocery lists based on user nutrition goals.
  * 
+ * Implemented:
+ * - Meal substitutions: nearest neighbours of a planned meal in macro space,
+ *   restricted to the user's diet and allergies (see MealSubstitutionIndex)
+ * 
  * Future Features:
  * - Generate weekly/daily meal plans based on calorie and macro targets
  * - Create grocery lists from meal plans
- * - Suggest meal substitutions based on dietary restrictions
  * - Provide recipe recommendations
  * - Adapt meal plans based on user preferences (cuisine, cooking time, budget)
  * - Track meal plan adherence and suggest adjustments
  * 
  * Integration Points:
- * - Called from AiMealsController or NutritionController (to be created)
- * - Uses NutritionService to get calorie/macro targets
- * - Uses ProfileService to get user preferences and dietary restrictions
+ * - Called from MealPlanController
+ * - Uses MealPlanService for the meal catalog and to update plan entries
  * - May integrate with external recipe APIs
  * 
- * Example Usage (Future):
- * - POST /api/ai/meals/generate - Generate meal plan for user
- * - GET /api/ai/meals/plan/{planId} - Get saved meal plan
- * - GET /api/ai/meals/grocery-list?planId={id} - Get grocery list for meal plan
- * - PUT /api/ai/meals/plan/{planId}/substitute - Substitute a meal in plan
+ * Example Usage:
+ * - GET /api/ai/meals/plan/{planId}/meals/{mealId}/substitutes - Suggest substitutes for a meal
+ * - PUT /api/ai/meals/plan/{planId}/meals/{mealId}/substitute?name=... - Substitute a meal in plan
  */
 @Service
 public class AiMealsService {
     
+    private static final Logger logger = LoggerFactory.getLogger(AiMealsService.class);
+    
+    private static final int DEFAULT_SUBSTITUTES = 5;
+    private static final int MAX_SUBSTITUTES = 20;
+    
+    private final MealPlanService mealPlanService;
+    
+    // Built on first use and dropped when the knowledge base is reloaded
+    private volatile MealSubstitutionIndex substitutionIndex;
+    
+    // Guards substitutionIndex stores against reloads; bumped on every reload
+    private final Object indexLock = new Object();
+    private long indexGeneration;
+    
+    @Autowired
+    public AiMealsService(MealPlanService mealPlanService) {
+        this.mealPlanService = mealPlanService;
+    }
+    
+    /**
+     * Suggests the k closest substitutes for a meal in the user's meal plan.
+     * 
+     * Candidates must support the user's dietary preference, must not contain any of
+     * the user's allergens and must not mention an allergy or disliked food by name.
+     * 
+     * @param user The plan owner
+     * @param mealPlanId The meal plan ID
+     * @param mealId The meal plan entry ID
+     * @param reason Optional free-text reason for the swap (logged)
+     * @param k Number of substitutes (defaults to 5, capped at 20)
+     * @return Substitutes, closest first, or null if the meal does not exist for this user
+     */
+    @Transactional(readOnly = true)
+    public List<MealSubstituteDTO> substituteMeal(User user, Long mealPlanId, Long mealId, String reason, Integer k) {
+        MealPlanEntry entry = mealPlanService.findOwnedEntry(user, mealPlanId, mealId);
+        if (entry == null) {
+            return null;
+        }
+        int limit = k == null || k <= 0 ? DEFAULT_SUBSTITUTES : Math.min(k, MAX_SUBSTITUTES);
+        logger.info("Finding {} substitutes for entryId={} ('{}') userId={}, reason={}", 
+                limit, mealId, entry.getName(), user.getId(), reason);
+        
+        List<MealSubstitutionIndex.Match> matches = getIndex().nearest(
+                entry.getMealType(),
+                entry.getCalories(), entry.getProtein(), entry.getCarbs(), entry.getFats(),
+                limit,
+                MealSubstitutionIndex.dietMaskFor(user.getDietaryPreference()),
+                MealSubstitutionIndex.allergenMaskFor(user.getAllergies()),
+                compliantWith(user, entry.getName()));
+        
+        List<MealSubstituteDTO> substitutes = new ArrayList<>(matches.size());
+        for (MealSubstitutionIndex.Match match : matches) {
+            MealSubstitutionIndex.Candidate candidate = match.getCandidate();
+            substitutes.add(new MealSubstituteDTO(
+                    candidate.getName(),
+                    candidate.getMealType(),
+                    candidate.getCalories(),
+                    candidate.getProtein(),
+                    candidate.getCarbs(),
+                    candidate.getFats(),
+                    Math.sqrt(match.getDistance())));
+        }
+        return substitutes;
+    }
+    
     /**
-     * Placeholder for future AI meal plan generator implementation.
-     * This service will integrate with an AI provider to generate
-     * personalized meal plans based on user nutrition goals.
+     * Replaces a meal in the user's meal plan with one of its suggested substitutes.
+     * 
+     * @param user The plan owner
+     * @param mealPlanId The meal plan ID
+     * @param mealId The meal plan entry ID
+     * @param substituteName Name of the substitute (as returned by substituteMeal)
+     * @return The updated meal plan, or null if the meal does not exist for this user
+     * @throws IllegalArgumentException if the substitute is unknown or not allowed for the user
      */
-    public AiMealsService() {
-        // TODO: Initialize AI client when ready
+    @Transactional
+    public MealPlan applySubstitute(User user, Long mealPlanId, Long mealId, String substituteName) {
+        MealPlanEntry entry = mealPlanService.findOwnedEntry(user, mealPlanId, mealId);
+        if (entry == null) {
+            return null;
+        }
+        MealSubstitutionIndex.Candidate candidate = getIndex().find(entry.getMealType(), substituteName);
+        if (candidate == null) {
+            throw new IllegalArgumentException("Unknown substitute meal: " + substituteName);
+        }
+        boolean dietOk = (candidate.getDietMask() & MealSubstitutionIndex.dietMaskFor(user.getDietaryPreference())) != 0;
+        boolean allergensOk = (candidate.getAllergenMask() & MealSubstitutionIndex.allergenMaskFor(user.getAllergies())) == 0;
+        if (!dietOk || !allergensOk || !compliantWith(user, entry.getName()).test(candidate)) {
+            throw new IllegalArgumentException("Substitute meal does not match your dietary preferences");
+        }
+        return mealPlanService.replaceEntryMeal(entry, candidate);
+    }
+    
+    /**
+     * Text filter for terms the bit masks cannot express: any allergy or disliked food
+     * mentioned in the candidate's name or ingredients, and the meal being replaced.
+     */
+    private Predicate<MealSubstitutionIndex.Candidate> compliantWith(User user, String currentMealName) {
+        List<String> excluded = new ArrayList<>();
+        for (String source : new String[]{user.getAllergies(), user.getDislikedFoods()}) {
+            if (source == null || source.isBlank()) {
+                continue;
+            }
+            for (String term : source.split(",")) {
+                String normalized = MealSubstitutionIndex.normalize(term).trim();
+                if (!normalized.isEmpty()) {
+                    excluded.add(normalized);
+                }
+            }
+        }
+        return candidate -> {
+            if (candidate.getName().equals(currentMealName)) {
+                return false;
+            }
+            for (String term : excluded) {
+                if (candidate.getSearchText().contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+    
+    /**
+     * Returns the substitution index, building it on first use. One build runs at a time. An
+     * index built while the knowledge base was reloaded is returned but not stored, since it
+     * may come from the old knowledge base.
+     */
+    private MealSubstitutionIndex getIndex() {
+        MealSubstitutionIndex index = substitutionIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = substitutionIndex;
+                if (index == null) {
+                    long startGeneration;
+                    synchronized (indexLock) {
+                        startGeneration = indexGeneration;
+                    }
+                    index = MealSubstitutionIndex.build(mealPlanService.getSubstitutionCandidates());
+                    synchronized (indexLock) {
+                        if (indexGeneration == startGeneration) {
+                            substitutionIndex = index;
+                        }
+                    }
+                    logger.info("Meal substitution index built with {} candidates", index.size());
+                }
+            }
+        }
+        return index;
+    }
+    
+    /**
+     * Knowledge-base blueprints are part of the index, so rebuild it lazily after a reload.
+     */
+    @EventListener
+    public void onKnowledgeBaseReloaded(CuisineKnowledgeBaseReloadedEvent event) {
+        synchronized (indexLock) {
+            indexGeneration++;
+            substitutionIndex = null;
+        }
     }
     
     // TODO: Implement methods:
     // - generateMealPlan(Long userId, int days, Map<String, Object> preferences)
     // - getGroceryList(Long mealPlanId)
-    // - substituteMeal(Long mealPlanId, Long mealId, String reason)
     // - getRecipeRecommendations(Long userId, String mealType)
     // - saveMealPlan(Long userId, MealPlan plan)
     // - getSavedMealPlans(Long userId)
 }
-
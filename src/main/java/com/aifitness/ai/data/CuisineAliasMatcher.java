@@ -0,0 +1,250 @@
+package com.aifitness.ai.data;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Compiled multi-pattern matcher for cuisine aliases (Aho-Corasick automaton).
+ *
+ * <p>Input and aliases are folded the same way: lower case, Vietnamese/Latin diacritics
+ * removed ("Địa Trung Hải" → "dia trung hai") and every non letter/digit treated as a space.
+ * Folding is one char to one char through a lookup table, so a match is a single pass over
+ * the input with no intermediate strings.
+ *
+ * <p>Aliases must start at a word boundary; aliases shorter than {@value #WHOLE_WORD_BELOW}
+ * folded characters must match a whole word. Without this, folded short aliases such as
+ * "y" (Ý, Italian) or "han" (Hàn, Korean) would fire inside unrelated words.
+ */
+final class CuisineAliasMatcher {
+
+    static final int WHOLE_WORD_BELOW = 4;
+
+    private static final char SEPARATOR = ' ';
+
+    /**
+     * Fold table for the BMP range that covers Latin, Latin Extended and Vietnamese letters
+     */
+    private static final char[] FOLD = buildFoldTable(0x2000);
+
+    private final int[] asciiSymbols;
+    private final char[] extraChars;
+    private final int[] extraSymbols;
+    private final int[][] transitions;
+    private final int[][] outputs;
+    private final int[] patternLength;
+    private final int[] patternTarget;
+    private final boolean[] patternWholeWord;
+    private final int targetCount;
+
+    private CuisineAliasMatcher(int[] asciiSymbols,
+                                char[] extraChars,
+                                int[] extraSymbols,
+                                int[][] transitions,
+                                int[][] outputs,
+                                int[] patternLength,
+                                int[] patternTarget,
+                                boolean[] patternWholeWord,
+                                int targetCount) {
+        this.asciiSymbols = asciiSymbols;
+        this.extraChars = extraChars;
+        this.extraSymbols = extraSymbols;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.patternLength = patternLength;
+        this.patternTarget = patternTarget;
+        this.patternWholeWord = patternWholeWord;
+        this.targetCount = targetCount;
+    }
+
+    /**
+     * Compiles the aliases of each target (profile ordinal = index in the list).
+     *
+     * @param aliasesPerTarget Aliases for every target, in target order
+     * @return Matcher reporting target ordinals
+     */
+    static CuisineAliasMatcher compile(List<List<String>> aliasesPerTarget) {
+        List<String> patterns = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+        for (int target = 0; target < aliasesPerTarget.size(); target++) {
+            for (String alias : aliasesPerTarget.get(target)) {
+                String folded = fold(alias).trim();
+                if (!folded.isEmpty()) {
+                    patterns.add(folded);
+                    targets.add(target);
+                }
+            }
+        }
+
+        // Alphabet: symbol 0 is "any other char", 1..n are chars used by some alias
+        TreeSet<Character> alphabet = new TreeSet<>();
+        patterns.forEach(pattern -> pattern.chars().forEach(c -> alphabet.add((char) c)));
+        int[] asciiSymbols = new int[128];
+        List<Character> extra = new ArrayList<>();
+        int symbol = 1;
+        for (char c : alphabet) {
+            if (c < 128) {
+                asciiSymbols[c] = symbol++;
+            } else {
+                extra.add(c);
+            }
+        }
+        char[] extraChars = new char[extra.size()];
+        int[] extraSymbols = new int[extra.size()];
+        for (int i = 0; i < extra.size(); i++) {
+            extraChars[i] = extra.get(i);
+            extraSymbols[i] = symbol++;
+        }
+        int symbolCount = symbol;
+
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        trie.add(newState(symbolCount));
+        stateOutputs.add(new ArrayList<>());
+        int[] patternLength = new int[patterns.size()];
+        int[] patternTarget = new int[patterns.size()];
+        boolean[] patternWholeWord = new boolean[patterns.size()];
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int s = symbolOf(pattern.charAt(i), asciiSymbols, extraChars, extraSymbols);
+                if (trie.get(state)[s] < 0) {
+                    trie.get(state)[s] = trie.size();
+                    trie.add(newState(symbolCount));
+                    stateOutputs.add(new ArrayList<>());
+                }
+                state = trie.get(state)[s];
+            }
+            stateOutputs.get(state).add(p);
+            patternLength[p] = pattern.length();
+            patternTarget[p] = targets.get(p);
+            patternWholeWord[p] = pattern.length() < WHOLE_WORD_BELOW;
+        }
+
+        // Failure links folded into a complete transition table (breadth-first)
+        int[] fail = new int[trie.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] root = trie.get(0);
+        for (int s = 0; s < symbolCount; s++) {
+            if (root[s] < 0) {
+                root[s] = 0;
+            } else {
+                fail[root[s]] = 0;
+                queue.add(root[s]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            stateOutputs.get(state).addAll(stateOutputs.get(fail[state]));
+            int[] row = trie.get(state);
+            for (int s = 0; s < symbolCount; s++) {
+                int next = row[s];
+                if (next < 0) {
+                    row[s] = trie.get(fail[state])[s];
+                } else {
+                    fail[next] = trie.get(fail[state])[s];
+                    queue.add(next);
+                }
+            }
+        }
+
+        int[][] transitions = trie.toArray(new int[0][]);
+        int[][] outputs = new int[stateOutputs.size()][];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = stateOutputs.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new CuisineAliasMatcher(asciiSymbols, extraChars, extraSymbols, transitions, outputs,
+                patternLength, patternTarget, patternWholeWord, aliasesPerTarget.size());
+    }
+
+    /**
+     * Marks every target that has an alias in the input.
+     *
+     * @param input Free text, e.g. the user's favorite cuisines
+     * @param matched Output flags, one per target; set entries are never cleared
+     * @return Number of targets newly marked
+     */
+    int match(CharSequence input, boolean[] matched) {
+        int found = 0;
+        int state = 0;
+        int length = input.length();
+        for (int i = 0; i < length; i++) {
+            state = transitions[state][symbolOf(foldChar(input.charAt(i)), asciiSymbols, extraChars, extraSymbols)];
+            for (int p : outputs[state]) {
+                int target = patternTarget[p];
+                if (matched[target]) {
+                    continue;
+                }
+                int start = i - patternLength[p] + 1;
+                if (start > 0 && foldChar(input.charAt(start - 1)) != SEPARATOR) {
+                    continue;
+                }
+                if (patternWholeWord[p] && i + 1 < length && foldChar(input.charAt(i + 1)) != SEPARATOR) {
+                    continue;
+                }
+                matched[target] = true;
+                found++;
+            }
+        }
+        return found;
+    }
+
+    int getTargetCount() {
+        return targetCount;
+    }
+
+    /**
+     * Folds text for comparison: lower case, no diacritics, separators as spaces.
+     */
+    static String fold(CharSequence value) {
+        char[] folded = new char[value.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = foldChar(value.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    static char foldChar(char c) {
+        if (c < FOLD.length) {
+            return FOLD[c];
+        }
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : SEPARATOR;
+    }
+
+    private static int symbolOf(char c, int[] asciiSymbols, char[] extraChars, int[] extraSymbols) {
+        if (c < 128) {
+            return asciiSymbols[c];
+        }
+        int index = Arrays.binarySearch(extraChars, c);
+        return index >= 0 ? extraSymbols[index] : 0;
+    }
+
+    private static int[] newState(int symbolCount) {
+        int[] row = new int[symbolCount];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static char[] buildFoldTable(int size) {
+        char[] table = new char[size];
+        for (int c = 0; c < size; c++) {
+            char ch = (char) c;
+            if (!Character.isLetterOrDigit(ch)) {
+                table[c] = SEPARATOR;
+            } else if (ch == 'đ' || ch == 'Đ') {
+                // Vietnamese d-with-stroke has no canonical decomposition
+                table[c] = 'd';
+            } else {
+                String decomposed = Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFD);
+                table[c] = Character.toLowerCase(decomposed.charAt(0));
+            }
+        }
+        return table;
+    }
+}
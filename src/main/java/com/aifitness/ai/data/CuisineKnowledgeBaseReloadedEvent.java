@@ -0,0 +1,17 @@
+package com.aifitness.ai.data;
+
+/**
+ * Published after the cuisine knowledge base has been swapped for a newly loaded data file.
+ */
+public class CuisineKnowledgeBaseReloadedEvent {
+
+    private final int version;
+
+    public CuisineKnowledgeBaseReloadedEvent(int version) {
+        this.version = version;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,140 @@
+package com.aifitness.ai.data;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Cuisine Knowledge Base Watcher
+ *
+ * When cuisine.knowledge-base.path points at a data file, loads it at startup instead of the
+ * bundled copy and reloads it whenever the file changes. A file that fails to parse or validate
+ * is logged and ignored, so a bad edit never takes the previous knowledge base down.
+ *
+ * After each successful reload a {@link CuisineKnowledgeBaseReloadedEvent} is published so
+ * caches derived from the knowledge base can be dropped.
+ */
+@Component
+public class CuisineKnowledgeBaseWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CuisineKnowledgeBaseWatcher.class);
+
+    /**
+     * Editors often write a file in several steps; wait for writes to settle before reloading
+     */
+    private static final long SETTLE_MILLIS = 250;
+
+    private final String configuredPath;
+    private final ApplicationEventPublisher eventPublisher;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public CuisineKnowledgeBaseWatcher(@Value("${cuisine.knowledge-base.path:}") String configuredPath,
+                                       ApplicationEventPublisher eventPublisher) {
+        this.configuredPath = configuredPath;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (configuredPath == null || configuredPath.isBlank()) {
+            logger.info("Cuisine knowledge base v{} loaded from {}",
+                    GlobalCuisineKnowledgeBase.getVersion(), GlobalCuisineKnowledgeBase.getSource());
+            return;
+        }
+
+        Path file = Paths.get(configuredPath).toAbsolutePath().normalize();
+        reload(file);
+
+        Path directory = file.getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.error("Cannot watch {} for knowledge base changes: {}", directory, e.getMessage());
+            return;
+        }
+
+        watchThread = new Thread(() -> watch(file), "cuisine-kb-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        logger.info("Watching {} for cuisine knowledge base changes", file);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close knowledge base watch service: {}", e.getMessage());
+            }
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    private void watch(Path file) {
+        Path fileName = file.getFileName();
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (fileName.equals(event.context())) {
+                    changed = true;
+                }
+            }
+            key.reset();
+
+            if (changed) {
+                try {
+                    Thread.sleep(SETTLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // Drain events produced by the same save
+                WatchKey pending = watchService.poll();
+                if (pending != null) {
+                    pending.pollEvents();
+                    pending.reset();
+                }
+                reload(file);
+            }
+        }
+    }
+
+    private void reload(Path file) {
+        try {
+            GlobalCuisineKnowledgeBase.Snapshot snapshot = GlobalCuisineKnowledgeBase.reload(file);
+            logger.info("Cuisine knowledge base v{} loaded from {} ({} cuisines, {} meals)",
+                    snapshot.getVersion(), snapshot.getSource(), snapshot.getProfileCount(), snapshot.getMealCount());
+            eventPublisher.publishEvent(new CuisineKnowledgeBaseReloadedEvent(snapshot.getVersion()));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to load cuisine knowledge base from {}, keeping v{} from {}: {}",
+                    file, GlobalCuisineKnowledgeBase.getVersion(), GlobalCuisineKnowledgeBase.getSource(), e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,16 @@
 package com.aifitness.ai.data;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -19,49 +28,19 @@ import java.util.stream.Collectors;
  *   <li>The rule-based fallback generator has authentic regional meals to pick from.</li>
  *   <li>Intent answers can cite the same ingredient → nutrition reasoning sheet.</li>
  * </ul>
+ *
+ * <p>The data lives in {@code data/cuisine-knowledge-base.json} on the classpath and can be
+ * overridden by an external file (see {@link CuisineKnowledgeBaseWatcher}). Every load builds a
+ * complete immutable {@link Snapshot}; readers always see one snapshot, and a reload replaces
+ * the reference in a single write, so dishes can be added without a redeploy.
  */
 public final class GlobalCuisineKnowledgeBase {
 
-    private static final List<CuisineProfile> PROFILES;
-    private static final Map<String, String> INGREDIENT_LOGIC_EN;
-    private static final Map<String, String> INGREDIENT_LOGIC_VI;
+    static final String BUNDLED_RESOURCE = "data/cuisine-knowledge-base.json";
 
-    static {
-        List<CuisineProfile> profiles = new ArrayList<>();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
-        profiles.add(buildMediterranean());
-        profiles.add(buildJapanese());
-        profiles.add(buildKorean());
-        profiles.add(buildItalian());
-        profiles.add(buildIndian());
-        profiles.add(buildMexican());
-        profiles.add(buildVietnamese());
-        profiles.add(buildPlantForward());
-
-        PROFILES = Collections.unmodifiableList(profiles);
-
-        INGREDIENT_LOGIC_EN = Map.ofEntries(
-            Map.entry("chicken", "Lean protein that preserves muscle during deficits."),
-            Map.entry("fish", "Provides omega-3 fats plus high-quality protein."),
-            Map.entry("eggs", "Complete protein with satiating healthy fats."),
-            Map.entry("rice", "Training fuel that restores glycogen for workouts."),
-            Map.entry("oats", "Slow-digesting carbs that keep you full longer."),
-            Map.entry("lentils", "Plant-based protein with gut-friendly fiber."),
-            Map.entry("vegetables", "Micronutrients and volume for hunger control."),
-            Map.entry("olive oil", "Heart-healthy monounsaturated fats.")
-        );
-
-        INGREDIENT_LOGIC_VI = Map.ofEntries(
-            Map.entry("chicken", "Đạm nạc giúp giữ cơ khi cắt giảm calo."),
-            Map.entry("fish", "Cung cấp omega-3 và nguồn protein chất lượng cao."),
-            Map.entry("eggs", "Protein hoàn chỉnh kèm chất béo lành mạnh giúp no lâu."),
-            Map.entry("rice", "Nguồn năng lượng phục hồi glycogen cho buổi tập."),
-            Map.entry("oats", "Carb hấp thu chậm, tạo cảm giác no và ổn định năng lượng."),
-            Map.entry("lentils", "Đạm thực vật kèm chất xơ tốt cho hệ tiêu hóa."),
-            Map.entry("vegetables", "Giàu vi chất và tăng thể tích bữa ăn mà không tăng calo."),
-            Map.entry("olive oil", "Chất béo không bão hòa tốt cho tim mạch.")
-        );
-    }
+    private static volatile Snapshot snapshot = loadBundled();
 
     private GlobalCuisineKnowledgeBase() {
     }
@@ -70,33 +49,57 @@ public final class GlobalCuisineKnowledgeBase {
     // Public API
     // -------------------------------------------------------
 
+    /**
+     * Finds the cuisines whose aliases appear in free text, in knowledge-base order.
+     * Matching is case- and diacritic-insensitive ("dia trung hai" matches "Địa Trung Hải").
+     */
     public static List<CuisineProfile> matchCuisines(String favorites) {
         if (favorites == null || favorites.isBlank()) {
             return Collections.emptyList();
         }
-        String normalized = favorites.toLowerCase(Locale.ROOT);
-        return PROFILES.stream()
-                .filter(profile -> profile.matches(normalized))
-                .collect(Collectors.toList());
+        Snapshot current = snapshot;
+        boolean[] matched = new boolean[current.profiles.size()];
+        int count = current.aliasMatcher.match(favorites, matched);
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<CuisineProfile> profiles = new ArrayList<>(count);
+        for (int i = 0; i < matched.length; i++) {
+            if (matched[i]) {
+                profiles.add(current.profiles.get(i));
+            }
+        }
+        return profiles;
     }
 
     public static List<CuisineProfile> getAllProfiles() {
-        return PROFILES;
+        return snapshot.profiles;
     }
 
     public static List<CuisineProfile> getDefaultProfiles() {
-        return PROFILES.subList(0, Math.min(3, PROFILES.size()));
+        List<CuisineProfile> profiles = snapshot.profiles;
+        return profiles.subList(0, Math.min(3, profiles.size()));
     }
 
     public static List<MealBlueprint> getMeals(String cuisineCode, String mealType) {
         if (cuisineCode == null || mealType == null) {
             return Collections.emptyList();
         }
-        return PROFILES.stream()
-                .filter(p -> p.code.equalsIgnoreCase(cuisineCode))
-                .findFirst()
-                .map(p -> p.getMealsByType(mealType))
-                .orElse(Collections.emptyList());
+        CuisineProfile profile = findProfile(cuisineCode);
+        return profile != null ? profile.getMealsByType(mealType) : Collections.emptyList();
+    }
+
+    /**
+     * @param cuisineCode Profile code, case-insensitive
+     * @return The profile, or null if no profile has that code
+     */
+    public static CuisineProfile findProfile(String cuisineCode) {
+        if (cuisineCode == null) {
+            return null;
+        }
+        Map<String, CuisineProfile> byCode = snapshot.profilesByCode;
+        CuisineProfile profile = byCode.get(cuisineCode);
+        return profile != null ? profile : byCode.get(cuisineCode.toLowerCase(Locale.ROOT));
     }
 
     public static String buildCuisinePromptSection(List<CuisineProfile> profiles) {
@@ -127,7 +130,7 @@ public final class GlobalCuisineKnowledgeBase {
     }
 
     public static String buildIngredientLogicPrompt(String language) {
-        Map<String, String> source = "vi".equals(language) ? INGREDIENT_LOGIC_VI : INGREDIENT_LOGIC_EN;
+        Map<String, String> source = snapshot.ingredientLogic(language);
         StringBuilder sb = new StringBuilder();
         source.forEach((ingredient, reason) -> sb
                 .append("- ")
@@ -139,7 +142,7 @@ public final class GlobalCuisineKnowledgeBase {
     }
 
     public static Map<String, String> getIngredientLogic(String language) {
-        return "vi".equals(language) ? INGREDIENT_LOGIC_VI : INGREDIENT_LOGIC_EN;
+        return snapshot.ingredientLogic(language);
     }
 
     public static List<MealBlueprint> getMealsForKeywords(String favoritesOrPreference, String mealType) {
@@ -149,6 +152,10 @@ public final class GlobalCuisineKnowledgeBase {
         if (profiles.isEmpty()) {
             return Collections.emptyList();
         }
+        if (profiles.size() == 1) {
+            // Precomputed immutable list, shared without copying
+            return profiles.get(0).getMealsByType(mealType);
+        }
         List<MealBlueprint> meals = new ArrayList<>();
         for (CuisineProfile profile : profiles) {
             meals.addAll(profile.getMealsByType(mealType));
@@ -156,500 +163,169 @@ public final class GlobalCuisineKnowledgeBase {
         return meals;
     }
 
+    /**
+     * @return Version number declared by the data file currently in use
+     */
+    public static int getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * @return Where the current data was loaded from (classpath resource or file path)
+     */
+    public static String getSource() {
+        return snapshot.source;
+    }
+
     // -------------------------------------------------------
-    // Data builders
+    // Loading
     // -------------------------------------------------------
 
-    private static CuisineProfile buildMediterranean() {
-        Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Greek yogurt with honey and walnuts", "Sữa chua Hy Lạp với mật ong và óc chó",
-                380, 24, 38, 14,
-                ingredients(
-                    "Greek yogurt", "200g",
-                    "honey", "1 tbsp",
-                    "walnuts", "20g")),
-            meal("BREAKFAST", "Whole-grain toast with olive oil", "Bánh mì nguyên cám với dầu ô liu",
-                320, 10, 35, 15,
-                ingredients(
-                    "whole-grain bread", "2 slices",
-                    "extra-virgin olive oil", "1 tbsp")),
-            meal("BREAKFAST", "Vegetable omelet with spinach", "Ốp la rau củ với rau bina",
-                360, 28, 12, 20,
-                ingredients(
-                    "eggs", "3 large",
-                    "spinach", "1 cup",
-                    "tomatoes", "1/2 cup",
-                    "onions", "1/4 cup"))
-        ));
-
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Grilled chicken salad", "Salad gà nướng",
-                420, 45, 20, 18,
-                ingredients(
-                    "chicken breast", "180g",
-                    "mixed lettuce", "2 cups",
-                    "cucumber", "1/2 cup",
-                    "olive oil", "1 tbsp")),
-            meal("LUNCH", "Chickpea and feta salad", "Salad đậu gà với phô mai feta",
-                410, 20, 45, 16,
-                ingredients(
-                    "chickpeas", "1 cup",
-                    "feta cheese", "40g",
-                    "grape tomatoes", "1 cup",
-                    "olive oil", "1 tbsp")),
-            meal("LUNCH", "Tuna salad wrap", "Bánh cuốn cá ngừ",
-                450, 38, 40, 15,
-                ingredients(
-                    "tuna", "150g",
-                    "whole-grain wrap", "1 large",
-                    "mixed vegetables", "1 cup"))
-        ));
-
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Grilled salmon with roasted vegetables", "Cá hồi nướng với rau củ nướng",
-                520, 40, 30, 24,
-                ingredients(
-                    "salmon fillet", "180g",
-                    "zucchini", "1 cup",
-                    "bell peppers", "1 cup",
-                    "olive oil", "1 tbsp")),
-            meal("DINNER", "Mediterranean lentil stew", "Súp đậu lăng Địa Trung Hải",
-                480, 26, 60, 12,
-                ingredients(
-                    "lentils", "1 cup cooked",
-                    "garlic", "2 cloves",
-                    "onions", "1/2 cup",
-                    "herbs", "oregano + thyme")),
-            meal("DINNER", "Turkey meatballs with quinoa", "Thịt viên gà tây với quinoa",
-                540, 42, 45, 18,
-                ingredients(
-                    "ground turkey", "200g",
-                    "quinoa", "1 cup cooked",
-                    "parsley", "2 tbsp"))
-        ));
-
-        List<String> snacksEn = List.of("Olives", "Mixed nuts", "Hummus with vegetables");
-        List<String> snacksVi = List.of("Ô liu", "Hạt tổng hợp", "Hummus với rau củ");
+    /**
+     * Loads the knowledge base from a data file and swaps it in.
+     * If the file cannot be read or fails validation, the current snapshot stays active.
+     *
+     * @param file Path to a knowledge base JSON file
+     * @return The snapshot now in use
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static Snapshot reload(Path file) throws IOException {
+        Snapshot loaded;
+        try (InputStream in = Files.newInputStream(file)) {
+            loaded = parse(in, file.toString());
+        }
+        snapshot = loaded;
+        return loaded;
+    }
 
-        return new CuisineProfile(
-            "mediterranean",
-            List.of("mediterranean", "địa trung hải", "greek"),
-            "Mediterranean Cuisine",
-            "Ẩm thực Địa Trung Hải",
-            "Heart-healthy, lean muscle, sustainable fat loss",
-            meals,
-            snacksEn,
-            snacksVi
-        );
+    /**
+     * Restores the knowledge base bundled with the application.
+     */
+    public static Snapshot reloadBundled() {
+        Snapshot loaded = loadBundled();
+        snapshot = loaded;
+        return loaded;
     }
 
-    private static CuisineProfile buildJapanese() {
-        Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Rice with miso soup", "Cơm với súp miso",
-                340, 15, 52, 8,
-                ingredients(
-                    "steamed rice", "1 cup",
-                    "miso paste", "1 tbsp",
-                    "tofu", "80g")),
-            meal("BREAKFAST", "Tamagoyaki omelet", "Trứng cuộn tamagoyaki",
-                310, 20, 18, 14,
-                ingredients(
-                    "eggs", "3 large",
-                    "soy sauce", "1 tsp"))
-        ));
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Chicken bento box", "Cơm hộp gà Bento",
-                480, 38, 55, 12,
-                ingredients(
-                    "chicken thigh", "150g",
-                    "rice", "1 cup",
-                    "steamed vegetables", "1 cup")),
-            meal("LUNCH", "Soba noodles bowl", "Mì soba",
-                450, 20, 60, 12,
-                ingredients(
-                    "buckwheat noodles", "90g dry",
-                    "vegetables", "1 cup",
-                    "soy sauce", "1 tbsp"))
-        ));
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Sushi platter (fish-focused)", "Sushi cá tươi",
-                500, 35, 55, 10,
-                ingredients(
-                    "sushi rice", "1 cup",
-                    "mixed fish", "180g",
-                    "seaweed", "2 sheets")),
-            meal("DINNER", "Stir-fried vegetables with tofu", "Rau xào với đậu hũ",
-                420, 24, 40, 18,
-                ingredients(
-                    "tofu", "150g",
-                    "mixed vegetables", "2 cups",
-                    "sesame oil", "1 tbsp")),
-            meal("DINNER", "Teriyaki salmon bowl", "Cơm cá hồi sốt teriyaki",
-                520, 38, 55, 16,
-                ingredients(
-                    "salmon", "170g",
-                    "rice", "1 cup",
-                    "teriyaki sauce", "2 tbsp"))
-        ));
-        List<String> snacksEn = List.of("Edamame", "Roasted seaweed snacks");
-        List<String> snacksVi = List.of("Đậu nành edamame", "Rong biển nướng");
-        return new CuisineProfile(
-            "japanese",
-            List.of("japanese", "nhật", "japan"),
-            "Japanese Cuisine",
-            "Ẩm thực Nhật Bản",
-            "Clean eating, fat loss, digestion support",
-            meals,
-            snacksEn,
-            snacksVi
-        );
+    private static Snapshot loadBundled() {
+        try (InputStream in = GlobalCuisineKnowledgeBase.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing classpath resource " + BUNDLED_RESOURCE);
+            }
+            return parse(in, "classpath:" + BUNDLED_RESOURCE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load " + BUNDLED_RESOURCE + ": " + e.getMessage(), e);
+        }
     }
 
-    private static CuisineProfile buildKorean() {
-        Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Rice, eggs and kimchi", "Cơm, trứng và kimchi",
-                360, 20, 48, 10,
-                ingredients(
-                    "rice", "1 cup",
-                    "eggs", "2 large",
-                    "kimchi", "1/4 cup")),
-            meal("BREAKFAST", "Korean tofu soup", "Canh đậu phụ Hàn",
-                330, 18, 30, 14,
-                ingredients(
-                    "soft tofu", "150g",
-                    "vegetables", "1 cup"))
-        ));
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Bibimbap bowl", "Cơm trộn Bibimbap",
-                520, 30, 65, 15,
-                ingredients(
-                    "rice", "1 cup",
-                    "mixed vegetables", "1 cup",
-                    "beef or chicken", "120g",
-                    "egg", "1 sunny-side")),
-            meal("LUNCH", "Light kimchi fried rice", "Cơm chiên kimchi ít dầu",
-                480, 20, 60, 14,
-                ingredients(
-                    "rice", "1 cup",
-                    "kimchi", "1/2 cup",
-                    "eggs", "2 large"))
-        ));
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Lean Korean BBQ lettuce wraps", "BBQ Hàn ít béo cuốn xà lách",
-                540, 38, 30, 24,
-                ingredients(
-                    "beef or chicken", "180g",
-                    "garlic", "2 cloves",
-                    "lettuce", "6 leaves")),
-            meal("DINNER", "Spicy tofu stew", "Canh đậu phụ cay",
-                460, 26, 35, 18,
-                ingredients(
-                    "tofu", "200g",
-                    "gochujang chili paste", "1 tbsp",
-                    "vegetables", "1.5 cups"))
-        ));
-        List<String> snacksEn = List.of("Roasted seaweed", "Boiled eggs");
-        List<String> snacksVi = List.of("Rong biển rang", "Trứng luộc");
-        return new CuisineProfile(
-            "korean",
-            List.of("korean", "hàn", "hanguk"),
-            "Korean Cuisine",
-            "Ẩm thực Hàn Quốc",
-            "Metabolism boost, protein-rich",
-            meals,
-            snacksEn,
-            snacksVi
+    static Snapshot parse(InputStream in, String source) throws IOException {
+        JsonNode root = MAPPER.readTree(in);
+        if (root == null || !root.path("profiles").isArray()) {
+            throw new IOException(source + ": expected a \"profiles\" array");
+        }
+
+        // Ingredient names and quantities repeat across hundreds of dishes; keep one copy of each
+        Map<String, String> dictionary = new HashMap<>();
+        List<CuisineProfile> profiles = new ArrayList<>();
+        for (JsonNode node : root.path("profiles")) {
+            profiles.add(parseProfile(node, source, dictionary));
+        }
+        if (profiles.isEmpty()) {
+            throw new IOException(source + ": no cuisine profiles defined");
+        }
+
+        JsonNode logic = root.path("ingredientLogic");
+        return new Snapshot(
+            root.path("version").asInt(0),
+            source,
+            Collections.unmodifiableList(profiles),
+            readStringMap(logic.path("en")),
+            readStringMap(logic.path("vi"))
         );
     }
 
-    private static CuisineProfile buildItalian() {
+    private static CuisineProfile parseProfile(JsonNode node, String source, Map<String, String> dictionary)
+            throws IOException {
+        String code = requiredText(node, "code", source);
         Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Whole-grain toast with ricotta", "Bánh mì nguyên cám với ricotta",
-                340, 18, 42, 12,
-                ingredients(
-                    "whole-grain bread", "2 slices",
-                    "ricotta cheese", "60g")),
-            meal("BREAKFAST", "Oats with fruit", "Yến mạch với trái cây",
-                360, 12, 55, 10,
-                ingredients(
-                    "oats", "1 cup cooked",
-                    "mixed berries", "1/2 cup"))
-        ));
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Whole-wheat pasta with chicken", "Mì nguyên cám với gà",
-                520, 38, 60, 14,
-                ingredients(
-                    "whole-wheat pasta", "100g dry",
-                    "chicken breast", "180g",
-                    "tomato sauce", "1/2 cup")),
-            meal("LUNCH", "Caprese salad", "Salad Caprese",
-                410, 25, 20, 24,
-                ingredients(
-                    "mozzarella", "120g",
-                    "tomatoes", "1 cup",
-                    "olive oil", "1 tbsp"))
-        ));
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Grilled fish with vegetables", "Cá nướng với rau củ",
-                500, 42, 28, 20,
-                ingredients(
-                    "white fish", "200g",
-                    "vegetables", "1.5 cups")),
-            meal("DINNER", "Light parmesan risotto", "Risotto nhẹ với parmesan",
-                520, 20, 70, 16,
-                ingredients(
-                    "arborio rice", "3/4 cup dry",
-                    "broth", "2 cups",
-                    "parmesan", "30g"))
-        ));
+        Iterator<Map.Entry<String, JsonNode>> mealTypes = node.path("meals").fields();
+        while (mealTypes.hasNext()) {
+            Map.Entry<String, JsonNode> mealType = mealTypes.next();
+            String type = mealType.getKey().toUpperCase(Locale.ROOT);
+            List<MealBlueprint> blueprints = new ArrayList<>();
+            for (JsonNode meal : mealType.getValue()) {
+                List<Ingredient> ingredients = new ArrayList<>();
+                for (JsonNode ingredient : meal.path("ingredients")) {
+                    ingredients.add(new Ingredient(
+                        dictionary.computeIfAbsent(requiredText(ingredient, "name", source), value -> value),
+                        dictionary.computeIfAbsent(ingredient.path("quantity").asText(""), value -> value)));
+                }
+                blueprints.add(new MealBlueprint(
+                    type,
+                    requiredText(meal, "englishName", source),
+                    meal.path("vietnameseName").asText(""),
+                    nonNegative(meal, "calories", source),
+                    nonNegative(meal, "protein", source),
+                    nonNegative(meal, "carbs", source),
+                    nonNegative(meal, "fats", source),
+                    List.copyOf(ingredients)));
+            }
+            meals.put(type, List.copyOf(blueprints));
+        }
+
+        List<String> aliases = readStringList(node.path("aliases")).stream()
+                .map(alias -> alias.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+        if (aliases.isEmpty()) {
+            throw new IOException(source + ": cuisine '" + code + "' has no aliases");
+        }
+
         return new CuisineProfile(
-            "italian",
-            List.of("italian", "ý", "italy"),
-            "Italian Cuisine (portion-controlled)",
-            "Ẩm thực Ý (kiểm soát khẩu phần)",
-            "Energy and muscle gain with mindful portions",
-            meals,
-            List.of(),
-            List.of()
+            code,
+            List.copyOf(aliases),
+            node.path("englishName").asText(code),
+            node.path("vietnameseName").asText(""),
+            node.path("fitnessProfile").asText(""),
+            Collections.unmodifiableMap(meals),
+            readStringList(node.path("snacksEnglish")),
+            readStringList(node.path("snacksVietnamese"))
         );
     }
 
-    private static CuisineProfile buildIndian() {
-        Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Oats upma", "Yến mạch upma",
-                360, 12, 55, 12,
-                ingredients(
-                    "oats", "1 cup",
-                    "mixed vegetables", "1 cup")),
-            meal("BREAKFAST", "Idli with sambar", "Bánh idli với canh sambar",
-                330, 12, 55, 6,
-                ingredients(
-                    "idli", "2 pieces",
-                    "sambar", "1 cup"))
-        ));
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Dal with brown rice", "Đậu lăng với gạo lứt",
-                460, 20, 68, 10,
-                ingredients(
-                    "lentil dal", "1 cup",
-                    "brown rice", "1 cup")),
-            meal("LUNCH", "Chickpea curry", "Cà ri đậu gà",
-                430, 18, 50, 14,
-                ingredients(
-                    "chickpeas", "1 cup",
-                    "spice blend", "garam masala + turmeric"))
-        ));
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Grilled tandoori chicken", "Gà tandoori nướng",
-                520, 46, 20, 24,
-                ingredients(
-                    "chicken", "200g",
-                    "yogurt marinade", "1/2 cup",
-                    "spices", "tandoori blend")),
-            meal("DINNER", "Mixed vegetable curry", "Cà ri rau củ",
-                450, 15, 55, 16,
-                ingredients(
-                    "mixed vegetables", "2 cups",
-                    "spice blend", "cumin + coriander"))
-        ));
-        return new CuisineProfile(
-            "indian",
-            List.of("indian", "ấn độ", "india"),
-            "Indian Cuisine",
-            "Ẩm thực Ấn Độ",
-            "High vegetarian protein and metabolic support",
-            meals,
-            List.of(),
-            List.of()
-        );
+    private static String requiredText(JsonNode node, String field, String source) throws IOException {
+        String value = node.path(field).asText("");
+        if (value.isBlank()) {
+            throw new IOException(source + ": missing \"" + field + "\" in " + node);
+        }
+        return value;
     }
 
-    private static CuisineProfile buildMexican() {
-        Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Eggs, avocado and tortilla", "Trứng, bơ và tortilla",
-                380, 22, 28, 20,
-                ingredients(
-                    "eggs", "2 large",
-                    "avocado", "1/2 medium",
-                    "corn tortilla", "2 pieces"))
-        ));
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Chicken tacos", "Taco gà",
-                480, 38, 45, 18,
-                ingredients(
-                    "chicken", "150g",
-                    "tortillas", "3 small",
-                    "vegetables", "1 cup")),
-            meal("LUNCH", "Burrito bowl", "Bát burrito",
-                520, 32, 60, 16,
-                ingredients(
-                    "rice", "1 cup",
-                    "beans", "1/2 cup",
-                    "chicken or beef", "120g"))
-        ));
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Grilled fish tacos", "Taco cá nướng",
-                500, 35, 48, 18,
-                ingredients(
-                    "white fish", "160g",
-                    "tortillas", "3 small",
-                    "cabbage slaw", "1 cup")),
-            meal("DINNER", "Stuffed peppers with beans", "Ớt chuông nhồi đậu",
-                470, 28, 50, 16,
-                ingredients(
-                    "bell peppers", "2 large",
-                    "beans", "1 cup",
-                    "lean meat", "120g"))
-        ));
-        return new CuisineProfile(
-            "mexican",
-            List.of("mexican", "mexico", "latin"),
-            "Mexican Cuisine (healthy style)",
-            "Ẩm thực Mexico lành mạnh",
-            "High-energy meals that still support lean muscle",
-            meals,
-            List.of(),
-            List.of()
-        );
+    private static int nonNegative(JsonNode node, String field, String source) throws IOException {
+        int value = node.path(field).asInt(-1);
+        if (value < 0) {
+            throw new IOException(source + ": \"" + field + "\" must be a non-negative number in " + node);
+        }
+        return value;
     }
 
-    private static CuisineProfile buildVietnamese() {
-        Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Beef or chicken pho", "Phở bò hoặc phở gà",
-                430, 28, 55, 10,
-                ingredients(
-                    "rice noodles", "1 bowl",
-                    "beef or chicken", "150g",
-                    "herbs", "Thai basil + cilantro")),
-            meal("BREAKFAST", "Egg banh mi", "Bánh mì trứng",
-                420, 20, 48, 16,
-                ingredients(
-                    "baguette", "1 small",
-                    "eggs", "2 fried",
-                    "vegetables", "pickled carrots + cucumbers"))
-        ));
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Bun thit nuong bowl", "Bún thịt nướng",
-                520, 32, 60, 16,
-                ingredients(
-                    "rice vermicelli", "1 cup",
-                    "grilled pork", "150g",
-                    "herbs", "mint + basil")),
-            meal("LUNCH", "Vietnamese chicken cabbage salad", "Gỏi gà",
-                450, 30, 32, 18,
-                ingredients(
-                    "shredded chicken", "150g",
-                    "cabbage", "2 cups",
-                    "herbs", "coriander + mint"))
-        ));
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Steamed fish with rice", "Cá hấp với cơm trắng",
-                500, 42, 50, 12,
-                ingredients(
-                    "white fish", "200g",
-                    "rice", "1 cup",
-                    "ginger", "1 knob")),
-            meal("DINNER", "Vegetable soup (canh rau)", "Canh rau",
-                360, 18, 40, 10,
-                ingredients(
-                    "seasonal vegetables", "2 cups",
-                    "light broth", "2 cups"))
-        ));
-        return new CuisineProfile(
-            "vietnamese",
-            List.of("vietnamese", "việt", "viet"),
-            "Vietnamese Cuisine",
-            "Ẩm thực Việt Nam",
-            "Lean and digestion-friendly meals",
-            meals,
-            List.of(),
-            List.of()
-        );
+    private static List<String> readStringList(JsonNode node) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode value : node) {
+            values.add(value.asText());
+        }
+        return List.copyOf(values);
     }
 
-    private static CuisineProfile buildPlantForward() {
-        Map<String, List<MealBlueprint>> meals = new LinkedHashMap<>();
-        meals.put("BREAKFAST", List.of(
-            meal("BREAKFAST", "Smoothie bowl with toppings", "Smoothie bowl với topping",
-                360, 12, 55, 12,
-                ingredients(
-                    "frozen fruit", "1.5 cups",
-                    "plant milk", "1 cup",
-                    "granola", "1/4 cup")),
-            meal("BREAKFAST", "Oatmeal with fruits", "Cháo yến mạch với trái cây",
-                340, 10, 58, 8,
-                ingredients(
-                    "rolled oats", "1 cup cooked",
-                    "seasonal fruits", "1/2 cup"))
-        ));
-        meals.put("LUNCH", List.of(
-            meal("LUNCH", "Lentil salad", "Salad đậu lăng",
-                430, 24, 50, 12,
-                ingredients(
-                    "cooked lentils", "1 cup",
-                    "mixed vegetables", "1.5 cups")),
-            meal("LUNCH", "Tofu stir-fry", "Đậu hũ xào rau củ",
-                420, 26, 40, 16,
-                ingredients(
-                    "tofu", "180g",
-                    "vegetables", "2 cups"))
-        ));
-        meals.put("DINNER", List.of(
-            meal("DINNER", "Chickpea curry", "Cà ri đậu gà chay",
-                440, 20, 55, 14,
-                ingredients(
-                    "chickpeas", "1 cup",
-                    "vegetables", "1.5 cups")),
-            meal("DINNER", "Tofu vegetable stir-fry", "Đậu hũ xào rau",
-                430, 28, 42, 16,
-                ingredients(
-                    "firm tofu", "200g",
-                    "mixed vegetables", "2 cups"))
-        ));
-        return new CuisineProfile(
-            "plant",
-            List.of("vegetarian", "vegan", "plant", "plant-based"),
-            "Vegetarian / Vegan",
-            "Chế độ chay / thuần chay",
-            "Fat loss and gut health with plant protein",
-            meals,
-            List.of(),
-            List.of()
-        );
+    private static Map<String, String> readStringMap(JsonNode node) {
+        Map<String, String> values = new LinkedHashMap<>();
+        node.fields().forEachRemaining(entry -> values.put(entry.getKey(), entry.getValue().asText()));
+        return Collections.unmodifiableMap(values);
     }
 
     // -------------------------------------------------------
-    // Helper builders
+    // Helpers
     // -------------------------------------------------------
 
-    private static MealBlueprint meal(String mealType,
-                                      String englishName,
-                                      String vietnameseName,
-                                      int calories,
-                                      int protein,
-                                      int carbs,
-                                      int fats,
-                                      List<Ingredient> ingredients) {
-        return new MealBlueprint(mealType, englishName, vietnameseName, calories, protein, carbs, fats, ingredients);
-    }
-
-    private static List<Ingredient> ingredients(String... values) {
-        List<Ingredient> list = new ArrayList<>();
-        for (int i = 0; i < values.length; i += 2) {
-            String name = values[i];
-            String qty = (i + 1) < values.length ? values[i + 1] : "";
-            list.add(new Ingredient(name, qty));
-        }
-        return list;
-    }
-
     private static String titleCase(String value) {
         if (value == null || value.isBlank()) {
             return "";
@@ -678,6 +354,7 @@ public final class GlobalCuisineKnowledgeBase {
         private final int carbs;
         private final int fats;
         private final List<Ingredient> ingredients;
+        private final String ingredientsJson;
 
         private MealBlueprint(String mealType,
                               String englishName,
@@ -695,6 +372,8 @@ public final class GlobalCuisineKnowledgeBase {
             this.carbs = carbs;
             this.fats = fats;
             this.ingredients = ingredients;
+            // Blueprints are immutable, so the payload is built once and shared by every entry
+            this.ingredientsJson = buildIngredientsJson(ingredients);
         }
 
         public String getMealType() {
@@ -725,18 +404,25 @@ public final class GlobalCuisineKnowledgeBase {
             return fats;
         }
 
+        /**
+         * @return Ingredients as {@code [{"name":..,"quantityText":..}]}, the format stored on meal plan entries
+         */
         public String toIngredientsJson() {
+            return ingredientsJson;
+        }
+
+        private static String buildIngredientsJson(List<Ingredient> ingredients) {
             if (ingredients == null || ingredients.isEmpty()) {
                 return "[]";
             }
             StringBuilder sb = new StringBuilder("[");
             for (int i = 0; i < ingredients.size(); i++) {
                 Ingredient ingredient = ingredients.get(i);
-                sb.append("{\"name\":\"")
-                  .append(escape(ingredient.name))
-                  .append("\",\"quantityText\":\"")
-                  .append(escape(ingredient.quantity))
-                  .append("\"}");
+                sb.append("{\"name\":\"");
+                appendEscaped(sb, ingredient.name);
+                sb.append("\",\"quantityText\":\"");
+                appendEscaped(sb, ingredient.quantity);
+                sb.append("\"}");
                 if (i < ingredients.size() - 1) {
                     sb.append(",");
                 }
@@ -745,11 +431,20 @@ public final class GlobalCuisineKnowledgeBase {
             return sb.toString();
         }
 
-        private String escape(String value) {
+        private static void appendEscaped(StringBuilder sb, String value) {
             if (value == null) {
-                return "";
+                return;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
             }
-            return value.replace("\"", "\\\"");
         }
     }
 
@@ -781,10 +476,6 @@ public final class GlobalCuisineKnowledgeBase {
             this.snacksVietnamese = snacksVietnamese;
         }
 
-        public boolean matches(String normalizedPreferences) {
-            return aliases.stream().anyMatch(normalizedPreferences::contains);
-        }
-
         public List<MealBlueprint> getMealsByType(String mealType) {
             return mealsByType.getOrDefault(mealType, Collections.emptyList());
         }
@@ -827,7 +518,60 @@ public final class GlobalCuisineKnowledgeBase {
             this.quantity = quantity;
         }
     }
-}
 
+    /**
+     * One immutable load of the knowledge base.
+     */
+    public static final class Snapshot {
+        private final int version;
+        private final String source;
+        private final List<CuisineProfile> profiles;
+        private final Map<String, String> ingredientLogicEnglish;
+        private final Map<String, String> ingredientLogicVietnamese;
+        private final Map<String, CuisineProfile> profilesByCode;
+        private final CuisineAliasMatcher aliasMatcher;
+
+        private Snapshot(int version,
+                         String source,
+                         List<CuisineProfile> profiles,
+                         Map<String, String> ingredientLogicEnglish,
+                         Map<String, String> ingredientLogicVietnamese) {
+            this.version = version;
+            this.source = source;
+            this.profiles = profiles;
+            this.ingredientLogicEnglish = ingredientLogicEnglish;
+            this.ingredientLogicVietnamese = ingredientLogicVietnamese;
+
+            Map<String, CuisineProfile> byCode = new HashMap<>();
+            List<List<String>> aliases = new ArrayList<>();
+            for (CuisineProfile profile : profiles) {
+                byCode.putIfAbsent(profile.code.toLowerCase(Locale.ROOT), profile);
+                aliases.add(profile.aliases);
+            }
+            this.profilesByCode = Collections.unmodifiableMap(byCode);
+            this.aliasMatcher = CuisineAliasMatcher.compile(aliases);
+        }
 
+        private Map<String, String> ingredientLogic(String language) {
+            return "vi".equals(language) ? ingredientLogicVietnamese : ingredientLogicEnglish;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getSource() {
+            return source;
+        }
 
+        public int getProfileCount() {
+            return profiles.size();
+        }
+
+        public int getMealCount() {
+            return profiles.stream()
+                    .mapToInt(profile -> profile.mealsByType.values().stream().mapToInt(List::size).sum())
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,570 @@
+package com.aifitness.ai.data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Nearest-neighbour index over meal macro vectors, used to suggest meal substitutions.
+ *
+ * <p>Every candidate meal (rule-based catalog and knowledge-base blueprints) is a point
+ * in (calories, protein, carbs, fats) space. Each dimension is scaled by its standard
+ * deviation across the catalog so that one gram of fat and one calorie do not weigh the
+ * same. One balanced k-d tree is built per meal type; queries walk the tree with a bounded
+ * max-heap and skip points whose diet or allergen masks are not compatible with the user.
+ *
+ * <p>Diet and allergen compliance are precomputed bit masks, so filtering during the
+ * search is a couple of AND operations per visited point.
+ */
+public final class MealSubstitutionIndex {
+
+    // -------------------------------------------------------
+    // Diet bits: a candidate's mask has the bit of every diet it is compatible with
+    // -------------------------------------------------------
+
+    public static final int DIET_OMNIVORE = 1;
+    public static final int DIET_VEGETARIAN = 1 << 1;
+    public static final int DIET_VEGAN = 1 << 2;
+    public static final int DIET_PESCATARIAN = 1 << 3;
+    public static final int DIET_HALAL = 1 << 4;
+    public static final int DIET_KOSHER = 1 << 5;
+
+    // -------------------------------------------------------
+    // Allergen bits: a candidate's mask has the bit of every allergen it contains
+    // -------------------------------------------------------
+
+    public static final int ALLERGEN_DAIRY = 1;
+    public static final int ALLERGEN_EGG = 1 << 1;
+    public static final int ALLERGEN_NUTS = 1 << 2;
+    public static final int ALLERGEN_FISH = 1 << 3;
+    public static final int ALLERGEN_SHELLFISH = 1 << 4;
+    public static final int ALLERGEN_GLUTEN = 1 << 5;
+    public static final int ALLERGEN_SOY = 1 << 6;
+
+    private static final Map<String, Integer> DIET_BITS = Map.of(
+        "omnivore", DIET_OMNIVORE,
+        "vegetarian", DIET_VEGETARIAN,
+        "vegan", DIET_VEGAN,
+        "pescatarian", DIET_PESCATARIAN,
+        "halal", DIET_HALAL,
+        "kosher", DIET_KOSHER
+    );
+
+    private static final String[] MEAT_KEYWORDS = {
+        "chicken", "beef", "pork", "lamb", "turkey", "bacon", "ham", "sausage", "bulgogi", "steak", "duck"
+    };
+    private static final String[] PORK_KEYWORDS = {"pork", "bacon", "ham", "prosciutto"};
+    private static final String[] FISH_KEYWORDS = {
+        "salmon", "tuna", "fish", "cod", "mackerel", "anchovy", "anchovies", "sardine", "tilapia"
+    };
+    private static final String[] SHELLFISH_KEYWORDS = {"shrimp", "prawn", "crab", "lobster", "clam", "mussel", "squid"};
+    private static final String[] DAIRY_KEYWORDS = {
+        "milk", "yogurt", "cheese", "butter", "feta", "parmesan", "mozzarella", "paneer", "ghee", "cream", "whey"
+    };
+    private static final String[] EGG_KEYWORDS = {"egg", "omelet", "omelette"};
+    private static final String[] NUT_KEYWORDS = {"almond", "walnut", "peanut", "cashew", "pistachio", "nuts", "pecan"};
+    private static final String[] GLUTEN_KEYWORDS = {
+        "bread", "toast", "pasta", "flour", "tortilla", "wheat", "soba", "pancake", "granola", "barley", "couscous"
+    };
+    private static final String[] SOY_KEYWORDS = {"soy", "tofu", "edamame", "miso", "tempeh"};
+    private static final String[] HONEY_KEYWORDS = {"honey"};
+
+    /**
+     * Plant-based products whose names contain an animal keyword
+     */
+    private static final String[] PLANT_BASED_PHRASES = {
+        "plant milk", "coconut milk", "almond milk", "oat milk", "soy milk", "rice milk",
+        "almond butter", "peanut butter", "cashew butter", "coconut cream", "vegan cheese"
+    };
+
+    /**
+     * Allergy wording users type → allergen bit
+     */
+    private static final Map<String, Integer> ALLERGY_TERMS = Map.ofEntries(
+        Map.entry("dairy", ALLERGEN_DAIRY),
+        Map.entry("milk", ALLERGEN_DAIRY),
+        Map.entry("lactose", ALLERGEN_DAIRY),
+        Map.entry("egg", ALLERGEN_EGG),
+        Map.entry("nut", ALLERGEN_NUTS),
+        Map.entry("peanut", ALLERGEN_NUTS),
+        Map.entry("almond", ALLERGEN_NUTS),
+        Map.entry("fish", ALLERGEN_FISH),
+        Map.entry("shellfish", ALLERGEN_SHELLFISH),
+        Map.entry("shrimp", ALLERGEN_SHELLFISH),
+        Map.entry("seafood", ALLERGEN_FISH | ALLERGEN_SHELLFISH),
+        Map.entry("gluten", ALLERGEN_GLUTEN),
+        Map.entry("wheat", ALLERGEN_GLUTEN),
+        Map.entry("soy", ALLERGEN_SOY)
+    );
+
+    private static final int DIMENSIONS = 4;
+
+    private final Map<String, KdTree> treesByMealType;
+    private final Map<String, Candidate> candidatesByKey;
+    private final double[] scale;
+
+    private MealSubstitutionIndex(Map<String, KdTree> treesByMealType,
+                                  Map<String, Candidate> candidatesByKey,
+                                  double[] scale) {
+        this.treesByMealType = treesByMealType;
+        this.candidatesByKey = candidatesByKey;
+        this.scale = scale;
+    }
+
+    // -------------------------------------------------------
+    // Public API
+    // -------------------------------------------------------
+
+    /**
+     * Builds the index. Candidates with the same meal type and name are expected to be merged by the caller.
+     *
+     * @param candidates All candidate meals
+     * @return Immutable index
+     */
+    public static MealSubstitutionIndex build(List<Candidate> candidates) {
+        double[] scale = computeScale(candidates);
+
+        Map<String, List<Candidate>> byType = new HashMap<>();
+        Map<String, Candidate> byKey = new HashMap<>();
+        for (Candidate candidate : candidates) {
+            byType.computeIfAbsent(candidate.mealType, key -> new ArrayList<>()).add(candidate);
+            byKey.put(key(candidate.mealType, candidate.name), candidate);
+        }
+
+        Map<String, KdTree> trees = new HashMap<>();
+        byType.forEach((mealType, list) -> trees.put(mealType, new KdTree(list, scale)));
+        return new MealSubstitutionIndex(
+                Collections.unmodifiableMap(trees), Collections.unmodifiableMap(byKey), scale);
+    }
+
+    /**
+     * Finds the k candidates of a meal type closest to the given macros that pass the masks and filter.
+     *
+     * @param mealType Meal type to search (BREAKFAST, LUNCH, DINNER, SNACK)
+     * @param calories Target calories
+     * @param protein Target protein (g)
+     * @param carbs Target carbs (g)
+     * @param fats Target fats (g)
+     * @param k Number of results
+     * @param requiredDiet Diet bit the candidate must support (see {@link #dietMaskFor})
+     * @param forbiddenAllergens Allergen bits the candidate must not contain (see {@link #allergenMaskFor})
+     * @param filter Additional per-candidate filter (e.g. exclude the current meal, disliked foods)
+     * @return Nearest candidates, closest first
+     */
+    public List<Match> nearest(String mealType, double calories, double protein, double carbs, double fats,
+                               int k, int requiredDiet, int forbiddenAllergens, Predicate<Candidate> filter) {
+        KdTree tree = mealType != null ? treesByMealType.get(mealType) : null;
+        if (tree == null || k <= 0) {
+            return Collections.emptyList();
+        }
+        double[] query = {calories * scale[0], protein * scale[1], carbs * scale[2], fats * scale[3]};
+        return tree.nearest(query, k, candidate ->
+                (candidate.dietMask & requiredDiet) != 0
+                        && (candidate.allergenMask & forbiddenAllergens) == 0
+                        && (filter == null || filter.test(candidate)));
+    }
+
+    /**
+     * Looks up a candidate by meal type and exact name.
+     */
+    public Candidate find(String mealType, String name) {
+        return candidatesByKey.get(key(mealType, name));
+    }
+
+    public int size() {
+        return candidatesByKey.size();
+    }
+
+    /**
+     * Diet bit for a user's dietary preference. Unknown or empty preferences count as omnivore,
+     * matching the rule-based generator.
+     */
+    public static int dietMaskFor(String dietaryPreference) {
+        if (dietaryPreference == null || dietaryPreference.isBlank()) {
+            return DIET_OMNIVORE;
+        }
+        return DIET_BITS.getOrDefault(dietaryPreference.trim().toLowerCase(Locale.ROOT), DIET_OMNIVORE);
+    }
+
+    /**
+     * Diet bit for one of the catalog's diet list names, or 0 if unknown.
+     */
+    public static int dietBit(String diet) {
+        return diet == null ? 0 : DIET_BITS.getOrDefault(diet.toLowerCase(Locale.ROOT), 0);
+    }
+
+    /**
+     * Allergen bits for a user's comma-separated allergies text. Terms that do not map
+     * to a known allergen are ignored here and must be filtered by text.
+     */
+    public static int allergenMaskFor(String allergies) {
+        if (allergies == null || allergies.isBlank()) {
+            return 0;
+        }
+        int mask = 0;
+        for (String term : allergies.split(",")) {
+            String normalized = normalize(term).trim();
+            for (Map.Entry<String, Integer> entry : ALLERGY_TERMS.entrySet()) {
+                if (normalized.contains(entry.getKey())) {
+                    mask |= entry.getValue();
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Infers the diets a meal is compatible with from its name and ingredients.
+     */
+    public static int inferDietMask(String text) {
+        String normalized = maskPlantBasedPhrases(normalize(text));
+        boolean meat = containsAny(normalized, MEAT_KEYWORDS);
+        boolean pork = containsAny(normalized, PORK_KEYWORDS);
+        boolean fish = containsAny(normalized, FISH_KEYWORDS);
+        boolean shellfish = containsAny(normalized, SHELLFISH_KEYWORDS);
+        boolean animalProduct = containsAny(normalized, DAIRY_KEYWORDS)
+                || containsAny(normalized, EGG_KEYWORDS)
+                || containsAny(normalized, HONEY_KEYWORDS);
+
+        int mask = DIET_OMNIVORE;
+        if (!meat) {
+            mask |= DIET_PESCATARIAN;
+            if (!fish && !shellfish) {
+                mask |= DIET_VEGETARIAN;
+                if (!animalProduct) {
+                    mask |= DIET_VEGAN;
+                }
+            }
+        }
+        if (!pork) {
+            mask |= DIET_HALAL;
+            if (!shellfish) {
+                mask |= DIET_KOSHER;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Infers the allergens a meal contains from its name and ingredients.
+     */
+    public static int inferAllergenMask(String text) {
+        String normalized = normalize(text);
+        int mask = 0;
+        if (containsAny(maskPlantBasedPhrases(normalized), DAIRY_KEYWORDS)) {
+            mask |= ALLERGEN_DAIRY;
+        }
+        if (containsAny(normalized, EGG_KEYWORDS)) {
+            mask |= ALLERGEN_EGG;
+        }
+        if (containsAny(normalized, NUT_KEYWORDS)) {
+            mask |= ALLERGEN_NUTS;
+        }
+        if (containsAny(normalized, FISH_KEYWORDS)) {
+            mask |= ALLERGEN_FISH;
+        }
+        if (containsAny(normalized, SHELLFISH_KEYWORDS)) {
+            mask |= ALLERGEN_SHELLFISH;
+        }
+        if (containsAny(normalized, GLUTEN_KEYWORDS)) {
+            mask |= ALLERGEN_GLUTEN;
+        }
+        if (containsAny(normalized, SOY_KEYWORDS)) {
+            mask |= ALLERGEN_SOY;
+        }
+        return mask;
+    }
+
+    /**
+     * Lowercases and strips diacritics, so Vietnamese input matches its ASCII form.
+     */
+    public static String normalize(String input) {
+        if (input == null) {
+            return "";
+        }
+        return Normalizer.normalize(input, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    // -------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------
+
+    private static String key(String mealType, String name) {
+        return mealType + "|" + name;
+    }
+
+    /**
+     * True if any keyword occurs as a whole word, allowing a plural "s"/"es"
+     * ("egg" matches "eggs" but not "eggplant").
+     */
+    private static boolean containsAny(String text, String[] keywords) {
+        for (String keyword : keywords) {
+            int from = 0;
+            int at;
+            while ((at = text.indexOf(keyword, from)) >= 0) {
+                int end = at + keyword.length();
+                if (text.startsWith("es", end)) {
+                    end += 2;
+                } else if (text.startsWith("s", end)) {
+                    end++;
+                }
+                boolean startsWord = at == 0 || !Character.isLetter(text.charAt(at - 1));
+                boolean endsWord = end >= text.length() || !Character.isLetter(text.charAt(end));
+                if (startsWord && endsWord) {
+                    return true;
+                }
+                from = at + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hides phrases like "coconut milk" so their animal keyword does not count.
+     */
+    private static String maskPlantBasedPhrases(String text) {
+        String result = text;
+        for (String phrase : PLANT_BASED_PHRASES) {
+            if (result.contains(phrase)) {
+                result = result.replace(phrase, "");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Per-dimension 1 / standard deviation, so every macro contributes comparably to the distance.
+     */
+    private static double[] computeScale(List<Candidate> candidates) {
+        double[] scale = new double[DIMENSIONS];
+        Arrays.fill(scale, 1.0);
+        if (candidates.size() < 2) {
+            return scale;
+        }
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double sum = 0;
+            double sumSquares = 0;
+            for (Candidate candidate : candidates) {
+                double value = candidate.raw(d);
+                sum += value;
+                sumSquares += value * value;
+            }
+            double mean = sum / candidates.size();
+            double variance = Math.max(0, sumSquares / candidates.size() - mean * mean);
+            double deviation = Math.sqrt(variance);
+            scale[d] = deviation > 1e-9 ? 1.0 / deviation : 1.0;
+        }
+        return scale;
+    }
+
+    /**
+     * Balanced k-d tree stored implicitly in arrays: the node of range [lo, hi) is its midpoint,
+     * split on axis depth % 4.
+     */
+    private static final class KdTree {
+        private final Candidate[] points;
+        private final double[][] coords;
+
+        private KdTree(List<Candidate> candidates, double[] scale) {
+            int n = candidates.size();
+            this.points = candidates.toArray(new Candidate[0]);
+            this.coords = new double[n][DIMENSIONS];
+            for (int i = 0; i < n; i++) {
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    coords[i][d] = points[i].raw(d) * scale[d];
+                }
+            }
+            build(0, n, 0);
+        }
+
+        private void build(int lo, int hi, int depth) {
+            if (hi - lo <= 1) {
+                return;
+            }
+            int axis = depth % DIMENSIONS;
+            Integer[] order = new Integer[hi - lo];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = lo + i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> coords[i][axis]));
+            Candidate[] sortedPoints = new Candidate[order.length];
+            double[][] sortedCoords = new double[order.length][];
+            for (int i = 0; i < order.length; i++) {
+                sortedPoints[i] = points[order[i]];
+                sortedCoords[i] = coords[order[i]];
+            }
+            System.arraycopy(sortedPoints, 0, points, lo, order.length);
+            System.arraycopy(sortedCoords, 0, coords, lo, order.length);
+
+            int mid = (lo + hi) >>> 1;
+            build(lo, mid, depth + 1);
+            build(mid + 1, hi, depth + 1);
+        }
+
+        private List<Match> nearest(double[] query, int k, Predicate<Candidate> accept) {
+            // Max-heap on distance holding the best k so far
+            PriorityQueue<Match> best = new PriorityQueue<>(k + 1,
+                    Comparator.comparingDouble((Match m) -> m.distance).reversed());
+            search(0, points.length, 0, query, k, accept, best);
+            List<Match> result = new ArrayList<>(best);
+            result.sort(Comparator.comparingDouble(m -> m.distance));
+            return result;
+        }
+
+        private void search(int lo, int hi, int depth, double[] query, int k,
+                            Predicate<Candidate> accept, PriorityQueue<Match> best) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            int axis = depth % DIMENSIONS;
+
+            if (accept.test(points[mid])) {
+                double distance = squaredDistance(coords[mid], query);
+                if (best.size() < k) {
+                    best.add(new Match(points[mid], distance));
+                } else if (distance < best.peek().distance) {
+                    best.poll();
+                    best.add(new Match(points[mid], distance));
+                }
+            }
+
+            double delta = query[axis] - coords[mid][axis];
+            boolean goLeft = delta < 0;
+            search(goLeft ? lo : mid + 1, goLeft ? mid : hi, depth + 1, query, k, accept, best);
+            if (best.size() < k || delta * delta < best.peek().distance) {
+                search(goLeft ? mid + 1 : lo, goLeft ? hi : mid, depth + 1, query, k, accept, best);
+            }
+        }
+
+        private static double squaredDistance(double[] a, double[] b) {
+            double sum = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double diff = a[d] - b[d];
+                sum += diff * diff;
+            }
+            return sum;
+        }
+    }
+
+    // -------------------------------------------------------
+    // Nested data holders
+    // -------------------------------------------------------
+
+    /**
+     * A meal that can be offered as a substitute.
+     */
+    public static final class Candidate {
+        private final String mealType;
+        private final String name;
+        private final int calories;
+        private final int protein;
+        private final int carbs;
+        private final int fats;
+        private final String ingredientsJson;
+        private final int dietMask;
+        private final int allergenMask;
+        private final String searchText;
+
+        public Candidate(String mealType, String name, int calories, int protein, int carbs, int fats,
+                         String ingredientsJson, int dietMask) {
+            this.mealType = mealType;
+            this.name = name;
+            this.calories = calories;
+            this.protein = protein;
+            this.carbs = carbs;
+            this.fats = fats;
+            this.ingredientsJson = ingredientsJson != null ? ingredientsJson : "[]";
+            this.searchText = normalize(name + " " + this.ingredientsJson);
+            this.dietMask = dietMask;
+            this.allergenMask = inferAllergenMask(searchText);
+        }
+
+        private double raw(int dimension) {
+            switch (dimension) {
+                case 0:
+                    return calories;
+                case 1:
+                    return protein;
+                case 2:
+                    return carbs;
+                default:
+                    return fats;
+            }
+        }
+
+        public String getMealType() {
+            return mealType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCalories() {
+            return calories;
+        }
+
+        public int getProtein() {
+            return protein;
+        }
+
+        public int getCarbs() {
+            return carbs;
+        }
+
+        public int getFats() {
+            return fats;
+        }
+
+        public String getIngredientsJson() {
+            return ingredientsJson;
+        }
+
+        public int getDietMask() {
+            return dietMask;
+        }
+
+        public int getAllergenMask() {
+            return allergenMask;
+        }
+
+        /**
+         * Lowercased, diacritic-free name + ingredients, for free-text exclusion filters.
+         */
+        public String getSearchText() {
+            return searchText;
+        }
+    }
+
+    /**
+     * A search result: candidate plus its squared distance in scaled macro space.
+     */
+    public static final class Match {
+        private final Candidate candidate;
+        private final double distance;
+
+        private Match(Candidate candidate, double distance) {
+            this.candidate = candidate;
+            this.distance = distance;
+        }
+
+        public Candidate getCandidate() {
+            return candidate;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.aifitness.config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Endpoint Rate Limit Policy
+ *
+ * Policy table for the expensive AI and generation endpoints. Each endpoint belongs to an
+ * endpoint class; every class has a burst bandwidth (tokens per minute) and a sustained
+ * bandwidth (tokens per hour), and each endpoint draws a weighted number of tokens per call.
+ *
+ * Defaults (tokens):
+ * - GENERATION: burst 30/min, sustained 120/hour (weekly plan = 10, regenerate day = 3, regenerate meal = 1)
+ * - CHAT:       burst 10/min, sustained 200/hour (chat = 1)
+ * - ADVICE:     burst 10/min, sustained 120/hour (advice = 1)
+ * - CONTEXT:    burst 30/min, sustained 600/hour (context, history = 1)
+ *
+ * Bandwidths can be overridden per class, e.g.:
+ *   rate-limit.generation.burst-per-minute=30
+ *   rate-limit.generation.sustained-per-hour=120
+ */
+@Component
+public class EndpointRateLimitPolicy {
+
+    static final Duration BURST_PERIOD = Duration.ofMinutes(1);
+    static final Duration SUSTAINED_PERIOD = Duration.ofHours(1);
+
+    public enum EndpointClass {
+        GENERATION(30, 120),
+        CHAT(10, 200),
+        ADVICE(10, 120),
+        CONTEXT(30, 600);
+
+        private final long defaultBurstPerMinute;
+        private final long defaultSustainedPerHour;
+
+        EndpointClass(long defaultBurstPerMinute, long defaultSustainedPerHour) {
+            this.defaultBurstPerMinute = defaultBurstPerMinute;
+            this.defaultSustainedPerHour = defaultSustainedPerHour;
+        }
+
+        String propertyPrefix() {
+            return "rate-limit." + name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Endpoint rule: HTTP method and path (relative to the context path) → class and token cost
+     */
+    public record Rule(String method, String path, EndpointClass endpointClass, long cost) {
+    }
+
+    private static final List<Rule> RULES = List.of(
+        // Meal plan generation (MealPlanController is mapped under both /ai/meals and /ai)
+        new Rule("POST", "/ai/meals/generate", EndpointClass.GENERATION, 10),
+        new Rule("POST", "/ai/meals/meal-plan", EndpointClass.GENERATION, 10),
+        new Rule("POST", "/ai/generate", EndpointClass.GENERATION, 10),
+        new Rule("POST", "/ai/meal-plan", EndpointClass.GENERATION, 10),
+        new Rule("POST", "/meal/generate-weekly", EndpointClass.GENERATION, 10),
+        new Rule("POST", "/ai/meals/regenerate/day", EndpointClass.GENERATION, 3),
+        new Rule("POST", "/ai/regenerate/day", EndpointClass.GENERATION, 3),
+        new Rule("POST", "/ai/meals/regenerate/meal", EndpointClass.GENERATION, 1),
+        new Rule("POST", "/ai/regenerate/meal", EndpointClass.GENERATION, 1),
+        // Coach chat
+        new Rule("POST", "/ai/chat", EndpointClass.CHAT, 1),
+        new Rule("POST", "/ai/coach/chat", EndpointClass.CHAT, 1),
+        // Coach advice
+        new Rule("GET", "/ai/coach/advice", EndpointClass.ADVICE, 1),
+        new Rule("GET", "/ai/advice", EndpointClass.ADVICE, 1),
+        // AI context
+        new Rule("GET", "/ai/context", EndpointClass.CONTEXT, 1),
+        new Rule("GET", "/ai/history", EndpointClass.CONTEXT, 1)
+    );
+
+    private final Map<EndpointClass, BucketConfiguration> configurations = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Long> capacities = new EnumMap<>(EndpointClass.class);
+
+    public EndpointRateLimitPolicy(Environment environment) {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            long burst = Math.max(1, environment.getProperty(endpointClass.propertyPrefix() + ".burst-per-minute",
+                    Long.class, endpointClass.defaultBurstPerMinute));
+            long sustained = Math.max(1, environment.getProperty(endpointClass.propertyPrefix() + ".sustained-per-hour",
+                    Long.class, endpointClass.defaultSustainedPerHour));
+            configurations.put(endpointClass, BucketConfiguration.builder()
+                    .addLimit(Bandwidth.classic(burst, Refill.greedy(burst, BURST_PERIOD)))
+                    .addLimit(Bandwidth.classic(sustained, Refill.greedy(sustained, SUSTAINED_PERIOD)))
+                    .build());
+            capacities.put(endpointClass, Math.min(burst, sustained));
+        }
+    }
+
+    /**
+     * Finds the rule for a request.
+     *
+     * @param method HTTP method
+     * @param path Request path without the context path
+     * @return Matching rule, or null when the endpoint is not limited per user
+     */
+    public Rule match(String method, String path) {
+        String normalized = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        for (Rule rule : RULES) {
+            if (rule.method().equalsIgnoreCase(method) && rule.path().equals(normalized)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    public BucketConfiguration getConfiguration(EndpointClass endpointClass) {
+        return configurations.get(endpointClass);
+    }
+
+    /**
+     * @return Time an empty bucket of any class needs to refill completely; stores must not expire
+     *         a bucket that has been idle for less, or a drained budget comes back early
+     */
+    public Duration getLongestRefillPeriod() {
+        return SUSTAINED_PERIOD;
+    }
+
+    /**
+     * @return Largest number of tokens the class allows at once, reported as X-RateLimit-Limit
+     */
+    public long getLimit(EndpointClass endpointClass) {
+        return capacities.get(endpointClass);
+    }
+}
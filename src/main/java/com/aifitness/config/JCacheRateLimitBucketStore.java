@@ -0,0 +1,40 @@
+package com.aifitness.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.grid.jcache.JCacheProxyManager;
+
+import javax.cache.Cache;
+
+/**
+ * Bucket store backed by a JCache (JSR-107) cache.
+ *
+ * Bucket state is kept in the cache as bytes and updated with entry processors, so with a
+ * clustered provider (Hazelcast, Infinispan, Ignite, ...) every instance consumes from the same
+ * bucket. Size bounds and idle expiry are handled by the cache's own configuration.
+ */
+public class JCacheRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final Cache<String, byte[]> cache;
+    private final JCacheProxyManager<String> proxyManager;
+
+    public JCacheRateLimitBucketStore(Cache<String, byte[]> cache) {
+        this.cache = cache;
+        this.proxyManager = new JCacheProxyManager<>(cache);
+    }
+
+    @Override
+    public Bucket resolve(String key, BucketConfiguration configuration) {
+        return proxyManager.builder().build(key, () -> configuration);
+    }
+
+    /**
+     * Only clears this node's view when the cache is local; clustered state is left to expire.
+     */
+    @Override
+    public void clear() {
+        if (!cache.isClosed()) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.aifitness.config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process bucket store with a hard size bound and idle expiry.
+ *
+ * Buckets live in an access-ordered map, so the least recently used bucket is always at the head:
+ * idle buckets are expired from the head on every access, and when the map is full the head is evicted.
+ * Memory therefore stays flat when an attacker sprays requests from many IPs.
+ *
+ * An idle timeout at least as long as the longest refill period loses nothing: a bucket that has been
+ * idle that long has refilled completely and is equivalent to a new one.
+ */
+public class LocalRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final int maxEntries;
+    private final long idleTimeoutNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long evictions;
+
+    public LocalRateLimitBucketStore(int maxEntries, Duration idleTimeout) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    @Override
+    public Bucket resolve(String key, BucketConfiguration configuration) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            expireIdle(now);
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(newBucket(configuration));
+                entries.put(key, entry);
+                if (entries.size() > maxEntries) {
+                    Iterator<Entry> eldest = entries.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+            entry.lastAccessNanos = now;
+            return entry.bucket;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return Number of buckets dropped because the store was full (not counting idle expiry)
+     */
+    public long getEvictions() {
+        synchronized (entries) {
+            return evictions;
+        }
+    }
+
+    private void expireIdle(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().getValue().lastAccessNanos < idleTimeoutNanos) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static Bucket newBucket(BucketConfiguration configuration) {
+        LocalBucketBuilder builder = Bucket.builder();
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+
+    private static final class Entry {
+        private final Bucket bucket;
+        private long lastAccessNanos;
+
+        private Entry(Bucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.aifitness.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Storage for rate-limit buckets used by {@link RateLimitingFilter}.
+ *
+ * Implementations:
+ * - {@link LocalRateLimitBucketStore}: in-process, size-bounded, idle-expiring (default)
+ * - {@link JCacheRateLimitBucketStore}: backed by a JCache provider so limits are shared across instances
+ *
+ * Selected with rate-limit.store=local|jcache (see {@link RateLimitStoreConfig}).
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Returns the bucket for a key, creating it with the given configuration if it does not exist.
+     *
+     * @param key Bucket key, e.g. "203.0.113.7:login"
+     * @param configuration Limits for a newly created bucket
+     * @return The bucket to consume from
+     */
+    Bucket resolve(String key, BucketConfiguration configuration);
+
+    /**
+     * Drops all buckets held by this instance.
+     */
+    void clear();
+}
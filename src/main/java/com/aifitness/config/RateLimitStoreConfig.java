@@ -0,0 +1,78 @@
+package com.aifitness.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.AccessedExpiryPolicy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate Limit Store Configuration
+ *
+ * rate-limit.store=local (default): {@link LocalRateLimitBucketStore}, bounded by
+ * rate-limit.max-buckets and expiring buckets idle for rate-limit.idle-timeout-minutes.
+ *
+ * rate-limit.store=jcache: {@link JCacheRateLimitBucketStore} on the JCache provider found on the
+ * classpath (configure it via its own file, e.g. hazelcast.xml). The "rate-limit-buckets" cache is
+ * created with access-based expiry when the provider does not define it already.
+ *
+ * Expiring a bucket is only lossless once it has refilled completely, so the idle timeout is
+ * raised to the longest refill period of the per-user buckets (one hour, see
+ * {@link EndpointRateLimitPolicy#getLongestRefillPeriod()}) when configured lower. A provider
+ * that defines the cache itself must use an expiry at least that long.
+ */
+@Configuration
+public class RateLimitStoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitStoreConfig.class);
+
+    static final String CACHE_NAME = "rate-limit-buckets";
+
+    @Bean
+    public RateLimitBucketStore rateLimitBucketStore(
+            @Value("${rate-limit.store:local}") String store,
+            @Value("${rate-limit.max-buckets:100000}") int maxBuckets,
+            @Value("${rate-limit.idle-timeout-minutes:60}") long configuredIdleTimeoutMinutes,
+            EndpointRateLimitPolicy endpointPolicy) {
+
+        long idleTimeoutMinutes = Math.max(configuredIdleTimeoutMinutes,
+                endpointPolicy.getLongestRefillPeriod().toMinutes());
+        if (idleTimeoutMinutes != configuredIdleTimeoutMinutes) {
+            logger.warn("rate-limit.idle-timeout-minutes={} is shorter than the longest refill period; using {} min",
+                    configuredIdleTimeoutMinutes, idleTimeoutMinutes);
+        }
+
+        if ("jcache".equalsIgnoreCase(store)) {
+            CacheManager cacheManager;
+            try {
+                cacheManager = Caching.getCachingProvider().getCacheManager();
+            } catch (Exception e) {
+                throw new IllegalStateException(
+                        "rate-limit.store=jcache requires a JCache provider on the classpath: " + e.getMessage(), e);
+            }
+            Cache<String, byte[]> cache = cacheManager.getCache(CACHE_NAME, String.class, byte[].class);
+            if (cache == null) {
+                MutableConfiguration<String, byte[]> configuration = new MutableConfiguration<String, byte[]>()
+                        .setTypes(String.class, byte[].class)
+                        .setExpiryPolicyFactory(AccessedExpiryPolicy.factoryOf(
+                                new javax.cache.expiry.Duration(TimeUnit.MINUTES, idleTimeoutMinutes)));
+                cache = cacheManager.createCache(CACHE_NAME, configuration);
+            }
+            logger.info("Rate limiting uses shared JCache store '{}' ({})", CACHE_NAME,
+                    cacheManager.getCachingProvider().getClass().getName());
+            return new JCacheRateLimitBucketStore(cache);
+        }
+
+        logger.info("Rate limiting uses local store (max {} buckets, idle timeout {} min)",
+                maxBuckets, idleTimeoutMinutes);
+        return new LocalRateLimitBucketStore(maxBuckets, Duration.ofMinutes(idleTimeoutMinutes));
+    }
+}
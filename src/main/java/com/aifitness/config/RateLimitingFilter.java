@@ -1,5 +1,6 @@
 package com.aifitness.config;
 
+import com.aifitness.security.AuthPrincipal;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
@@ -10,18 +11,20 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Rate Limiting Filter
@@ -37,9 +40,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * Rate limits (Development):
  * - More relaxed limits for local development
  * 
+ * Expensive AI and generation endpoints are limited per authenticated user and endpoint class
+ * with weighted token costs, see {@link EndpointRateLimitPolicy}. The security filter chain runs
+ * before this filter, so the authenticated principal is already available; anonymous calls
+ * fall back to the client IP.
+ * 
+ * Every limited response carries X-RateLimit-Limit, X-RateLimit-Remaining and X-RateLimit-Reset
+ * (seconds until the bucket is full again); rejected requests also get Retry-After.
+ * 
  * Uses Bucket4j token bucket algorithm for efficient rate limiting.
  * 
- * Note: In production, consider using Redis-backed rate limiting for distributed systems.
+ * Buckets are kept in a {@link RateLimitBucketStore}: a bounded, idle-expiring local store by default,
+ * or a JCache-backed store shared across instances (rate-limit.store=jcache).
  */
 @Component
 @Order(1) // Execute before other filters
@@ -50,9 +62,11 @@ public class RateLimitingFilter implements Filter {
     private final Environment environment;
     private final boolean isProduction;
     
-    // In-memory storage for rate limit buckets (per IP)
-    // In production, use Redis or similar distributed cache
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Rate limit buckets per IP + endpoint
+    private final RateLimitBucketStore buckets;
+    
+    // Per-user limits for AI and generation endpoints
+    private final EndpointRateLimitPolicy endpointPolicy;
     
     // Production rate limits - more reasonable for signup
     private static final Bandwidth SIGNUP_LIMIT_PROD = Bandwidth.classic(10, Refill.intervally(10, Duration.ofMinutes(15)));
@@ -66,8 +80,12 @@ public class RateLimitingFilter implements Filter {
     private static final Bandwidth VERIFY_LIMIT_DEV = Bandwidth.classic(100, Refill.intervally(100, Duration.ofMinutes(15)));
     private static final Bandwidth RESEND_VERIFY_LIMIT_DEV = Bandwidth.classic(20, Refill.intervally(20, Duration.ofMinutes(15)));
     
-    public RateLimitingFilter(Environment environment) {
+    public RateLimitingFilter(Environment environment,
+                              RateLimitBucketStore buckets,
+                              EndpointRateLimitPolicy endpointPolicy) {
         this.environment = environment;
+        this.buckets = buckets;
+        this.endpointPolicy = endpointPolicy;
         this.isProduction = environment.getActiveProfiles().length > 0 && 
                            java.util.Arrays.asList(environment.getActiveProfiles()).contains("production");
         logger.info("Rate limiting filter initialized - Environment: {}, Production: {}", 
@@ -88,7 +106,7 @@ public class RateLimitingFilter implements Filter {
         
         String path = httpRequest.getRequestURI();
         
-        // Only apply rate limiting to auth endpoints
+        // Auth endpoints are limited per IP, AI and generation endpoints per user
         if (path.startsWith("/api/auth/") || path.startsWith("/auth/")) {
             String clientIp = getClientIpAddress(httpRequest);
             
@@ -115,23 +133,12 @@ public class RateLimitingFilter implements Filter {
             }
             
             // Get or create bucket for this IP+endpoint combination
-            Bucket bucket = buckets.computeIfAbsent(bucketKey, k -> {
-                logger.debug("Creating new rate limit bucket for IP: {} endpoint: {}", clientIp, bucketKey);
-                return Bucket.builder()
+            BucketConfiguration configuration = BucketConfiguration.builder()
                     .addLimit(limit)
                     .build();
-            });
             
-            // Try to consume a token
-            if (!bucket.tryConsume(1)) {
+            if (!tryConsume(bucketKey, configuration, 1, limit.getCapacity(), httpResponse)) {
                 logger.warn("Rate limit exceeded for IP: {} on path: {} (bucket: {})", clientIp, path, bucketKey);
-                
-                httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-                httpResponse.setContentType("application/json");
-                httpResponse.getWriter().write(
-                    "{\"success\":false,\"message\":\"Too many requests. Please try again later.\",\"timestamp\":\"" +
-                    java.time.Instant.now().toString() + "\"}"
-                );
                 return;
             }
             
@@ -139,12 +146,72 @@ public class RateLimitingFilter implements Filter {
             if (isProduction) {
                 logger.debug("Rate limit check passed for IP: {} on path: {}", clientIp, path);
             }
+        } else {
+            String applicationPath = path.substring(Math.min(httpRequest.getContextPath().length(), path.length()));
+            EndpointRateLimitPolicy.Rule rule = endpointPolicy.match(httpRequest.getMethod(), applicationPath);
+            if (rule != null) {
+                EndpointRateLimitPolicy.EndpointClass endpointClass = rule.endpointClass();
+                String subject = resolveSubject(httpRequest);
+                String bucketKey = subject + ":" + endpointClass.name().toLowerCase(java.util.Locale.ROOT);
+                long limit = endpointPolicy.getLimit(endpointClass);
+                
+                if (!tryConsume(bucketKey, endpointPolicy.getConfiguration(endpointClass),
+                        Math.min(rule.cost(), limit), limit, httpResponse)) {
+                    logger.warn("Rate limit exceeded for {} on path: {} (class: {}, cost: {})",
+                               subject, path, endpointClass, rule.cost());
+                    return;
+                }
+            }
         }
         
         // Continue with the filter chain
         chain.doFilter(request, response);
     }
     
+    /**
+     * Consumes tokens from the bucket and writes the rate limit headers.
+     * On rejection the 429 response is written and false is returned.
+     */
+    private boolean tryConsume(String bucketKey,
+                               BucketConfiguration configuration,
+                               long cost,
+                               long limit,
+                               HttpServletResponse httpResponse) throws IOException {
+        Bucket bucket = buckets.resolve(bucketKey, configuration);
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(cost);
+        
+        httpResponse.setHeader("X-RateLimit-Limit", String.valueOf(limit));
+        httpResponse.setHeader("X-RateLimit-Remaining", String.valueOf(probe.getRemainingTokens()));
+        httpResponse.setHeader("X-RateLimit-Reset", String.valueOf(toSeconds(probe.getNanosToWaitForReset())));
+        if (probe.isConsumed()) {
+            return true;
+        }
+        
+        httpResponse.setHeader("Retry-After", String.valueOf(Math.max(1, toSeconds(probe.getNanosToWaitForRefill()))));
+        httpResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        httpResponse.setContentType("application/json");
+        httpResponse.getWriter().write(
+            "{\"success\":false,\"message\":\"Too many requests. Please try again later.\",\"timestamp\":\"" +
+            java.time.Instant.now().toString() + "\"}"
+        );
+        return false;
+    }
+    
+    private static long toSeconds(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+    
+    /**
+     * Rate limit subject: the authenticated user id, or the client IP for anonymous requests.
+     */
+    private String resolveSubject(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthPrincipal principal) {
+            return "user:" + principal.getId();
+        }
+        return "ip:" + getClientIpAddress(request);
+    }
+    
     /**
      * Extracts the client IP address from the request.
      * Handles proxy headers (X-Forwarded-For, X-Real-IP) for deployments behind load balancers.
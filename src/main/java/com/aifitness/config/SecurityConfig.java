@@ -1,6 +1,7 @@
 package com.aifitness.config;
 
 import com.aifitness.security.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -57,10 +58,12 @@ public class SecurityConfig {
      * 
      * This replaces the custom password encryption from mainOne.java.
      * BCrypt is a one-way hashing algorithm (cannot be decrypted).
+     * The cost factor comes from auth.bcrypt.strength; existing hashes with another cost
+     * are rehashed on the next successful login (see PasswordHashingService).
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
     
     /**
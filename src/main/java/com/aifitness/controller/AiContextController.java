@@ -4,9 +4,8 @@ import com.aifitness.dto.ApiResponse;
 import com.aifitness.dto.AiContextResponse;
 import com.aifitness.dto.AiHistoryResponse;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthenticatedUserResolver;
 import com.aifitness.ai.AiCoachService;
-import com.aifitness.util.JwtTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,37 +28,20 @@ public class AiContextController {
     private static final Logger logger = LoggerFactory.getLogger(AiContextController.class);
     
     private final AiCoachService aiCoachService;
-    private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
     public AiContextController(AiCoachService aiCoachService,
-                              JwtTokenService jwtTokenService,
-                              UserRepository userRepository) {
+                              AuthenticatedUserResolver authenticatedUserResolver) {
         this.aiCoachService = aiCoachService;
-        this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
-    }
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
     }
     
     /**
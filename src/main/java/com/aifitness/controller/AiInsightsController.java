@@ -0,0 +1,177 @@
+package com.aifitness.controller;
+
+import com.aifitness.ai.AiInsightsService;
+import com.aifitness.dto.ApiResponse;
+import com.aifitness.dto.TrendInsightsResponse;
+import com.aifitness.dto.WeightForecastResponse;
+import com.aifitness.security.AuthPrincipal;
+import com.aifitness.security.AuthenticatedUserResolver;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * AI Insights Controller
+ * 
+ * Handles endpoints for long-term trend insights.
+ */
+@RestController
+@RequestMapping("/ai/insights")
+public class AiInsightsController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AiInsightsController.class);
+    
+    private final AiInsightsService aiInsightsService;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    
+    @Autowired
+    public AiInsightsController(AiInsightsService aiInsightsService,
+                                AuthenticatedUserResolver authenticatedUserResolver) {
+        this.aiInsightsService = aiInsightsService;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+    }
+    
+    /**
+     * Helper method to get the authenticated user's principal without loading the user.
+     */
+    private AuthPrincipal getAuthenticatedPrincipal(HttpServletRequest request) {
+        return authenticatedUserResolver.resolvePrincipal(request);
+    }
+    
+    /**
+     * GET /api/ai/insights/trends
+     * 
+     * Returns the authenticated user's weight trend, adherence over the last 7 and 28 days,
+     * and plateau status. Served from the per-user trend state, not from check-in history.
+     * 
+     * plateauStatus is one of INSUFFICIENT_DATA, ON_TRACK, SLOWING, PLATEAU, FLAT.
+     * changePointDate, previousWeeklyRate and currentWeeklyRate are set once a change in the
+     * weight trend has been detected.
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Trend insights retrieved successfully",
+     *   "data": {
+     *     "asOf": "2024-03-01",
+     *     "weightEntries": 48,
+     *     "lastWeightDate": "2024-03-01",
+     *     "latestWeight": 80.6,
+     *     "smoothedWeight": 80.8,
+     *     "weeklyWeightChange": -0.12,
+     *     "lastWeek": { "days": 7, "daysLogged": 6, "workouts": 3, "stepGoalDays": 4 },
+     *     "last4Weeks": { "days": 28, "daysLogged": 25, "workouts": 13, "stepGoalDays": 15 },
+     *     "plateauStatus": "PLATEAU",
+     *     "changePointDate": "2024-02-12",
+     *     "previousWeeklyRate": -0.55,
+     *     "currentWeeklyRate": -0.03
+     *   },
+     *   "timestamp": "2024-03-01T10:30:00"
+     * }
+     */
+    @GetMapping("/trends")
+    public ResponseEntity<ApiResponse<TrendInsightsResponse>> getTrends(HttpServletRequest request) {
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            logger.info("[RequestId: {}] GET /api/ai/insights/trends - START", requestId);
+            
+            // Get authenticated user
+            userId = getAuthenticatedPrincipal(request).getId();
+            
+            TrendInsightsResponse trends = aiInsightsService.getTrendAnalysis(userId, LocalDate.now());
+            
+            logger.info("[RequestId: {}] Trend insights for userId={}: status={}", 
+                    requestId, userId, trends.getPlateauStatus());
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Trend insights retrieved successfully",
+                    trends
+            ));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in getTrends for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in getTrends for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while retrieving trend insights. Please try again later."));
+        }
+    }
+    
+    /**
+     * GET /api/ai/insights/predictions?days=30
+     * 
+     * Forecasts the authenticated user's weight for the coming days with 80% and 95% bands.
+     * The forecast blends the recent (damped) weight trend with the energy balance of logged
+     * calories versus TDEE, and is served from a cached per-user model.
+     * 
+     * Query Parameters:
+     * - days: Number of days to forecast (default: 30, max: 90)
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Weight forecast retrieved successfully",
+     *   "data": {
+     *     "status": "FORECAST",
+     *     "lastWeightDate": "2024-03-01",
+     *     "smoothedWeight": 80.8,
+     *     "trendPerWeek": -0.35,
+     *     "energyBalancePerWeek": -0.45,
+     *     "fittedAt": "2024-03-01T03:30:00",
+     *     "points": [
+     *       { "date": "2024-03-02", "weight": 80.75, "lower80": 80.1, "upper80": 81.4, "lower95": 79.76, "upper95": 81.74 }
+     *     ]
+     *   },
+     *   "timestamp": "2024-03-01T10:30:00"
+     * }
+     */
+    @GetMapping("/predictions")
+    public ResponseEntity<ApiResponse<WeightForecastResponse>> getPredictions(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "30") int days) {
+        
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            logger.info("[RequestId: {}] GET /api/ai/insights/predictions - START", requestId);
+            
+            // Get authenticated user
+            userId = getAuthenticatedPrincipal(request).getId();
+            
+            WeightForecastResponse forecast = aiInsightsService.getPredictions(userId, days);
+            
+            logger.info("[RequestId: {}] Weight forecast for userId={}: status={}, days={}", 
+                    requestId, userId, forecast.getStatus(), forecast.getPoints().size());
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Weight forecast retrieved successfully",
+                    forecast
+            ));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in getPredictions for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in getPredictions for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while forecasting weight. Please try again later."));
+        }
+    }
+}
@@ -2,10 +2,9 @@ package com.aifitness.controller;
 
 import com.aifitness.dto.*;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthenticatedUserResolver;
 import com.aifitness.service.BodyMetricsService;
 import com.aifitness.service.NutritionService;
-import com.aifitness.util.JwtTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -24,41 +23,24 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "http://localhost:3000")
 public class CalculationController {
     
-    private final UserRepository userRepository;
     private final BodyMetricsService bodyMetricsService;
     private final NutritionService nutritionService;
-    private final JwtTokenService jwtTokenService;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
-    public CalculationController(UserRepository userRepository,
-                                 BodyMetricsService bodyMetricsService,
+    public CalculationController(BodyMetricsService bodyMetricsService,
                                  NutritionService nutritionService,
-                                 JwtTokenService jwtTokenService) {
-        this.userRepository = userRepository;
+                                 AuthenticatedUserResolver authenticatedUserResolver) {
         this.bodyMetricsService = bodyMetricsService;
         this.nutritionService = nutritionService;
-        this.jwtTokenService = jwtTokenService;
+        this.authenticatedUserResolver = authenticatedUserResolver;
     }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
     }
     
     /**
@@ -1,12 +1,17 @@
 package com.aifitness.controller;
 
 import com.aifitness.dto.ApiResponse;
+import com.aifitness.dto.CheckInImportResponse;
+import com.aifitness.dto.CheckInRollupResponse;
 import com.aifitness.dto.DailyCheckInRequest;
 import com.aifitness.dto.DailyCheckInResponse;
+import com.aifitness.dto.HistoryPageResponse;
+import com.aifitness.entity.DailyCheckInRollup;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthPrincipal;
+import com.aifitness.security.AuthenticatedUserResolver;
+import com.aifitness.service.DailyCheckInImportService;
 import com.aifitness.service.DailyCheckInService;
-import com.aifitness.util.JwtTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -17,6 +22,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
@@ -34,37 +42,30 @@ public class DailyCheckInController {
     private static final Logger logger = LoggerFactory.getLogger(DailyCheckInController.class);
     
     private final DailyCheckInService dailyCheckInService;
-    private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
+    private final DailyCheckInImportService dailyCheckInImportService;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
     public DailyCheckInController(DailyCheckInService dailyCheckInService,
-                                  JwtTokenService jwtTokenService,
-                                  UserRepository userRepository) {
+                                  DailyCheckInImportService dailyCheckInImportService,
+                                  AuthenticatedUserResolver authenticatedUserResolver) {
         this.dailyCheckInService = dailyCheckInService;
-        this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
-    }
+        this.dailyCheckInImportService = dailyCheckInImportService;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
+    }
+    
+    /**
+     * Helper method to get the authenticated user's principal without loading the user.
+     */
+    private AuthPrincipal getAuthenticatedPrincipal(HttpServletRequest request) {
+        return authenticatedUserResolver.resolvePrincipal(request);
     }
     
     /**
@@ -108,9 +109,9 @@ public class DailyCheckInController {
             logger.info("[RequestId: {}] GET /api/ai/coach/checkins - START", requestId);
             
             // Get authenticated user
-            User user = getAuthenticatedUser(request);
-            userId = user.getId();
-            logger.info("[RequestId: {}] Authenticated user: userId={}, username={}", requestId, userId, user.getUsername());
+            AuthPrincipal principal = getAuthenticatedPrincipal(request);
+            userId = principal.getId();
+            logger.info("[RequestId: {}] Authenticated user: userId={}, username={}", requestId, userId, principal.getUsername());
             
             // Set defaults if not provided
             if (end == null) {
@@ -127,7 +128,7 @@ public class DailyCheckInController {
             }
             
             // Get check-ins
-            List<DailyCheckInResponse> checkIns = dailyCheckInService.getCheckInsForDateRange(user, start, end);
+            List<DailyCheckInResponse> checkIns = dailyCheckInService.getCheckInsForDateRange(userId, start, end);
             
             logger.info("[RequestId: {}] Retrieved {} check-ins for userId={}", requestId, checkIns.size(), userId);
             
@@ -149,6 +150,146 @@ public class DailyCheckInController {
         }
     }
     
+    /**
+     * GET /api/ai/coach/checkins/history?before=YYYY-MM-DD&limit=30
+     * 
+     * Browses the authenticated user's check-in history page by page, newest first.
+     * Uses keyset pagination on (user_id, date), so deep pages cost the same as the first one.
+     * 
+     * Query Parameters:
+     * - before: Only check-ins dated before this date (YYYY-MM-DD), optional; omit for the most recent page
+     * - limit: Page size (default: 30, max: 100)
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Check-in history retrieved successfully",
+     *   "data": {
+     *     "items": [
+     *       { "id": 42, "date": "2024-01-15", "weight": 75.5, ... }
+     *     ],
+     *     "nextBefore": "2023-12-17",
+     *     "hasMore": true
+     *   },
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
+     */
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<HistoryPageResponse<DailyCheckInResponse>>> getCheckInHistory(
+            HttpServletRequest request,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(defaultValue = "30") int limit) {
+        
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            logger.info("[RequestId: {}] GET /api/ai/coach/checkins/history - START", requestId);
+            
+            // Get authenticated user
+            userId = getAuthenticatedPrincipal(request).getId();
+            
+            HistoryPageResponse<DailyCheckInResponse> page = dailyCheckInService.getCheckInHistory(userId, before, limit);
+            
+            logger.info("[RequestId: {}] Retrieved {} check-ins (before={}) for userId={}", 
+                    requestId, page.getItems().size(), before, userId);
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Check-in history retrieved successfully",
+                    page
+            ));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in getCheckInHistory for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in getCheckInHistory for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while retrieving check-ins. Please try again later."));
+        }
+    }
+    
+    /**
+     * GET /api/ai/coach/checkins/rollups?period=week&count=12
+     * 
+     * Gets weekly (ISO week, Monday start) or monthly check-in aggregates for the authenticated user.
+     * Reads one precomputed row per period instead of every daily check-in.
+     * 
+     * Query Parameters:
+     * - period: "week" or "month" (default: week)
+     * - count: Number of periods with check-ins to return (default: 12, max: 104)
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Check-in rollups retrieved successfully",
+     *   "data": [
+     *     {
+     *       "period": "WEEK",
+     *       "periodStart": "2024-01-15",
+     *       "daysLogged": 6,
+     *       "workoutCount": 4,
+     *       "totalSteps": 51000,
+     *       "averageSteps": 8500.0,
+     *       "averageWeight": 75.4,
+     *       "minWeight": 75.1,
+     *       "maxWeight": 75.8
+     *     }
+     *   ],
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<ApiResponse<List<CheckInRollupResponse>>> getRollups(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "week") String period,
+            @RequestParam(defaultValue = "12") int count) {
+        
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            logger.info("[RequestId: {}] GET /api/ai/coach/checkins/rollups - START", requestId);
+            
+            String periodType;
+            if ("week".equalsIgnoreCase(period)) {
+                periodType = DailyCheckInRollup.PERIOD_WEEK;
+            } else if ("month".equalsIgnoreCase(period)) {
+                periodType = DailyCheckInRollup.PERIOD_MONTH;
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Period must be 'week' or 'month'"));
+            }
+            
+            // Get authenticated user
+            userId = getAuthenticatedPrincipal(request).getId();
+            
+            List<CheckInRollupResponse> rollups = dailyCheckInService.getRollups(userId, periodType, count);
+            
+            logger.info("[RequestId: {}] Retrieved {} {} rollups for userId={}", 
+                    requestId, rollups.size(), periodType, userId);
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Check-in rollups retrieved successfully",
+                    rollups
+            ));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in getRollups for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in getRollups for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while retrieving check-in rollups. Please try again later."));
+        }
+    }
+    
     /**
      * POST /api/ai/coach/checkins
      * 
@@ -219,15 +360,85 @@ public class DailyCheckInController {
                     .body(ApiResponse.error("An error occurred while saving check-in. Please try again later."));
         }
     }
+    
+    /**
+     * POST /api/ai/coach/checkins/import?format=csv|ndjson
+     * 
+     * Imports many daily check-ins in one request, e.g. weight and steps exported from a wearable.
+     * The request body is the raw file. Existing check-ins for the same dates are updated with the
+     * provided fields only, so the same file can be imported again safely.
+     * 
+     * Query Parameters:
+     * - format: "csv" or "ndjson", optional; defaults from Content-Type (text/csv → csv, otherwise ndjson)
+     * 
+     * CSV body (header required, only date is mandatory):
+     *   date,weight,steps,workoutDone,notes
+     *   2024-01-14,75.8,9120,true,
+     *   2024-01-15,75.5,8500,false,"Rest day, long walk"
+     * 
+     * NDJSON body (one object per line):
+     *   {"date":"2024-01-14","weight":75.8,"steps":9120,"workoutDone":true}
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Check-ins imported successfully",
+     *   "data": {
+     *     "totalRows": 366,
+     *     "imported": 365,
+     *     "failed": 1,
+     *     "errors": [ { "line": 42, "message": "Invalid date '2024-02-30', expected YYYY-MM-DD" } ],
+     *     "errorsTruncated": false
+     *   },
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse<CheckInImportResponse>> importCheckIns(
+            HttpServletRequest request,
+            @RequestParam(required = false) String format) {
+        
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            logger.info("[RequestId: {}] POST /api/ai/coach/checkins/import - START", requestId);
+            
+            // Get authenticated user
+            userId = getAuthenticatedPrincipal(request).getId();
+            
+            String importFormat = format != null ? format.trim().toLowerCase() : null;
+            if (importFormat == null) {
+                String contentType = request.getContentType();
+                importFormat = contentType != null && contentType.toLowerCase().startsWith("text/csv")
+                        ? DailyCheckInImportService.FORMAT_CSV
+                        : DailyCheckInImportService.FORMAT_NDJSON;
+            }
+            
+            CheckInImportResponse result;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+                result = dailyCheckInImportService.importCheckIns(userId, reader, importFormat);
+            }
+            
+            logger.info("[RequestId: {}] Imported {} of {} check-ins for userId={} ({} rejected)", 
+                    requestId, result.getImported(), result.getTotalRows(), userId, result.getFailed());
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Check-ins imported successfully",
+                    result
+            ));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in importCheckIns for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in importCheckIns for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while importing check-ins. Please try again later."));
+        }
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
@@ -4,9 +4,8 @@ import com.aifitness.dto.ApiResponse;
 import com.aifitness.dto.FeedbackRequest;
 import com.aifitness.entity.User;
 import com.aifitness.exception.EmailServiceException;
-import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthenticatedUserResolver;
 import com.aifitness.service.EmailService;
-import com.aifitness.util.JwtTokenService;
 import com.aifitness.util.StringSanitizer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -30,37 +29,20 @@ public class FeedbackController {
     private static final String FEEDBACK_EMAIL = "dangtuanjt@gmail.com";
     
     private final EmailService emailService;
-    private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
     public FeedbackController(EmailService emailService,
-                             JwtTokenService jwtTokenService,
-                             UserRepository userRepository) {
+                             AuthenticatedUserResolver authenticatedUserResolver) {
         this.emailService = emailService;
-        this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
-    }
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
     }
     
     /**
@@ -1,65 +1,65 @@
 package com.aifitness.controller;
 
 import com.aifitness.dto.ApiResponse;
+import com.aifitness.dto.LeaderboardResponse;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
+import com.aifitness.repository.UserRewardRepository;
+import com.aifitness.security.AuthPrincipal;
+import com.aifitness.security.AuthenticatedUserResolver;
+import com.aifitness.service.Badge;
 import com.aifitness.service.GamificationService;
-import com.aifitness.util.JwtTokenService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.aifitness.service.LeaderboardService;
+import com.aifitness.service.StreakService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 
 /**
  * Gamification Controller
  * 
- * Handles gamification status and rewards endpoints.
+ * Handles gamification status, rewards, streak freeze and leaderboard endpoints.
  */
 @RestController
 @RequestMapping("/gamification")
 public class GamificationController {
     
     private final GamificationService gamificationService;
-    private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
+    private final LeaderboardService leaderboardService;
+    private final StreakService streakService;
+    private final UserRewardRepository userRewardRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
     public GamificationController(GamificationService gamificationService,
-                                  JwtTokenService jwtTokenService,
-                                  UserRepository userRepository,
-                                  ObjectMapper objectMapper) {
+                                  LeaderboardService leaderboardService,
+                                  StreakService streakService,
+                                  UserRewardRepository userRewardRepository,
+                                  AuthenticatedUserResolver authenticatedUserResolver) {
         this.gamificationService = gamificationService;
-        this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
-        this.objectMapper = objectMapper;
+        this.leaderboardService = leaderboardService;
+        this.streakService = streakService;
+        this.userRewardRepository = userRewardRepository;
+        this.authenticatedUserResolver = authenticatedUserResolver;
     }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
+    }
+    
+    /**
+     * Helper method to get the authenticated user's principal without loading the user.
+     */
+    private AuthPrincipal getAuthenticatedPrincipal(HttpServletRequest request) {
+        return authenticatedUserResolver.resolvePrincipal(request);
     }
     
     /**
@@ -92,21 +92,28 @@ public class GamificationController {
     @GetMapping("/status")
     public ResponseEntity<ApiResponse<GamificationStatusResponse>> getStatus(HttpServletRequest request) {
         try {
-            // Get authenticated user
-            User user = getAuthenticatedUser(request);
+            // Get authenticated user ID
+            Long userId = getAuthenticatedPrincipal(request).getId();
+            
+            // Gamification columns only, not the whole user
+            UserRewardRepository.RewardTotals totals = userRewardRepository.findTotals(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
             
-            // Parse badges JSON string into array
-            Set<String> badges = parseBadges(user.getBadges());
+            // Decode badge mask into badge names
+            java.util.List<String> badges = Badge.namesOf(totals.badgeMask());
             
             // Check if daily challenge was completed today
-            boolean dailyChallengeCompleted = gamificationService.isDailyChallengeCompletedToday(user);
+            boolean dailyChallengeCompleted = gamificationService.isDailyChallengeCompletedToday(userId);
+            
+            // Streaks as of today, from the activity calendar
+            StreakService.Streaks streaks = streakService.getStreaks(userId, totals.longestStreakDays());
             
             // Create response
             GamificationStatusResponse status = new GamificationStatusResponse(
-                user.getXp(),
-                user.getCurrentStreakDays(),
-                user.getLongestStreakDays(),
-                badges.stream().sorted().toList(),
+                totals.xp(),
+                streaks.currentStreakDays(),
+                streaks.longestStreakDays(),
+                badges,
                 dailyChallengeCompleted
             );
             
@@ -194,18 +201,131 @@ public class GamificationController {
     }
     
     /**
-     * Parses badges JSON string into Set<String>.
+     * POST /api/gamification/streak-freeze?date=2024-01-14
+     * 
+     * Covers a missed day with a streak freeze, so the streak continues across it. A frozen
+     * day does not add to the streak length. Freezing a day that is already frozen is a no-op.
+     * 
+     * Authentication: Required (JWT token in Authorization header)
+     * 
+     * Query Parameters:
+     * - date: the missed UTC day, within the last 7 days (default: yesterday, UTC)
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Streak freeze applied successfully",
+     *   "data": {
+     *     "currentStreakDays": 12,
+     *     "longestStreakDays": 12
+     *   },
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
+     * 
+     * Error Response (400 Bad Request):
+     * {
+     *   "success": false,
+     *   "message": "No streak freezes left for JANUARY (2 per month)",
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
      */
-    private Set<String> parseBadges(String badgesJson) {
-        if (badgesJson == null || badgesJson.trim().isEmpty() || badgesJson.equals("[]")) {
-            return new HashSet<>();
+    @PostMapping("/streak-freeze")
+    public ResponseEntity<ApiResponse<StreakService.Streaks>> useStreakFreeze(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletRequest request) {
+        try {
+            // Get authenticated user ID
+            Long userId = getAuthenticatedPrincipal(request).getId();
+            
+            LocalDate day = date != null ? date : LocalDate.now(ZoneOffset.UTC).minusDays(1);
+            StreakService.Streaks streaks = gamificationService.useStreakFreeze(userId, day);
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                "Streak freeze applied successfully",
+                streaks
+            ));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while applying streak freeze: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * GET /api/gamification/leaderboard?period=weekly&limit=10
+     * 
+     * Returns the top users of the weekly (current UTC week, Monday to Sunday) or all-time
+     * XP leaderboard and the authenticated user's own rank. Served from memory.
+     * 
+     * Authentication: Required (JWT token in Authorization header)
+     * 
+     * Query Parameters:
+     * - period: "weekly" (default) or "all-time"
+     * - limit: number of top users, 1-100 (default 10)
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Leaderboard retrieved successfully",
+     *   "data": {
+     *     "period": "weekly",
+     *     "periodStart": "2024-01-15",
+     *     "totalUsers": 42,
+     *     "entries": [
+     *       { "rank": 1, "name": "Linh", "xp": 95 },
+     *       { "rank": 2, "name": "alex", "xp": 60 },
+     *       { "rank": 2, "name": "minh", "xp": 60 }
+     *     ],
+     *     "me": { "rank": 7, "name": "Sam", "xp": 35 }
+     *   },
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
+     * 
+     * Error Response (400 Bad Request):
+     * {
+     *   "success": false,
+     *   "message": "Period must be 'weekly' or 'all-time'",
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<ApiResponse<LeaderboardResponse>> getLeaderboard(
+            @RequestParam(defaultValue = LeaderboardService.PERIOD_WEEKLY) String period,
+            @RequestParam(defaultValue = "10") int limit,
+            HttpServletRequest request) {
+        if (!LeaderboardService.PERIOD_WEEKLY.equals(period) && !LeaderboardService.PERIOD_ALL_TIME.equals(period)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Period must be '" + LeaderboardService.PERIOD_WEEKLY
+                            + "' or '" + LeaderboardService.PERIOD_ALL_TIME + "'"));
+        }
+        if (limit < 1 || limit > LeaderboardService.MAX_LIMIT) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Limit must be between 1 and " + LeaderboardService.MAX_LIMIT));
         }
         
         try {
-            return objectMapper.readValue(badgesJson, new TypeReference<Set<String>>() {});
+            // Get authenticated user ID
+            Long userId = getAuthenticatedPrincipal(request).getId();
+            
+            LeaderboardResponse leaderboard = leaderboardService.getLeaderboard(userId, period, limit);
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                "Leaderboard retrieved successfully",
+                leaderboard
+            ));
+            
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
-            // If parsing fails, return empty set
-            return new HashSet<>();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while retrieving leaderboard: " + e.getMessage()));
         }
     }
     
@@ -3,6 +3,7 @@ package com.aifitness.controller;
 import com.aifitness.dto.ApiResponse;
 import com.aifitness.service.EmailService;
 import com.aifitness.service.EmailService.EmailConfigStatus;
+import com.aifitness.service.MealPlanTemplateCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
@@ -34,10 +35,14 @@ public class HealthController {
 
     private final Environment environment;
     private final EmailService emailService;
+    private final MealPlanTemplateCache mealPlanTemplateCache;
 
-    public HealthController(Environment environment, EmailService emailService) {
+    public HealthController(Environment environment,
+                            EmailService emailService,
+                            MealPlanTemplateCache mealPlanTemplateCache) {
         this.environment = environment;
         this.emailService = emailService;
+        this.mealPlanTemplateCache = mealPlanTemplateCache;
         log.info("✅ HealthController loaded (email check is lazy)");
     }
     
@@ -57,6 +62,26 @@ public class HealthController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Meal Plan Template Cache Stats
+     * 
+     * Returns size, capacity and hit rate of the profile-archetype plan template cache.
+     * Accessible at: GET /api/health/meal-plan-cache (with context-path=/api)
+     * 
+     * @return Cache statistics
+     */
+    @GetMapping("/meal-plan-cache")
+    public ResponseEntity<Map<String, Object>> mealPlanCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("size", mealPlanTemplateCache.size());
+        response.put("capacity", mealPlanTemplateCache.getCapacity());
+        response.put("hits", mealPlanTemplateCache.getHits());
+        response.put("misses", mealPlanTemplateCache.getMisses());
+        response.put("evictions", mealPlanTemplateCache.getEvictions());
+        response.put("hitRate", mealPlanTemplateCache.getHitRate());
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Email Health Check Endpoint
      * 
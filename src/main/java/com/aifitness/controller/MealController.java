@@ -2,9 +2,8 @@ package com.aifitness.controller;
 
 import com.aifitness.dto.DailyMealPlanDTO;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthenticatedUserResolver;
 import com.aifitness.service.MealPlanService;
-import com.aifitness.util.JwtTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,37 +22,20 @@ import java.util.List;
 public class MealController {
     
     private final MealPlanService mealPlanService;
-    private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
     public MealController(MealPlanService mealPlanService,
-                         JwtTokenService jwtTokenService,
-                         UserRepository userRepository) {
+                         AuthenticatedUserResolver authenticatedUserResolver) {
         this.mealPlanService = mealPlanService;
-        this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
-    }
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
     }
     
     /**
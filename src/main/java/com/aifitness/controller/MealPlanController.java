@@ -1,15 +1,15 @@
 package com.aifitness.controller;
 
+import com.aifitness.ai.AiMealsService;
 import com.aifitness.dto.ApiResponse;
 import com.aifitness.dto.GroceryItem;
 import com.aifitness.dto.MealPlanResponseDTO;
-import com.aifitness.entity.EventType;
+import com.aifitness.dto.MealSubstituteDTO;
 import com.aifitness.entity.MealPlan;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
-import com.aifitness.service.GamificationService;
+import com.aifitness.security.AuthenticatedUserResolver;
 import com.aifitness.service.MealPlanService;
-import com.aifitness.util.JwtTokenService;
+import com.fasterxml.jackson.databind.util.RawValue;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +18,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -36,40 +37,23 @@ public class MealPlanController {
     private static final Logger logger = LoggerFactory.getLogger(MealPlanController.class);
     
     private final MealPlanService mealPlanService;
-    private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
-    private final GamificationService gamificationService;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final AiMealsService aiMealsService;
     
     @Autowired
     public MealPlanController(MealPlanService mealPlanService,
-                             JwtTokenService jwtTokenService,
-                             UserRepository userRepository,
-                             GamificationService gamificationService) {
+                             AuthenticatedUserResolver authenticatedUserResolver,
+                             AiMealsService aiMealsService) {
         this.mealPlanService = mealPlanService;
-        this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
-        this.gamificationService = gamificationService;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        this.aiMealsService = aiMealsService;
     }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
     }
     
     /**
@@ -141,20 +125,6 @@ public class MealPlanController {
                     requestId, userId, responseDTO.getId(), 
                     responseDTO.getEntries() != null ? responseDTO.getEntries().size() : 0);
             
-            // Record gamification event (AFTER successful save)
-            // Note: activityDate parameter is ignored - GamificationService always uses UTC today
-            try {
-                gamificationService.recordEvent(
-                    user,
-                    EventType.MEAL_PLAN_CREATED,
-                    responseDTO.getId().toString(),
-                    java.time.LocalDate.now(java.time.ZoneOffset.UTC)
-                );
-            } catch (Exception e) {
-                // Log but don't fail the request if gamification fails
-                logger.warn("[RequestId: {}] Error recording gamification event: {}", requestId, e.getMessage());
-            }
-            
             return ResponseEntity.ok(ApiResponse.success(
                 "Meal plan generated successfully",
                 responseDTO
@@ -173,11 +143,205 @@ public class MealPlanController {
         }
     }
     
+    /**
+     * POST /api/ai/meals/regenerate/day?date=YYYY-MM-DD
+     * 
+     * Regenerates the breakfast, lunch and dinner of one day in the meal plan covering that date.
+     * The other six days are kept as they are.
+     * 
+     * Success Response (200 OK): same shape as GET /api/ai/meals/current, with the new ETag.
+     * 
+     * Error Response (404 Not Found): no meal plan covers the date.
+     */
+    @PostMapping("/regenerate/day")
+    public ResponseEntity<ApiResponse<Object>> regenerateDay(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletRequest request) {
+        return regenerate(request, "day", date, null);
+    }
+    
+    /**
+     * POST /api/ai/meals/regenerate/meal?date=YYYY-MM-DD&mealType=LUNCH
+     * 
+     * Regenerates a single meal slot in the meal plan covering that date.
+     * The slot's macros are rebalanced against the day's other meals.
+     * 
+     * Success Response (200 OK): same shape as GET /api/ai/meals/current, with the new ETag.
+     * 
+     * Error Response (400 Bad Request): mealType is not BREAKFAST, LUNCH or DINNER.
+     * Error Response (404 Not Found): no meal plan covers the date.
+     */
+    @PostMapping("/regenerate/meal")
+    public ResponseEntity<ApiResponse<Object>> regenerateMeal(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam String mealType,
+            HttpServletRequest request) {
+        return regenerate(request, "meal", date, mealType);
+    }
+    
+    private ResponseEntity<ApiResponse<Object>> regenerate(HttpServletRequest request, String scope,
+                                                           LocalDate date, String mealType) {
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            logger.info("[RequestId: {}] POST /api/ai/meals/regenerate/{} - START. date={}, mealType={}", 
+                    requestId, scope, date, mealType);
+            
+            User user = getAuthenticatedUser(request);
+            userId = user.getId();
+            
+            MealPlan mealPlan = mealType == null
+                    ? mealPlanService.regenerateDay(user, date)
+                    : mealPlanService.regenerateMeal(user, date, mealType);
+            if (mealPlan == null) {
+                logger.info("[RequestId: {}] No meal plan covers date={} for userId={} - returning 404", requestId, date, userId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("No meal plan found for this date. Please generate a meal plan first."));
+            }
+            
+            MealPlanService.PlanDocument document = mealPlanService.getPlanDocument(mealPlan);
+            logger.info("[RequestId: {}] Meal plan partially regenerated for userId={}. MealPlanId={}", 
+                    requestId, userId, mealPlan.getId());
+            
+            return ResponseEntity.ok()
+                    .eTag(document.getEtag())
+                    .body(ApiResponse.success(
+                        "Meal plan updated successfully",
+                        new RawValue(document.getJson())
+                    ));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in regenerate {} for userId={}: {}", 
+                    requestId, scope, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in regenerate {} for userId={}: {}", 
+                    requestId, scope, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while updating meal plan. Please try again later."));
+        }
+    }
+    
+    /**
+     * GET /api/ai/meals/plan/{mealPlanId}/meals/{mealId}/substitutes?k=5&reason=...
+     * 
+     * Suggests the k meals closest in calories and macros to a planned meal that fit
+     * the user's dietary preference, allergies and dislikes.
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Substitutes retrieved successfully",
+     *   "data": [
+     *     { "name": "Chicken Caesar salad", "mealType": "LUNCH", "calories": 460,
+     *       "protein": 42, "carbs": 30, "fats": 22, "distance": 0.41 },
+     *     ...
+     *   ]
+     * }
+     * 
+     * Error Response (404 Not Found): the meal does not exist in the user's plan.
+     */
+    @GetMapping("/plan/{mealPlanId}/meals/{mealId}/substitutes")
+    public ResponseEntity<ApiResponse<List<MealSubstituteDTO>>> getSubstitutes(
+            @PathVariable Long mealPlanId,
+            @PathVariable Long mealId,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) String reason,
+            HttpServletRequest request) {
+        
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            User user = getAuthenticatedUser(request);
+            userId = user.getId();
+            
+            List<MealSubstituteDTO> substitutes = aiMealsService.substituteMeal(user, mealPlanId, mealId, reason, k);
+            if (substitutes == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Meal not found in your meal plan."));
+            }
+            
+            logger.info("[RequestId: {}] {} substitutes found for mealId={} userId={}", 
+                    requestId, substitutes.size(), mealId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Substitutes retrieved successfully", substitutes));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in getSubstitutes for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in getSubstitutes for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while finding substitutes. Please try again later."));
+        }
+    }
+    
+    /**
+     * PUT /api/ai/meals/plan/{mealPlanId}/meals/{mealId}/substitute?name=...
+     * 
+     * Replaces a planned meal with one of its suggested substitutes. Only that entry is rewritten.
+     * 
+     * Success Response (200 OK): same shape as GET /api/ai/meals/current, with the new ETag.
+     * 
+     * Error Response (400 Bad Request): unknown substitute, or one that does not fit the user's diet.
+     * Error Response (404 Not Found): the meal does not exist in the user's plan.
+     */
+    @PutMapping("/plan/{mealPlanId}/meals/{mealId}/substitute")
+    public ResponseEntity<ApiResponse<Object>> applySubstitute(
+            @PathVariable Long mealPlanId,
+            @PathVariable Long mealId,
+            @RequestParam String name,
+            HttpServletRequest request) {
+        
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = null;
+        
+        try {
+            User user = getAuthenticatedUser(request);
+            userId = user.getId();
+            
+            MealPlan mealPlan = aiMealsService.applySubstitute(user, mealPlanId, mealId, name);
+            if (mealPlan == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Meal not found in your meal plan."));
+            }
+            
+            MealPlanService.PlanDocument document = mealPlanService.getPlanDocument(mealPlan);
+            logger.info("[RequestId: {}] mealId={} substituted with '{}' for userId={}", requestId, mealId, name, userId);
+            
+            return ResponseEntity.ok()
+                    .eTag(document.getEtag())
+                    .body(ApiResponse.success(
+                        "Meal substituted successfully",
+                        new RawValue(document.getJson())
+                    ));
+            
+        } catch (RuntimeException e) {
+            logger.error("[RequestId: {}] RuntimeException in applySubstitute for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[RequestId: {}] Exception in applySubstitute for userId={}: {}", 
+                    requestId, userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while updating meal plan. Please try again later."));
+        }
+    }
+    
     /**
      * GET /api/ai/meals/current
      * 
      * Returns the latest meal plan for the authenticated user.
      * 
+     * The plan document is rendered once at generation time and served as stored,
+     * with a strong ETag. Requests sending a matching If-None-Match get 304 Not Modified.
+     * 
      * Success Response (200 OK):
      * {
      *   "success": true,
@@ -218,7 +382,8 @@ public class MealPlanController {
      * }
      */
     @GetMapping({"/current", "/meal-plan"})
-    public ResponseEntity<ApiResponse<MealPlanResponseDTO>> getCurrentMealPlan(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<Object>> getCurrentMealPlan(HttpServletRequest request,
+                                                                  WebRequest webRequest) {
         String requestId = UUID.randomUUID().toString().substring(0, 8);
         Long userId = null;
         
@@ -230,28 +395,33 @@ public class MealPlanController {
             userId = user.getId();
             logger.info("[RequestId: {}] Authenticated user: userId={}, username={}", requestId, userId, user.getUsername());
             
-            // Get latest meal plan
-            logger.info("[RequestId: {}] Fetching latest meal plan for userId={}", requestId, userId);
-            MealPlan mealPlan = mealPlanService.getLatestMealPlan(user);
+            // Get latest meal plan document (rendered once at generation time)
+            logger.info("[RequestId: {}] Fetching latest meal plan document for userId={}", requestId, userId);
+            MealPlanService.PlanDocument document = mealPlanService.getLatestPlanDocument(user);
             
-            if (mealPlan == null) {
+            if (document == null) {
                 // No meal plan exists - this is a valid empty state, return 404
                 logger.info("[RequestId: {}] No meal plan found for userId={} - returning 404 (empty state)", requestId, userId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error("No meal plan found for user. Please generate a meal plan first."));
             }
             
-            // Convert to DTO
-            logger.info("[RequestId: {}] Converting MealPlan to DTO for mealPlanId={}", requestId, mealPlan.getId());
-            MealPlanResponseDTO responseDTO = mealPlanService.toDTO(mealPlan);
-            logger.info("[RequestId: {}] Meal plan retrieved successfully for userId={}. MealPlanId={}, EntriesCount={}", 
-                    requestId, userId, responseDTO.getId(), 
-                    responseDTO.getEntries() != null ? responseDTO.getEntries().size() : 0);
+            // Client already holds this exact document
+            if (webRequest.checkNotModified("\"" + document.getEtag() + "\"")) {
+                logger.info("[RequestId: {}] Meal plan not modified for userId={}. MealPlanId={}", 
+                        requestId, userId, document.getMealPlanId());
+                return null;
+            }
             
-            return ResponseEntity.ok(ApiResponse.success(
-                "Meal plan retrieved successfully",
-                responseDTO
-            ));
+            logger.info("[RequestId: {}] Meal plan retrieved successfully for userId={}. MealPlanId={}", 
+                    requestId, userId, document.getMealPlanId());
+            
+            return ResponseEntity.ok()
+                    .eTag(document.getEtag())
+                    .body(ApiResponse.success(
+                        "Meal plan retrieved successfully",
+                        new RawValue(document.getJson())
+                    ));
             
         } catch (RuntimeException e) {
             logger.error("[RequestId: {}] RuntimeException in getCurrentMealPlan for userId={}: {}", 
@@ -270,7 +440,8 @@ public class MealPlanController {
      * GET /api/ai/meals/grocery-list
      * 
      * Returns the grocery list for the authenticated user's current meal plan.
-     * Aggregates ingredients from all meals in the meal plan.
+     * Aggregates ingredients from all meals in the meal plan, summing quantities
+     * per canonical unit (g, ml, or count).
      * 
      * Success Response (200 OK):
      * {
@@ -312,20 +483,14 @@ public class MealPlanController {
             userId = user.getId();
             logger.info("[RequestId: {}] Authenticated user: userId={}, username={}", requestId, userId, user.getUsername());
             
-            // Check if meal plan exists first
-            MealPlan mealPlan = mealPlanService.getLatestMealPlan(user);
-            if (mealPlan == null) {
+            // Build grocery list (aggregated from the plan's normalized ingredients)
+            List<GroceryItem> groceryList = mealPlanService.buildGroceryListForUser(user);
+            if (groceryList == null) {
                 logger.info("[RequestId: {}] No meal plan found for userId={} - returning 404", requestId, userId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error("No meal plan found for user. Please generate a meal plan first."));
             }
             
-            logger.info("[RequestId: {}] Meal plan found for userId={}. MealPlanId={}. Building grocery list...", 
-                    requestId, userId, mealPlan.getId());
-            
-            // Build grocery list (derived from meal plan ingredients)
-            List<GroceryItem> groceryList = mealPlanService.buildGroceryListForUser(user);
-            
             logger.info("[RequestId: {}] Grocery list built successfully for userId={}. ItemCount={}", 
                     requestId, userId, groceryList.size());
             
@@ -3,8 +3,9 @@ package com.aifitness.controller;
 import com.aifitness.dto.ApiResponse;
 import com.aifitness.dto.MealPreferencesRequest;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
-import com.aifitness.util.JwtTokenService;
+import com.aifitness.security.AuthPrincipal;
+import com.aifitness.security.AuthenticatedUserResolver;
+import com.aifitness.service.ProfileService;
 import com.aifitness.util.StringSanitizer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -28,35 +29,32 @@ public class MealPreferencesController {
     
     private static final Logger logger = LoggerFactory.getLogger(MealPreferencesController.class);
     
-    private final UserRepository userRepository;
-    private final JwtTokenService jwtTokenService;
+    private final ProfileService profileService;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
-    public MealPreferencesController(UserRepository userRepository,
-                                     JwtTokenService jwtTokenService) {
-        this.userRepository = userRepository;
-        this.jwtTokenService = jwtTokenService;
+    public MealPreferencesController(ProfileService profileService,
+                                     AuthenticatedUserResolver authenticatedUserResolver) {
+        this.profileService = profileService;
+        this.authenticatedUserResolver = authenticatedUserResolver;
     }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
+    }
+    
+    /**
+     * Helper method to get the authenticated user's principal without loading the user.
+     */
+    private AuthPrincipal getAuthenticatedPrincipal(HttpServletRequest request) {
+        return authenticatedUserResolver.resolvePrincipal(request);
+    }
+    
+    private static String sanitizeOrNull(String value) {
+        return value != null ? StringSanitizer.validateAndSanitize(value) : null;
     }
     
     /**
@@ -119,52 +117,20 @@ public class MealPreferencesController {
         try {
             logger.info("[RequestId: {}] POST /api/meal-preferences - START", requestId);
             
-            User user = getAuthenticatedUser(httpRequest);
-            userId = user.getId();
-            logger.info("[RequestId: {}] Authenticated user: userId={}, username={}", requestId, userId, user.getUsername());
+            AuthPrincipal principal = getAuthenticatedPrincipal(httpRequest);
+            userId = principal.getId();
+            logger.info("[RequestId: {}] Authenticated user: userId={}, username={}", requestId, userId, principal.getUsername());
             
             // Sanitize string inputs
-            if (request.getPreferredFoods() != null) {
-                String sanitized = StringSanitizer.validateAndSanitize(request.getPreferredFoods());
-                user.setPreferredFoods(sanitized);
-            } else {
-                user.setPreferredFoods(null);
-            }
-            
-            if (request.getDislikedFoods() != null) {
-                String sanitized = StringSanitizer.validateAndSanitize(request.getDislikedFoods());
-                user.setDislikedFoods(sanitized);
-            } else {
-                user.setDislikedFoods(null);
-            }
-            
-            if (request.getAllergies() != null) {
-                String sanitized = StringSanitizer.validateAndSanitize(request.getAllergies());
-                user.setAllergies(sanitized);
-            } else {
-                user.setAllergies(null);
-            }
-            
-            if (request.getDietaryRestriction() != null) {
-                String sanitized = StringSanitizer.validateAndSanitize(request.getDietaryRestriction());
-                user.setDietaryPreference(sanitized);
-            } else {
-                user.setDietaryPreference(null);
-            }
-            
-            if (request.getFavoriteCuisines() != null) {
-                String sanitized = StringSanitizer.validateAndSanitize(request.getFavoriteCuisines());
-                user.setFavoriteCuisines(sanitized);
-            } else {
-                user.setFavoriteCuisines(null);
-            }
-            
-            user.setMaxCookingTimePerMeal(request.getCookingTimePreference());
-            user.setMaxBudgetPerDay(request.getBudgetPerDay());
+            request.setPreferredFoods(sanitizeOrNull(request.getPreferredFoods()));
+            request.setDislikedFoods(sanitizeOrNull(request.getDislikedFoods()));
+            request.setAllergies(sanitizeOrNull(request.getAllergies()));
+            request.setDietaryRestriction(sanitizeOrNull(request.getDietaryRestriction()));
+            request.setFavoriteCuisines(sanitizeOrNull(request.getFavoriteCuisines()));
             
-            // Save to database
+            // Save to database (preference columns only)
             logger.info("[RequestId: {}] Saving meal preferences to database for userId={}", requestId, userId);
-            userRepository.save(user);
+            profileService.saveMealPreferences(userId, request);
             logger.info("[RequestId: {}] Meal preferences saved successfully for userId={}", requestId, userId);
             
             return ResponseEntity.ok(ApiResponse.success(
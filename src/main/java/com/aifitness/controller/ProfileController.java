@@ -6,7 +6,7 @@ import com.aifitness.dto.ProfileResponseDTO;
 import com.aifitness.dto.ProfileSaveRequest;
 import com.aifitness.dto.ProfileUpdateRequest;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthenticatedUserResolver;
 import com.aifitness.service.BodyMetricsService;
 import com.aifitness.service.NutritionService;
 import com.aifitness.service.ProfileService;
@@ -35,19 +35,19 @@ public class ProfileController {
     
     private final ProfileService profileService;
     private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     private final BodyMetricsService bodyMetricsService;
     private final NutritionService nutritionService;
     
     @Autowired
     public ProfileController(ProfileService profileService,
                              JwtTokenService jwtTokenService,
-                             UserRepository userRepository,
+                             AuthenticatedUserResolver authenticatedUserResolver,
                              BodyMetricsService bodyMetricsService,
                              NutritionService nutritionService) {
         this.profileService = profileService;
         this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
+        this.authenticatedUserResolver = authenticatedUserResolver;
         this.bodyMetricsService = bodyMetricsService;
         this.nutritionService = nutritionService;
     }
@@ -58,21 +58,7 @@ public class ProfileController {
      * The exportProfile method now uses @AuthenticationPrincipal instead.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
     }
     
     /**
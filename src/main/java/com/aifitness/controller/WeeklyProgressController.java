@@ -1,21 +1,22 @@
 package com.aifitness.controller;
 
 import com.aifitness.dto.ApiResponse;
+import com.aifitness.dto.HistoryPageResponse;
 import com.aifitness.dto.WeeklyProgressRequest;
 import com.aifitness.dto.WeeklyProgressResponse;
-import com.aifitness.entity.EventType;
 import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
-import com.aifitness.service.GamificationService;
+import com.aifitness.security.AuthPrincipal;
+import com.aifitness.security.AuthenticatedUserResolver;
 import com.aifitness.service.WeeklyProgressService;
-import com.aifitness.util.JwtTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -30,40 +31,27 @@ import java.util.List;
 public class WeeklyProgressController {
     
     private final WeeklyProgressService weeklyProgressService;
-    private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
-    private final GamificationService gamificationService;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
     
     @Autowired
     public WeeklyProgressController(WeeklyProgressService weeklyProgressService,
-                                   JwtTokenService jwtTokenService,
-                                   UserRepository userRepository,
-                                   GamificationService gamificationService) {
+                                   AuthenticatedUserResolver authenticatedUserResolver) {
         this.weeklyProgressService = weeklyProgressService;
-        this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
-        this.gamificationService = gamificationService;
+        this.authenticatedUserResolver = authenticatedUserResolver;
     }
     
     /**
      * Helper method to extract and validate user from JWT token.
      */
     private User getAuthenticatedUser(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Unauthorized: No token provided");
-        }
-        
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        
-        if (!jwtTokenService.validateToken(token)) {
-            throw new RuntimeException("Unauthorized: Invalid token");
-        }
-        
-        Long userId = jwtTokenService.getUserIdFromToken(token);
-        
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return authenticatedUserResolver.resolve(request);
+    }
+    
+    /**
+     * Helper method to get the authenticated user's principal without loading the user.
+     */
+    private AuthPrincipal getAuthenticatedPrincipal(HttpServletRequest request) {
+        return authenticatedUserResolver.resolvePrincipal(request);
     }
     
     /**
@@ -124,20 +112,6 @@ public class WeeklyProgressController {
             // Save weekly progress
             WeeklyProgressResponse response = weeklyProgressService.saveWeeklyProgress(user, request);
             
-            // Record gamification event (AFTER successful save)
-            // Note: activityDate parameter is ignored - GamificationService always uses UTC today
-            try {
-                gamificationService.recordEvent(
-                    user,
-                    EventType.WEEKLY_PROGRESS,
-                    response.getId().toString(),
-                    java.time.LocalDate.now(java.time.ZoneOffset.UTC)
-                );
-            } catch (Exception e) {
-                // Log but don't fail the request if gamification fails
-                System.err.println("Error recording gamification event: " + e.getMessage());
-            }
-            
             // Return success response
             return ResponseEntity.ok(ApiResponse.success(
                     "Weekly progress saved successfully",
@@ -197,12 +171,12 @@ public class WeeklyProgressController {
             HttpServletRequest request) {
         
         try {
-            // Get authenticated user
-            User user = getAuthenticatedUser(request);
+            // Get authenticated user ID
+            Long userId = getAuthenticatedPrincipal(request).getId();
             
             // Get recent progress
             List<WeeklyProgressResponse> progressList = weeklyProgressService
-                    .getRecentProgressForUser(user, weeks);
+                    .getRecentProgressForUser(userId, weeks);
             
             // Return success response
             return ResponseEntity.ok(ApiResponse.success(
@@ -218,8 +192,57 @@ public class WeeklyProgressController {
                     .body(ApiResponse.error("An error occurred while retrieving weekly progress: " + e.getMessage()));
         }
     }
+    
+    /**
+     * GET /api/progress/weekly/history?before=YYYY-MM-DD&limit=12
+     * 
+     * Browses the authenticated user's weekly progress history page by page, newest first.
+     * Uses keyset pagination on (user_id, week_start_date).
+     * 
+     * Authentication: Required (JWT token in Authorization header)
+     * 
+     * Query Parameters:
+     * - before (optional): Only weeks starting before this date; omit for the most recent page
+     * - limit (optional): Page size (default: 12, max: 52)
+     * 
+     * Success Response (200 OK):
+     * {
+     *   "success": true,
+     *   "message": "Weekly progress history retrieved successfully",
+     *   "data": {
+     *     "items": [
+     *       { "id": 9, "weekStartDate": "2024-01-08", "weight": 75.5, ... }
+     *     ],
+     *     "nextBefore": "2023-10-23",
+     *     "hasMore": true
+     *   },
+     *   "timestamp": "2024-01-15T10:30:00"
+     * }
+     */
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<HistoryPageResponse<WeeklyProgressResponse>>> getProgressHistory(
+            @RequestParam(value = "before", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(value = "limit", defaultValue = "12") int limit,
+            HttpServletRequest request) {
+        
+        try {
+            // Get authenticated user ID
+            Long userId = getAuthenticatedPrincipal(request).getId();
+            
+            HistoryPageResponse<WeeklyProgressResponse> page = weeklyProgressService
+                    .getProgressHistory(userId, before, limit);
+            
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Weekly progress history retrieved successfully",
+                    page
+            ));
+            
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while retrieving weekly progress: " + e.getMessage()));
+        }
+    }
 }
-
-
-
-
@@ -0,0 +1,97 @@
+package com.aifitness.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Check-In Import Response DTO
+ * 
+ * Result of a bulk check-in import: row counts and the rows that were rejected.
+ * Only the first errors are listed (see errorsTruncated); the counts cover every row.
+ */
+public class CheckInImportResponse {
+    
+    private Integer totalRows;
+    private Integer imported;
+    private Integer failed;
+    private List<RowError> errors = new ArrayList<>();
+    private Boolean errorsTruncated = false;
+    
+    // Constructors
+    public CheckInImportResponse() {
+    }
+    
+    // Getters and Setters
+    public Integer getTotalRows() {
+        return totalRows;
+    }
+    
+    public void setTotalRows(Integer totalRows) {
+        this.totalRows = totalRows;
+    }
+    
+    public Integer getImported() {
+        return imported;
+    }
+    
+    public void setImported(Integer imported) {
+        this.imported = imported;
+    }
+    
+    public Integer getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(Integer failed) {
+        this.failed = failed;
+    }
+    
+    public List<RowError> getErrors() {
+        return errors;
+    }
+    
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+    
+    public Boolean getErrorsTruncated() {
+        return errorsTruncated;
+    }
+    
+    public void setErrorsTruncated(Boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+    
+    /**
+     * A rejected row: its line number in the uploaded file and the reason
+     */
+    public static class RowError {
+        
+        private Integer line;
+        private String message;
+        
+        public RowError() {
+        }
+        
+        public RowError(Integer line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+        
+        public Integer getLine() {
+            return line;
+        }
+        
+        public void setLine(Integer line) {
+            this.line = line;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.aifitness.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Check-In Rollup Response DTO
+ * 
+ * Aggregated daily check-ins for one ISO week or calendar month.
+ */
+public class CheckInRollupResponse {
+    
+    private String period;
+    private LocalDate periodStart;
+    private Integer daysLogged;
+    private Integer workoutCount;
+    private Long totalSteps;
+    private Double averageSteps;
+    private Double averageWeight;
+    private Double minWeight;
+    private Double maxWeight;
+    
+    // Constructors
+    public CheckInRollupResponse() {
+    }
+    
+    public CheckInRollupResponse(String period,
+                                 LocalDate periodStart,
+                                 Integer daysLogged,
+                                 Integer workoutCount,
+                                 Long totalSteps,
+                                 Double averageSteps,
+                                 Double averageWeight,
+                                 Double minWeight,
+                                 Double maxWeight) {
+        this.period = period;
+        this.periodStart = periodStart;
+        this.daysLogged = daysLogged;
+        this.workoutCount = workoutCount;
+        this.totalSteps = totalSteps;
+        this.averageSteps = averageSteps;
+        this.averageWeight = averageWeight;
+        this.minWeight = minWeight;
+        this.maxWeight = maxWeight;
+    }
+    
+    // Getters and Setters
+    public String getPeriod() {
+        return period;
+    }
+    
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+    
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+    
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+    
+    public Integer getDaysLogged() {
+        return daysLogged;
+    }
+    
+    public void setDaysLogged(Integer daysLogged) {
+        this.daysLogged = daysLogged;
+    }
+    
+    public Integer getWorkoutCount() {
+        return workoutCount;
+    }
+    
+    public void setWorkoutCount(Integer workoutCount) {
+        this.workoutCount = workoutCount;
+    }
+    
+    public Long getTotalSteps() {
+        return totalSteps;
+    }
+    
+    public void setTotalSteps(Long totalSteps) {
+        this.totalSteps = totalSteps;
+    }
+    
+    public Double getAverageSteps() {
+        return averageSteps;
+    }
+    
+    public void setAverageSteps(Double averageSteps) {
+        this.averageSteps = averageSteps;
+    }
+    
+    public Double getAverageWeight() {
+        return averageWeight;
+    }
+    
+    public void setAverageWeight(Double averageWeight) {
+        this.averageWeight = averageWeight;
+    }
+    
+    public Double getMinWeight() {
+        return minWeight;
+    }
+    
+    public void setMinWeight(Double minWeight) {
+        this.minWeight = minWeight;
+    }
+    
+    public Double getMaxWeight() {
+        return maxWeight;
+    }
+    
+    public void setMaxWeight(Double maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+}
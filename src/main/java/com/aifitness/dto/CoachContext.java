@@ -32,6 +32,12 @@ public class CoachContext {
     // Weekly progress summary (if available)
     private List<WeeklyProgressResponse> recentWeeklyProgress;
     
+    // Check-in aggregates for the last few ISO weeks, newest first
+    private List<CheckInRollupResponse> recentWeeklyRollups;
+    
+    // Weight trend, adherence and plateau status from the insights trend engine
+    private TrendInsightsResponse trendInsights;
+    
     // Constructors
     
     public CoachContext() {
@@ -118,15 +124,20 @@ public class CoachContext {
     public void setRecentWeeklyProgress(List<WeeklyProgressResponse> recentWeeklyProgress) {
         this.recentWeeklyProgress = recentWeeklyProgress;
     }
+    
+    public List<CheckInRollupResponse> getRecentWeeklyRollups() {
+        return recentWeeklyRollups;
+    }
+    
+    public void setRecentWeeklyRollups(List<CheckInRollupResponse> recentWeeklyRollups) {
+        this.recentWeeklyRollups = recentWeeklyRollups;
+    }
+    
+    public TrendInsightsResponse getTrendInsights() {
+        return trendInsights;
+    }
+    
+    public void setTrendInsights(TrendInsightsResponse trendInsights) {
+        this.trendInsights = trendInsights;
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
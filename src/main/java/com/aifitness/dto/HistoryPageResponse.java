@@ -0,0 +1,53 @@
+package com.aifitness.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * History Page Response DTO
+ * 
+ * One page of a user's history, newest first, for keyset pagination.
+ * Pass nextBefore as the "before" parameter to get the next (older) page;
+ * it is null when there are no older entries.
+ */
+public class HistoryPageResponse<T> {
+    
+    private List<T> items;
+    private LocalDate nextBefore;
+    private Boolean hasMore;
+    
+    // Constructors
+    public HistoryPageResponse() {
+    }
+    
+    public HistoryPageResponse(List<T> items, LocalDate nextBefore, Boolean hasMore) {
+        this.items = items;
+        this.nextBefore = nextBefore;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+    
+    public LocalDate getNextBefore() {
+        return nextBefore;
+    }
+    
+    public void setNextBefore(LocalDate nextBefore) {
+        this.nextBefore = nextBefore;
+    }
+    
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
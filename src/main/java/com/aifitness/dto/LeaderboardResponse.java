@@ -0,0 +1,108 @@
+package com.aifitness.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leaderboard Response DTO
+ *
+ * Top users of the weekly or all-time XP leaderboard and the requesting user's standing.
+ * Users with the same XP share a rank; users without XP in the period are not ranked.
+ */
+public class LeaderboardResponse {
+
+    private String period;
+    private LocalDate periodStart;
+    private int totalUsers;
+    private List<Entry> entries = new ArrayList<>();
+    private Entry me;
+
+    // Constructors
+    public LeaderboardResponse() {
+    }
+
+    /**
+     * One ranked user
+     */
+    public static class Entry {
+
+        private long rank;
+        private String name;
+        private long xp;
+
+        public Entry() {
+        }
+
+        public Entry(long rank, String name, long xp) {
+            this.rank = rank;
+            this.name = name;
+            this.xp = xp;
+        }
+
+        public long getRank() {
+            return rank;
+        }
+
+        public void setRank(long rank) {
+            this.rank = rank;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getXp() {
+            return xp;
+        }
+
+        public void setXp(long xp) {
+            this.xp = xp;
+        }
+    }
+
+    // Getters and Setters
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public int getTotalUsers() {
+        return totalUsers;
+    }
+
+    public void setTotalUsers(int totalUsers) {
+        this.totalUsers = totalUsers;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public Entry getMe() {
+        return me;
+    }
+
+    public void setMe(Entry me) {
+        this.me = me;
+    }
+}
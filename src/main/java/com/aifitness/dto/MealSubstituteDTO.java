@@ -0,0 +1,92 @@
+package com.aifitness.dto;
+
+/**
+ * Meal Substitute DTO
+ * 
+ * A suggested replacement for a meal in a meal plan, with its base macros
+ * and how far those macros are from the meal being replaced.
+ */
+public class MealSubstituteDTO {
+    
+    private String name;
+    private String mealType;
+    private Integer calories;
+    private Integer protein;
+    private Integer carbs;
+    private Integer fats;
+    
+    // Distance in normalized macro space (lower is closer to the original meal)
+    private Double distance;
+    
+    // Constructors
+    public MealSubstituteDTO() {
+    }
+    
+    public MealSubstituteDTO(String name, String mealType, Integer calories, Integer protein,
+                             Integer carbs, Integer fats, Double distance) {
+        this.name = name;
+        this.mealType = mealType;
+        this.calories = calories;
+        this.protein = protein;
+        this.carbs = carbs;
+        this.fats = fats;
+        this.distance = distance;
+    }
+    
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getMealType() {
+        return mealType;
+    }
+    
+    public void setMealType(String mealType) {
+        this.mealType = mealType;
+    }
+    
+    public Integer getCalories() {
+        return calories;
+    }
+    
+    public void setCalories(Integer calories) {
+        this.calories = calories;
+    }
+    
+    public Integer getProtein() {
+        return protein;
+    }
+    
+    public void setProtein(Integer protein) {
+        this.protein = protein;
+    }
+    
+    public Integer getCarbs() {
+        return carbs;
+    }
+    
+    public void setCarbs(Integer carbs) {
+        this.carbs = carbs;
+    }
+    
+    public Integer getFats() {
+        return fats;
+    }
+    
+    public void setFats(Integer fats) {
+        this.fats = fats;
+    }
+    
+    public Double getDistance() {
+        return distance;
+    }
+    
+    public void setDistance(Double distance) {
+        this.distance = distance;
+    }
+}
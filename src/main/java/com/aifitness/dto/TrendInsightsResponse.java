@@ -0,0 +1,192 @@
+package com.aifitness.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Trend Insights Response DTO
+ * 
+ * Weight trend, adherence windows and plateau status of a user, read from the trend state
+ * kept up to date on every check-in.
+ * 
+ * Weight rates are in kg/week; negative means losing.
+ */
+public class TrendInsightsResponse {
+    
+    /** Fewer weigh-ins than the trend needs, or none in the last weeks */
+    public static final String STATUS_INSUFFICIENT_DATA = "INSUFFICIENT_DATA";
+    /** Weight is moving in line with the recent trend */
+    public static final String STATUS_ON_TRACK = "ON_TRACK";
+    /** The change-point test fired, but loss has not stopped for long enough to call a plateau */
+    public static final String STATUS_SLOWING = "SLOWING";
+    /** Loss was steady, then stopped for at least two weeks */
+    public static final String STATUS_PLATEAU = "PLATEAU";
+    /** Weight has been flat for weeks without a preceding loss phase */
+    public static final String STATUS_FLAT = "FLAT";
+    
+    private LocalDate asOf;
+    private Integer weightEntries;
+    private LocalDate lastWeightDate;
+    private Double latestWeight;
+    private Double smoothedWeight;
+    private Double weeklyWeightChange;
+    private AdherenceWindow lastWeek;
+    private AdherenceWindow last4Weeks;
+    private String plateauStatus;
+    private LocalDate changePointDate;
+    private Double previousWeeklyRate;
+    private Double currentWeeklyRate;
+    
+    // Constructors
+    public TrendInsightsResponse() {
+    }
+    
+    /**
+     * Counts of logged, workout and step-goal days in the window ending on asOf.
+     */
+    public static class AdherenceWindow {
+        
+        private Integer days;
+        private Integer daysLogged;
+        private Integer workouts;
+        private Integer stepGoalDays;
+        
+        public AdherenceWindow() {
+        }
+        
+        public AdherenceWindow(Integer days, Integer daysLogged, Integer workouts, Integer stepGoalDays) {
+            this.days = days;
+            this.daysLogged = daysLogged;
+            this.workouts = workouts;
+            this.stepGoalDays = stepGoalDays;
+        }
+        
+        public Integer getDays() {
+            return days;
+        }
+        
+        public void setDays(Integer days) {
+            this.days = days;
+        }
+        
+        public Integer getDaysLogged() {
+            return daysLogged;
+        }
+        
+        public void setDaysLogged(Integer daysLogged) {
+            this.daysLogged = daysLogged;
+        }
+        
+        public Integer getWorkouts() {
+            return workouts;
+        }
+        
+        public void setWorkouts(Integer workouts) {
+            this.workouts = workouts;
+        }
+        
+        public Integer getStepGoalDays() {
+            return stepGoalDays;
+        }
+        
+        public void setStepGoalDays(Integer stepGoalDays) {
+            this.stepGoalDays = stepGoalDays;
+        }
+    }
+    
+    // Getters and Setters
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+    
+    public void setAsOf(LocalDate asOf) {
+        this.asOf = asOf;
+    }
+    
+    public Integer getWeightEntries() {
+        return weightEntries;
+    }
+    
+    public void setWeightEntries(Integer weightEntries) {
+        this.weightEntries = weightEntries;
+    }
+    
+    public LocalDate getLastWeightDate() {
+        return lastWeightDate;
+    }
+    
+    public void setLastWeightDate(LocalDate lastWeightDate) {
+        this.lastWeightDate = lastWeightDate;
+    }
+    
+    public Double getLatestWeight() {
+        return latestWeight;
+    }
+    
+    public void setLatestWeight(Double latestWeight) {
+        this.latestWeight = latestWeight;
+    }
+    
+    public Double getSmoothedWeight() {
+        return smoothedWeight;
+    }
+    
+    public void setSmoothedWeight(Double smoothedWeight) {
+        this.smoothedWeight = smoothedWeight;
+    }
+    
+    public Double getWeeklyWeightChange() {
+        return weeklyWeightChange;
+    }
+    
+    public void setWeeklyWeightChange(Double weeklyWeightChange) {
+        this.weeklyWeightChange = weeklyWeightChange;
+    }
+    
+    public AdherenceWindow getLastWeek() {
+        return lastWeek;
+    }
+    
+    public void setLastWeek(AdherenceWindow lastWeek) {
+        this.lastWeek = lastWeek;
+    }
+    
+    public AdherenceWindow getLast4Weeks() {
+        return last4Weeks;
+    }
+    
+    public void setLast4Weeks(AdherenceWindow last4Weeks) {
+        this.last4Weeks = last4Weeks;
+    }
+    
+    public String getPlateauStatus() {
+        return plateauStatus;
+    }
+    
+    public void setPlateauStatus(String plateauStatus) {
+        this.plateauStatus = plateauStatus;
+    }
+    
+    public LocalDate getChangePointDate() {
+        return changePointDate;
+    }
+    
+    public void setChangePointDate(LocalDate changePointDate) {
+        this.changePointDate = changePointDate;
+    }
+    
+    public Double getPreviousWeeklyRate() {
+        return previousWeeklyRate;
+    }
+    
+    public void setPreviousWeeklyRate(Double previousWeeklyRate) {
+        this.previousWeeklyRate = previousWeeklyRate;
+    }
+    
+    public Double getCurrentWeeklyRate() {
+        return currentWeeklyRate;
+    }
+    
+    public void setCurrentWeeklyRate(Double currentWeeklyRate) {
+        this.currentWeeklyRate = currentWeeklyRate;
+    }
+}
@@ -0,0 +1,162 @@
+package com.aifitness.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weight Forecast Response DTO
+ * 
+ * Forecast weight for the coming days with 80% and 95% bands, from the user's cached
+ * damped-trend model. Weights are in kg; rates in kg/week, negative means losing.
+ */
+public class WeightForecastResponse {
+    
+    /** Forecast computed from a fitted model */
+    public static final String STATUS_FORECAST = "FORECAST";
+    /** Not enough recent weigh-ins to fit a model; points is empty */
+    public static final String STATUS_INSUFFICIENT_DATA = "INSUFFICIENT_DATA";
+    
+    private String status;
+    private LocalDate lastWeightDate;
+    private Double smoothedWeight;
+    private Double trendPerWeek;
+    private Double energyBalancePerWeek;
+    private LocalDateTime fittedAt;
+    private List<ForecastPoint> points = new ArrayList<>();
+    
+    // Constructors
+    public WeightForecastResponse() {
+    }
+    
+    /**
+     * Forecast for one day
+     */
+    public static class ForecastPoint {
+        
+        private LocalDate date;
+        private Double weight;
+        private Double lower80;
+        private Double upper80;
+        private Double lower95;
+        private Double upper95;
+        
+        public ForecastPoint() {
+        }
+        
+        public ForecastPoint(LocalDate date, Double weight, Double lower80, Double upper80, Double lower95, Double upper95) {
+            this.date = date;
+            this.weight = weight;
+            this.lower80 = lower80;
+            this.upper80 = upper80;
+            this.lower95 = lower95;
+            this.upper95 = upper95;
+        }
+        
+        public LocalDate getDate() {
+            return date;
+        }
+        
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+        
+        public Double getWeight() {
+            return weight;
+        }
+        
+        public void setWeight(Double weight) {
+            this.weight = weight;
+        }
+        
+        public Double getLower80() {
+            return lower80;
+        }
+        
+        public void setLower80(Double lower80) {
+            this.lower80 = lower80;
+        }
+        
+        public Double getUpper80() {
+            return upper80;
+        }
+        
+        public void setUpper80(Double upper80) {
+            this.upper80 = upper80;
+        }
+        
+        public Double getLower95() {
+            return lower95;
+        }
+        
+        public void setLower95(Double lower95) {
+            this.lower95 = lower95;
+        }
+        
+        public Double getUpper95() {
+            return upper95;
+        }
+        
+        public void setUpper95(Double upper95) {
+            this.upper95 = upper95;
+        }
+    }
+    
+    // Getters and Setters
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public LocalDate getLastWeightDate() {
+        return lastWeightDate;
+    }
+    
+    public void setLastWeightDate(LocalDate lastWeightDate) {
+        this.lastWeightDate = lastWeightDate;
+    }
+    
+    public Double getSmoothedWeight() {
+        return smoothedWeight;
+    }
+    
+    public void setSmoothedWeight(Double smoothedWeight) {
+        this.smoothedWeight = smoothedWeight;
+    }
+    
+    public Double getTrendPerWeek() {
+        return trendPerWeek;
+    }
+    
+    public void setTrendPerWeek(Double trendPerWeek) {
+        this.trendPerWeek = trendPerWeek;
+    }
+    
+    public Double getEnergyBalancePerWeek() {
+        return energyBalancePerWeek;
+    }
+    
+    public void setEnergyBalancePerWeek(Double energyBalancePerWeek) {
+        this.energyBalancePerWeek = energyBalancePerWeek;
+    }
+    
+    public LocalDateTime getFittedAt() {
+        return fittedAt;
+    }
+    
+    public void setFittedAt(LocalDateTime fittedAt) {
+        this.fittedAt = fittedAt;
+    }
+    
+    public List<ForecastPoint> getPoints() {
+        return points;
+    }
+    
+    public void setPoints(List<ForecastPoint> points) {
+        this.points = points;
+    }
+}
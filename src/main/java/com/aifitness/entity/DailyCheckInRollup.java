@@ -0,0 +1,221 @@
+package com.aifitness.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Daily Check-In Rollup Entity
+ * 
+ * Aggregates of a user's daily check-ins for one ISO week (period starts on Monday)
+ * or one calendar month. Rows are recomputed from daily_checkins in the same
+ * transaction whenever a check-in in the period is saved, so readers get
+ * O(periods) rows instead of O(days).
+ * 
+ * Sums and counts are stored instead of averages so averages stay exact.
+ */
+@Entity
+@Table(name = "daily_checkin_rollups")
+public class DailyCheckInRollup {
+    
+    public static final String PERIOD_WEEK = "WEEK";
+    public static final String PERIOD_MONTH = "MONTH";
+    
+    /**
+     * Primary Key - Auto-generated ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    
+    /**
+     * User who owns the aggregated check-ins
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    /**
+     * WEEK or MONTH
+     */
+    @Column(name = "period_type", nullable = false, length = 10)
+    private String periodType;
+    
+    /**
+     * First day of the period: Monday of the ISO week, or the 1st of the month
+     */
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+    
+    /**
+     * Number of days with a check-in
+     */
+    @Column(name = "days_logged", nullable = false)
+    private Integer daysLogged;
+    
+    /**
+     * Number of days with a completed workout
+     */
+    @Column(name = "workout_count", nullable = false)
+    private Integer workoutCount;
+    
+    /**
+     * Sum of steps over the days that logged steps
+     */
+    @Column(name = "steps_total", nullable = false)
+    private Long stepsTotal;
+    
+    /**
+     * Number of days that logged steps
+     */
+    @Column(name = "steps_days", nullable = false)
+    private Integer stepsDays;
+    
+    /**
+     * Sum of weights over the days that logged a weight (kg)
+     */
+    @Column(name = "weight_sum", nullable = false)
+    private Double weightSum;
+    
+    /**
+     * Number of days that logged a weight
+     */
+    @Column(name = "weight_days", nullable = false)
+    private Integer weightDays;
+    
+    @Column(name = "weight_min")
+    private Double weightMin;
+    
+    @Column(name = "weight_max")
+    private Double weightMax;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    /**
+     * Default constructor - Required by JPA
+     */
+    public DailyCheckInRollup() {
+    }
+    
+    /**
+     * @return Average weight over the days that logged one, or null if none did
+     */
+    public Double getAverageWeight() {
+        return weightDays != null && weightDays > 0 ? weightSum / weightDays : null;
+    }
+    
+    /**
+     * @return Average steps over the days that logged steps, or null if none did
+     */
+    public Double getAverageSteps() {
+        return stepsDays != null && stepsDays > 0 ? (double) stepsTotal / stepsDays : null;
+    }
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public void setUser(User user) {
+        this.user = user;
+    }
+    
+    public String getPeriodType() {
+        return periodType;
+    }
+    
+    public void setPeriodType(String periodType) {
+        this.periodType = periodType;
+    }
+    
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+    
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+    
+    public Integer getDaysLogged() {
+        return daysLogged;
+    }
+    
+    public void setDaysLogged(Integer daysLogged) {
+        this.daysLogged = daysLogged;
+    }
+    
+    public Integer getWorkoutCount() {
+        return workoutCount;
+    }
+    
+    public void setWorkoutCount(Integer workoutCount) {
+        this.workoutCount = workoutCount;
+    }
+    
+    public Long getStepsTotal() {
+        return stepsTotal;
+    }
+    
+    public void setStepsTotal(Long stepsTotal) {
+        this.stepsTotal = stepsTotal;
+    }
+    
+    public Integer getStepsDays() {
+        return stepsDays;
+    }
+    
+    public void setStepsDays(Integer stepsDays) {
+        this.stepsDays = stepsDays;
+    }
+    
+    public Double getWeightSum() {
+        return weightSum;
+    }
+    
+    public void setWeightSum(Double weightSum) {
+        this.weightSum = weightSum;
+    }
+    
+    public Integer getWeightDays() {
+        return weightDays;
+    }
+    
+    public void setWeightDays(Integer weightDays) {
+        this.weightDays = weightDays;
+    }
+    
+    public Double getWeightMin() {
+        return weightMin;
+    }
+    
+    public void setWeightMin(Double weightMin) {
+        this.weightMin = weightMin;
+    }
+    
+    public Double getWeightMax() {
+        return weightMax;
+    }
+    
+    public void setWeightMax(Double weightMax) {
+        this.weightMax = weightMax;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -51,6 +51,19 @@ public class MealPlan {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
+    /**
+     * Fully rendered meal plan response (UTF-8 JSON), written once at generation time.
+     * Served as-is on reads so the document is not rebuilt from the entries.
+     */
+    @Column(name = "plan_document")
+    private byte[] planDocument;
+    
+    /**
+     * Strong ETag of planDocument (hex SHA-256 prefix)
+     */
+    @Column(name = "plan_document_etag", length = 64)
+    private String planDocumentEtag;
+    
     /**
      * Default constructor - Required by JPA
      */
@@ -118,6 +131,22 @@ public class MealPlan {
         this.createdAt = createdAt;
     }
     
+    public byte[] getPlanDocument() {
+        return planDocument;
+    }
+    
+    public void setPlanDocument(byte[] planDocument) {
+        this.planDocument = planDocument;
+    }
+    
+    public String getPlanDocumentEtag() {
+        return planDocumentEtag;
+    }
+    
+    public void setPlanDocumentEtag(String planDocumentEtag) {
+        this.planDocumentEtag = planDocumentEtag;
+    }
+    
     /**
      * Helper method to add an entry to the meal plan
      */
@@ -2,6 +2,8 @@ package com.aifitness.entity;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Meal Plan Entry Entity
@@ -85,6 +87,13 @@ public class MealPlanEntry {
     @Column(name = "ingredients", columnDefinition = "TEXT")
     private String ingredients;
     
+    /**
+     * Normalized ingredient rows (parsed quantity and canonical unit)
+     * Cascade: Rows are written and deleted together with the entry
+     */
+    @OneToMany(mappedBy = "entry", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    private List<MealPlanEntryIngredient> ingredientItems = new ArrayList<>();
+    
     /**
      * Default constructor - Required by JPA
      */
@@ -204,6 +213,22 @@ public class MealPlanEntry {
         this.ingredients = ingredients;
     }
     
+    public List<MealPlanEntryIngredient> getIngredientItems() {
+        return ingredientItems;
+    }
+    
+    public void setIngredientItems(List<MealPlanEntryIngredient> ingredientItems) {
+        this.ingredientItems = ingredientItems;
+    }
+    
+    /**
+     * Helper method to add a normalized ingredient row to the entry
+     */
+    public void addIngredientItem(MealPlanEntryIngredient item) {
+        ingredientItems.add(item);
+        item.setEntry(this);
+    }
+    
     @Override
     public String toString() {
         return "MealPlanEntry{" +
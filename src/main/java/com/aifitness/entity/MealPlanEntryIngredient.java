@@ -0,0 +1,163 @@
+package com.aifitness.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Meal Plan Entry Ingredient Entity
+ * 
+ * One ingredient of a meal plan entry, with its quantity parsed into a number
+ * and a canonical unit (g, ml, or a count unit such as "slice" or "large").
+ * Grocery lists are aggregated from these rows in SQL.
+ */
+@Entity
+@Table(name = "meal_plan_entry_ingredients")
+public class MealPlanEntryIngredient {
+    
+    /**
+     * Primary Key - Auto-generated ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    
+    /**
+     * Meal plan entry this ingredient belongs to
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "entry_id", nullable = false)
+    private MealPlanEntry entry;
+    
+    /**
+     * Display name as provided by the meal source
+     */
+    @Column(name = "name", nullable = false, length = 200)
+    private String name;
+    
+    /**
+     * Lowercased, trimmed name used as the aggregation key
+     */
+    @Column(name = "normalized_name", nullable = false, length = 200)
+    private String normalizedName;
+    
+    /**
+     * Parsed quantity in the canonical unit (null if the text could not be parsed)
+     */
+    @Column(name = "quantity")
+    private Double quantity;
+    
+    /**
+     * Canonical unit: g, ml, or a count unit (null if the text could not be parsed)
+     */
+    @Column(name = "unit", length = 20)
+    private String unit;
+    
+    /**
+     * Preparation state that must not be summed across, e.g. "cooked" or "dry"
+     */
+    @Column(name = "qualifier", length = 50)
+    private String qualifier;
+    
+    /**
+     * Original quantity text, e.g. "150g cooked"
+     */
+    @Column(name = "quantity_text", length = 100)
+    private String quantityText;
+    
+    /**
+     * Default constructor - Required by JPA
+     */
+    public MealPlanEntryIngredient() {
+    }
+    
+    /**
+     * Constructor for creating a new ingredient row
+     */
+    public MealPlanEntryIngredient(MealPlanEntry entry, String name, String normalizedName,
+                                   Double quantity, String unit, String qualifier, String quantityText) {
+        this.entry = entry;
+        this.name = name;
+        this.normalizedName = normalizedName;
+        this.quantity = quantity;
+        this.unit = unit;
+        this.qualifier = qualifier;
+        this.quantityText = quantityText;
+    }
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public MealPlanEntry getEntry() {
+        return entry;
+    }
+    
+    public void setEntry(MealPlanEntry entry) {
+        this.entry = entry;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+    
+    public void setNormalizedName(String normalizedName) {
+        this.normalizedName = normalizedName;
+    }
+    
+    public Double getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Double quantity) {
+        this.quantity = quantity;
+    }
+    
+    public String getUnit() {
+        return unit;
+    }
+    
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+    
+    public String getQualifier() {
+        return qualifier;
+    }
+    
+    public void setQualifier(String qualifier) {
+        this.qualifier = qualifier;
+    }
+    
+    public String getQuantityText() {
+        return quantityText;
+    }
+    
+    public void setQuantityText(String quantityText) {
+        this.quantityText = quantityText;
+    }
+    
+    @Override
+    public String toString() {
+        return "MealPlanEntryIngredient{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", quantity=" + quantity +
+                ", unit='" + unit + '\'' +
+                ", qualifier='" + qualifier + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,17 @@
+package com.aifitness.entity;
+
+/**
+ * Outbox Event Type Enum
+ *
+ * Defines the side effects that domain writes hand to the outbox dispatcher.
+ */
+public enum OutboxEventType {
+    /** Grant a gamification reward (payload: type, sourceId, activityDate) */
+    GAMIFICATION_EVENT,
+    /** Fold a saved daily check-in into the trend state and streak calendar (payload: date, weightProvided) */
+    DAILY_CHECKIN_SAVED,
+    /** Fold a saved weekly progress weight into the trend state (payload: weekStartDate) */
+    WEEKLY_PROGRESS_SAVED,
+    /** Rebuild the trend state and streak calendar from history, e.g. after an import (no payload) */
+    TREND_REBUILD
+}
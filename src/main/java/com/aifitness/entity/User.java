@@ -1,5 +1,6 @@
 package com.aifitness.entity;
 
+import com.aifitness.security.UserCacheInvalidationListener;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -21,6 +22,7 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidationListener.class)
 public class User {
     
     /**
@@ -150,8 +152,11 @@ public class User {
     @Column(name = "longest_streak_days", nullable = false)
     private Integer longestStreakDays = 0;
     
-    @Column(name = "badges", length = 1000)
-    private String badges = "[]";
+    /**
+     * Earned badges, one bit per com.aifitness.service.Badge
+     */
+    @Column(name = "badge_mask", nullable = false)
+    private Long badgeMask = 0L;
     
     @Column(name = "last_activity_date")
     private LocalDate lastActivityDate;
@@ -184,6 +189,45 @@ public class User {
         this.createdAt = LocalDateTime.now();
     }
     
+    /**
+     * Copy constructor - detached copy of all columns.
+     * Used by the authenticated-user cache so concurrent requests never share one mutable instance.
+     */
+    public User(User other) {
+        this.id = other.id;
+        this.username = other.username;
+        this.email = other.email;
+        this.passwordHash = other.passwordHash;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.name = other.name;
+        this.age = other.age;
+        this.sex = other.sex;
+        this.weight = other.weight;
+        this.height = other.height;
+        this.waist = other.waist;
+        this.hip = other.hip;
+        this.activityLevel = other.activityLevel;
+        this.calorieGoal = other.calorieGoal;
+        this.dietaryPreference = other.dietaryPreference;
+        this.dislikedFoods = other.dislikedFoods;
+        this.maxBudgetPerDay = other.maxBudgetPerDay;
+        this.maxCookingTimePerMeal = other.maxCookingTimePerMeal;
+        this.preferredFoods = other.preferredFoods;
+        this.allergies = other.allergies;
+        this.favoriteCuisines = other.favoriteCuisines;
+        this.isEmailVerified = other.isEmailVerified;
+        this.emailVerificationCode = other.emailVerificationCode;
+        this.emailVerificationExpiresAt = other.emailVerificationExpiresAt;
+        this.verificationAttempts = other.verificationAttempts;
+        this.xp = other.xp;
+        this.currentStreakDays = other.currentStreakDays;
+        this.longestStreakDays = other.longestStreakDays;
+        this.badgeMask = other.badgeMask;
+        this.lastActivityDate = other.lastActivityDate;
+        this.preferredLanguage = other.preferredLanguage;
+    }
+    
     /**
      * JPA Lifecycle Callback - Set createdAt before persisting
      */
@@ -469,12 +513,12 @@ public class User {
         this.longestStreakDays = longestStreakDays != null ? longestStreakDays : 0;
     }
     
-    public String getBadges() {
-        return badges != null ? badges : "[]";
+    public Long getBadgeMask() {
+        return badgeMask != null ? badgeMask : 0L;
     }
     
-    public void setBadges(String badges) {
-        this.badges = badges != null ? badges : "[]";
+    public void setBadgeMask(Long badgeMask) {
+        this.badgeMask = badgeMask != null ? badgeMask : 0L;
     }
     
     public LocalDate getLastActivityDate() {
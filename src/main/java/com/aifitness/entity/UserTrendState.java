@@ -0,0 +1,383 @@
+package com.aifitness.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * User Trend State Entity
+ * 
+ * Running state of the insights trend engine for one user. Every saved check-in or weekly
+ * weight is folded into this row in O(1), so trend, adherence and plateau insights are read
+ * from a single row instead of from the user's history.
+ * 
+ * - Adherence: 64-day bitmasks of logged, workout and step-goal days ending at lastCheckInDate
+ * - Weight trend: EWMA plus exponentially weighted least-squares sums
+ * - Plateau: one-sided CUSUM change-point statistic against the pre-change weight trend
+ */
+@Entity
+@Table(name = "user_trend_states")
+public class UserTrendState {
+    
+    /**
+     * Number of days covered by the adherence masks
+     */
+    public static final int MASK_DAYS = 64;
+    
+    /**
+     * Weights needed before the regression slope is reported
+     */
+    public static final int MIN_WEIGHTS_FOR_TREND = 5;
+    
+    /**
+     * Primary Key - Auto-generated ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    
+    /**
+     * User the state belongs to
+     */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    private User user;
+    
+    /**
+     * Latest check-in date applied; bit 0 of the masks is this day
+     */
+    @Column(name = "last_checkin_date")
+    private LocalDate lastCheckInDate;
+    
+    /**
+     * Days with a check-in: bit i is set if the day i days before lastCheckInDate was logged
+     */
+    @Column(name = "logged_mask", nullable = false)
+    private Long loggedMask = 0L;
+    
+    /**
+     * Days with a completed workout, same bit layout as loggedMask
+     */
+    @Column(name = "workout_mask", nullable = false)
+    private Long workoutMask = 0L;
+    
+    /**
+     * Days that reached the step goal, same bit layout as loggedMask
+     */
+    @Column(name = "step_goal_mask", nullable = false)
+    private Long stepGoalMask = 0L;
+    
+    /**
+     * Oldest weight in the current trend state
+     */
+    @Column(name = "first_weight_date")
+    private LocalDate firstWeightDate;
+    
+    /**
+     * Date of the latest weight applied
+     */
+    @Column(name = "last_weight_date")
+    private LocalDate lastWeightDate;
+    
+    /**
+     * Latest weight applied (kg)
+     */
+    @Column(name = "last_weight")
+    private Double lastWeight;
+    
+    /**
+     * Number of weights applied
+     */
+    @Column(name = "weight_count", nullable = false)
+    private Integer weightCount = 0;
+    
+    /**
+     * Exponentially weighted moving average of weight (kg)
+     */
+    @Column(name = "weight_ewma")
+    private Double weightEwma;
+    
+    /**
+     * Exponentially weighted regression sums; x is in days relative to lastWeightDate
+     */
+    @Column(name = "reg_weight_sum", nullable = false)
+    private Double regWeightSum = 0.0;
+    
+    @Column(name = "reg_x_sum", nullable = false)
+    private Double regXSum = 0.0;
+    
+    @Column(name = "reg_y_sum", nullable = false)
+    private Double regYSum = 0.0;
+    
+    @Column(name = "reg_xx_sum", nullable = false)
+    private Double regXxSum = 0.0;
+    
+    @Column(name = "reg_xy_sum", nullable = false)
+    private Double regXySum = 0.0;
+    
+    /**
+     * One-sided CUSUM of smoothed weight change above the baseline rate (kg)
+     */
+    @Column(name = "cusum", nullable = false)
+    private Double cusum = 0.0;
+    
+    /**
+     * Weight trend (kg/day) when the CUSUM was last at zero
+     */
+    @Column(name = "baseline_rate")
+    private Double baselineRate;
+    
+    /**
+     * Last date the CUSUM was at zero: the estimated start of a change
+     */
+    @Column(name = "change_point_date")
+    private LocalDate changePointDate;
+    
+    /**
+     * Smoothed weight on changePointDate
+     */
+    @Column(name = "change_point_ewma")
+    private Double changePointEwma;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    /**
+     * Default constructor - Required by JPA
+     */
+    public UserTrendState() {
+    }
+    
+    public UserTrendState(User user) {
+        this.user = user;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Weighted least-squares slope of weight over time.
+     * 
+     * @return Weight trend in kg/day, or null with fewer than MIN_WEIGHTS_FOR_TREND weights
+     */
+    public Double getTrendSlope() {
+        if (weightCount == null || weightCount < MIN_WEIGHTS_FOR_TREND) {
+            return null;
+        }
+        double denominator = regWeightSum * regXxSum - regXSum * regXSum;
+        if (denominator <= 1e-9) {
+            return null;
+        }
+        return (regWeightSum * regXySum - regXSum * regYSum) / denominator;
+    }
+    
+    /**
+     * @return Number of logged days in the windowDays days ending on asOf
+     */
+    public int getLoggedDays(LocalDate asOf, int windowDays) {
+        return countDays(loggedMask, asOf, windowDays);
+    }
+    
+    /**
+     * @return Number of workout days in the windowDays days ending on asOf
+     */
+    public int getWorkoutDays(LocalDate asOf, int windowDays) {
+        return countDays(workoutMask, asOf, windowDays);
+    }
+    
+    /**
+     * @return Number of days that reached the step goal in the windowDays days ending on asOf
+     */
+    public int getStepGoalDays(LocalDate asOf, int windowDays) {
+        return countDays(stepGoalMask, asOf, windowDays);
+    }
+    
+    private int countDays(Long mask, LocalDate asOf, int windowDays) {
+        if (lastCheckInDate == null || mask == null) {
+            return 0;
+        }
+        // Days between lastCheckInDate and asOf are unlogged; the rest of the window is bits 0..n-1
+        long gap = asOf.isAfter(lastCheckInDate) ? ChronoUnit.DAYS.between(lastCheckInDate, asOf) : 0;
+        long bits = windowDays - gap;
+        if (bits <= 0) {
+            return 0;
+        }
+        long window = bits >= MASK_DAYS ? -1L : (1L << bits) - 1;
+        return Long.bitCount(mask & window);
+    }
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public void setUser(User user) {
+        this.user = user;
+    }
+    
+    public LocalDate getLastCheckInDate() {
+        return lastCheckInDate;
+    }
+    
+    public void setLastCheckInDate(LocalDate lastCheckInDate) {
+        this.lastCheckInDate = lastCheckInDate;
+    }
+    
+    public Long getLoggedMask() {
+        return loggedMask;
+    }
+    
+    public void setLoggedMask(Long loggedMask) {
+        this.loggedMask = loggedMask;
+    }
+    
+    public Long getWorkoutMask() {
+        return workoutMask;
+    }
+    
+    public void setWorkoutMask(Long workoutMask) {
+        this.workoutMask = workoutMask;
+    }
+    
+    public Long getStepGoalMask() {
+        return stepGoalMask;
+    }
+    
+    public void setStepGoalMask(Long stepGoalMask) {
+        this.stepGoalMask = stepGoalMask;
+    }
+    
+    public LocalDate getFirstWeightDate() {
+        return firstWeightDate;
+    }
+    
+    public void setFirstWeightDate(LocalDate firstWeightDate) {
+        this.firstWeightDate = firstWeightDate;
+    }
+    
+    public LocalDate getLastWeightDate() {
+        return lastWeightDate;
+    }
+    
+    public void setLastWeightDate(LocalDate lastWeightDate) {
+        this.lastWeightDate = lastWeightDate;
+    }
+    
+    public Double getLastWeight() {
+        return lastWeight;
+    }
+    
+    public void setLastWeight(Double lastWeight) {
+        this.lastWeight = lastWeight;
+    }
+    
+    public Integer getWeightCount() {
+        return weightCount;
+    }
+    
+    public void setWeightCount(Integer weightCount) {
+        this.weightCount = weightCount;
+    }
+    
+    public Double getWeightEwma() {
+        return weightEwma;
+    }
+    
+    public void setWeightEwma(Double weightEwma) {
+        this.weightEwma = weightEwma;
+    }
+    
+    public Double getRegWeightSum() {
+        return regWeightSum;
+    }
+    
+    public void setRegWeightSum(Double regWeightSum) {
+        this.regWeightSum = regWeightSum;
+    }
+    
+    public Double getRegXSum() {
+        return regXSum;
+    }
+    
+    public void setRegXSum(Double regXSum) {
+        this.regXSum = regXSum;
+    }
+    
+    public Double getRegYSum() {
+        return regYSum;
+    }
+    
+    public void setRegYSum(Double regYSum) {
+        this.regYSum = regYSum;
+    }
+    
+    public Double getRegXxSum() {
+        return regXxSum;
+    }
+    
+    public void setRegXxSum(Double regXxSum) {
+        this.regXxSum = regXxSum;
+    }
+    
+    public Double getRegXySum() {
+        return regXySum;
+    }
+    
+    public void setRegXySum(Double regXySum) {
+        this.regXySum = regXySum;
+    }
+    
+    public Double getCusum() {
+        return cusum;
+    }
+    
+    public void setCusum(Double cusum) {
+        this.cusum = cusum;
+    }
+    
+    public Double getBaselineRate() {
+        return baselineRate;
+    }
+    
+    public void setBaselineRate(Double baselineRate) {
+        this.baselineRate = baselineRate;
+    }
+    
+    public LocalDate getChangePointDate() {
+        return changePointDate;
+    }
+    
+    public void setChangePointDate(LocalDate changePointDate) {
+        this.changePointDate = changePointDate;
+    }
+    
+    public Double getChangePointEwma() {
+        return changePointEwma;
+    }
+    
+    public void setChangePointEwma(Double changePointEwma) {
+        this.changePointEwma = changePointEwma;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,203 @@
+package com.aifitness.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Weight Forecast Model Entity
+ * 
+ * Cached damped-trend model of one user's weight, fitted by WeightForecastService.
+ * Forecasts are computed from these parameters alone, so serving one does not read history.
+ */
+@Entity
+@Table(name = "weight_forecast_models")
+public class WeightForecastModel {
+    
+    /**
+     * Primary Key - Auto-generated ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    
+    /**
+     * User the model belongs to
+     */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    private User user;
+    
+    /**
+     * Number of weights the model was fitted to
+     */
+    @Column(name = "observations", nullable = false)
+    private Integer observations = 0;
+    
+    /**
+     * Date of the last fitted weight; forecasts start from here
+     */
+    @Column(name = "last_weight_date")
+    private LocalDate lastWeightDate;
+    
+    /**
+     * Level smoothing factor; null when there were too few weights to fit
+     */
+    @Column(name = "alpha")
+    private Double alpha;
+    
+    /**
+     * Trend smoothing factor
+     */
+    @Column(name = "beta")
+    private Double beta;
+    
+    /**
+     * Daily trend damping factor
+     */
+    @Column(name = "phi")
+    private Double phi;
+    
+    /**
+     * Smoothed weight on lastWeightDate (kg)
+     */
+    @Column(name = "level")
+    private Double level;
+    
+    /**
+     * Trend on lastWeightDate (kg/day)
+     */
+    @Column(name = "trend")
+    private Double trend;
+    
+    /**
+     * Standard deviation of the one-step-ahead errors (kg)
+     */
+    @Column(name = "sigma")
+    private Double sigma;
+    
+    /**
+     * Weight change implied by logged calories minus TDEE (kg/day); null if unknown
+     */
+    @Column(name = "energy_balance_rate")
+    private Double energyBalanceRate;
+    
+    @Column(name = "fitted_at", nullable = false)
+    private LocalDateTime fittedAt;
+    
+    /**
+     * Default constructor - Required by JPA
+     */
+    public WeightForecastModel() {
+    }
+    
+    public WeightForecastModel(User user) {
+        this.user = user;
+    }
+    
+    /**
+     * @return true if parameters were fitted (enough weights were available)
+     */
+    public boolean isFitted() {
+        return alpha != null;
+    }
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public void setUser(User user) {
+        this.user = user;
+    }
+    
+    public Integer getObservations() {
+        return observations;
+    }
+    
+    public void setObservations(Integer observations) {
+        this.observations = observations;
+    }
+    
+    public LocalDate getLastWeightDate() {
+        return lastWeightDate;
+    }
+    
+    public void setLastWeightDate(LocalDate lastWeightDate) {
+        this.lastWeightDate = lastWeightDate;
+    }
+    
+    public Double getAlpha() {
+        return alpha;
+    }
+    
+    public void setAlpha(Double alpha) {
+        this.alpha = alpha;
+    }
+    
+    public Double getBeta() {
+        return beta;
+    }
+    
+    public void setBeta(Double beta) {
+        this.beta = beta;
+    }
+    
+    public Double getPhi() {
+        return phi;
+    }
+    
+    public void setPhi(Double phi) {
+        this.phi = phi;
+    }
+    
+    public Double getLevel() {
+        return level;
+    }
+    
+    public void setLevel(Double level) {
+        this.level = level;
+    }
+    
+    public Double getTrend() {
+        return trend;
+    }
+    
+    public void setTrend(Double trend) {
+        this.trend = trend;
+    }
+    
+    public Double getSigma() {
+        return sigma;
+    }
+    
+    public void setSigma(Double sigma) {
+        this.sigma = sigma;
+    }
+    
+    public Double getEnergyBalanceRate() {
+        return energyBalanceRate;
+    }
+    
+    public void setEnergyBalanceRate(Double energyBalanceRate) {
+        this.energyBalanceRate = energyBalanceRate;
+    }
+    
+    public LocalDateTime getFittedAt() {
+        return fittedAt;
+    }
+    
+    public void setFittedAt(LocalDateTime fittedAt) {
+        this.fittedAt = fittedAt;
+    }
+}
@@ -224,6 +224,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
     }
     
+    /**
+     * Handle password hashing saturation (503 Service Unavailable).
+     * Sent during login/signup bursts so clients back off instead of queueing on the server.
+     */
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ApiResponse<String>> handlePasswordHashingUnavailableException(
+            PasswordHashingUnavailableException ex) {
+        
+        logger.warn("Password hashing unavailable: {}", ex.getMessage());
+        
+        ApiResponse<String> response = ApiResponse.error("Server is busy. Please try again shortly.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(response);
+    }
+    
     /**
      * Handle missing resource exceptions (404 Not Found).
      * This prevents missing endpoints from returning 500 errors.
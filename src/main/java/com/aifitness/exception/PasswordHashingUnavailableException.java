@@ -0,0 +1,15 @@
+package com.aifitness.exception;
+
+/**
+ * Exception thrown when the password hashing pool is saturated and cannot take more work.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+    
+    public PasswordHashingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
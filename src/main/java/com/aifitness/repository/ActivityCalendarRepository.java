@@ -0,0 +1,123 @@
+package com.aifitness.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Activity Calendar Repository
+ *
+ * Data access for user_activity_calendars: per user and UTC year, a 48-byte bitmap of active
+ * days and one of frozen days (bit n = day-of-year n + 1, numbered as by Postgres set_bit).
+ *
+ * Days are marked with a single upsert that sets one bit on the row as it is when the statement
+ * runs, so concurrent marks never lose each other. The upsert also locks the row until the
+ * transaction ends, so a streak computed afterwards in the same transaction sees every mark
+ * committed before it.
+ */
+@Repository
+public class ActivityCalendarRepository {
+
+    private static final String EMPTY_BITMAP = "decode(repeat('00', 48), 'hex')";
+
+    private static final String MARK_ACTIVE_SQL =
+            "INSERT INTO user_activity_calendars (user_id, year, active_days) " +
+            "VALUES (?, ?, set_bit(" + EMPTY_BITMAP + ", ?, 1)) " +
+            "ON CONFLICT (user_id, year) DO UPDATE " +
+            "SET active_days = set_bit(user_activity_calendars.active_days, ?, 1)";
+
+    private static final String MARK_FROZEN_SQL =
+            "INSERT INTO user_activity_calendars (user_id, year, frozen_days) " +
+            "VALUES (?, ?, set_bit(" + EMPTY_BITMAP + ", ?, 1)) " +
+            "ON CONFLICT (user_id, year) DO UPDATE " +
+            "SET frozen_days = set_bit(user_activity_calendars.frozen_days, ?, 1)";
+
+    private static final String FIND_BY_USER_SQL =
+            "SELECT year, active_days, frozen_days FROM user_activity_calendars " +
+            "WHERE user_id = ? ORDER BY year";
+
+    /**
+     * Same derivation as the V27 backfill, for one user: one byte per 8 days of the user's
+     * gamification events and check-ins, assembled per year. Frozen days are kept.
+     */
+    private static final String REBUILD_ACTIVE_DAYS_SQL =
+            "WITH activity_days AS (" +
+            "  SELECT event_date AS day FROM gamification_events WHERE user_id = ? " +
+            "  UNION " +
+            "  SELECT date AS day FROM daily_checkins WHERE user_id = ?" +
+            "), day_bytes AS (" +
+            "  SELECT EXTRACT(YEAR FROM day)::INTEGER AS year, " +
+            "         (EXTRACT(DOY FROM day)::INTEGER - 1) / 8 AS byte_index, " +
+            "         BIT_OR(1 << ((EXTRACT(DOY FROM day)::INTEGER - 1) % 8)) AS byte_value " +
+            "  FROM activity_days GROUP BY 1, 2" +
+            ") " +
+            "INSERT INTO user_activity_calendars (user_id, year, active_days) " +
+            "SELECT ?, y.year, " +
+            "       decode(string_agg(lpad(to_hex(COALESCE(b.byte_value, 0)), 2, '0'), '' ORDER BY i), 'hex') " +
+            "FROM (SELECT DISTINCT year FROM day_bytes) y " +
+            "CROSS JOIN generate_series(0, 47) AS i " +
+            "LEFT JOIN day_bytes b ON b.year = y.year AND b.byte_index = i " +
+            "GROUP BY y.year " +
+            "ON CONFLICT (user_id, year) DO UPDATE SET active_days = EXCLUDED.active_days";
+
+    /**
+     * Bitmaps of one user and year
+     */
+    public record YearBitmaps(int year, byte[] activeDays, byte[] frozenDays) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ActivityCalendarRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Marks a day as active.
+     *
+     * @param userId The user ID
+     * @param day The UTC day
+     */
+    public void markActive(Long userId, LocalDate day) {
+        int bit = day.getDayOfYear() - 1;
+        jdbcTemplate.update(MARK_ACTIVE_SQL, userId, day.getYear(), bit, bit);
+    }
+
+    /**
+     * Marks a day as covered by a streak freeze.
+     *
+     * @param userId The user ID
+     * @param day The UTC day
+     */
+    public void markFrozen(Long userId, LocalDate day) {
+        int bit = day.getDayOfYear() - 1;
+        jdbcTemplate.update(MARK_FROZEN_SQL, userId, day.getYear(), bit, bit);
+    }
+
+    /**
+     * Finds all years of a user's calendar.
+     *
+     * @param userId The user ID
+     * @return Bitmaps per year, ascending
+     */
+    public List<YearBitmaps> findByUserId(Long userId) {
+        return jdbcTemplate.query(FIND_BY_USER_SQL,
+                (rs, rowNum) -> new YearBitmaps(rs.getInt("year"), rs.getBytes("active_days"), rs.getBytes("frozen_days")),
+                userId);
+    }
+
+    /**
+     * Recomputes a user's active days from their gamification events and check-ins,
+     * e.g. after check-ins were imported.
+     *
+     * @param userId The user ID
+     * @return Number of years written
+     */
+    public int rebuildActiveDays(Long userId) {
+        return jdbcTemplate.update(REBUILD_ACTIVE_DAYS_SQL, userId, userId, userId);
+    }
+}
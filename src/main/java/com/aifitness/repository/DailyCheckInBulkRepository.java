@@ -0,0 +1,89 @@
+package com.aifitness.repository;
+
+import com.aifitness.dto.DailyCheckInRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Daily Check-In Bulk Repository
+ *
+ * JDBC batch upsert of daily check-ins for imports. Spring Data has no upsert, and a
+ * select-then-insert per row costs two round trips per day of history.
+ *
+ * Rows are written with INSERT ... ON CONFLICT (user_id, date) against the unique_user_date
+ * constraint. As with a single check-in save, only provided fields overwrite an existing
+ * check-in, so importing the same file twice leaves the same data.
+ */
+@Repository
+public class DailyCheckInBulkRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO daily_checkins (user_id, date, weight, steps, workout_done, notes, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, COALESCE(?, FALSE), ?, ?, ?) " +
+            "ON CONFLICT (user_id, date) DO UPDATE SET " +
+            "weight = COALESCE(EXCLUDED.weight, daily_checkins.weight), " +
+            "steps = COALESCE(EXCLUDED.steps, daily_checkins.steps), " +
+            "workout_done = COALESCE(?, daily_checkins.workout_done), " +
+            "notes = COALESCE(EXCLUDED.notes, daily_checkins.notes), " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DailyCheckInBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Upserts check-ins for one user as a single JDBC batch.
+     *
+     * @param userId Owner of the check-ins
+     * @param checkIns Validated check-ins; each date must appear at most once
+     * @return Number of check-ins written
+     */
+    public int upsertBatch(Long userId, List<DailyCheckInRequest> checkIns) {
+        if (checkIns.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DailyCheckInRequest checkIn = checkIns.get(i);
+                ps.setLong(1, userId);
+                ps.setDate(2, Date.valueOf(checkIn.getDate()));
+                setNullable(ps, 3, checkIn.getWeight(), Types.DOUBLE);
+                setNullable(ps, 4, checkIn.getSteps(), Types.INTEGER);
+                setNullable(ps, 5, checkIn.getWorkoutDone(), Types.BOOLEAN);
+                setNullable(ps, 6, checkIn.getNotes(), Types.VARCHAR);
+                ps.setTimestamp(7, now);
+                ps.setTimestamp(8, now);
+                setNullable(ps, 9, checkIn.getWorkoutDone(), Types.BOOLEAN);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return checkIns.size();
+            }
+        });
+        return checkIns.size();
+    }
+
+    private static void setNullable(PreparedStatement ps, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else {
+            ps.setObject(index, value, sqlType);
+        }
+    }
+}
@@ -2,10 +2,12 @@ package com.aifitness.repository;
 
 import com.aifitness.entity.DailyCheckIn;
 import com.aifitness.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,24 +27,26 @@ public interface DailyCheckInRepository extends JpaRepository<DailyCheckIn, Long
     Optional<DailyCheckIn> findByUserAndDate(User user, LocalDate date);
     
     /**
-     * Finds all check-ins for a user, ordered by date descending (most recent first).
+     * Finds the most recent check-ins for a user, newest first.
+     * 
+     * The page size becomes a SQL LIMIT, served by the (user_id, date) index.
      */
-    List<DailyCheckIn> findByUserOrderByDateDesc(User user);
+    List<DailyCheckIn> findByUserIdOrderByDateDesc(Long userId, Pageable pageable);
+    
+    /**
+     * Keyset page: check-ins for a user dated before the cursor, newest first.
+     */
+    List<DailyCheckIn> findByUserIdAndDateBeforeOrderByDateDesc(Long userId, LocalDate before, Pageable pageable);
     
     /**
      * Finds check-ins for a user within a date range, ordered by date ascending.
      */
-    List<DailyCheckIn> findByUserAndDateBetweenOrderByDateAsc(
-            User user, LocalDate startDate, LocalDate endDate);
+    List<DailyCheckIn> findByUserIdAndDateBetweenOrderByDateAsc(
+            Long userId, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * Finds the weighed-in check-ins of several users from a date on (batch model fitting).
+     */
+    List<DailyCheckIn> findByUserIdInAndWeightIsNotNullAndDateGreaterThanEqual(
+            Collection<Long> userIds, LocalDate from);
 }
-
-
-
-
-
-
-
-
-
-
-
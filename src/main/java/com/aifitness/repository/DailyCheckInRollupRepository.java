@@ -0,0 +1,101 @@
+package com.aifitness.repository;
+
+import com.aifitness.entity.DailyCheckInRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily Check-In Rollup Repository
+ *
+ * Provides data access methods for DailyCheckInRollup entity.
+ */
+@Repository
+public interface DailyCheckInRollupRepository extends JpaRepository<DailyCheckInRollup, Long> {
+
+    /**
+     * Conflict clause shared by the rollup upserts: a recomputed period replaces the stored one
+     */
+    String UPSERT_ROLLUP_CONFLICT =
+            "ON CONFLICT (user_id, period_type, period_start) DO UPDATE SET " +
+            "days_logged = EXCLUDED.days_logged, workout_count = EXCLUDED.workout_count, " +
+            "steps_total = EXCLUDED.steps_total, steps_days = EXCLUDED.steps_days, " +
+            "weight_sum = EXCLUDED.weight_sum, weight_days = EXCLUDED.weight_days, " +
+            "weight_min = EXCLUDED.weight_min, weight_max = EXCLUDED.weight_max, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    /**
+     * Recomputes one period's rollup from the user's check-ins in [periodStart, periodEnd)
+     * and upserts it. The period holds at most 31 check-ins, read through the (user_id, date) index.
+     *
+     * @return Number of rows written (1)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_checkin_rollups (user_id, period_type, period_start, days_logged, " +
+                   "workout_count, steps_total, steps_days, weight_sum, weight_days, weight_min, weight_max, updated_at) " +
+                   "SELECT :userId, :periodType, :periodStart, COUNT(*), " +
+                   "COUNT(*) FILTER (WHERE c.workout_done), COALESCE(SUM(c.steps), 0), COUNT(c.steps), " +
+                   "COALESCE(SUM(c.weight), 0), COUNT(c.weight), MIN(c.weight), MAX(c.weight), CURRENT_TIMESTAMP " +
+                   "FROM daily_checkins c " +
+                   "WHERE c.user_id = :userId AND c.date >= :periodStart AND c.date < :periodEnd " +
+                   UPSERT_ROLLUP_CONFLICT,
+           nativeQuery = true)
+    int refreshPeriod(@Param("userId") Long userId,
+                      @Param("periodType") String periodType,
+                      @Param("periodStart") LocalDate periodStart,
+                      @Param("periodEnd") LocalDate periodEnd);
+
+    /**
+     * Recomputes every ISO week rollup overlapping [from, to) for a user in one grouped upsert.
+     * Used after bulk imports; from and to must be ISO week boundaries so no period is partly counted.
+     *
+     * @return Number of rows written
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_checkin_rollups (user_id, period_type, period_start, days_logged, " +
+                   "workout_count, steps_total, steps_days, weight_sum, weight_days, weight_min, weight_max, updated_at) " +
+                   "SELECT c.user_id, 'WEEK', CAST(date_trunc('week', c.date) AS DATE), COUNT(*), " +
+                   "COUNT(*) FILTER (WHERE c.workout_done), COALESCE(SUM(c.steps), 0), COUNT(c.steps), " +
+                   "COALESCE(SUM(c.weight), 0), COUNT(c.weight), MIN(c.weight), MAX(c.weight), CURRENT_TIMESTAMP " +
+                   "FROM daily_checkins c " +
+                   "WHERE c.user_id = :userId AND c.date >= :from AND c.date < :to " +
+                   "GROUP BY c.user_id, CAST(date_trunc('week', c.date) AS DATE) " +
+                   UPSERT_ROLLUP_CONFLICT,
+           nativeQuery = true)
+    int refreshWeeksInRange(@Param("userId") Long userId,
+                            @Param("from") LocalDate from,
+                            @Param("to") LocalDate to);
+
+    /**
+     * Recomputes every month rollup overlapping [from, to) for a user in one grouped upsert.
+     * Used after bulk imports; from and to must be month boundaries so no period is partly counted.
+     *
+     * @return Number of rows written
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_checkin_rollups (user_id, period_type, period_start, days_logged, " +
+                   "workout_count, steps_total, steps_days, weight_sum, weight_days, weight_min, weight_max, updated_at) " +
+                   "SELECT c.user_id, 'MONTH', CAST(date_trunc('month', c.date) AS DATE), COUNT(*), " +
+                   "COUNT(*) FILTER (WHERE c.workout_done), COALESCE(SUM(c.steps), 0), COUNT(c.steps), " +
+                   "COALESCE(SUM(c.weight), 0), COUNT(c.weight), MIN(c.weight), MAX(c.weight), CURRENT_TIMESTAMP " +
+                   "FROM daily_checkins c " +
+                   "WHERE c.user_id = :userId AND c.date >= :from AND c.date < :to " +
+                   "GROUP BY c.user_id, CAST(date_trunc('month', c.date) AS DATE) " +
+                   UPSERT_ROLLUP_CONFLICT,
+           nativeQuery = true)
+    int refreshMonthsInRange(@Param("userId") Long userId,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to);
+
+    /**
+     * Finds the most recent rollups of one period type for a user, newest first.
+     */
+    List<DailyCheckInRollup> findByUserIdAndPeriodTypeAndDaysLoggedGreaterThanOrderByPeriodStartDesc(
+            Long userId, String periodType, Integer daysLogged, Pageable pageable);
+}
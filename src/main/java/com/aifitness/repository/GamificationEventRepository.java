@@ -4,8 +4,12 @@ import com.aifitness.entity.EventType;
 import com.aifitness.entity.GamificationEvent;
 import com.aifitness.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 /**
@@ -24,14 +28,34 @@ public interface GamificationEventRepository extends JpaRepository<GamificationE
      * @return Optional GamificationEvent if found
      */
     Optional<GamificationEvent> findByUserAndTypeAndSourceId(User user, EventType type, String sourceId);
+    
+    /**
+     * Checks whether an event exists, without loading the user.
+     * 
+     * @param userId The user ID
+     * @param type The event type
+     * @param sourceId The source ID
+     * @return true if the user has an event of this type and sourceId
+     */
+    boolean existsByUserIdAndTypeAndSourceId(Long userId, EventType type, String sourceId);
+    
+    /**
+     * Records an event unless (user, type, sourceId) already exists. Safe to call concurrently:
+     * exactly one caller gets 1 back for a given event, all others get 0.
+     * 
+     * @param userId The user ID
+     * @param type The event type name
+     * @param eventDate The activity date
+     * @param sourceId The source ID
+     * @return Number of rows inserted (0 or 1)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO gamification_events (user_id, type, event_date, source_id, created_at) " +
+                   "VALUES (:userId, :type, :eventDate, :sourceId, CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (user_id, type, source_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("type") String type,
+                       @Param("eventDate") LocalDate eventDate,
+                       @Param("sourceId") String sourceId);
 }
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,143 @@
+package com.aifitness.repository;
+
+import com.aifitness.entity.EventType;
+import com.aifitness.service.GamificationRules;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Leaderboard Snapshot Repository
+ *
+ * JDBC access to the leaderboard snapshot (leaderboard_xp_totals plus the events_before
+ * watermark in leaderboard_snapshot_state) and to XP aggregates of gamification_events.
+ *
+ * Event XP is computed in SQL from the event type with the GamificationRules rewards, so
+ * the totals always equal what recordEvent granted for the same events.
+ */
+@Repository
+public class LeaderboardSnapshotRepository {
+
+    public static final String BOARD_ALL_TIME = "ALL_TIME";
+    public static final String BOARD_WEEKLY = "WEEKLY";
+
+    /**
+     * period_start of the all-time board
+     */
+    public static final LocalDate ALL_TIME_PERIOD = LocalDate.of(1970, 1, 1);
+
+    private static final String EVENT_XP = eventXpCase();
+
+    /**
+     * ISO week (Monday) of the event date; Postgres weeks start on Monday
+     */
+    private static final String EVENT_WEEK = "CAST(date_trunc('week', event_date) AS date)";
+
+    private static final String FOLD_ALL_TIME_SQL =
+            "INSERT INTO leaderboard_xp_totals (board, period_start, user_id, xp) " +
+            "SELECT '" + BOARD_ALL_TIME + "', ?, user_id, SUM(" + EVENT_XP + ") " +
+            "FROM gamification_events WHERE created_at >= ? AND created_at < ? GROUP BY user_id " +
+            "ON CONFLICT (board, period_start, user_id) DO UPDATE SET xp = leaderboard_xp_totals.xp + EXCLUDED.xp";
+
+    private static final String FOLD_WEEKLY_SQL =
+            "INSERT INTO leaderboard_xp_totals (board, period_start, user_id, xp) " +
+            "SELECT '" + BOARD_WEEKLY + "', " + EVENT_WEEK + ", user_id, SUM(" + EVENT_XP + ") " +
+            "FROM gamification_events WHERE created_at >= ? AND created_at < ? AND event_date >= ? " +
+            "GROUP BY " + EVENT_WEEK + ", user_id " +
+            "ON CONFLICT (board, period_start, user_id) DO UPDATE SET xp = leaderboard_xp_totals.xp + EXCLUDED.xp";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LeaderboardSnapshotRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads the watermark: events created before it are included in the totals.
+     *
+     * @param forUpdate Lock the state row until the transaction ends (for folding)
+     */
+    public LocalDateTime getWatermark(boolean forUpdate) {
+        return jdbcTemplate.queryForObject(
+                "SELECT events_before FROM leaderboard_snapshot_state WHERE id = 1" + (forUpdate ? " FOR UPDATE" : ""),
+                LocalDateTime.class);
+    }
+
+    /**
+     * Gets the database clock in the time zone of gamification_events.created_at.
+     */
+    public LocalDateTime databaseNow() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+    }
+
+    /**
+     * Adds the XP of events created in [from, to) to the all-time totals and to the weekly
+     * totals of weeks starting on or after firstWeek, then moves the watermark to to.
+     * Must run in a transaction that holds the state row lock.
+     *
+     * @return Number of total rows inserted or updated
+     */
+    public int fold(LocalDateTime from, LocalDateTime to, LocalDate firstWeek) {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        int rows = jdbcTemplate.update(FOLD_ALL_TIME_SQL, Date.valueOf(ALL_TIME_PERIOD), fromTs, toTs);
+        rows += jdbcTemplate.update(FOLD_WEEKLY_SQL, fromTs, toTs, Date.valueOf(firstWeek));
+        jdbcTemplate.update("UPDATE leaderboard_snapshot_state SET events_before = ?, updated_at = CURRENT_TIMESTAMP WHERE id = 1",
+                toTs);
+        return rows;
+    }
+
+    /**
+     * Deletes weekly totals of weeks before the given week.
+     *
+     * @return Number of rows deleted
+     */
+    public int deleteWeeksBefore(LocalDate weekStart) {
+        return jdbcTemplate.update("DELETE FROM leaderboard_xp_totals WHERE board = ? AND period_start < ?",
+                BOARD_WEEKLY, Date.valueOf(weekStart));
+    }
+
+    /**
+     * Streams the snapshot totals of one board period as (userId, xp).
+     */
+    public void forEachTotal(String board, LocalDate periodStart, ObjLongConsumer<Long> consumer) {
+        jdbcTemplate.query("SELECT user_id, xp FROM leaderboard_xp_totals WHERE board = ? AND period_start = ?",
+                rs -> {
+                    consumer.accept(rs.getLong("user_id"), rs.getLong("xp"));
+                },
+                board, Date.valueOf(periodStart));
+    }
+
+    /**
+     * Streams the XP per user of events created on or after a time as (userId, xp).
+     *
+     * @param createdFrom Events created at or after this time
+     * @param weekStart Only events dated in this week, or null for all
+     */
+    public void forEachEventTotal(LocalDateTime createdFrom, LocalDate weekStart, ObjLongConsumer<Long> consumer) {
+        String sql = "SELECT user_id, SUM(" + EVENT_XP + ") AS xp FROM gamification_events WHERE created_at >= ?"
+                + (weekStart != null ? " AND event_date >= ? AND event_date < ?" : "")
+                + " GROUP BY user_id";
+        Object[] args = weekStart != null
+                ? new Object[] {Timestamp.valueOf(createdFrom), Date.valueOf(weekStart), Date.valueOf(weekStart.plusDays(7))}
+                : new Object[] {Timestamp.valueOf(createdFrom)};
+        jdbcTemplate.query(sql, rs -> {
+            consumer.accept(rs.getLong("user_id"), rs.getLong("xp"));
+        }, args);
+    }
+
+    private static String eventXpCase() {
+        StringBuilder sql = new StringBuilder("CASE type");
+        for (EventType type : EventType.values()) {
+            sql.append(" WHEN '").append(type.name()).append("' THEN ").append(GamificationRules.xpFor(type));
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+}
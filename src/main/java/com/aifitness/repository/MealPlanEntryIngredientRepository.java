@@ -0,0 +1,47 @@
+package com.aifitness.repository;
+
+import com.aifitness.entity.MealPlanEntryIngredient;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Meal Plan Entry Ingredient Repository
+ * 
+ * Provides data access methods for MealPlanEntryIngredient entity.
+ */
+@Repository
+public interface MealPlanEntryIngredientRepository extends JpaRepository<MealPlanEntryIngredient, Long> {
+    
+    /**
+     * Aggregates all ingredients of a meal plan for the grocery list.
+     * 
+     * Quantities are summed per ingredient, canonical unit and qualifier in a single
+     * GROUP BY, so "200g" + "150g" becomes 350 and "150g cooked" stays separate from "100g dry".
+     * Rows whose quantity could not be parsed are grouped by their text instead, so "a pinch"
+     * and "to taste" both stay on the list (quantity is null for those groups).
+     */
+    @Query("SELECT i.normalizedName AS normalizedName, MIN(i.name) AS name, i.unit AS unit, " +
+           "i.qualifier AS qualifier, SUM(i.quantity) AS quantity, MIN(i.quantityText) AS quantityText " +
+           "FROM MealPlanEntryIngredient i " +
+           "WHERE i.entry.mealPlan.id = :mealPlanId " +
+           "GROUP BY i.normalizedName, i.unit, i.qualifier, " +
+           "CASE WHEN i.quantity IS NULL THEN i.quantityText ELSE NULL END " +
+           "ORDER BY i.normalizedName")
+    List<GroceryAggregate> aggregateByMealPlanId(@Param("mealPlanId") Long mealPlanId);
+    
+    /**
+     * One aggregated grocery row: an ingredient in one canonical unit.
+     */
+    interface GroceryAggregate {
+        String getNormalizedName();
+        String getName();
+        String getUnit();
+        String getQualifier();
+        Double getQuantity();
+        String getQuantityText();
+    }
+}
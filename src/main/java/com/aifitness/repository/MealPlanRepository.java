@@ -24,6 +24,14 @@ public interface MealPlanRepository extends JpaRepository<MealPlan, Long> {
      */
     Optional<MealPlan> findByUserAndWeekStartDate(User user, LocalDate weekStartDate);
     
+    /**
+     * Finds the most recent meal plan for a user starting within a date range.
+     * 
+     * Used to locate the plan that covers a given day (start in [day - 6, day]).
+     */
+    Optional<MealPlan> findFirstByUserAndWeekStartDateBetweenOrderByWeekStartDateDesc(
+            User user, LocalDate from, LocalDate to);
+    
     /**
      * Finds all meal plans for a user, ordered by week start date descending.
      * 
@@ -38,6 +46,19 @@ public interface MealPlanRepository extends JpaRepository<MealPlan, Long> {
      */
     Optional<MealPlan> findFirstByUserOrderByWeekStartDateDesc(User user);
     
+    /**
+     * Finds the precomputed document of the latest meal plan for a user.
+     * 
+     * Selects only the document columns, so serving the current plan is a
+     * single-row fetch without loading the entries.
+     */
+    Optional<PlanDocumentView> findFirstDocumentByUserOrderByWeekStartDateDesc(User user);
+    
+    /**
+     * Finds only the ID of the latest meal plan for a user.
+     */
+    Optional<MealPlanIdView> findFirstIdByUserOrderByWeekStartDateDesc(User user);
+    
     /**
      * Checks if a meal plan exists for a user and week start date.
      */
@@ -47,6 +68,22 @@ public interface MealPlanRepository extends JpaRepository<MealPlan, Long> {
      * Counts the number of meal plans for a user.
      */
     long countByUser(User user);
+    
+    /**
+     * Projection of the meal plan ID only.
+     */
+    interface MealPlanIdView {
+        Long getId();
+    }
+    
+    /**
+     * Projection of the precomputed plan document columns.
+     */
+    interface PlanDocumentView {
+        Long getId();
+        byte[] getPlanDocument();
+        String getPlanDocumentEtag();
+    }
 }
 
 
@@ -0,0 +1,38 @@
+package com.aifitness.repository;
+
+import com.aifitness.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outbox Event Repository
+ *
+ * Provides data access methods for OutboxEvent entity.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the next available events until the transaction ends, skipping rows another
+     * dispatcher has locked, so concurrent dispatchers claim disjoint batches.
+     *
+     * @param now Events available at or before this time
+     * @param limit Maximum number of events
+     * @return Event ids, ascending
+     */
+    @Query(value = "SELECT id FROM outbox_events " +
+                   "WHERE failed_at IS NULL AND available_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockAvailableIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Finds events by id in dispatch order.
+     */
+    List<OutboxEvent> findByIdInOrderByIdAsc(List<Long> ids);
+}
@@ -1,9 +1,15 @@
 package com.aifitness.repository;
 
 import com.aifitness.entity.User;
+import com.aifitness.security.AuthPrincipal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -47,6 +53,55 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
     
+    /**
+     * Loads only the columns of the security principal (id, username, email, language, updated_at).
+     * 
+     * Used on every authenticated request instead of loading the full users row.
+     */
+    Optional<AuthPrincipal.PrincipalView> findPrincipalById(Long id);
+    
+    /**
+     * Writes only the meal preference columns (and updated_at) of a user.
+     * 
+     * A targeted update instead of save(user), so it cannot write stale values over columns
+     * updated concurrently (xp, streaks, badges). Bypasses the entity listener, so callers
+     * must evict the user from AuthenticatedUserCache.
+     * 
+     * @return Number of rows updated (0 or 1)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.preferredFoods = :preferredFoods, u.dislikedFoods = :dislikedFoods, " +
+           "u.allergies = :allergies, u.dietaryPreference = :dietaryPreference, " +
+           "u.favoriteCuisines = :favoriteCuisines, u.maxCookingTimePerMeal = :maxCookingTimePerMeal, " +
+           "u.maxBudgetPerDay = :maxBudgetPerDay, u.updatedAt = :updatedAt " +
+           "WHERE u.id = :id")
+    int updateMealPreferences(@Param("id") Long id,
+                              @Param("preferredFoods") String preferredFoods,
+                              @Param("dislikedFoods") String dislikedFoods,
+                              @Param("allergies") String allergies,
+                              @Param("dietaryPreference") String dietaryPreference,
+                              @Param("favoriteCuisines") String favoriteCuisines,
+                              @Param("maxCookingTimePerMeal") Integer maxCookingTimePerMeal,
+                              @Param("maxBudgetPerDay") Integer maxBudgetPerDay,
+                              @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Replaces a user's password hash if it is still the expected one (rehash on login).
+     * 
+     * Only the password column is written, so concurrent updates of other columns are kept,
+     * and a password changed in the meantime is not overwritten. Runs in its own transaction
+     * because login runs without one. Bypasses the entity listener, so callers must evict the
+     * user from AuthenticatedUserCache.
+     * 
+     * @return Number of rows updated (0 or 1)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :newHash WHERE u.id = :id AND u.passwordHash = :oldHash")
+    int updatePasswordHash(@Param("id") Long id,
+                           @Param("oldHash") String oldHash,
+                           @Param("newHash") String newHash);
+    
     // Spring Data JPA provides these methods automatically:
     // - save(User user)
     // - findById(Long id)
@@ -0,0 +1,107 @@
+package com.aifitness.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * User Reward Repository
+ *
+ * Atomic updates of the gamification columns of users (xp, streaks, badges).
+ *
+ * Each write is a single UPDATE that computes the new values from the row as it is when the
+ * statement runs, so concurrent events of the same user never lose an increment and need no
+ * optimistic-lock retry. Streaks are the exception: StreakService computes them from the
+ * activity calendar, whose row lock orders concurrent streak updates. These statements bypass
+ * the User entity, so callers must evict the user from AuthenticatedUserCache.
+ */
+@Repository
+public class UserRewardRepository {
+
+    private static final String APPLY_ACTIVITY_SQL =
+            "UPDATE users SET " +
+            "xp = xp + ?, " +
+            "last_activity_date = GREATEST(last_activity_date, ?), " +
+            "current_streak_days = ?, " +
+            "longest_streak_days = GREATEST(longest_streak_days, ?) " +
+            "WHERE id = ? " +
+            "RETURNING xp, current_streak_days, longest_streak_days, badge_mask";
+
+    private static final String FIND_TOTALS_SQL =
+            "SELECT xp, current_streak_days, longest_streak_days, badge_mask FROM users WHERE id = ?";
+
+    private static final String ADD_BADGES_SQL =
+            "UPDATE users SET badge_mask = badge_mask | ? WHERE id = ?";
+
+    /**
+     * Gamification columns of a user
+     */
+    public record RewardTotals(int xp, int currentStreakDays, int longestStreakDays, long badgeMask) {
+    }
+
+    private static final RowMapper<RewardTotals> REWARD_TOTALS_MAPPER = (rs, rowNum) -> new RewardTotals(
+            rs.getInt("xp"), rs.getInt("current_streak_days"), rs.getInt("longest_streak_days"), rs.getLong("badge_mask"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserRewardRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds XP for an activity and stores the streaks computed from the user's activity calendar
+     * (see StreakService), in one write of the users row.
+     *
+     * last_activity_date only moves forward; longest_streak_days only moves up.
+     *
+     * @param userId The user ID
+     * @param xp XP to add (0 for a streak-only update)
+     * @param activityDate Day of the activity (UTC), or null to leave last_activity_date as is
+     * @param currentStreakDays Current streak
+     * @param longestStreakDays Longest streak
+     * @return Totals after the update, or empty if the user does not exist
+     */
+    public Optional<RewardTotals> applyActivity(Long userId, int xp, LocalDate activityDate,
+                                                int currentStreakDays, int longestStreakDays) {
+        SqlParameterValue day = new SqlParameterValue(Types.DATE, activityDate != null ? Date.valueOf(activityDate) : null);
+        List<RewardTotals> rows = jdbcTemplate.query(APPLY_ACTIVITY_SQL, REWARD_TOTALS_MAPPER,
+                xp, day, currentStreakDays, longestStreakDays, userId);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Reads the gamification columns of a user without loading the User entity.
+     *
+     * current_streak_days is the copy stored at the last calendar write; use
+     * StreakService.getStreaks for streaks as of today.
+     *
+     * @param userId The user ID
+     * @return Totals, or empty if the user does not exist
+     */
+    public Optional<RewardTotals> findTotals(Long userId) {
+        return jdbcTemplate.query(FIND_TOTALS_SQL, REWARD_TOTALS_MAPPER, userId).stream().findFirst();
+    }
+
+    /**
+     * Adds badges to the user's badge mask; badges already held are kept.
+     *
+     * @param userId The user ID
+     * @param badgeMask Bits of the badges to add (see com.aifitness.service.Badge)
+     * @return Number of rows updated (0 or 1)
+     */
+    public int addBadges(Long userId, long badgeMask) {
+        if (badgeMask == 0) {
+            return 0;
+        }
+        return jdbcTemplate.update(ADD_BADGES_SQL, badgeMask, userId);
+    }
+}
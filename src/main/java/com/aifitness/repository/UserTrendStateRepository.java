@@ -0,0 +1,45 @@
+package com.aifitness.repository;
+
+import com.aifitness.entity.UserTrendState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * User Trend State Repository
+ *
+ * Provides data access methods for UserTrendState entity.
+ */
+@Repository
+public interface UserTrendStateRepository extends JpaRepository<UserTrendState, Long> {
+
+    /**
+     * Finds the trend state of a user.
+     */
+    Optional<UserTrendState> findByUserId(Long userId);
+
+    /**
+     * Creates an empty trend state for the user unless one exists. Safe to call concurrently.
+     *
+     * @return Number of rows inserted (0 or 1)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_trend_states (user_id) VALUES (:userId) " +
+                   "ON CONFLICT (user_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId);
+
+    /**
+     * Finds the trend state of a user and locks the row until the transaction ends,
+     * so concurrent check-ins of the same user are applied one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserTrendState s WHERE s.user.id = :userId")
+    Optional<UserTrendState> findByUserIdForUpdate(@Param("userId") Long userId);
+}
@@ -2,12 +2,14 @@ package com.aifitness.repository;
 
 import com.aifitness.entity.User;
 import com.aifitness.entity.WeeklyProgress;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,12 +31,29 @@ public interface WeeklyProgressRepository extends JpaRepository<WeeklyProgress,
     Optional<WeeklyProgress> findByUserAndWeekStartDate(User user, LocalDate weekStartDate);
     
     /**
-     * Finds all weekly progress entries for a user, ordered by week start date descending.
+     * Finds the most recent weekly progress entries for a user, newest first.
      * 
-     * Used to retrieve recent progress entries.
+     * The page size becomes a SQL LIMIT, served by the (user_id, week_start_date) index.
      */
-    List<WeeklyProgress> findByUserOrderByWeekStartDateDesc(User user);
+    List<WeeklyProgress> findByUserIdOrderByWeekStartDateDesc(Long userId, Pageable pageable);
     
+    /**
+     * Keyset page: entries for a user with week start date before the cursor, newest first.
+     */
+    List<WeeklyProgress> findByUserIdAndWeekStartDateBeforeOrderByWeekStartDateDesc(
+            Long userId, LocalDate before, Pageable pageable);
+    
+    /**
+     * Finds entries for a user with week start date in [startDate, endDate], oldest first.
+     */
+    List<WeeklyProgress> findByUserIdAndWeekStartDateBetweenOrderByWeekStartDateAsc(
+            Long userId, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * Finds the entries of several users with week start date on or after a date (batch model fitting).
+     */
+    List<WeeklyProgress> findByUserIdInAndWeekStartDateGreaterThanEqual(
+            Collection<Long> userIds, LocalDate from);
     
     /**
      * Checks if a progress entry exists for a user and week start date.
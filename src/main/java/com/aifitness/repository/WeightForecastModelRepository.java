@@ -0,0 +1,47 @@
+package com.aifitness.repository;
+
+import com.aifitness.entity.WeightForecastModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Weight Forecast Model Repository
+ *
+ * Provides data access methods for WeightForecastModel entity.
+ */
+@Repository
+public interface WeightForecastModelRepository extends JpaRepository<WeightForecastModel, Long> {
+
+    /**
+     * Finds the forecast model of a user.
+     */
+    Optional<WeightForecastModel> findByUserId(Long userId);
+
+    /**
+     * Finds the forecast models of several users.
+     */
+    List<WeightForecastModel> findByUserIdIn(Collection<Long> userIds);
+
+    /**
+     * Keyset page of users whose model needs a refit: users with weights and no model, a model
+     * older than their trend state (new check-ins since the fit), or a model fitted before staleBefore.
+     *
+     * @return User ids above afterUserId, ascending
+     */
+    @Query(value = "SELECT s.user_id FROM user_trend_states s " +
+                   "LEFT JOIN weight_forecast_models m ON m.user_id = s.user_id " +
+                   "WHERE s.user_id > :afterUserId AND s.weight_count > 0 " +
+                   "AND (m.id IS NULL OR m.fitted_at < s.updated_at OR m.fitted_at < :staleBefore) " +
+                   "ORDER BY s.user_id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findUserIdsNeedingRefit(@Param("afterUserId") Long afterUserId,
+                                       @Param("staleBefore") LocalDateTime staleBefore,
+                                       @Param("limit") int limit);
+}
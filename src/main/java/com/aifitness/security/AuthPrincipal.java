@@ -0,0 +1,80 @@
+package com.aifitness.security;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Authenticated Principal
+ *
+ * Compact, immutable identity stored in the SecurityContext for each authenticated request,
+ * loaded through {@code UserRepository.findPrincipalById} instead of the full users row.
+ * Code that needs profile data fetches the full {@code User} explicitly
+ * (see {@link AuthenticatedUserResolver#resolve}).
+ */
+public final class AuthPrincipal {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String preferredLanguage;
+    private final long profileVersion;
+
+    public AuthPrincipal(Long id, String username, String email, String preferredLanguage, long profileVersion) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.preferredLanguage = preferredLanguage;
+        this.profileVersion = profileVersion;
+    }
+
+    /**
+     * Builds a principal from the projection row. The profile version is the row's
+     * updated_at in epoch millis, so it changes on every profile write.
+     */
+    public static AuthPrincipal from(PrincipalView view) {
+        LocalDateTime updatedAt = view.getUpdatedAt();
+        return new AuthPrincipal(
+                view.getId(),
+                view.getUsername(),
+                view.getEmail(),
+                view.getPreferredLanguage(),
+                updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPreferredLanguage() {
+        return preferredLanguage;
+    }
+
+    public long getProfileVersion() {
+        return profileVersion;
+    }
+
+    @Override
+    public String toString() {
+        // Spring Security uses the principal's toString() as the authentication name
+        return username;
+    }
+
+    /**
+     * Interface projection over the users table: only these columns are selected.
+     */
+    public interface PrincipalView {
+        Long getId();
+        String getUsername();
+        String getEmail();
+        String getPreferredLanguage();
+        LocalDateTime getUpdatedAt();
+    }
+}
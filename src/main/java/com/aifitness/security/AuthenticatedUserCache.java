@@ -0,0 +1,148 @@
+package com.aifitness.security;
+
+import com.aifitness.entity.User;
+import com.aifitness.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticated User Cache
+ *
+ * Short-lived cache of users resolved from JWTs, so an API call does not hit the
+ * users table on every request. Two views are kept per user:
+ * - the compact {@link AuthPrincipal} used by the security filter (projection query), and
+ * - the full {@link User}, loaded only when a controller actually needs profile data.
+ * Full users are handed out as fresh detached copies that may be up to the TTL old. They are
+ * for reads only: saving one would write its stale xp, streak and badge columns back over
+ * concurrent atomic updates, so write paths load the row with findById inside their
+ * transaction or update only the columns they change.
+ *
+ * Entries are dropped whenever a user row is written through JPA (see {@link UserCacheInvalidationListener});
+ * the TTL bounds staleness for writes that bypass the entity, such as bulk update queries.
+ */
+@Component
+public class AuthenticatedUserCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<Long, CachedUser> users = new ConcurrentHashMap<>();
+    private final Map<Long, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    public AuthenticatedUserCache(UserRepository userRepository,
+                                  @Value("${auth.user-cache.ttl-seconds:30}") long ttlSeconds,
+                                  @Value("${auth.user-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the principal for a user, loading only the principal columns on a miss or after the TTL.
+     *
+     * @param userId The user ID
+     * @return The principal, or null if the user does not exist
+     */
+    public AuthPrincipal getPrincipal(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = principals.get(userId);
+        if (cached != null && cached.expiresAtMillis > now) {
+            return cached.principal;
+        }
+
+        AuthPrincipal loaded = userRepository.findPrincipalById(userId).map(AuthPrincipal::from).orElse(null);
+        if (loaded == null) {
+            principals.remove(userId);
+            return null;
+        }
+        if (principals.size() >= maxEntries) {
+            principals.values().removeIf(entry -> entry.expiresAtMillis <= now);
+            evictOverflow(principals);
+        }
+        principals.put(userId, new CachedPrincipal(loaded, now + ttlMillis));
+        return loaded;
+    }
+
+    /**
+     * Returns a copy of the user, loading it from the database on a miss or after the TTL.
+     *
+     * @param userId The user ID
+     * @return A detached copy of the user, or null if the user does not exist
+     */
+    public User get(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = users.get(userId);
+        if (cached != null && cached.expiresAtMillis > now) {
+            return new User(cached.user);
+        }
+
+        User loaded = userRepository.findById(userId).orElse(null);
+        if (loaded == null) {
+            users.remove(userId);
+            return null;
+        }
+        if (users.size() >= maxEntries) {
+            users.values().removeIf(entry -> entry.expiresAtMillis <= now);
+            evictOverflow(users);
+        }
+        users.put(userId, new CachedUser(loaded, now + ttlMillis));
+        return new User(loaded);
+    }
+
+    /**
+     * Drops the cached user now and, if a transaction is running, again after it commits,
+     * so a concurrent request cannot re-cache the pre-commit row.
+     *
+     * @param userId The user ID
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        users.remove(userId);
+        principals.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    users.remove(userId);
+                    principals.remove(userId);
+                }
+            });
+        }
+    }
+
+    private void evictOverflow(Map<Long, ?> entries) {
+        Iterator<Long> keys = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static final class CachedPrincipal {
+        private final AuthPrincipal principal;
+        private final long expiresAtMillis;
+
+        private CachedPrincipal(AuthPrincipal principal, long expiresAtMillis) {
+            this.principal = principal;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class CachedUser {
+        private final User user;
+        private final long expiresAtMillis;
+
+        private CachedUser(User user, long expiresAtMillis) {
+            this.user = user;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.aifitness.security;
+
+import com.aifitness.entity.User;
+import com.aifitness.util.JwtTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticated User Resolver
+ *
+ * Shared replacement for the per-controller "parse the Authorization header and findById" helpers.
+ * {@link JwtAuthenticationFilter} already verified the token and put the {@link AuthPrincipal} into the
+ * SecurityContext, so resolving the principal normally costs nothing. Requests that reach a controller
+ * without a populated context (e.g. the filter was skipped) fall back to the token and the user cache.
+ */
+@Component
+public class AuthenticatedUserResolver {
+
+    private final JwtTokenService jwtTokenService;
+    private final AuthenticatedUserCache userCache;
+
+    public AuthenticatedUserResolver(JwtTokenService jwtTokenService, AuthenticatedUserCache userCache) {
+        this.jwtTokenService = jwtTokenService;
+        this.userCache = userCache;
+    }
+
+    /**
+     * Returns the compact principal of the user making the request.
+     *
+     * @param request The current request
+     * @return The authenticated principal
+     * @throws RuntimeException "Unauthorized: ..." if there is no valid token, "User not found" if the account is gone
+     */
+    public AuthPrincipal resolvePrincipal(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthPrincipal principal) {
+            return principal;
+        }
+
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new RuntimeException("Unauthorized: No token provided");
+        }
+
+        JwtTokenService.VerifiedToken verified = jwtTokenService.parseAndValidate(authHeader.substring(7));
+        if (verified == null || verified.getUserId() == null) {
+            throw new RuntimeException("Unauthorized: Invalid token");
+        }
+
+        AuthPrincipal principal = userCache.getPrincipal(verified.getUserId());
+        if (principal == null) {
+            throw new RuntimeException("User not found");
+        }
+        return principal;
+    }
+
+    /**
+     * Returns the full user making the request. Only use this when profile data is needed;
+     * identity checks should use {@link #resolvePrincipal}. The copy may be up to the cache TTL
+     * old, so never save it; writes load the row inside their own transaction.
+     *
+     * @param request The current request
+     * @return The authenticated user (a detached, possibly stale copy)
+     * @throws RuntimeException "Unauthorized: ..." if there is no valid token, "User not found" if the account is gone
+     */
+    public User resolve(HttpServletRequest request) {
+        AuthPrincipal principal = resolvePrincipal(request);
+        User user = userCache.get(principal.getId());
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        return user;
+    }
+}
@@ -1,7 +1,5 @@
 package com.aifitness.security;
 
-import com.aifitness.entity.User;
-import com.aifitness.repository.UserRepository;
 import com.aifitness.util.JwtTokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -46,11 +44,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     );
 
     private final JwtTokenService jwtTokenService;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserCache userCache;
 
-    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, AuthenticatedUserCache userCache) {
         this.jwtTokenService = jwtTokenService;
-        this.userRepository = userRepository;
+        this.userCache = userCache;
     }
 
     @Override
@@ -78,23 +76,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        String token = authHeader.substring(7);
-        if (!jwtTokenService.validateToken(token)) {
+        JwtTokenService.VerifiedToken verified = jwtTokenService.parseAndValidate(authHeader.substring(7));
+        if (verified == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        Long userId = jwtTokenService.getUserIdFromToken(token);
+        Long userId = verified.getUserId();
         if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            userRepository.findById(userId).ifPresent(user -> authenticateUser(user, request));
+            AuthPrincipal principal = userCache.getPrincipal(userId);
+            if (principal != null) {
+                authenticateUser(principal, request);
+            }
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private void authenticateUser(User user, HttpServletRequest request) {
+    private void authenticateUser(AuthPrincipal principal, HttpServletRequest request) {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                user,
+                principal,
                 null,
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
         );
@@ -0,0 +1,33 @@
+package com.aifitness.security;
+
+import com.aifitness.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that evicts a user from {@link AuthenticatedUserCache}
+ * whenever the row is inserted, updated or deleted (profile, gamification and account writes).
+ *
+ * Instantiated by Hibernate through Spring's bean container, so the cache is injected.
+ */
+@Component
+public class UserCacheInvalidationListener {
+
+    private final AuthenticatedUserCache userCache;
+
+    @Autowired
+    public UserCacheInvalidationListener(@Lazy AuthenticatedUserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserWrite(User user) {
+        userCache.invalidate(user.getId());
+    }
+}
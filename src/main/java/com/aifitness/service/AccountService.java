@@ -3,13 +3,16 @@ package com.aifitness.service;
 import com.aifitness.entity.User;
 import com.aifitness.exception.ResourceAlreadyExistsException;
 import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthenticatedUserCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.annotation.PostConstruct;
 import java.security.SecureRandom;
@@ -44,17 +47,25 @@ public class AccountService {
     private static final SecureRandom random = new SecureRandom();
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final EmailService emailService;
+    private final AuthenticatedUserCache userCache;
+    private final TransactionTemplate transactionTemplate;
     
     @Value("${app.auth.email-verification-strict:true}")
     private boolean emailVerificationStrict;
     
     @Autowired
-    public AccountService(UserRepository userRepository, PasswordEncoder passwordEncoder, EmailService emailService) {
+    public AccountService(UserRepository userRepository,
+                          PasswordHashingService passwordHashingService,
+                          EmailService emailService,
+                          AuthenticatedUserCache userCache,
+                          PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.emailService = emailService;
+        this.userCache = userCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     /**
@@ -79,12 +90,16 @@ public class AccountService {
      * - Password hashing (replacing EncryptPass)
      * - User entity creation (replacing Infoclient creation)
      * 
+     * The password is hashed on the hashing pool (up to its timeout) before the transaction that
+     * creates the user is opened, as for login, so no database connection is held while waiting.
+     * 
      * @param username The username for the new account
      * @param email The email address for the new account
      * @param password The plain text password (will be hashed)
      * @return The created User entity
      * @throws ResourceAlreadyExistsException if username or email already exists
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User registerUser(String username, String email, String password) {
         // Check if username already exists
         if (userRepository.existsByUsername(username)) {
@@ -96,9 +111,17 @@ public class AccountService {
             throw new ResourceAlreadyExistsException("Email already exists: " + email);
         }
         
-        // Hash password using BCrypt (replaces EncryptPass from mainOne.java)
-        String passwordHash = passwordEncoder.encode(password);
+        // Hash password using BCrypt (replaces EncryptPass from mainOne.java), on the bounded hashing pool
+        String passwordHash = passwordHashingService.encode(password);
         
+        return transactionTemplate.execute(status -> createUser(username, email, passwordHash));
+    }
+    
+    /**
+     * Creates the user with an already computed password hash and sends the verification email.
+     * Runs inside the registration transaction, so a strict-mode email failure rolls the user back.
+     */
+    private User createUser(String username, String email, String passwordHash) {
         // Create new User entity
         User user = new User(username, email, passwordHash);
         user.setIsEmailVerified(false);
@@ -170,6 +193,7 @@ public class AccountService {
      * @param password The plain text password to verify
      * @return The User entity if authentication succeeds, null otherwise
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User authenticateUserByUsername(String username, String password) {
         // Find user by username
         User user = userRepository.findByUsername(username)
@@ -180,8 +204,8 @@ public class AccountService {
         }
         
         // Verify password using BCrypt (replaces DecryptPass from mainOne.java)
-        if (passwordEncoder.matches(password, user.getPasswordHash())) {
-            return user;
+        if (passwordHashingService.matches(password, user.getPasswordHash())) {
+            return rehashIfNeeded(user, password);
         }
         
         return null;
@@ -194,6 +218,7 @@ public class AccountService {
      * @param password The plain text password to verify
      * @return The User entity if authentication succeeds, null otherwise
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User authenticateUserByEmail(String email, String password) {
         // Find user by email
         User user = userRepository.findByEmail(email)
@@ -204,8 +229,8 @@ public class AccountService {
         }
         
         // Verify password using BCrypt
-        if (passwordEncoder.matches(password, user.getPasswordHash())) {
-            return user;
+        if (passwordHashingService.matches(password, user.getPasswordHash())) {
+            return rehashIfNeeded(user, password);
         }
         
         return null;
@@ -219,6 +244,7 @@ public class AccountService {
      * @return The User entity if authentication succeeds
      * @throws com.aifitness.exception.InvalidCredentialsException if credentials are invalid or email not verified
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User authenticateUser(String usernameOrEmail, String password) {
         User user = null;
         
@@ -263,6 +289,36 @@ public class AccountService {
         return user;
     }
     
+    /**
+     * Replaces the stored hash when it was made with a different BCrypt cost than configured.
+     * A failed rehash (e.g. the hashing pool is saturated) never fails the login; it is retried next time.
+     * 
+     * The user was loaded before two BCrypt runs, so only the password column is written, and
+     * only if it still holds the hash that just matched.
+     * 
+     * @param user The authenticated user
+     * @param password The plain text password that just matched
+     * @return The user, with the new hash if it was replaced
+     */
+    private User rehashIfNeeded(User user, String password) {
+        if (!passwordHashingService.needsRehash(user.getPasswordHash())) {
+            return user;
+        }
+        try {
+            String oldHash = user.getPasswordHash();
+            String newHash = passwordHashingService.encode(password);
+            if (userRepository.updatePasswordHash(user.getId(), oldHash, newHash) == 1) {
+                user.setPasswordHash(newHash);
+                // The users row was written without going through the entity
+                userCache.invalidate(user.getId());
+                logger.info("Password rehashed with current BCrypt cost - User ID: {}", user.getId());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Password rehash skipped - User ID: {}: {}", user.getId(), e.getMessage());
+        }
+        return user;
+    }
+    
     /**
      * Generates a 6-digit numeric verification code.
      * 
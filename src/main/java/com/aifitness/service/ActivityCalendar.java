@@ -0,0 +1,237 @@
+package com.aifitness.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Activity Calendar
+ *
+ * A user's activity days as bitmaps, one pair per UTC year: bit n of a year is day-of-year n + 1,
+ * packed into 6 longs (bit n is bit n % 64 of word n / 64). Active days had a gamification event
+ * or a check-in; frozen days were missed but covered by a streak freeze.
+ *
+ * A streak is a run of consecutive kept days (active or frozen) and its length is the number of
+ * active days in the run, so a freeze bridges a gap without counting as a day. Runs are found
+ * with word-at-a-time scans (numberOfTrailingZeros / numberOfLeadingZeros on the words and their
+ * complements) and measured with bitCount, so the cost grows with the number of runs and words,
+ * never with the number of days or events. Runs continue across a year boundary when both years
+ * are present.
+ */
+final class ActivityCalendar {
+
+    static final int WORDS_PER_YEAR = 6;
+    static final int BYTES_PER_YEAR = WORDS_PER_YEAR * Long.BYTES;
+
+    private final TreeMap<Integer, long[]> activeByYear = new TreeMap<>();
+    private final TreeMap<Integer, long[]> frozenByYear = new TreeMap<>();
+    private final TreeMap<Integer, long[]> keptByYear = new TreeMap<>();
+
+    /**
+     * Adds the bitmaps of one year, as stored (48 bytes, little-endian words).
+     */
+    void putYear(int year, byte[] activeDays, byte[] frozenDays) {
+        long[] active = words(activeDays);
+        long[] frozen = words(frozenDays);
+        long[] kept = new long[WORDS_PER_YEAR];
+        for (int w = 0; w < WORDS_PER_YEAR; w++) {
+            kept[w] = active[w] | frozen[w];
+        }
+        activeByYear.put(year, active);
+        frozenByYear.put(year, frozen);
+        keptByYear.put(year, kept);
+    }
+
+    boolean isActive(LocalDate day) {
+        return isSet(activeByYear.get(day.getYear()), day.getDayOfYear() - 1);
+    }
+
+    boolean isFrozen(LocalDate day) {
+        return isSet(frozenByYear.get(day.getYear()), day.getDayOfYear() - 1);
+    }
+
+    /**
+     * Counts frozen days in a range of days within one year.
+     *
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive), same year as from
+     */
+    int frozenDaysBetween(LocalDate from, LocalDate to) {
+        long[] frozen = frozenByYear.get(from.getYear());
+        return frozen == null ? 0 : countBits(frozen, from.getDayOfYear() - 1, to.getDayOfYear());
+    }
+
+    /**
+     * Computes the current and the longest streak.
+     *
+     * The current streak is the run that reaches today, or yesterday while today has no
+     * activity yet; it is 0 once a whole day has passed without activity or freeze.
+     *
+     * @param today The current UTC day
+     */
+    StreakService.Streaks streaks(LocalDate today) {
+        return new StreakService.Streaks(currentStreak(today), longestStreak());
+    }
+
+    private int currentStreak(LocalDate today) {
+        LocalDate anchor = today;
+        if (!isKept(anchor)) {
+            anchor = today.minusDays(1);
+            if (!isKept(anchor)) {
+                return 0;
+            }
+        }
+
+        // Walk back to the first clear bit before the anchor, one word at a time
+        int year = anchor.getYear();
+        int day = anchor.getDayOfYear() - 1;
+        int streak = 0;
+        while (true) {
+            long[] kept = keptByYear.get(year);
+            if (kept == null) {
+                return streak;
+            }
+            int start = previousClearBit(kept, day) + 1;
+            streak += countBits(activeByYear.get(year), start, day + 1);
+            if (start > 0) {
+                return streak;
+            }
+            // The run reaches January 1st; continue from December 31st of the previous year
+            year--;
+            day = Year.of(year).length() - 1;
+        }
+    }
+
+    private int longestStreak() {
+        int longest = 0;
+        int run = 0;
+        boolean runOpen = false; // The last run reached the end of the previous year
+        Integer previousYear = null;
+
+        for (Map.Entry<Integer, long[]> entry : keptByYear.entrySet()) {
+            int year = entry.getKey();
+            long[] kept = entry.getValue();
+            long[] active = activeByYear.get(year);
+            int length = Year.of(year).length();
+            if (previousYear == null || year != previousYear + 1) {
+                runOpen = false;
+            }
+            previousYear = year;
+
+            // Run-length scan: jump to the next set bit, then to the next clear bit
+            int day = 0;
+            while (true) {
+                int start = nextSetBit(kept, day, length);
+                if (start < 0) {
+                    runOpen = false;
+                    break;
+                }
+                int end = nextClearBit(kept, start, length);
+                int activeDays = countBits(active, start, end);
+                run = start == 0 && runOpen ? run + activeDays : activeDays;
+                longest = Math.max(longest, run);
+                runOpen = end == length;
+                if (runOpen) {
+                    break;
+                }
+                day = end;
+            }
+        }
+        return longest;
+    }
+
+    private boolean isKept(LocalDate day) {
+        return isSet(keptByYear.get(day.getYear()), day.getDayOfYear() - 1);
+    }
+
+    // Bit scans over the 6 words of a year
+
+    private static boolean isSet(long[] words, int bit) {
+        return words != null && (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Index of the first set bit at or after from and before limit, or -1.
+     */
+    private static int nextSetBit(long[] words, int from, int limit) {
+        if (from >= limit) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+        int bit = (w << 6) + Long.numberOfTrailingZeros(word);
+        return bit < limit ? bit : -1;
+    }
+
+    /**
+     * Index of the first clear bit at or after from, capped at limit.
+     */
+    private static int nextClearBit(long[] words, int from, int limit) {
+        int w = from >>> 6;
+        long word = ~words[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == words.length) {
+                return limit;
+            }
+            word = ~words[w];
+        }
+        return Math.min(limit, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Index of the last clear bit at or before from, or -1 if all bits down to 0 are set.
+     */
+    private static int previousClearBit(long[] words, int from) {
+        int w = from >>> 6;
+        long word = ~words[w] & (-1L >>> (63 - (from & 63)));
+        while (word == 0) {
+            if (--w < 0) {
+                return -1;
+            }
+            word = ~words[w];
+        }
+        return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * Number of set bits in [from, to).
+     */
+    private static int countBits(long[] words, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (first == last) {
+            return Long.bitCount(words[first] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(words[first] & firstMask);
+        for (int w = first + 1; w < last; w++) {
+            count += Long.bitCount(words[w]);
+        }
+        return count + Long.bitCount(words[last] & lastMask);
+    }
+
+    private static long[] words(byte[] bytes) {
+        long[] words = new long[WORDS_PER_YEAR];
+        if (bytes == null) {
+            return words;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int w = 0; w < WORDS_PER_YEAR && buffer.remaining() >= Long.BYTES; w++) {
+            words[w] = buffer.getLong();
+        }
+        return words;
+    }
+}
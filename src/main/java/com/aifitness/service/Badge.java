@@ -0,0 +1,91 @@
+package com.aifitness.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Badge Registry
+ *
+ * Every badge from GamificationRules with its bit in users.badge_mask and the rule that
+ * earns it. Bits are stored, so a badge keeps its bit forever: add new badges with a new
+ * bit and never renumber (at most 63 badges fit in the mask).
+ */
+public enum Badge {
+
+    FIRST_LOG(0, Kind.FIRST_ACTIVITY, 0),
+    STREAK_3(1, Kind.STREAK, GamificationRules.STREAK_THRESHOLD_3),
+    STREAK_7(2, Kind.STREAK, GamificationRules.STREAK_THRESHOLD_7),
+    STREAK_30(3, Kind.STREAK, GamificationRules.STREAK_THRESHOLD_30),
+    XP_100(4, Kind.XP, GamificationRules.XP_THRESHOLD_100),
+    XP_500(5, Kind.XP, GamificationRules.XP_THRESHOLD_500);
+
+    private enum Kind {
+        FIRST_ACTIVITY,
+        STREAK,
+        XP
+    }
+
+    private static final Badge[] VALUES = values();
+
+    private final long bit;
+    private final Kind kind;
+    private final int threshold;
+
+    Badge(int position, Kind kind, int threshold) {
+        this.bit = 1L << position;
+        this.kind = kind;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return The badge's bit in the mask
+     */
+    public long bit() {
+        return bit;
+    }
+
+    /**
+     * Checks whether a mask holds this badge.
+     */
+    public boolean isIn(long mask) {
+        return (mask & bit) != 0;
+    }
+
+    /**
+     * Gets the badges earned by an active user with the given totals.
+     *
+     * @param xp Total XP
+     * @param currentStreakDays Current streak
+     * @return Mask of earned badges
+     */
+    public static long earnedMask(int xp, int currentStreakDays) {
+        long mask = 0;
+        for (Badge badge : VALUES) {
+            boolean earned = switch (badge.kind) {
+                case FIRST_ACTIVITY -> true;
+                case STREAK -> currentStreakDays >= badge.threshold;
+                case XP -> xp >= badge.threshold;
+            };
+            if (earned) {
+                mask |= badge.bit;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the names of the badges in a mask, in registry order.
+     *
+     * @param mask Badge mask
+     * @return Badge names (e.g. "FIRST_LOG", "STREAK_3")
+     */
+    public static List<String> namesOf(long mask) {
+        List<String> names = new ArrayList<>(Long.bitCount(mask));
+        for (Badge badge : VALUES) {
+            if (badge.isIn(mask)) {
+                names.add(badge.name());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,360 @@
+package com.aifitness.service;
+
+import com.aifitness.entity.DailyCheckIn;
+import com.aifitness.entity.UserTrendState;
+import com.aifitness.entity.WeeklyProgress;
+import com.aifitness.repository.DailyCheckInRepository;
+import com.aifitness.repository.UserTrendStateRepository;
+import com.aifitness.repository.WeeklyProgressRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Check-In Trend Service
+ *
+ * Maintains the per-user trend state (user_trend_states) read by AiInsightsService.
+ *
+ * Each check-in or weekly weight is folded into the state in O(1):
+ * - Adherence: the day's logged / workout / step-goal bits are set in 64-day bitmasks
+ * - Weight EWMA: smoothing factor ALPHA per day, compounded over gaps between weigh-ins
+ * - Weight regression: least-squares sums decayed with a REGRESSION_HALF_LIFE_DAYS half-life and
+ *   re-centred on the latest weigh-in, so the slope follows the recent trend
+ * - Change point: one-sided CUSUM (Page's test) of the smoothed weight change above the trend
+ *   measured while the statistic was at zero. It grows when weight loss stalls or weight starts
+ *   rising, and the last date it was at zero estimates when that change began.
+ *
+ * The weight statistics depend on the order of weigh-ins. A weight for a date at or before the
+ * latest applied one (an edit, a backfill, an import) rebuilds the state from the last
+ * REBUILD_DAYS days of history instead; by then older data carries almost no weight.
+ *
+ * Daily check-in weights take precedence; a weekly progress weight is used for its week start
+ * date only when no check-in weight exists for that day.
+ *
+ * A user without a state row (e.g. history logged before the trend engine existed) gets it
+ * built from history by whichever comes first: a read or a saved check-in or weight.
+ */
+@Service
+@Transactional
+public class CheckInTrendService {
+
+    /**
+     * Days with at least this many steps count as step-goal days
+     */
+    public static final int STEP_GOAL = 8000;
+
+    private static final double ALPHA = 0.25;
+    private static final double REGRESSION_HALF_LIFE_DAYS = 21.0;
+
+    /**
+     * Allowed drift above the baseline trend before the CUSUM accumulates (kg/day)
+     */
+    private static final double CUSUM_DRIFT_KG_PER_DAY = 0.01;
+
+    /**
+     * Weigh-ins must span this many days before their trend is used as the CUSUM baseline
+     */
+    private static final int MIN_BASELINE_SPAN_DAYS = 21;
+
+    /**
+     * A change older than this becomes the new baseline, so the test can detect the next one
+     */
+    private static final int CHANGE_RESET_DAYS = 42;
+
+    /**
+     * A gap between weigh-ins longer than this starts a new trend
+     */
+    private static final int RESTART_GAP_DAYS = 90;
+    private static final int REBUILD_DAYS = 180;
+
+    private final UserTrendStateRepository trendStateRepository;
+    private final DailyCheckInRepository dailyCheckInRepository;
+    private final WeeklyProgressRepository weeklyProgressRepository;
+
+    @Autowired
+    public CheckInTrendService(UserTrendStateRepository trendStateRepository,
+                               DailyCheckInRepository dailyCheckInRepository,
+                               WeeklyProgressRepository weeklyProgressRepository) {
+        this.trendStateRepository = trendStateRepository;
+        this.dailyCheckInRepository = dailyCheckInRepository;
+        this.weeklyProgressRepository = weeklyProgressRepository;
+    }
+
+    /**
+     * Applies a saved check-in to the user's trend state.
+     *
+     * @param userId The user ID
+     * @param checkIn The check-in as stored
+     * @param weightProvided Whether this save set the weight
+     */
+    public void recordCheckIn(Long userId, DailyCheckIn checkIn, boolean weightProvided) {
+        if (createState(userId)) {
+            // The history already contains this check-in
+            rebuild(userId);
+            return;
+        }
+        UserTrendState state = lockState(userId);
+        applyDay(state, checkIn);
+
+        if (weightProvided && checkIn.getWeight() != null) {
+            applyOrRebuildWeight(userId, state, checkIn.getDate(), checkIn.getWeight());
+        }
+        trendStateRepository.save(state);
+    }
+
+    /**
+     * Applies a saved weekly progress weight to the user's trend state.
+     *
+     * @param userId The user ID
+     * @param weekStartDate Week of the progress entry
+     * @param weight Weight from the entry; null if none was given
+     */
+    public void recordWeeklyWeight(Long userId, LocalDate weekStartDate, Double weight) {
+        if (createState(userId)) {
+            // The history already contains this entry
+            rebuild(userId);
+            return;
+        }
+        UserTrendState state = lockState(userId);
+        if (state.getLastWeightDate() != null && !weekStartDate.isAfter(state.getLastWeightDate())) {
+            // May add, change or remove a weight inside the applied history
+            rebuildWeights(userId, state);
+        } else if (weight != null) {
+            applyWeight(state, weekStartDate, weight);
+        }
+        trendStateRepository.save(state);
+    }
+
+    /**
+     * Rebuilds the user's trend state from history. Used after bulk imports and to create the
+     * state of users who logged data before the trend engine existed.
+     *
+     * @param userId The user ID
+     * @return The rebuilt state
+     */
+    public UserTrendState rebuild(Long userId) {
+        UserTrendState state = lockState(userId);
+        rebuildWeights(userId, state);
+
+        resetDays(state);
+        List<DailyCheckIn> latest = dailyCheckInRepository.findByUserIdOrderByDateDesc(userId, PageRequest.of(0, 1));
+        if (!latest.isEmpty()) {
+            LocalDate to = latest.get(0).getDate();
+            for (DailyCheckIn checkIn : dailyCheckInRepository.findByUserIdAndDateBetweenOrderByDateAsc(
+                    userId, to.minusDays(UserTrendState.MASK_DAYS - 1), to)) {
+                applyDay(state, checkIn);
+            }
+        }
+        return trendStateRepository.save(state);
+    }
+
+    /**
+     * Creates an empty state row for the user if there is none.
+     *
+     * @return true if the row was created, so the user's history has not been applied yet
+     */
+    private boolean createState(Long userId) {
+        return trendStateRepository.insertIfAbsent(userId) == 1;
+    }
+
+    private UserTrendState lockState(Long userId) {
+        trendStateRepository.insertIfAbsent(userId);
+        return trendStateRepository.findByUserIdForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Trend state missing for userId=" + userId));
+    }
+
+    private void applyOrRebuildWeight(Long userId, UserTrendState state, LocalDate date, double weight) {
+        LocalDate lastWeightDate = state.getLastWeightDate();
+        if (lastWeightDate == null || date.isAfter(lastWeightDate)) {
+            applyWeight(state, date, weight);
+        } else if (!date.equals(lastWeightDate) || !Double.valueOf(weight).equals(state.getLastWeight())) {
+            rebuildWeights(userId, state);
+        }
+        // Same weight re-sent for the latest day: nothing changed
+    }
+
+    /**
+     * Sets the bits of one day in the adherence masks, shifting them first if the day is newer.
+     */
+    private void applyDay(UserTrendState state, DailyCheckIn checkIn) {
+        LocalDate date = checkIn.getDate();
+        LocalDate last = state.getLastCheckInDate();
+        if (last == null || date.isAfter(last)) {
+            long shift = last == null ? UserTrendState.MASK_DAYS : ChronoUnit.DAYS.between(last, date);
+            state.setLoggedMask(shiftMask(state.getLoggedMask(), shift));
+            state.setWorkoutMask(shiftMask(state.getWorkoutMask(), shift));
+            state.setStepGoalMask(shiftMask(state.getStepGoalMask(), shift));
+            state.setLastCheckInDate(date);
+            last = date;
+        }
+
+        long offset = ChronoUnit.DAYS.between(date, last);
+        if (offset >= UserTrendState.MASK_DAYS) {
+            return;
+        }
+        long bit = 1L << offset;
+        state.setLoggedMask(state.getLoggedMask() | bit);
+        state.setWorkoutMask(setBit(state.getWorkoutMask(), bit, Boolean.TRUE.equals(checkIn.getWorkoutDone())));
+        state.setStepGoalMask(setBit(state.getStepGoalMask(), bit,
+                checkIn.getSteps() != null && checkIn.getSteps() >= STEP_GOAL));
+    }
+
+    private static long shiftMask(long mask, long days) {
+        return days >= UserTrendState.MASK_DAYS ? 0L : mask << days;
+    }
+
+    private static long setBit(long mask, long bit, boolean value) {
+        return value ? mask | bit : mask & ~bit;
+    }
+
+    private void resetDays(UserTrendState state) {
+        state.setLastCheckInDate(null);
+        state.setLoggedMask(0L);
+        state.setWorkoutMask(0L);
+        state.setStepGoalMask(0L);
+    }
+
+    /**
+     * Replays the weights of the last REBUILD_DAYS days, merging weekly progress weights into
+     * days without a check-in weight.
+     */
+    private void rebuildWeights(Long userId, UserTrendState state) {
+        resetWeights(state);
+
+        List<DailyCheckIn> latest = dailyCheckInRepository.findByUserIdOrderByDateDesc(userId, PageRequest.of(0, 1));
+        List<WeeklyProgress> latestWeek = weeklyProgressRepository.findByUserIdOrderByWeekStartDateDesc(
+                userId, PageRequest.of(0, 1));
+        LocalDate to = latest.isEmpty() ? null : latest.get(0).getDate();
+        if (!latestWeek.isEmpty() && (to == null || latestWeek.get(0).getWeekStartDate().isAfter(to))) {
+            to = latestWeek.get(0).getWeekStartDate();
+        }
+        if (to == null) {
+            return;
+        }
+        LocalDate from = to.minusDays(REBUILD_DAYS);
+
+        Map<LocalDate, Double> weights = new TreeMap<>();
+        for (WeeklyProgress progress : weeklyProgressRepository
+                .findByUserIdAndWeekStartDateBetweenOrderByWeekStartDateAsc(userId, from, to)) {
+            if (progress.getWeight() != null) {
+                weights.put(progress.getWeekStartDate(), progress.getWeight());
+            }
+        }
+        Map<LocalDate, Double> dailyWeights = new HashMap<>();
+        for (DailyCheckIn checkIn : dailyCheckInRepository.findByUserIdAndDateBetweenOrderByDateAsc(userId, from, to)) {
+            if (checkIn.getWeight() != null) {
+                dailyWeights.put(checkIn.getDate(), checkIn.getWeight());
+            }
+        }
+        weights.putAll(dailyWeights);
+
+        for (Map.Entry<LocalDate, Double> entry : weights.entrySet()) {
+            applyWeight(state, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void resetWeights(UserTrendState state) {
+        state.setFirstWeightDate(null);
+        state.setLastWeightDate(null);
+        state.setLastWeight(null);
+        state.setWeightCount(0);
+        state.setWeightEwma(null);
+        state.setRegWeightSum(0.0);
+        state.setRegXSum(0.0);
+        state.setRegYSum(0.0);
+        state.setRegXxSum(0.0);
+        state.setRegXySum(0.0);
+        state.setCusum(0.0);
+        state.setBaselineRate(null);
+        state.setChangePointDate(null);
+        state.setChangePointEwma(null);
+    }
+
+    /**
+     * Folds one weight, dated after every applied weight, into the EWMA, regression and CUSUM.
+     */
+    private void applyWeight(UserTrendState state, LocalDate date, double weight) {
+        LocalDate last = state.getLastWeightDate();
+        long gap = last == null ? 0 : ChronoUnit.DAYS.between(last, date);
+        if (last == null || gap > RESTART_GAP_DAYS) {
+            resetWeights(state);
+            state.setFirstWeightDate(date);
+            state.setWeightEwma(weight);
+            state.setRegWeightSum(1.0);
+            state.setRegYSum(weight);
+            state.setWeightCount(1);
+            state.setLastWeightDate(date);
+            state.setLastWeight(weight);
+            state.setChangePointDate(date);
+            state.setChangePointEwma(weight);
+            return;
+        }
+
+        // EWMA with the daily smoothing factor compounded over the gap
+        double previousEwma = state.getWeightEwma();
+        double alpha = 1 - Math.pow(1 - ALPHA, gap);
+        double ewma = previousEwma + alpha * (weight - previousEwma);
+        state.setWeightEwma(ewma);
+
+        // Decay the regression sums and move x = 0 to the new date (x' = x - gap)
+        double decay = Math.pow(0.5, gap / REGRESSION_HALF_LIFE_DAYS);
+        double w = state.getRegWeightSum() * decay;
+        double sx = state.getRegXSum() * decay;
+        double sy = state.getRegYSum() * decay;
+        double sxx = state.getRegXxSum() * decay;
+        double sxy = state.getRegXySum() * decay;
+        sxx = sxx - 2 * gap * sx + (double) gap * gap * w;
+        sxy = sxy - gap * sy;
+        sx = sx - gap * w;
+        state.setRegWeightSum(w + 1);
+        state.setRegXSum(sx);
+        state.setRegYSum(sy + weight);
+        state.setRegXxSum(sxx);
+        state.setRegXySum(sxy);
+
+        state.setWeightCount(state.getWeightCount() + 1);
+        state.setLastWeightDate(date);
+        state.setLastWeight(weight);
+
+        // Page's CUSUM of the smoothed change above the baseline trend
+        Double slope = state.getTrendSlope();
+        boolean established = slope != null
+                && ChronoUnit.DAYS.between(state.getFirstWeightDate(), date) >= MIN_BASELINE_SPAN_DAYS;
+        if (!established || state.getBaselineRate() == null) {
+            state.setCusum(0.0);
+            state.setBaselineRate(established ? slope : null);
+            markChangePoint(state, date, ewma);
+            return;
+        }
+
+        long daysSinceChange = ChronoUnit.DAYS.between(state.getChangePointDate(), date);
+        if (daysSinceChange > CHANGE_RESET_DAYS) {
+            // The change has settled: its rate is the new baseline (the regression still lags behind it)
+            state.setCusum(0.0);
+            state.setBaselineRate((ewma - state.getChangePointEwma()) / daysSinceChange);
+            markChangePoint(state, date, ewma);
+            return;
+        }
+
+        double excess = (ewma - previousEwma) - gap * (state.getBaselineRate() + CUSUM_DRIFT_KG_PER_DAY);
+        state.setCusum(Math.max(0.0, state.getCusum() + excess));
+        if (state.getCusum() == 0.0) {
+            // No evidence of a change: follow the current trend
+            state.setBaselineRate(slope);
+            markChangePoint(state, date, ewma);
+        }
+    }
+
+    private static void markChangePoint(UserTrendState state, LocalDate date, double ewma) {
+        state.setChangePointDate(date);
+        state.setChangePointEwma(ewma);
+    }
+}
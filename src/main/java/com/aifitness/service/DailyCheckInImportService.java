@@ -0,0 +1,407 @@
+package com.aifitness.service;
+
+import com.aifitness.dto.CheckInImportResponse;
+import com.aifitness.dto.DailyCheckInRequest;
+import com.aifitness.entity.OutboxEventType;
+import com.aifitness.repository.DailyCheckInBulkRepository;
+import com.aifitness.repository.DailyCheckInRollupRepository;
+import com.aifitness.util.StringSanitizer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Daily Check-In Import Service
+ *
+ * Bulk import of daily check-ins (e.g. weight and steps exported from a wearable).
+ *
+ * Formats:
+ * - CSV: header line naming the columns (date, weight, steps, workoutDone, notes; any order,
+ *   only date is required), then one check-in per line. Fields may be double-quoted.
+ * - NDJSON: one JSON object per line with the same field names as a single check-in.
+ *
+ * The input is read line by line (with a cap on the line length and on the total size), every
+ * row is validated on its own and rejected rows are reported with their line number. Valid rows
+ * are upserted in JDBC batches; the weekly and monthly rollups of the imported date range are
+ * refreshed once at the end, and one trend state rebuild is queued in the outbox. Only provided fields overwrite existing check-ins,
+ * so importing the same file again is a no-op.
+ */
+@Service
+public class DailyCheckInImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyCheckInImportService.class);
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    // Generous for a row with 1000 characters of notes, even with every character JSON-escaped
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final int MAX_NOTES_LENGTH = 1000;
+    private static final double MIN_WEIGHT_KG = 20.0;
+    private static final double MAX_WEIGHT_KG = 500.0;
+    private static final int MAX_STEPS = 200_000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final DailyCheckInBulkRepository bulkRepository;
+    private final DailyCheckInRollupRepository rollupRepository;
+    private final OutboxService outboxService;
+    private final int batchSize;
+    private final int maxRows;
+    private final long maxChars;
+
+    @Autowired
+    public DailyCheckInImportService(DailyCheckInBulkRepository bulkRepository,
+                                     DailyCheckInRollupRepository rollupRepository,
+                                     OutboxService outboxService,
+                                     @Value("${checkin.import.batch-size:500}") int batchSize,
+                                     @Value("${checkin.import.max-rows:3700}") int maxRows,
+                                     @Value("${checkin.import.max-chars:8388608}") long maxChars) {
+        this.bulkRepository = bulkRepository;
+        this.rollupRepository = rollupRepository;
+        this.outboxService = outboxService;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRows = Math.max(1, maxRows);
+        this.maxChars = Math.max(MAX_LINE_LENGTH, maxChars);
+    }
+
+    /**
+     * Imports check-ins for a user.
+     *
+     * @param userId ID of the user who owns the check-ins
+     * @param reader The uploaded file
+     * @param format FORMAT_CSV or FORMAT_NDJSON
+     * @return Row counts and per-row errors
+     * @throws IllegalArgumentException if the file is not usable at all (bad CSV header, too many rows,
+     *         a line or the whole file too long); nothing is written in that case
+     */
+    @Transactional
+    public CheckInImportResponse importCheckIns(Long userId, BufferedReader reader, String format) throws IOException {
+        boolean csv = FORMAT_CSV.equals(format);
+        if (!csv && !FORMAT_NDJSON.equals(format)) {
+            throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+
+        CheckInImportResponse result = new CheckInImportResponse();
+        // Rows of the current batch by date; a date repeated in the file is merged into one row
+        Map<LocalDate, DailyCheckInRequest> batch = new LinkedHashMap<>();
+        Map<String, Integer> csvColumns = null;
+        LocalDate minDate = null;
+        LocalDate maxDate = null;
+        int totalRows = 0;
+        int imported = 0;
+        int failed = 0;
+        int lineNumber = 0;
+        long charsRead = 0;
+
+        String line;
+        while ((line = readLine(reader, lineNumber + 1)) != null) {
+            lineNumber++;
+            // Counting the terminator too also bounds runs of blank lines, which skip the row cap
+            charsRead += line.length() + 1;
+            if (charsRead > maxChars) {
+                throw new IllegalArgumentException("Import is limited to " + maxChars + " characters per request");
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && csvColumns == null) {
+                csvColumns = parseCsvHeader(line);
+                continue;
+            }
+
+            totalRows++;
+            if (totalRows > maxRows) {
+                throw new IllegalArgumentException("Import is limited to " + maxRows + " rows per request");
+            }
+
+            DailyCheckInRequest row;
+            try {
+                row = csv ? parseCsvRow(line, csvColumns) : parseJsonRow(line);
+            } catch (IllegalArgumentException e) {
+                failed++;
+                addError(result, lineNumber, e.getMessage());
+                continue;
+            }
+
+            imported++;
+            batch.merge(row.getDate(), row, DailyCheckInImportService::mergeRows);
+            minDate = minDate == null || row.getDate().isBefore(minDate) ? row.getDate() : minDate;
+            maxDate = maxDate == null || row.getDate().isAfter(maxDate) ? row.getDate() : maxDate;
+
+            if (batch.size() >= batchSize) {
+                bulkRepository.upsertBatch(userId, new ArrayList<>(batch.values()));
+                batch.clear();
+            }
+        }
+
+        if (csv && csvColumns == null) {
+            throw new IllegalArgumentException("CSV file is empty: a header line is required");
+        }
+        bulkRepository.upsertBatch(userId, new ArrayList<>(batch.values()));
+
+        // Refresh the rollups of every period touched by the import, one statement per period type
+        if (minDate != null) {
+            LocalDate weekFrom = minDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            LocalDate weekTo = maxDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(1);
+            rollupRepository.refreshWeeksInRange(userId, weekFrom, weekTo);
+            rollupRepository.refreshMonthsInRange(userId,
+                    minDate.withDayOfMonth(1), maxDate.withDayOfMonth(1).plusMonths(1));
+            // Imported days may be older than the trend state, so rebuild it once (via the outbox)
+            outboxService.publish(OutboxEventType.TREND_REBUILD, userId, Map.of());
+        }
+
+        result.setTotalRows(totalRows);
+        result.setImported(imported);
+        result.setFailed(failed);
+        logger.info("Check-in import for userId={}: {} rows, {} imported, {} rejected",
+                userId, totalRows, imported, failed);
+        return result;
+    }
+
+    /**
+     * Like BufferedReader.readLine, but fails once a line exceeds MAX_LINE_LENGTH instead of
+     * buffering it whole.
+     */
+    private static String readLine(BufferedReader reader, int lineNumber) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            }
+            if (line.length() == MAX_LINE_LENGTH) {
+                throw new IllegalArgumentException("Line " + lineNumber + " is longer than "
+                        + MAX_LINE_LENGTH + " characters");
+            }
+            line.append((char) c);
+            c = reader.read();
+        }
+        return line.toString();
+    }
+
+    private static void addError(CheckInImportResponse result, int lineNumber, String message) {
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new CheckInImportResponse.RowError(lineNumber, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    /**
+     * Combines two rows for the same date the way two consecutive saves would: later values win,
+     * fields missing from the later row keep the earlier value.
+     */
+    private static DailyCheckInRequest mergeRows(DailyCheckInRequest earlier, DailyCheckInRequest later) {
+        return new DailyCheckInRequest(
+                later.getDate(),
+                later.getWeight() != null ? later.getWeight() : earlier.getWeight(),
+                later.getSteps() != null ? later.getSteps() : earlier.getSteps(),
+                later.getWorkoutDone() != null ? later.getWorkoutDone() : earlier.getWorkoutDone(),
+                later.getNotes() != null ? later.getNotes() : earlier.getNotes());
+    }
+
+    // ===== CSV =====
+
+    private static Map<String, Integer> parseCsvHeader(String line) {
+        List<String> names = splitCsvLine(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String field = canonicalField(names.get(i));
+            if (field != null) {
+                columns.putIfAbsent(field, i);
+            }
+        }
+        if (!columns.containsKey("date")) {
+            throw new IllegalArgumentException("CSV header must contain a 'date' column");
+        }
+        return columns;
+    }
+
+    private static DailyCheckInRequest parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsvLine(line);
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            if (column.getValue() < values.size()) {
+                fields.put(column.getKey(), values.get(column.getValue()));
+            }
+        }
+        return toCheckIn(fields);
+    }
+
+    /**
+     * Splits one CSV line; double-quoted fields may contain commas and "" for a quote.
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    // ===== NDJSON =====
+
+    private static DailyCheckInRequest parseJsonRow(String line) {
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Each line must be a JSON object");
+        }
+        Map<String, String> fields = new HashMap<>();
+        node.fields().forEachRemaining(entry -> {
+            String field = canonicalField(entry.getKey());
+            if (field != null && !entry.getValue().isNull()) {
+                fields.put(field, entry.getValue().asText());
+            }
+        });
+        return toCheckIn(fields);
+    }
+
+    // ===== Row validation =====
+
+    private static String canonicalField(String name) {
+        String key = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+        return switch (key) {
+            case "date" -> "date";
+            case "weight", "weightkg", "bodyweight" -> "weight";
+            case "steps" -> "steps";
+            case "workoutdone", "workout" -> "workoutDone";
+            case "notes", "note" -> "notes";
+            default -> null;
+        };
+    }
+
+    private static DailyCheckInRequest toCheckIn(Map<String, String> fields) {
+        String dateText = trimToNull(fields.get("date"));
+        if (dateText == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateText);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date '" + dateText + "', expected YYYY-MM-DD");
+        }
+        if (date.isAfter(LocalDate.now().plusDays(1))) {
+            throw new IllegalArgumentException("Date " + date + " is in the future");
+        }
+
+        Double weight = null;
+        String weightText = trimToNull(fields.get("weight"));
+        if (weightText != null) {
+            try {
+                weight = Double.parseDouble(weightText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight '" + weightText + "'");
+            }
+            if (!(weight >= MIN_WEIGHT_KG && weight <= MAX_WEIGHT_KG)) {
+                throw new IllegalArgumentException("Weight must be between " + (int) MIN_WEIGHT_KG
+                        + " and " + (int) MAX_WEIGHT_KG + " kg");
+            }
+        }
+
+        Integer steps = null;
+        String stepsText = trimToNull(fields.get("steps"));
+        if (stepsText != null) {
+            double value;
+            try {
+                value = Double.parseDouble(stepsText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid steps '" + stepsText + "'");
+            }
+            // Checked before the cast, which would clamp huge values and turn NaN into 0
+            if (!(value >= 0 && value <= MAX_STEPS)) {
+                throw new IllegalArgumentException("Steps must be between 0 and " + MAX_STEPS);
+            }
+            steps = (int) Math.round(value);
+        }
+
+        Boolean workoutDone = null;
+        String workoutText = trimToNull(fields.get("workoutDone"));
+        if (workoutText != null) {
+            workoutDone = switch (workoutText.toLowerCase(Locale.ROOT)) {
+                case "true", "yes", "y", "1" -> true;
+                case "false", "no", "n", "0" -> false;
+                default -> throw new IllegalArgumentException("Invalid workoutDone '" + workoutText + "'");
+            };
+        }
+
+        String notes = null;
+        if (fields.get("notes") != null) {
+            notes = StringSanitizer.validateAndSanitize(fields.get("notes"));
+            if (notes.length() > MAX_NOTES_LENGTH) {
+                throw new IllegalArgumentException("Notes must be at most " + MAX_NOTES_LENGTH + " characters");
+            }
+            if (notes.isEmpty()) {
+                notes = null;
+            }
+        }
+
+        return new DailyCheckInRequest(date, weight, steps, workoutDone, notes);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
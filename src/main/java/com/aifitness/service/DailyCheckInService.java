@@ -1,16 +1,25 @@
 package com.aifitness.service;
 
+import com.aifitness.dto.CheckInRollupResponse;
 import com.aifitness.dto.DailyCheckInRequest;
 import com.aifitness.dto.DailyCheckInResponse;
+import com.aifitness.dto.HistoryPageResponse;
 import com.aifitness.entity.DailyCheckIn;
+import com.aifitness.entity.DailyCheckInRollup;
+import com.aifitness.entity.OutboxEventType;
 import com.aifitness.entity.User;
 import com.aifitness.repository.DailyCheckInRepository;
+import com.aifitness.repository.DailyCheckInRollupRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -18,16 +27,26 @@ import java.util.stream.Collectors;
  * 
  * Handles daily check-in log operations.
  * This service manages the data that will be used by the AI coach for day-by-day analysis.
+ * 
+ * Weekly and monthly rollups (daily_checkin_rollups) are refreshed in the same transaction
+ * as every saved check-in, so long-range views read one row per period. The same transaction
+ * queues the trend state update in the outbox (see OutboxDispatcher and CheckInTrendService).
  */
 @Service
 @Transactional
 public class DailyCheckInService {
     
     private final DailyCheckInRepository dailyCheckInRepository;
+    private final DailyCheckInRollupRepository rollupRepository;
+    private final OutboxService outboxService;
     
     @Autowired
-    public DailyCheckInService(DailyCheckInRepository dailyCheckInRepository) {
+    public DailyCheckInService(DailyCheckInRepository dailyCheckInRepository,
+                               DailyCheckInRollupRepository rollupRepository,
+                               OutboxService outboxService) {
         this.dailyCheckInRepository = dailyCheckInRepository;
+        this.rollupRepository = rollupRepository;
+        this.outboxService = outboxService;
     }
     
     /**
@@ -66,8 +85,16 @@ public class DailyCheckInService {
             checkIn.setNotes(request.getNotes());
         }
         
-        // Save to database
-        checkIn = dailyCheckInRepository.save(checkIn);
+        // Save to database (flushed so the rollup refresh below sees it)
+        checkIn = dailyCheckInRepository.saveAndFlush(checkIn);
+        
+        // Keep the week and month rollups in step with the check-in
+        refreshRollups(user, checkIn.getDate());
+        
+        // Fold the check-in into the trend state used by insights (after commit, via the outbox)
+        outboxService.publish(OutboxEventType.DAILY_CHECKIN_SAVED, user.getId(), Map.of(
+                "date", checkIn.getDate().toString(),
+                "weightProvided", String.valueOf(request.getWeight() != null)));
         
         // Convert to response DTO
         return convertToResponse(checkIn);
@@ -76,14 +103,14 @@ public class DailyCheckInService {
     /**
      * Gets daily check-ins for a user within a date range.
      * 
-     * @param user The user
+     * @param userId The user ID
      * @param startDate Start date (inclusive)
      * @param endDate End date (inclusive)
      * @return List of daily check-in responses, ordered by date ascending
      */
-    public List<DailyCheckInResponse> getCheckInsForDateRange(User user, LocalDate startDate, LocalDate endDate) {
+    public List<DailyCheckInResponse> getCheckInsForDateRange(Long userId, LocalDate startDate, LocalDate endDate) {
         List<DailyCheckIn> checkIns = dailyCheckInRepository
-                .findByUserAndDateBetweenOrderByDateAsc(user, startDate, endDate);
+                .findByUserIdAndDateBetweenOrderByDateAsc(userId, startDate, endDate);
         
         return checkIns.stream()
                 .map(this::convertToResponse)
@@ -93,27 +120,92 @@ public class DailyCheckInService {
     /**
      * Gets recent daily check-ins for a user.
      * 
-     * @param user The user
+     * @param userId The user ID
      * @param lastNDays Number of days to retrieve (default: 7)
      * @return List of daily check-in responses, ordered by date descending
      */
-    public List<DailyCheckInResponse> getRecentCheckIns(User user, int lastNDays) {
+    public List<DailyCheckInResponse> getRecentCheckIns(Long userId, int lastNDays) {
         // Ensure lastNDays is reasonable (between 1 and 365)
         int days = Math.max(1, Math.min(365, lastNDays));
         
-        // Get recent entries
+        // Get recent entries (limited in SQL)
         List<DailyCheckIn> checkIns = dailyCheckInRepository
-                .findByUserOrderByDateDesc(user);
+                .findByUserIdOrderByDateDesc(userId, PageRequest.of(0, days));
         
-        // Limit to lastNDays
-        List<DailyCheckIn> limitedList = checkIns.stream()
-                .limit(days)
+        // Convert to response DTOs
+        return checkIns.stream()
+                .map(this::convertToResponse)
                 .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets one page of a user's check-in history using keyset pagination on (user_id, date).
+     * 
+     * @param userId The user ID
+     * @param before Only check-ins dated before this date; null for the most recent page
+     * @param limit Page size (between 1 and 100)
+     * @return Page of check-ins, ordered by date descending, with the cursor for the next page
+     */
+    public HistoryPageResponse<DailyCheckInResponse> getCheckInHistory(Long userId, LocalDate before, int limit) {
+        int size = Math.max(1, Math.min(100, limit));
         
-        // Convert to response DTOs
-        return limitedList.stream()
+        // Fetch one extra row to know whether an older page exists
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<DailyCheckIn> checkIns = before == null
+                ? dailyCheckInRepository.findByUserIdOrderByDateDesc(userId, page)
+                : dailyCheckInRepository.findByUserIdAndDateBeforeOrderByDateDesc(userId, before, page);
+        
+        boolean hasMore = checkIns.size() > size;
+        List<DailyCheckIn> pageItems = hasMore ? checkIns.subList(0, size) : checkIns;
+        LocalDate nextBefore = hasMore ? pageItems.get(pageItems.size() - 1).getDate() : null;
+        
+        List<DailyCheckInResponse> items = pageItems.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
+        return new HistoryPageResponse<>(items, nextBefore, hasMore);
+    }
+    
+    /**
+     * Gets the most recent weekly or monthly rollups for a user.
+     * 
+     * @param userId The user ID
+     * @param periodType DailyCheckInRollup.PERIOD_WEEK or PERIOD_MONTH
+     * @param count Number of periods with at least one check-in (between 1 and 104)
+     * @return Rollups ordered by period start descending
+     */
+    public List<CheckInRollupResponse> getRollups(Long userId, String periodType, int count) {
+        int periods = Math.max(1, Math.min(104, count));
+        return rollupRepository
+                .findByUserIdAndPeriodTypeAndDaysLoggedGreaterThanOrderByPeriodStartDesc(
+                        userId, periodType, 0, PageRequest.of(0, periods))
+                .stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Recomputes the ISO week and calendar month rollups containing the date.
+     */
+    public void refreshRollups(User user, LocalDate date) {
+        LocalDate weekStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        rollupRepository.refreshPeriod(user.getId(), DailyCheckInRollup.PERIOD_WEEK, weekStart, weekStart.plusWeeks(1));
+        
+        LocalDate monthStart = date.withDayOfMonth(1);
+        rollupRepository.refreshPeriod(user.getId(), DailyCheckInRollup.PERIOD_MONTH, monthStart, monthStart.plusMonths(1));
+    }
+    
+    private CheckInRollupResponse convertToResponse(DailyCheckInRollup rollup) {
+        return new CheckInRollupResponse(
+                rollup.getPeriodType(),
+                rollup.getPeriodStart(),
+                rollup.getDaysLogged(),
+                rollup.getWorkoutCount(),
+                rollup.getStepsTotal(),
+                rollup.getAverageSteps(),
+                rollup.getAverageWeight(),
+                rollup.getWeightMin(),
+                rollup.getWeightMax()
+        );
     }
     
     /**
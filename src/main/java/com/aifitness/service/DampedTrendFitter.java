@@ -0,0 +1,140 @@
+package com.aifitness.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Damped Trend Fitter
+ *
+ * Holt's additive damped trend method for a weight series with irregular gaps between
+ * weigh-ins (error-correction form; a gap of g days advances the state g steps):
+ *
+ *   forecast  ŷ = L + S(g)·b,  S(g) = φ + φ² + ... + φ^g
+ *   error     e = y - ŷ
+ *   level     L = ŷ + α·e
+ *   trend     b = φ^g·b + α·β·e
+ *
+ * α, β and φ are chosen from a small grid by the lowest one-step-ahead squared error; the
+ * error's standard deviation sizes the forecast bands. Fitting is pure CPU work on arrays,
+ * so it can run on any thread.
+ *
+ * Forecasts blend in an energy-balance rate r (kg/day): the daily step at horizon k is
+ * φ^k·b + (1 - φ^k)·r, so near-term forecasts follow the observed trend and longer ones
+ * converge to what logged intake implies. Without r the trend simply flattens out.
+ */
+final class DampedTrendFitter {
+
+    private static final double[] ALPHAS = {0.1, 0.2, 0.3, 0.5};
+    private static final double[] BETAS = {0.01, 0.05, 0.1, 0.2};
+    private static final double[] PHIS = {0.8, 0.9, 0.95, 0.98, 0.995};
+
+    /**
+     * Weights used to initialise the state; their errors are not scored
+     */
+    private static final int WARM_UP = 3;
+
+    /**
+     * Fitted parameters and the state at the last weight
+     */
+    record Fit(double alpha, double beta, double phi, double level, double trend, double sigma) {
+    }
+
+    /**
+     * One forecast day: expected weight and the 80% / 95% bands
+     */
+    record Point(LocalDate date, double expected, double lower80, double upper80, double lower95, double upper95) {
+    }
+
+    private DampedTrendFitter() {
+    }
+
+    /**
+     * @param dates Weigh-in dates, strictly increasing
+     * @param weights Weights in kg
+     * @return Best fit on the grid, or null with WARM_UP + 2 weights or fewer
+     */
+    static Fit fit(LocalDate[] dates, double[] weights) {
+        int n = weights.length;
+        if (n <= WARM_UP + 2) {
+            return null;
+        }
+        int[] gaps = new int[n];
+        for (int i = 1; i < n; i++) {
+            gaps[i] = (int) ChronoUnit.DAYS.between(dates[i - 1], dates[i]);
+        }
+
+        Fit best = null;
+        double bestSse = Double.MAX_VALUE;
+        for (double phi : PHIS) {
+            for (double alpha : ALPHAS) {
+                for (double beta : BETAS) {
+                    double level = weights[0];
+                    double trend = 0;
+                    double sse = 0;
+                    for (int i = 1; i < n; i++) {
+                        double phiPower = Math.pow(phi, gaps[i]);
+                        double forecast = level + phiSum(phi, phiPower) * trend;
+                        double error = weights[i] - forecast;
+                        level = forecast + alpha * error;
+                        trend = phiPower * trend + alpha * beta * error;
+                        if (i > WARM_UP) {
+                            sse += error * error;
+                        }
+                    }
+                    if (sse < bestSse) {
+                        bestSse = sse;
+                        best = new Fit(alpha, beta, phi, level, trend, Math.sqrt(sse / (n - 1 - WARM_UP)));
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Forecasts the days after a given date.
+     *
+     * @param fit The fitted model
+     * @param energyBalanceRate Weight change implied by intake (kg/day), or null
+     * @param lastWeightDate Date of the last fitted weight
+     * @param from Forecast starts the day after this date (not before lastWeightDate)
+     * @param days Number of days to forecast
+     */
+    static List<Point> forecast(Fit fit, Double energyBalanceRate, LocalDate lastWeightDate, LocalDate from, int days) {
+        double rate = energyBalanceRate != null ? energyBalanceRate : 0;
+        long skip = Math.max(0, ChronoUnit.DAYS.between(lastWeightDate, from));
+        List<Point> points = new ArrayList<>(days);
+
+        double mean = fit.level();
+        double phiPower = 1;
+        double phiSum = 0;
+        double varianceSum = 0;
+        for (long h = 1; h <= skip + days; h++) {
+            // Variance of an h-step forecast: σ²·(1 + Σ_{j<h} c_j²), c_j = α·(1 + β·S(j))
+            if (h > 1) {
+                double c = fit.alpha() * (1 + fit.beta() * phiSum);
+                varianceSum += c * c;
+            }
+            phiPower *= fit.phi();
+            phiSum += phiPower;
+            mean += phiPower * fit.trend() + (1 - phiPower) * rate;
+
+            if (h > skip) {
+                double sd = fit.sigma() * Math.sqrt(1 + varianceSum);
+                points.add(new Point(lastWeightDate.plusDays(h), mean,
+                        mean - 1.2816 * sd, mean + 1.2816 * sd,
+                        mean - 1.96 * sd, mean + 1.96 * sd));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * φ + φ² + ... + φ^g, given φ^g
+     */
+    private static double phiSum(double phi, double phiPower) {
+        return phi * (1 - phiPower) / (1 - phi);
+    }
+}
@@ -1,5 +1,7 @@
 package com.aifitness.service;
 
+import com.aifitness.entity.EventType;
+
 /**
  * Gamification Rules Constants
  * 
@@ -16,7 +18,7 @@ public class GamificationRules {
     public static final int XP_DAILY_CHALLENGE_COMPLETED = 10;
     
     /**
-     * Badge Thresholds
+     * Badge names (bits and earning rules are registered in Badge)
      */
     public static final String BADGE_FIRST_LOG = "FIRST_LOG";
     public static final String BADGE_STREAK_3 = "STREAK_3";
@@ -34,6 +36,18 @@ public class GamificationRules {
     public static final int XP_THRESHOLD_100 = 100;
     public static final int XP_THRESHOLD_500 = 500;
     
+    /**
+     * Gets the XP reward for an event type.
+     */
+    public static int xpFor(EventType type) {
+        return switch (type) {
+            case WEEKLY_PROGRESS -> XP_WEEKLY_PROGRESS;
+            case MEAL_PLAN_CREATED -> XP_MEAL_PLAN_CREATED;
+            case BODY_ANALYSIS_CREATED -> XP_BODY_ANALYSIS_CREATED;
+            case DAILY_CHALLENGE_COMPLETED -> XP_DAILY_CHALLENGE_COMPLETED;
+        };
+    }
+    
     private GamificationRules() {
         // Utility class - prevent instantiation
     }
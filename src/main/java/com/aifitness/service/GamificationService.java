@@ -1,21 +1,16 @@
 package com.aifitness.service;
 
 import com.aifitness.entity.EventType;
-import com.aifitness.entity.GamificationEvent;
 import com.aifitness.entity.User;
 import com.aifitness.repository.GamificationEventRepository;
-import com.aifitness.repository.UserRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.aifitness.repository.UserRewardRepository;
+import com.aifitness.security.AuthenticatedUserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Gamification Service
@@ -73,212 +68,123 @@ import java.util.Set;
 public class GamificationService {
     
     private final GamificationEventRepository gamificationEventRepository;
-    private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
+    private final UserRewardRepository userRewardRepository;
+    private final AuthenticatedUserCache userCache;
+    private final LeaderboardService leaderboardService;
+    private final StreakService streakService;
     
     @Autowired
     public GamificationService(GamificationEventRepository gamificationEventRepository,
-                               UserRepository userRepository,
-                               ObjectMapper objectMapper) {
+                               UserRewardRepository userRewardRepository,
+                               AuthenticatedUserCache userCache,
+                               LeaderboardService leaderboardService,
+                               StreakService streakService) {
         this.gamificationEventRepository = gamificationEventRepository;
-        this.userRepository = userRepository;
-        this.objectMapper = objectMapper;
+        this.userRewardRepository = userRewardRepository;
+        this.userCache = userCache;
+        this.leaderboardService = leaderboardService;
+        this.streakService = streakService;
     }
     
     /**
      * Records a gamification event and updates user rewards.
      * 
+     * Called by OutboxDispatcher for rewards of domain writes (weekly progress, meal plans), so it
+     * may run more than once for the same event; the unique event row makes repeats no-ops.
+     * 
      * TIMEZONE SAFETY: All dates use UTC to ensure consistency across timezones.
      * 
-     * Behavior:
-     * - If event already exists -> return without changes
-     * - Else save event, add XP, update streak using lastActivityDate:
-     *   - null -> streak=1
-     *   - same day -> streak unchanged
-     *   - consecutive day -> streak++
-     *   - gap -> streak=1
-     *   - update longestStreakDays ONLY when streak increases
-     *   - set lastActivityDate=activityDate ONLY after successful XP grant
-     * - Parse badges JSON string into Set<String>, add badges when thresholds crossed, save back as JSON string
-     * - Persist user changes.
+     * CONCURRENCY: No read-modify-write of the users row:
+     * - The event is inserted with ON CONFLICT DO NOTHING; if no row was inserted, the event
+     *   already exists (possibly recorded by a concurrent request) -> return without changes
+     * - The activity day is set in the user's activity calendar (one upsert, which locks the
+     *   calendar row) and the streaks are recomputed from the calendar (one SELECT of the
+     *   user's years, see StreakService)
+     * - XP and streaks are written by a single UPDATE of the users row
+     *   (see UserRewardRepository.applyActivity); XP is added to the current value, so
+     *   concurrent events never lose an increment. An activity delivered late counts on its
+     *   own day.
+     * - Badges earned by the new totals and not yet held are OR-ed into the badge mask
+     *   (badge_mask | bits in SQL, so concurrent awards keep each other's badges). Thresholds
+     *   are crossed rarely, so most events issue no badge write at all.
      * 
      * @param user The user
      * @param type The event type
      * @param sourceId The source ID (e.g., weeklyProgressId, mealPlanId, bodyAnalysisId, or yyyy-MM-dd for daily challenges)
-     * @param activityDate The date of the activity (IGNORED - always uses UTC today for date safety)
+     * @param activityDate The UTC date of the activity, fixed by the server when the activity was
+     *                     saved (never a frontend-provided date); null for UTC today
      */
     public void recordEvent(User user, EventType type, String sourceId, LocalDate activityDate) {
-        // TIMEZONE SAFETY: Always use UTC date, never trust frontend-provided dates
-        // This ensures consistency across timezones, page refreshes, and backend restarts
-        LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
+        // TIMEZONE SAFETY: Server-side UTC date, never a frontend-provided date
+        // This ensures consistency across timezones, page refreshes, backend restarts and retries
+        LocalDate todayUtc = activityDate != null ? activityDate : LocalDate.now(ZoneOffset.UTC);
         
-        // Check if event already exists (prevent double-counting)
-        // Uniqueness: (user_id, type, sourceId)
-        if (gamificationEventRepository.findByUserAndTypeAndSourceId(user, type, sourceId).isPresent()) {
+        // Claim the event (prevent double-counting)
+        // Uniqueness: (user_id, type, sourceId); only one concurrent caller inserts the row
+        if (gamificationEventRepository.insertIfAbsent(user.getId(), type.name(), todayUtc, sourceId) == 0) {
             return; // Event already recorded, skip
         }
         
-        // Get XP reward for this event type
-        int xpReward = getXpReward(type);
-        
-        // Update user's XP (before streak update to ensure XP is granted)
-        int currentXp = user.getXp();
-        user.setXp(currentXp + xpReward);
+        // Mark the day in the activity calendar, then grant XP and store the recomputed
+        // streaks in one statement, using UTC date
+        int xp = GamificationRules.xpFor(type);
+        UserRewardRepository.RewardTotals totals = streakService.recordActivity(user.getId(), todayUtc, xp)
+                .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Update streak using UTC date
-        // This ensures streak logic is date-safe and timezone-independent
-        updateStreak(user, todayUtc);
+        // Add badges whose thresholds the new totals crossed
+        userRewardRepository.addBadges(user.getId(), newBadges(totals));
         
-        // Update badges
-        updateBadges(user);
+        // The users row was written without going through the entity
+        userCache.invalidate(user.getId());
         
-        // Create and save the event (after XP grant to ensure consistency)
-        GamificationEvent event = new GamificationEvent(user, type, todayUtc, sourceId);
-        gamificationEventRepository.save(event);
-        
-        // Persist user changes (lastActivityDate is updated in updateStreak)
-        userRepository.save(user);
+        // Leaderboards pick the XP up once the event commits
+        leaderboardService.recordXp(user.getId(), xp, todayUtc);
     }
     
     /**
-     * Gets XP reward for an event type.
-     */
-    private int getXpReward(EventType type) {
-        return switch (type) {
-            case WEEKLY_PROGRESS -> GamificationRules.XP_WEEKLY_PROGRESS;
-            case MEAL_PLAN_CREATED -> GamificationRules.XP_MEAL_PLAN_CREATED;
-            case BODY_ANALYSIS_CREATED -> GamificationRules.XP_BODY_ANALYSIS_CREATED;
-            case DAILY_CHALLENGE_COMPLETED -> GamificationRules.XP_DAILY_CHALLENGE_COMPLETED;
-        };
-    }
-    
-    /**
-     * Updates user's streak based on lastActivityDate and activityDate.
-     * 
-     * STRICT DATE COMPARISON LOGIC (all dates in UTC):
-     * - lastActivityDate == null → streak = 1 (first activity ever)
-     * - activityDate.equals(lastActivityDate) → do NOTHING (same calendar day, no streak change)
-     * - activityDate.equals(lastActivityDate.plusDays(1)) → streak++ (consecutive day)
-     * - activityDate.isAfter(lastActivityDate.plusDays(1)) → streak = 1 (gap detected, reset)
+     * Marks the day of a saved daily check-in as active. Called by OutboxDispatcher; check-ins
+     * earn no XP but keep the streak going, including check-ins logged for a past day.
      * 
-     * longestStreakDays updates ONLY when streak increases (not on same day).
-     * lastActivityDate persists ONLY after successful XP grant (in recordEvent).
+     * @param user The user
+     * @param date The check-in date
      */
-    private void updateStreak(User user, LocalDate activityDate) {
-        LocalDate lastActivityDate = user.getLastActivityDate();
-        int previousStreak = user.getCurrentStreakDays();
-        
-        if (lastActivityDate == null) {
-            // Case 1: First activity ever → streak = 1
-            user.setCurrentStreakDays(1);
-        } else if (activityDate.equals(lastActivityDate)) {
-            // Case 2: Same calendar day → do NOTHING (streak unchanged)
-            // This prevents multiple activities on the same day from affecting streak
-            return; // Exit early, no changes needed
-        } else if (activityDate.equals(lastActivityDate.plusDays(1))) {
-            // Case 3: Consecutive day → streak++
-            user.setCurrentStreakDays(user.getCurrentStreakDays() + 1);
-        } else if (activityDate.isAfter(lastActivityDate.plusDays(1))) {
-            // Case 4: Gap detected (more than 1 day) → streak = 1
-            user.setCurrentStreakDays(1);
-        } else {
-            // Case 5: activityDate is before lastActivityDate (shouldn't happen with UTC)
-            // This is a data integrity issue, but we'll reset streak to be safe
-            user.setCurrentStreakDays(1);
-        }
-        
-        // Update longestStreakDays ONLY when streak increases
-        // This ensures we don't update on same-day activities
-        int newStreak = user.getCurrentStreakDays();
-        if (newStreak > previousStreak && newStreak > user.getLongestStreakDays()) {
-            user.setLongestStreakDays(newStreak);
-        }
-        
-        // Persist lastActivityDate (only after successful streak update)
-        // This is called after XP grant in recordEvent, ensuring consistency
-        user.setLastActivityDate(activityDate);
+    public void recordCheckInDay(User user, LocalDate date) {
+        streakService.recordActivity(user.getId(), date, 0)
+                .ifPresent(totals -> userRewardRepository.addBadges(user.getId(), newBadges(totals)));
     }
     
     /**
-     * Updates user's badges based on current XP and streak.
+     * Covers a missed day with a streak freeze (see StreakService.freeze).
      * 
-     * Badge thresholds:
-     * - FIRST_LOG: First activity (already handled by streak logic)
-     * - STREAK_3: 3 day streak
-     * - STREAK_7: 7 day streak
-     * - STREAK_30: 30 day streak
-     * - XP_100: 100 XP
-     * - XP_500: 500 XP
+     * @param userId The user ID
+     * @param day The missed UTC day
+     * @return The user's streaks after the freeze
+     * @throws IllegalArgumentException if the day cannot be frozen
      */
-    private void updateBadges(User user) {
-        // Parse badges JSON string into Set
-        Set<String> badges = parseBadges(user.getBadges());
-        boolean badgesChanged = false;
-        
-        // Check streak badges
-        int currentStreak = user.getCurrentStreakDays();
-        if (currentStreak >= GamificationRules.STREAK_THRESHOLD_3 && !badges.contains(GamificationRules.BADGE_STREAK_3)) {
-            badges.add(GamificationRules.BADGE_STREAK_3);
-            badgesChanged = true;
-        }
-        if (currentStreak >= GamificationRules.STREAK_THRESHOLD_7 && !badges.contains(GamificationRules.BADGE_STREAK_7)) {
-            badges.add(GamificationRules.BADGE_STREAK_7);
-            badgesChanged = true;
-        }
-        if (currentStreak >= GamificationRules.STREAK_THRESHOLD_30 && !badges.contains(GamificationRules.BADGE_STREAK_30)) {
-            badges.add(GamificationRules.BADGE_STREAK_30);
-            badgesChanged = true;
-        }
-        
-        // Check XP badges
-        int currentXp = user.getXp();
-        if (currentXp >= GamificationRules.XP_THRESHOLD_100 && !badges.contains(GamificationRules.BADGE_XP_100)) {
-            badges.add(GamificationRules.BADGE_XP_100);
-            badgesChanged = true;
-        }
-        if (currentXp >= GamificationRules.XP_THRESHOLD_500 && !badges.contains(GamificationRules.BADGE_XP_500)) {
-            badges.add(GamificationRules.BADGE_XP_500);
-            badgesChanged = true;
-        }
-        
-        // Check FIRST_LOG badge (if user has any activity)
-        if (user.getLastActivityDate() != null && !badges.contains(GamificationRules.BADGE_FIRST_LOG)) {
-            badges.add(GamificationRules.BADGE_FIRST_LOG);
-            badgesChanged = true;
-        }
-        
-        // Save badges back as JSON string if changed
-        if (badgesChanged) {
-            user.setBadges(serializeBadges(badges));
-        }
+    public StreakService.Streaks useStreakFreeze(Long userId, LocalDate day) {
+        UserRewardRepository.RewardTotals totals = streakService.freeze(userId, day)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        userRewardRepository.addBadges(userId, newBadges(totals));
+        return streakService.getStreaks(userId, totals.longestStreakDays());
     }
     
     /**
-     * Parses badges JSON string into Set<String>.
+     * Rebuilds the user's activity calendar from history, e.g. after an import of check-ins.
+     * 
+     * @param user The user
      */
-    private Set<String> parseBadges(String badgesJson) {
-        if (badgesJson == null || badgesJson.trim().isEmpty() || badgesJson.equals("[]")) {
-            return new HashSet<>();
-        }
-        
-        try {
-            return objectMapper.readValue(badgesJson, new TypeReference<Set<String>>() {});
-        } catch (Exception e) {
-            // If parsing fails, return empty set
-            return new HashSet<>();
-        }
+    public void rebuildStreaks(User user) {
+        streakService.rebuild(user.getId())
+                .ifPresent(totals -> userRewardRepository.addBadges(user.getId(), newBadges(totals)));
     }
     
     /**
-     * Serializes badges Set<String> into JSON string.
+     * Gets the badges earned by the user's totals that are not in the badge mask yet.
+     * 
+     * Badge rules live in the Badge registry (thresholds from GamificationRules).
      */
-    private String serializeBadges(Set<String> badges) {
-        try {
-            return objectMapper.writeValueAsString(badges);
-        } catch (Exception e) {
-            // If serialization fails, return empty array JSON
-            return "[]";
-        }
+    private long newBadges(UserRewardRepository.RewardTotals totals) {
+        return Badge.earnedMask(totals.xp(), totals.currentStreakDays()) & ~totals.badgeMask();
     }
     
     /**
@@ -305,19 +211,19 @@ public class GamificationService {
     /**
      * Checks if daily challenge was completed today.
      * 
-     * @param user The user to check
+     * @param userId The ID of the user to check
      * @return true if DAILY_CHALLENGE_COMPLETED event exists for today (UTC), false otherwise
      */
-    public boolean isDailyChallengeCompletedToday(User user) {
+    public boolean isDailyChallengeCompletedToday(Long userId) {
         LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
         String todayAsString = todayUtc.toString();
         
         // Check if event exists for today
-        return gamificationEventRepository.findByUserAndTypeAndSourceId(
-            user, 
+        return gamificationEventRepository.existsByUserIdAndTypeAndSourceId(
+            userId, 
             EventType.DAILY_CHALLENGE_COMPLETED, 
             todayAsString
-        ).isPresent();
+        );
     }
 }
 
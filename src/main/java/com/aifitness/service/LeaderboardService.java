@@ -0,0 +1,309 @@
+package com.aifitness.service;
+
+import com.aifitness.dto.LeaderboardResponse;
+import com.aifitness.entity.User;
+import com.aifitness.repository.LeaderboardSnapshotRepository;
+import com.aifitness.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Leaderboard Service
+ *
+ * All-time and weekly XP leaderboards served from memory (XpLeaderboard), so rank and top-K
+ * reads never query users or gamification_events.
+ *
+ * - Fed by GamificationService.recordEvent after each event's transaction commits
+ * - Built on startup from the snapshot tables plus the events created after the snapshot
+ *   watermark (the first start aggregates all events once)
+ * - A periodic job folds events older than a safety lag into the snapshot tables, in SQL, so
+ *   the snapshot is exact and warm restarts only aggregate the recent events. The lag covers
+ *   transactions that were still open when the watermark passed their created_at.
+ * - The same job then rebuilds both boards from the database. The boards are per instance
+ *   and each instance only feeds its own events in between, so with several instances the
+ *   rankings converge at every run (leaderboard.snapshot.interval-ms).
+ *
+ * XP recorded while a rebuild reads the database is queued and replayed onto the rebuilt
+ * boards, so it is not lost in the swap. An event that commits just as the read starts can
+ * be counted twice until the next rebuild.
+ *
+ * Weeks are ISO weeks (Monday to Sunday) in UTC, like gamification event dates.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    public static final String PERIOD_WEEKLY = "weekly";
+    public static final String PERIOD_ALL_TIME = "all-time";
+
+    public static final int MAX_LIMIT = 100;
+
+    private final LeaderboardSnapshotRepository snapshotRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotReadTemplate;
+    private final long snapshotLagSeconds;
+
+    // Swapping the boards, starting a new week and applying XP hold boardLock
+    private final Object boardLock = new Object();
+    private volatile XpLeaderboard allTime = new XpLeaderboard();
+    private volatile WeeklyBoard weekly = new WeeklyBoard(currentWeekStart(), new XpLeaderboard());
+    // XP applied while the boards are being rebuilt; null when no rebuild is running
+    private List<PendingXp> pendingXp;
+
+    /**
+     * The weekly leaderboard of one week
+     */
+    private record WeeklyBoard(LocalDate weekStart, XpLeaderboard board) {
+    }
+
+    /**
+     * XP granted to a user for an event on a date
+     */
+    private record PendingXp(Long userId, int xp, LocalDate eventDate) {
+    }
+
+    @Autowired
+    public LeaderboardService(LeaderboardSnapshotRepository snapshotRepository,
+                              UserRepository userRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${leaderboard.snapshot.lag-seconds:300}") long snapshotLagSeconds) {
+        this.snapshotRepository = snapshotRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotReadTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotReadTemplate.setReadOnly(true);
+        this.snapshotLagSeconds = snapshotLagSeconds;
+    }
+
+    /**
+     * Brings the snapshot up to date and loads both boards before the application serves
+     * requests.
+     */
+    @PostConstruct
+    public void load() {
+        snapshot();
+        reload();
+    }
+
+    /**
+     * Folds new events into the snapshot, then rebuilds both boards from the database so
+     * every instance converges on the same rankings.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.snapshot.interval-ms:600000}",
+               initialDelayString = "${leaderboard.snapshot.interval-ms:600000}")
+    public void refresh() {
+        snapshot();
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // The current boards stay in place until the next run
+            logger.error("Leaderboard reload failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds both boards from the snapshot totals plus the events created after the
+     * watermark and swaps them in, replaying XP recorded in the meantime.
+     */
+    private void reload() {
+        long started = System.currentTimeMillis();
+        synchronized (boardLock) {
+            pendingXp = new ArrayList<>();
+        }
+
+        LocalDate weekStart = currentWeekStart();
+        XpLeaderboard loadedAllTime = new XpLeaderboard();
+        XpLeaderboard loadedWeekly = new XpLeaderboard();
+        try {
+            // Totals and delta are read at one point in time, so a concurrent fold by another
+            // instance cannot be counted twice
+            snapshotReadTemplate.executeWithoutResult(status -> {
+                LocalDateTime watermark = snapshotRepository.getWatermark(false);
+                snapshotRepository.forEachTotal(LeaderboardSnapshotRepository.BOARD_ALL_TIME,
+                        LeaderboardSnapshotRepository.ALL_TIME_PERIOD, loadedAllTime::add);
+                snapshotRepository.forEachTotal(LeaderboardSnapshotRepository.BOARD_WEEKLY, weekStart, loadedWeekly::add);
+                snapshotRepository.forEachEventTotal(watermark, null, loadedAllTime::add);
+                snapshotRepository.forEachEventTotal(watermark, weekStart, loadedWeekly::add);
+            });
+        } catch (RuntimeException e) {
+            synchronized (boardLock) {
+                pendingXp = null;
+            }
+            throw e;
+        }
+
+        synchronized (boardLock) {
+            WeeklyBoard loaded = new WeeklyBoard(weekStart, loadedWeekly);
+            if (weekly.weekStart().isAfter(weekStart)) {
+                // The week rolled over during the read
+                loaded = weekly;
+            }
+            for (PendingXp pending : pendingXp) {
+                apply(loadedAllTime, loaded, pending);
+            }
+            pendingXp = null;
+            allTime = loadedAllTime;
+            weekly = loaded;
+        }
+        logger.info("Leaderboards loaded: {} all-time and {} weekly users in {} ms",
+                loadedAllTime.size(), loadedWeekly.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Folds events created before now minus the lag into the snapshot tables and drops weekly
+     * totals older than last week. Instances serialize on the snapshot state row.
+     */
+    private void snapshot() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime from = snapshotRepository.getWatermark(true);
+                LocalDateTime to = snapshotRepository.databaseNow().minusSeconds(snapshotLagSeconds);
+                if (!to.isAfter(from)) {
+                    return;
+                }
+                LocalDate lastWeek = currentWeekStart().minusWeeks(1);
+                int rows = snapshotRepository.fold(from, to, lastWeek);
+                snapshotRepository.deleteWeeksBefore(lastWeek);
+                logger.info("Leaderboard snapshot: folded events created {} to {} into {} totals", from, to, rows);
+            });
+        } catch (RuntimeException e) {
+            // The watermark did not move; the next run folds the same events
+            logger.error("Leaderboard snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds XP to the user's all-time and weekly standings once the current transaction
+     * commits (immediately without a transaction), so rolled-back events are never counted.
+     *
+     * @param userId The user ID
+     * @param xp XP granted
+     * @param eventDate UTC date of the event
+     */
+    public void recordXp(Long userId, int xp, LocalDate eventDate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyXp(userId, xp, eventDate);
+                }
+            });
+        } else {
+            applyXp(userId, xp, eventDate);
+        }
+    }
+
+    /**
+     * Gets the top users of a leaderboard and the requesting user's standing.
+     *
+     * @param userId The requesting user's ID
+     * @param period PERIOD_WEEKLY or PERIOD_ALL_TIME
+     * @param limit Number of top users (between 1 and MAX_LIMIT)
+     * @return The leaderboard
+     */
+    public LeaderboardResponse getLeaderboard(Long userId, String period, int limit) {
+        XpLeaderboard board;
+        LeaderboardResponse response = new LeaderboardResponse();
+        if (PERIOD_WEEKLY.equals(period)) {
+            WeeklyBoard current = weeklyBoard(currentWeekStart());
+            board = current.board();
+            response.setPeriodStart(current.weekStart());
+        } else if (PERIOD_ALL_TIME.equals(period)) {
+            board = allTime;
+        } else {
+            throw new RuntimeException("Period must be '" + PERIOD_WEEKLY + "' or '" + PERIOD_ALL_TIME + "'");
+        }
+        response.setPeriod(period);
+        response.setTotalUsers(board.size());
+
+        List<XpLeaderboard.Standing> top = board.top(Math.max(1, Math.min(MAX_LIMIT, limit)));
+        XpLeaderboard.Standing mine = board.standingOf(userId);
+        // One primary-key lookup for the names of the top users and the requester; deleted users are skipped
+        List<Long> ids = new ArrayList<>(top.stream().map(XpLeaderboard.Standing::userId).toList());
+        if (mine != null && !ids.contains(userId)) {
+            ids.add(userId);
+        }
+        Map<Long, String> names = userRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(User::getId, LeaderboardService::displayName));
+        for (XpLeaderboard.Standing standing : top) {
+            String name = names.get(standing.userId());
+            if (name != null) {
+                response.getEntries().add(toEntry(standing, name));
+            }
+        }
+
+        if (mine != null && names.containsKey(userId)) {
+            response.setMe(toEntry(mine, names.get(userId)));
+        }
+        return response;
+    }
+
+    private void applyXp(Long userId, int xp, LocalDate eventDate) {
+        PendingXp granted = new PendingXp(userId, xp, eventDate);
+        weeklyBoard(eventDate.with(DayOfWeek.MONDAY));
+        synchronized (boardLock) {
+            if (pendingXp != null) {
+                pendingXp.add(granted);
+            }
+            apply(allTime, weekly, granted);
+        }
+    }
+
+    private static void apply(XpLeaderboard allTimeBoard, WeeklyBoard weeklyBoard, PendingXp granted) {
+        allTimeBoard.add(granted.userId(), granted.xp());
+        if (weeklyBoard.weekStart().equals(granted.eventDate().with(DayOfWeek.MONDAY))) {
+            weeklyBoard.board().add(granted.userId(), granted.xp());
+        }
+    }
+
+    /**
+     * Gets the board of the current week, starting an empty one when the given week is newer.
+     */
+    private WeeklyBoard weeklyBoard(LocalDate weekStart) {
+        WeeklyBoard current = weekly;
+        if (!weekStart.isAfter(current.weekStart())) {
+            return current;
+        }
+        synchronized (boardLock) {
+            if (weekStart.isAfter(weekly.weekStart())) {
+                weekly = new WeeklyBoard(weekStart, new XpLeaderboard());
+            }
+            return weekly;
+        }
+    }
+
+    private static LeaderboardResponse.Entry toEntry(XpLeaderboard.Standing standing, String name) {
+        return new LeaderboardResponse.Entry(standing.rank(), name, standing.xp());
+    }
+
+    private static String displayName(User user) {
+        return user.getName() != null && !user.getName().isBlank() ? user.getName() : user.getUsername();
+    }
+
+    private static LocalDate currentWeekStart() {
+        return LocalDate.now(ZoneOffset.UTC).with(DayOfWeek.MONDAY);
+    }
+}
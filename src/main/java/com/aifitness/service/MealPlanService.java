@@ -3,16 +3,22 @@ package com.aifitness.service;
 import com.aifitness.ai.data.GlobalCuisineKnowledgeBase;
 import com.aifitness.ai.data.GlobalCuisineKnowledgeBase.CuisineProfile;
 import com.aifitness.ai.data.GlobalCuisineKnowledgeBase.MealBlueprint;
+import com.aifitness.ai.data.MealSubstitutionIndex;
 import com.aifitness.dto.DailyMacrosDTO;
 import com.aifitness.dto.DailyMealPlanDTO;
 import com.aifitness.dto.GroceryItem;
 import com.aifitness.dto.MealPlanEntryDTO;
 import com.aifitness.dto.MealPlanResponseDTO;
 import com.aifitness.dto.RuleBasedMealPlanDocument;
+import com.aifitness.entity.EventType;
 import com.aifitness.entity.MealPlan;
 import com.aifitness.entity.MealPlanEntry;
+import com.aifitness.entity.MealPlanEntryIngredient;
 import com.aifitness.entity.User;
+import com.aifitness.repository.MealPlanEntryIngredientRepository;
 import com.aifitness.repository.MealPlanRepository;
+import com.aifitness.util.IngredientQuantityParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +27,9 @@ import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.Normalizer;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -39,16 +48,54 @@ public class MealPlanService {
     
     private static final Logger logger = LoggerFactory.getLogger(MealPlanService.class);
     
+    /**
+     * Meal slots the rule-based generator fills for every day, in generation order
+     */
+    private static final List<String> GENERATED_MEAL_TYPES =
+            List.of(MealPlanEntry.BREAKFAST, MealPlanEntry.LUNCH, MealPlanEntry.DINNER);
+    
+    /**
+     * Share of the daily macro targets assigned to each generated meal slot
+     */
+    private static final Map<String, Double> MEAL_SPLIT = Map.of(
+        MealPlanEntry.BREAKFAST, 0.30,
+        MealPlanEntry.LUNCH, 0.35,
+        MealPlanEntry.DINNER, 0.35
+    );
+    
+    /**
+     * Offset added to the day index per slot so each slot rotates independently
+     */
+    private static final Map<String, Integer> ROTATION_OFFSET = Map.of(
+        MealPlanEntry.BREAKFAST, 0,
+        MealPlanEntry.LUNCH, 7,
+        MealPlanEntry.DINNER, 14
+    );
+    
+    private static final TypeReference<List<Map<String, String>>> INGREDIENT_LIST_TYPE =
+            new TypeReference<List<Map<String, String>>>() {};
+    
     private final MealPlanRepository mealPlanRepository;
+    private final MealPlanEntryIngredientRepository ingredientRepository;
     private final NutritionService nutritionService;
     private final ObjectMapper objectMapper;
+    private final MealPlanTemplateCache templateCache;
+    private final OutboxService outboxService;
     
     @Autowired
     public MealPlanService(MealPlanRepository mealPlanRepository,
-                           NutritionService nutritionService) {
+                           MealPlanEntryIngredientRepository ingredientRepository,
+                           NutritionService nutritionService,
+                           ObjectMapper objectMapper,
+                           MealPlanTemplateCache templateCache,
+                           OutboxService outboxService) {
         this.mealPlanRepository = mealPlanRepository;
+        this.ingredientRepository = ingredientRepository;
         this.nutritionService = nutritionService;
-        this.objectMapper = new ObjectMapper();
+        // Application mapper, so the stored document serializes exactly like a live response
+        this.objectMapper = objectMapper;
+        this.templateCache = templateCache;
+        this.outboxService = outboxService;
     }
     
     /**
@@ -202,33 +249,274 @@ public class MealPlanService {
         Set<String> dislikedFoods = parseDislikedFoods(user.getDislikedFoods());
         Set<String> cuisineKeywords = buildCuisineKeywords(user.getFavoriteCuisines());
         String dietaryPreference = user.getDietaryPreference();
-        Set<String> usedMeals = new HashSet<>();
+        String favoriteCuisines = user.getFavoriteCuisines();
         
-        Map<String, Double> mealSplit = Map.of(
-            MealPlanEntry.BREAKFAST, 0.30,
-            MealPlanEntry.LUNCH, 0.35,
-            MealPlanEntry.DINNER, 0.35
-        );
+        // Meal selection depends only on the profile archetype, so it is shared between users;
+        // macros are scaled to this user's targets below.
+        String templateKey = MealPlanTemplateCache.keyFor(
+                dietaryPreference, favoriteCuisines, cuisineKeywords, preferredFoods, dislikedFoods);
+        MealPlanTemplateCache.Template template = templateCache.getOrBuild(templateKey, () -> buildWeekTemplate(
+                dietaryPreference, preferredFoods, dislikedFoods, cuisineKeywords, favoriteCuisines));
         
+        for (MealPlanTemplateCache.Slot slot : template.getSlots()) {
+            MealOption option = new MealOption(slot.getName(), slot.getCalories(), slot.getProtein(),
+                    slot.getCarbs(), slot.getFats(), slot.getIngredientsJson());
+            mealPlan.addEntry(createScaledEntry(mealPlan, startDate.plusDays(slot.getDayOffset()),
+                    slot.getMealType(), option, macroTargets, MEAL_SPLIT.get(slot.getMealType())));
+        }
+        
+        // Flush so entry IDs are assigned before the document is rendered
+        mealPlan = mealPlanRepository.saveAndFlush(mealPlan);
+        storePlanDocument(mealPlan);
+        
+        // Creating a plan earns XP once the plan is committed (via the outbox)
+        outboxService.publishGamificationEvent(user, EventType.MEAL_PLAN_CREATED, mealPlan.getId().toString());
+        return mealPlan;
+    }
+    
+    /**
+     * Selects a full week of meals for a profile archetype, keeping base (unscaled) macros.
+     */
+    private MealPlanTemplateCache.Template buildWeekTemplate(String dietaryPreference,
+                                                             Set<String> preferredFoods,
+                                                             Set<String> dislikedFoods,
+                                                             Set<String> cuisineKeywords,
+                                                             String favoriteCuisines) {
+        Set<String> usedMeals = new HashSet<>();
+        List<MealPlanTemplateCache.Slot> slots = new ArrayList<>();
         for (int day = 0; day < 7; day++) {
-            LocalDate date = startDate.plusDays(day);
-            mealPlan.addEntry(createPersonalizedEntry(
-                mealPlan, date, MealPlanEntry.BREAKFAST, macroTargets, mealSplit.get(MealPlanEntry.BREAKFAST),
-                dietaryPreference, preferredFoods, dislikedFoods, cuisineKeywords, usedMeals, day, user.getFavoriteCuisines()));
-            
-            mealPlan.addEntry(createPersonalizedEntry(
-                mealPlan, date, MealPlanEntry.LUNCH, macroTargets, mealSplit.get(MealPlanEntry.LUNCH),
-                dietaryPreference, preferredFoods, dislikedFoods, cuisineKeywords, usedMeals, day + 7, user.getFavoriteCuisines()));
-            
-            mealPlan.addEntry(createPersonalizedEntry(
-                mealPlan, date, MealPlanEntry.DINNER, macroTargets, mealSplit.get(MealPlanEntry.DINNER),
-                dietaryPreference, preferredFoods, dislikedFoods, cuisineKeywords, usedMeals, day + 14, user.getFavoriteCuisines()));
+            for (String mealType : GENERATED_MEAL_TYPES) {
+                MealOption selected = selectForSlot(mealType, dietaryPreference, preferredFoods, dislikedFoods,
+                        cuisineKeywords, usedMeals, day + ROTATION_OFFSET.get(mealType), favoriteCuisines);
+                slots.add(new MealPlanTemplateCache.Slot(day, mealType, selected.name,
+                        selected.calories, selected.protein, selected.carbs, selected.fats, selected.ingredientsJson));
+            }
+        }
+        return new MealPlanTemplateCache.Template(slots);
+    }
+    
+    /**
+     * Regenerates all meals of one day in the meal plan that covers the given date.
+     * 
+     * The rest of the week is left untouched: meals already in the plan count as used
+     * (so the new day avoids repeats) and only the day's rows are deleted and re-inserted.
+     * 
+     * @param user The plan owner
+     * @param date The day to regenerate
+     * @return The updated meal plan, or null if no plan covers the date
+     */
+    public MealPlan regenerateDay(User user, LocalDate date) {
+        MealPlan mealPlan = findPlanCovering(user, date);
+        if (mealPlan == null) {
+            return null;
         }
         
-        mealPlan = mealPlanRepository.save(mealPlan);
+        MacroTargets macroTargets = buildMacroTargets(user);
+        Set<String> usedMeals = collectUsedMeals(mealPlan);
+        int dayIndex = (int) (date.toEpochDay() - mealPlan.getWeekStartDate().toEpochDay());
+        
+        mealPlan.getEntries().removeIf(entry -> date.equals(entry.getDate()));
+        for (String mealType : GENERATED_MEAL_TYPES) {
+            mealPlan.addEntry(createEntryForSlot(user, mealPlan, date, mealType, macroTargets,
+                    MEAL_SPLIT.get(mealType), usedMeals, dayIndex));
+        }
+        
+        logger.info("Regenerated day {} of mealPlanId={} for userId={}", date, mealPlan.getId(), user.getId());
+        return savePartialUpdate(mealPlan);
+    }
+    
+    /**
+     * Regenerates a single meal slot (date + meal type) in the meal plan that covers the date.
+     * 
+     * The slot's macro budget is rebalanced against the other meals already planned
+     * for that day, so the day as a whole stays close to the daily target.
+     * 
+     * @param user The plan owner
+     * @param date The day of the meal
+     * @param mealType BREAKFAST, LUNCH or DINNER
+     * @return The updated meal plan, or null if no plan covers the date
+     */
+    public MealPlan regenerateMeal(User user, LocalDate date, String mealType) {
+        String normalizedType = mealType != null ? mealType.trim().toUpperCase(Locale.ROOT) : null;
+        if (normalizedType == null || !GENERATED_MEAL_TYPES.contains(normalizedType)) {
+            throw new IllegalArgumentException("Meal type must be one of " + GENERATED_MEAL_TYPES);
+        }
+        MealPlan mealPlan = findPlanCovering(user, date);
+        if (mealPlan == null) {
+            return null;
+        }
+        
+        MacroTargets macroTargets = buildMacroTargets(user);
+        Set<String> usedMeals = collectUsedMeals(mealPlan);
+        int dayIndex = (int) (date.toEpochDay() - mealPlan.getWeekStartDate().toEpochDay());
+        
+        // Whatever the other meals of the day leave of the calorie target, within sane bounds
+        int otherCalories = mealPlan.getEntries().stream()
+                .filter(entry -> date.equals(entry.getDate()) && !normalizedType.equals(entry.getMealType()))
+                .mapToInt(MealPlanEntry::getCalories)
+                .sum();
+        double ratio = MEAL_SPLIT.get(normalizedType);
+        if (otherCalories > 0 && macroTargets.calories > 0) {
+            ratio = clamp(1.0 - otherCalories / macroTargets.calories, 0.15, 0.5);
+        }
+        
+        mealPlan.getEntries().removeIf(entry -> date.equals(entry.getDate()) && normalizedType.equals(entry.getMealType()));
+        mealPlan.addEntry(createEntryForSlot(user, mealPlan, date, normalizedType, macroTargets,
+                ratio, usedMeals, dayIndex));
+        
+        logger.info("Regenerated {} on {} of mealPlanId={} for userId={}", normalizedType, date, mealPlan.getId(), user.getId());
+        return savePartialUpdate(mealPlan);
+    }
+    
+    private MealPlan findPlanCovering(User user, LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        return mealPlanRepository
+                .findFirstByUserAndWeekStartDateBetweenOrderByWeekStartDateDesc(user, date.minusDays(6), date)
+                .orElse(null);
+    }
+    
+    /**
+     * Rebuilds the generator's usedMeals state from the plan's current entries.
+     * Meals being replaced stay in the set, which steers selection to a different meal.
+     */
+    private Set<String> collectUsedMeals(MealPlan mealPlan) {
+        Set<String> usedMeals = new HashSet<>();
+        for (MealPlanEntry entry : mealPlan.getEntries()) {
+            usedMeals.add(entry.getName());
+        }
+        return usedMeals;
+    }
+    
+    private MealPlanEntry createEntryForSlot(User user, MealPlan mealPlan, LocalDate date, String mealType,
+                                             MacroTargets macroTargets, double ratio,
+                                             Set<String> usedMeals, int dayIndex) {
+        return createPersonalizedEntry(
+            mealPlan, date, mealType, macroTargets, ratio,
+            user.getDietaryPreference(),
+            parsePreferredFoods(user.getPreferredFoods()),
+            parseDislikedFoods(user.getDislikedFoods()),
+            buildCuisineKeywords(user.getFavoriteCuisines()),
+            usedMeals,
+            dayIndex + ROTATION_OFFSET.get(mealType),
+            user.getFavoriteCuisines());
+    }
+    
+    /**
+     * Flushes only the replaced rows (orphan removal + new inserts) and re-renders the stored document.
+     */
+    private MealPlan savePartialUpdate(MealPlan mealPlan) {
+        mealPlan = mealPlanRepository.saveAndFlush(mealPlan);
+        storePlanDocument(mealPlan);
         return mealPlan;
     }
     
+    /**
+     * Finds a meal plan entry that belongs to one of the user's meal plans.
+     * 
+     * @param user The expected owner
+     * @param mealPlanId The meal plan ID
+     * @param entryId The entry ID
+     * @return The entry, or null if it does not exist or belongs to another user
+     */
+    public MealPlanEntry findOwnedEntry(User user, Long mealPlanId, Long entryId) {
+        MealPlan mealPlan = mealPlanRepository.findById(mealPlanId).orElse(null);
+        if (mealPlan == null || !mealPlan.getUser().getId().equals(user.getId())) {
+            return null;
+        }
+        return mealPlan.getEntries().stream()
+                .filter(entry -> entry.getId().equals(entryId))
+                .findFirst()
+                .orElse(null);
+    }
+    
+    /**
+     * Replaces the meal of one entry in place with a substitute.
+     * 
+     * The substitute's macros are scaled towards the replaced meal's macros the same way
+     * generation scales catalog meals to targets, so the day's totals stay comparable.
+     * 
+     * @param entry The entry to update (must belong to a managed meal plan)
+     * @param substitute The replacement meal
+     * @return The updated meal plan
+     */
+    public MealPlan replaceEntryMeal(MealPlanEntry entry, MealSubstitutionIndex.Candidate substitute) {
+        MealPlan mealPlan = entry.getMealPlan();
+        entry.setCalories(scaleMacro(substitute.getCalories(), entry.getCalories()));
+        entry.setProtein(scaleMacro(substitute.getProtein(), entry.getProtein()));
+        entry.setCarbs(scaleMacro(substitute.getCarbs(), entry.getCarbs()));
+        entry.setFats(scaleMacro(substitute.getFats(), entry.getFats()));
+        entry.setName(substitute.getName());
+        entry.setIngredients(substitute.getIngredientsJson());
+        entry.getIngredientItems().clear();
+        attachIngredientItems(entry);
+        
+        logger.info("Substituted entryId={} of mealPlanId={} with '{}'", entry.getId(), mealPlan.getId(), substitute.getName());
+        return savePartialUpdate(mealPlan);
+    }
+    
+    /**
+     * Enumerates every meal the rule-based generator can produce, for the substitution index.
+     * 
+     * Catalog meals are compatible with every diet list they appear in; Asian and
+     * knowledge-base meals have their diets inferred from name and ingredients.
+     * 
+     * @return One candidate per (meal type, name)
+     */
+    public List<MealSubstitutionIndex.Candidate> getSubstitutionCandidates() {
+        Map<String, MealOption> options = new LinkedHashMap<>();
+        Map<String, String> mealTypes = new HashMap<>();
+        Map<String, Integer> dietMasks = new HashMap<>();
+        List<String> mealTypeList = List.of(MealPlanEntry.BREAKFAST, MealPlanEntry.LUNCH,
+                MealPlanEntry.DINNER, MealPlanEntry.SNACK);
+        
+        for (String diet : List.of("omnivore", "vegetarian", "vegan", "pescatarian", "halal", "kosher")) {
+            int dietBit = MealSubstitutionIndex.dietBit(diet);
+            for (String mealType : mealTypeList) {
+                for (MealOption option : getMealOptions(mealType, diet, Collections.emptySet(), Collections.emptySet())) {
+                    String key = mealType + "|" + option.name;
+                    options.putIfAbsent(key, option);
+                    mealTypes.put(key, mealType);
+                    dietMasks.merge(key, dietBit, (a, b) -> a | b);
+                }
+            }
+        }
+        
+        List<MealOption> inferred = new ArrayList<>();
+        List<String> inferredTypes = new ArrayList<>();
+        for (String mealType : mealTypeList) {
+            for (MealOption option : getAsianMeals(mealType)) {
+                inferred.add(option);
+                inferredTypes.add(mealType);
+            }
+        }
+        for (CuisineProfile profile : GlobalCuisineKnowledgeBase.getAllProfiles()) {
+            for (String mealType : profile.getMealTypes()) {
+                for (MealBlueprint blueprint : profile.getMealsByType(mealType)) {
+                    inferred.add(new MealOption(blueprint.getEnglishName(), blueprint.getCalories(),
+                            blueprint.getProtein(), blueprint.getCarbs(), blueprint.getFats(),
+                            blueprint.toIngredientsJson()));
+                    inferredTypes.add(mealType);
+                }
+            }
+        }
+        for (int i = 0; i < inferred.size(); i++) {
+            MealOption option = inferred.get(i);
+            String key = inferredTypes.get(i) + "|" + option.name;
+            options.putIfAbsent(key, option);
+            mealTypes.put(key, inferredTypes.get(i));
+            dietMasks.merge(key, MealSubstitutionIndex.inferDietMask(option.name + " " + option.ingredientsJson),
+                    (a, b) -> a | b);
+        }
+        
+        List<MealSubstitutionIndex.Candidate> candidates = new ArrayList<>(options.size());
+        options.forEach((key, option) -> candidates.add(new MealSubstitutionIndex.Candidate(
+                mealTypes.get(key), option.name, option.calories, option.protein, option.carbs, option.fats,
+                option.ingredientsJson, dietMasks.get(key))));
+        return candidates;
+    }
+    
     private MacroTargets buildMacroTargets(User user) {
         MacroTargets targets = new MacroTargets();
         targets.calories = 2000;
@@ -268,6 +556,21 @@ public class MealPlanService {
             int rotationIndex,
             String favoriteCuisinesRaw) {
         
+        MealOption selected = selectForSlot(mealType, dietaryPreference, preferredFoods, dislikedFoods,
+                cuisineKeywords, usedMeals, rotationIndex, favoriteCuisinesRaw);
+        return createScaledEntry(mealPlan, date, mealType, selected, targets, ratio);
+    }
+    
+    private MealOption selectForSlot(
+            String mealType,
+            String dietaryPreference,
+            Set<String> preferredFoods,
+            Set<String> dislikedFoods,
+            Set<String> cuisineKeywords,
+            Set<String> usedMeals,
+            int rotationIndex,
+            String favoriteCuisinesRaw) {
+        
         List<MealOption> knowledgeMeals = getKnowledgeBaseMeals(mealType, favoriteCuisinesRaw, dietaryPreference);
         List<MealOption> options = getMealOptions(mealType, dietaryPreference, dislikedFoods, cuisineKeywords);
         if (!knowledgeMeals.isEmpty()) {
@@ -281,14 +584,23 @@ public class MealPlanService {
             options = getOmnivoreMeals(mealType);
         }
         
-        MealOption selected = selectMealOption(options, preferredFoods, cuisineKeywords, usedMeals, rotationIndex);
+        return selectMealOption(options, preferredFoods, cuisineKeywords, usedMeals, rotationIndex);
+    }
+    
+    private MealPlanEntry createScaledEntry(
+            MealPlan mealPlan,
+            LocalDate date,
+            String mealType,
+            MealOption selected,
+            MacroTargets targets,
+            double ratio) {
         
         int calories = scaleMacro(selected.calories, targets.calories * ratio);
         int protein = scaleMacro(selected.protein, targets.protein * ratio);
         int carbs = scaleMacro(selected.carbs, targets.carbs * ratio);
         int fats = scaleMacro(selected.fats, targets.fats * ratio);
         
-        return new MealPlanEntry(
+        MealPlanEntry entry = new MealPlanEntry(
             mealPlan,
             date,
             mealType,
@@ -299,6 +611,40 @@ public class MealPlanService {
             fats,
             selected.ingredientsJson != null ? selected.ingredientsJson : "[]"
         );
+        attachIngredientItems(entry);
+        return entry;
+    }
+    
+    /**
+     * Parses the entry's ingredients JSON once into normalized rows
+     * (numeric quantity + canonical unit) persisted with the entry.
+     */
+    private void attachIngredientItems(MealPlanEntry entry) {
+        String ingredientsJson = entry.getIngredients();
+        if (ingredientsJson == null || ingredientsJson.isBlank() || "[]".equals(ingredientsJson)) {
+            return;
+        }
+        try {
+            for (Map<String, String> ingredient : objectMapper.readValue(ingredientsJson, INGREDIENT_LIST_TYPE)) {
+                String name = ingredient.get("name");
+                if (name == null || name.trim().isEmpty()) {
+                    continue;
+                }
+                String quantityText = ingredient.get("quantityText");
+                IngredientQuantityParser.ParsedQuantity parsed = IngredientQuantityParser.parse(quantityText);
+                entry.addIngredientItem(new MealPlanEntryIngredient(
+                    entry,
+                    name.trim(),
+                    name.trim().toLowerCase(Locale.ROOT),
+                    parsed.getQuantity(),
+                    parsed.getUnit(),
+                    parsed.getQualifier(),
+                    quantityText != null ? quantityText.trim() : null
+                ));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to parse ingredients for meal entry {}: {}", entry.getName(), e.getMessage());
+        }
     }
     
     private MealOption selectMealOption(
@@ -491,6 +837,95 @@ public class MealPlanService {
         }
     }
     
+    /**
+     * Returns the precomputed document of the user's latest meal plan.
+     * 
+     * Plans generated before documents were stored are rendered once here and
+     * written back, so every later read is a single-row fetch.
+     * 
+     * @param user The user
+     * @return The rendered plan document, or null if the user has no meal plan
+     */
+    public PlanDocument getLatestPlanDocument(User user) {
+        Optional<MealPlanRepository.PlanDocumentView> view =
+                mealPlanRepository.findFirstDocumentByUserOrderByWeekStartDateDesc(user);
+        if (view.isEmpty()) {
+            return null;
+        }
+        MealPlanRepository.PlanDocumentView stored = view.get();
+        if (stored.getPlanDocument() != null && stored.getPlanDocumentEtag() != null) {
+            return new PlanDocument(stored.getId(), stored.getPlanDocument(), stored.getPlanDocumentEtag());
+        }
+        
+        logger.info("Backfilling plan document for mealPlanId={}", stored.getId());
+        return mealPlanRepository.findById(stored.getId())
+                .map(this::getPlanDocument)
+                .orElse(null);
+    }
+    
+    /**
+     * Returns the stored document of a meal plan, rendering and storing it first if missing.
+     * 
+     * @param mealPlan The meal plan
+     * @return The rendered plan document
+     */
+    public PlanDocument getPlanDocument(MealPlan mealPlan) {
+        if (mealPlan.getPlanDocument() == null || mealPlan.getPlanDocumentEtag() == null) {
+            storePlanDocument(mealPlan);
+        }
+        return new PlanDocument(mealPlan.getId(), mealPlan.getPlanDocument(), mealPlan.getPlanDocumentEtag());
+    }
+    
+    /**
+     * Renders the meal plan response once and stores it, with its ETag, on the plan.
+     */
+    private void storePlanDocument(MealPlan mealPlan) {
+        try {
+            byte[] document = objectMapper.writeValueAsBytes(toDTO(mealPlan));
+            mealPlan.setPlanDocument(document);
+            mealPlan.setPlanDocumentEtag(computeEtag(document));
+        } catch (JsonProcessingException e) {
+            // Reads fall back to backfilling the document, so generation must not fail here
+            logger.warn("Failed to render plan document for mealPlanId={}: {}", mealPlan.getId(), e.getMessage());
+        }
+    }
+    
+    private String computeEtag(byte[] document) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(document);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Precomputed meal plan response: UTF-8 JSON of MealPlanResponseDTO plus its strong ETag.
+     */
+    public static final class PlanDocument {
+        private final Long mealPlanId;
+        private final byte[] json;
+        private final String etag;
+        
+        PlanDocument(Long mealPlanId, byte[] json, String etag) {
+            this.mealPlanId = mealPlanId;
+            this.json = json;
+            this.etag = etag;
+        }
+        
+        public Long getMealPlanId() {
+            return mealPlanId;
+        }
+        
+        public String getJson() {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+        
+        public String getEtag() {
+            return etag;
+        }
+    }
+    
     /**
      * Converts a MealPlan entity to a MealPlanResponseDTO.
      */
@@ -597,7 +1032,7 @@ public class MealPlanService {
             document.setMeals(meals);
         }
 
-        List<GroceryItem> groceryItems = buildGroceryListFromEntries(mealPlan.getEntries());
+        List<GroceryItem> groceryItems = buildGroceryList(mealPlan);
         List<String> shoppingList = groceryItems.stream()
                 .map(item -> {
                     String qty = item.getQuantityText();
@@ -1063,67 +1498,78 @@ public class MealPlanService {
     
     /**
      * Builds a grocery list from the user's current meal plan.
-     * Aggregates ingredients by name and returns a list of GroceryItem.
+     * Aggregates ingredients by name and canonical unit and returns a list of GroceryItem.
      * 
      * @param user The user
-     * @return List of GroceryItem
+     * @return List of GroceryItem, or null if the user has no meal plan
      */
     public List<GroceryItem> buildGroceryListForUser(User user) {
-        // Get latest meal plan
-        MealPlan mealPlan = getLatestMealPlan(user);
-        
-        if (mealPlan == null || mealPlan.getEntries() == null || mealPlan.getEntries().isEmpty()) {
-            return new ArrayList<>();
+        Optional<MealPlanRepository.MealPlanIdView> latest =
+                mealPlanRepository.findFirstIdByUserOrderByWeekStartDateDesc(user);
+        if (latest.isEmpty()) {
+            return null;
         }
         
-        return buildGroceryListFromEntries(mealPlan.getEntries());
+        List<MealPlanEntryIngredientRepository.GroceryAggregate> rows =
+                ingredientRepository.aggregateByMealPlanId(latest.get().getId());
+        if (rows.isEmpty()) {
+            // Plans generated before ingredients were normalized only have the JSON column
+            MealPlan mealPlan = mealPlanRepository.findById(latest.get().getId()).orElse(null);
+            if (mealPlan != null && backfillIngredientItems(mealPlan)) {
+                rows = ingredientRepository.aggregateByMealPlanId(mealPlan.getId());
+            }
+        }
+        return toGroceryItems(rows);
     }
-
-    private List<GroceryItem> buildGroceryListFromEntries(List<MealPlanEntry> entries) {
-        if (entries == null || entries.isEmpty()) {
+    
+    private List<GroceryItem> buildGroceryList(MealPlan mealPlan) {
+        if (mealPlan.getId() == null || mealPlan.getEntries() == null || mealPlan.getEntries().isEmpty()) {
             return new ArrayList<>();
         }
-
-        Map<String, GroceryItem> groceryMap = new HashMap<>();
-
-        for (MealPlanEntry entry : entries) {
-            String ingredientsJson = entry.getIngredients();
-            if (ingredientsJson == null || ingredientsJson.trim().isEmpty()) {
-                continue;
+        return toGroceryItems(ingredientRepository.aggregateByMealPlanId(mealPlan.getId()));
+    }
+    
+    /**
+     * Creates normalized ingredient rows for entries that only have the legacy JSON column.
+     * 
+     * @return true if any rows were written
+     */
+    private boolean backfillIngredientItems(MealPlan mealPlan) {
+        boolean changed = false;
+        for (MealPlanEntry entry : mealPlan.getEntries()) {
+            if (entry.getIngredientItems().isEmpty()) {
+                attachIngredientItems(entry);
+                changed |= !entry.getIngredientItems().isEmpty();
             }
-
-            try {
-                List<Map<String, String>> ingredients = objectMapper.readValue(
-                        ingredientsJson,
-                        new TypeReference<List<Map<String, String>>>() {}
-                );
-
-                for (Map<String, String> ingredient : ingredients) {
-                    String name = ingredient.get("name");
-                    String quantityText = ingredient.get("quantityText");
-
-                    if (name == null || name.trim().isEmpty()) {
-                        continue;
-                    }
-
-                    String normalizedName = name.trim().toLowerCase(Locale.ROOT);
-                    GroceryItem existing = groceryMap.get(normalizedName);
-                    if (existing != null) {
-                        String existingQty = existing.getQuantityText();
-                        String newQty = quantityText != null ? quantityText : "";
-                        if (!newQty.isEmpty() && !newQty.equals(existingQty)) {
-                            existing.setQuantityText(existingQty + " + " + newQty);
-                        }
-                    } else {
-                        GroceryItem item = new GroceryItem(name.trim(), quantityText != null ? quantityText : "");
-                        groceryMap.put(normalizedName, item);
-                    }
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to parse ingredients for meal entry {}: {}", entry.getId(), e.getMessage());
+        }
+        if (changed) {
+            mealPlanRepository.saveAndFlush(mealPlan);
+            logger.info("Backfilled normalized ingredients for mealPlanId={}", mealPlan.getId());
+        }
+        return changed;
+    }
+    
+    /**
+     * Merges aggregated rows into one GroceryItem per ingredient.
+     * An ingredient bought in more than one unit lists each total, e.g. "350g + 2 slices".
+     */
+    private List<GroceryItem> toGroceryItems(List<MealPlanEntryIngredientRepository.GroceryAggregate> rows) {
+        Map<String, GroceryItem> groceryMap = new LinkedHashMap<>();
+        for (MealPlanEntryIngredientRepository.GroceryAggregate row : rows) {
+            String quantityText = row.getQuantity() != null
+                    ? IngredientQuantityParser.format(row.getQuantity(), row.getUnit(), row.getQualifier())
+                    : (row.getQuantityText() != null ? row.getQuantityText() : "");
+            GroceryItem existing = groceryMap.get(row.getNormalizedName());
+            if (existing == null) {
+                groceryMap.put(row.getNormalizedName(), new GroceryItem(row.getName(), quantityText));
+            } else if (!quantityText.isEmpty()) {
+                String existingQty = existing.getQuantityText();
+                existing.setQuantityText(existingQty == null || existingQty.isEmpty()
+                        ? quantityText
+                        : existingQty + " + " + quantityText);
             }
         }
-
+        
         List<GroceryItem> groceryList = new ArrayList<>(groceryMap.values());
         groceryList.sort(Comparator.comparing(GroceryItem::getName, String.CASE_INSENSITIVE_ORDER));
         return groceryList;
@@ -0,0 +1,246 @@
+package com.aifitness.service;
+
+import com.aifitness.ai.data.CuisineKnowledgeBaseReloadedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Meal Plan Template Cache
+ *
+ * The rule-based generator picks the same meals for every user who shares a profile
+ * archetype: dietary preference, favorite cuisines, preferred foods and dislikes.
+ * Only macro scaling and dates differ between those users, so the selected week
+ * (unscaled base macros per slot) is cached here and personalized per plan.
+ *
+ * Entries are evicted least-recently-used once the configured capacity is reached.
+ * Hit/miss counters are kept so the hit rate can be checked at GET /api/health/meal-plan-cache.
+ */
+@Component
+public class MealPlanTemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MealPlanTemplateCache.class);
+
+    private final int capacity;
+    private final Map<String, Template> templates;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long generation;
+
+    public MealPlanTemplateCache(@Value("${meal-plan.template-cache.size:256}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                if (size() > MealPlanTemplateCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Builds the canonical cache key for a profile archetype.
+     * Collections are sorted so the order users typed their preferences in does not matter.
+     *
+     * @param dietaryPreference Raw dietary preference (compared case-insensitively by the generator)
+     * @param favoriteCuisines Raw comma-separated favorite cuisines
+     * @param cuisineKeywords Expanded cuisine keywords
+     * @param preferredFoods Normalized preferred foods
+     * @param dislikedFoods Normalized disliked foods
+     * @return Cache key
+     */
+    public static String keyFor(String dietaryPreference,
+                                String favoriteCuisines,
+                                Collection<String> cuisineKeywords,
+                                Collection<String> preferredFoods,
+                                Collection<String> dislikedFoods) {
+        StringBuilder key = new StringBuilder();
+        key.append(dietaryPreference == null ? "" : dietaryPreference.toLowerCase(Locale.ROOT)).append('|');
+        appendSorted(key, favoriteCuisines == null
+                ? Collections.emptyList()
+                : List.of(favoriteCuisines.toLowerCase(Locale.ROOT).split(",")));
+        appendSorted(key, cuisineKeywords);
+        appendSorted(key, preferredFoods);
+        appendSorted(key, dislikedFoods);
+        return key.toString();
+    }
+
+    private static void appendSorted(StringBuilder key, Collection<String> values) {
+        List<String> sorted = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                String trimmed = value.trim();
+                if (!trimmed.isEmpty()) {
+                    sorted.add(trimmed);
+                }
+            }
+        }
+        Collections.sort(sorted);
+        key.append(String.join(",", sorted)).append('|');
+    }
+
+    /**
+     * Returns the cached template for the key, building and caching it on a miss.
+     * The loader runs outside the lock; two concurrent misses for the same key both
+     * build the (identical) template and the later one wins. A template built while the
+     * cache was cleared is returned but not stored, since it may come from stale data.
+     */
+    public Template getOrBuild(String key, Supplier<Template> loader) {
+        long startGeneration;
+        synchronized (templates) {
+            Template cached = templates.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            startGeneration = generation;
+        }
+        misses.incrementAndGet();
+        Template built = loader.get();
+        synchronized (templates) {
+            if (generation == startGeneration) {
+                templates.put(key, built);
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Templates embed knowledge-base meals, so they are stale once the knowledge base is reloaded.
+     */
+    @EventListener
+    public void onKnowledgeBaseReloaded(CuisineKnowledgeBaseReloadedEvent event) {
+        clear();
+    }
+
+    /**
+     * Drops every cached template, e.g. after the meal catalog changes.
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+            generation++;
+        }
+        logger.info("Meal plan template cache cleared");
+    }
+
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return Share of lookups served from the cache (0 when nothing has been looked up yet)
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * Immutable week of selected meals for one archetype, in generation order.
+     */
+    public static final class Template {
+        private final List<Slot> slots;
+
+        public Template(List<Slot> slots) {
+            this.slots = List.copyOf(slots);
+        }
+
+        public List<Slot> getSlots() {
+            return slots;
+        }
+    }
+
+    /**
+     * One selected meal with its unscaled base macros.
+     */
+    public static final class Slot {
+        private final int dayOffset;
+        private final String mealType;
+        private final String name;
+        private final int calories;
+        private final int protein;
+        private final int carbs;
+        private final int fats;
+        private final String ingredientsJson;
+
+        public Slot(int dayOffset, String mealType, String name,
+                    int calories, int protein, int carbs, int fats, String ingredientsJson) {
+            this.dayOffset = dayOffset;
+            this.mealType = mealType;
+            this.name = name;
+            this.calories = calories;
+            this.protein = protein;
+            this.carbs = carbs;
+            this.fats = fats;
+            this.ingredientsJson = ingredientsJson;
+        }
+
+        public int getDayOffset() {
+            return dayOffset;
+        }
+
+        public String getMealType() {
+            return mealType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCalories() {
+            return calories;
+        }
+
+        public int getProtein() {
+            return protein;
+        }
+
+        public int getCarbs() {
+            return carbs;
+        }
+
+        public int getFats() {
+            return fats;
+        }
+
+        public String getIngredientsJson() {
+            return ingredientsJson;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.aifitness.service;
+
+import com.aifitness.entity.DailyCheckIn;
+import com.aifitness.entity.EventType;
+import com.aifitness.entity.OutboxEvent;
+import com.aifitness.entity.User;
+import com.aifitness.entity.WeeklyProgress;
+import com.aifitness.repository.DailyCheckInRepository;
+import com.aifitness.repository.OutboxEventRepository;
+import com.aifitness.repository.UserRepository;
+import com.aifitness.repository.WeeklyProgressRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbox Dispatcher
+ *
+ * Drains outbox_events in batches and carries out each event's side effect:
+ * - GAMIFICATION_EVENT: GamificationService.recordEvent (idempotent per user, type and source)
+ * - DAILY_CHECKIN_SAVED / WEEKLY_PROGRESS_SAVED: CheckInTrendService, from the row as currently
+ *   stored, so a repeated or late event applies the latest data (the trend service ignores an
+ *   unchanged weight and rebuilds for an out-of-order one); a check-in also marks its day in
+ *   the activity calendar for streaks
+ * - TREND_REBUILD: CheckInTrendService.rebuild and a rebuild of the activity calendar
+ *
+ * Delivery is at least once. A batch is claimed in a short transaction that locks the rows with
+ * SKIP LOCKED (so several instances can dispatch) and leases them by moving available_at ahead.
+ * Each event's handler then runs in its own transaction together with the delete of the event,
+ * so a committed side effect and the removal of its event cannot come apart. A failed handler
+ * releases the event with exponential backoff; after max-attempts it is parked with failed_at.
+ * If the process dies mid-batch, the lease expires and the events are dispatched again.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final long BASE_RETRY_DELAY_SECONDS = 5;
+    private static final long MAX_RETRY_DELAY_SECONDS = 3600;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxService outboxService;
+    private final UserRepository userRepository;
+    private final DailyCheckInRepository dailyCheckInRepository;
+    private final WeeklyProgressRepository weeklyProgressRepository;
+    private final GamificationService gamificationService;
+    private final CheckInTrendService checkInTrendService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            OutboxService outboxService,
+                            UserRepository userRepository,
+                            DailyCheckInRepository dailyCheckInRepository,
+                            WeeklyProgressRepository weeklyProgressRepository,
+                            GamificationService gamificationService,
+                            CheckInTrendService checkInTrendService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.dispatch.batch-size:100}") int batchSize,
+                            @Value("${outbox.dispatch.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.dispatch.lease-seconds:300}") long leaseSeconds) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxService = outboxService;
+        this.userRepository = userRepository;
+        this.dailyCheckInRepository = dailyCheckInRepository;
+        this.weeklyProgressRepository = weeklyProgressRepository;
+        this.gamificationService = gamificationService;
+        this.checkInTrendService = checkInTrendService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Dispatches available events until a batch comes back short.
+     */
+    @Scheduled(fixedDelayString = "${outbox.dispatch.interval-ms:1000}")
+    public void dispatch() {
+        List<OutboxEvent> batch;
+        do {
+            batch = claimBatch();
+            for (OutboxEvent event : batch) {
+                process(event);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxEventRepository.lockAvailableIds(now, batchSize);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            List<OutboxEvent> events = outboxEventRepository.findByIdInOrderByIdAsc(ids);
+            for (OutboxEvent event : events) {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setAvailableAt(now.plusSeconds(leaseSeconds));
+            }
+            return outboxEventRepository.saveAll(events);
+        });
+    }
+
+    private void process(OutboxEvent event) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                handle(event);
+                outboxEventRepository.deleteById(event.getId());
+            });
+        } catch (RuntimeException e) {
+            release(event, e);
+        }
+    }
+
+    private void handle(OutboxEvent event) {
+        User user = userRepository.findById(event.getUserId()).orElse(null);
+        if (user == null) {
+            return; // Account deleted; nothing left to update
+        }
+        Map<String, String> payload = outboxService.payloadOf(event);
+
+        switch (event.getEventType()) {
+            case GAMIFICATION_EVENT -> gamificationService.recordEvent(
+                    user,
+                    EventType.valueOf(payload.get("type")),
+                    payload.get("sourceId"),
+                    LocalDate.parse(payload.get("activityDate")));
+            case DAILY_CHECKIN_SAVED -> {
+                DailyCheckIn checkIn = dailyCheckInRepository
+                        .findByUserAndDate(user, LocalDate.parse(payload.get("date")))
+                        .orElse(null);
+                if (checkIn != null) {
+                    checkInTrendService.recordCheckIn(user.getId(), checkIn, Boolean.parseBoolean(payload.get("weightProvided")));
+                    gamificationService.recordCheckInDay(user, checkIn.getDate());
+                }
+            }
+            case WEEKLY_PROGRESS_SAVED -> {
+                LocalDate weekStartDate = LocalDate.parse(payload.get("weekStartDate"));
+                Double weight = weeklyProgressRepository.findByUserAndWeekStartDate(user, weekStartDate)
+                        .map(WeeklyProgress::getWeight)
+                        .orElse(null);
+                checkInTrendService.recordWeeklyWeight(user.getId(), weekStartDate, weight);
+            }
+            case TREND_REBUILD -> {
+                checkInTrendService.rebuild(user.getId());
+                gamificationService.rebuildStreaks(user);
+            }
+        }
+    }
+
+    /**
+     * Makes a failed event available again after a backoff, or parks it once it is out of attempts.
+     */
+    private void release(OutboxEvent event, RuntimeException error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(event.getId())
+                    .ifPresent(stored -> {
+                        LocalDateTime now = LocalDateTime.now();
+                        stored.setLastError(message.length() > MAX_ERROR_LENGTH
+                                ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                        if (stored.getAttempts() >= maxAttempts) {
+                            stored.setFailedAt(now);
+                        } else {
+                            long delay = Math.min(MAX_RETRY_DELAY_SECONDS,
+                                    BASE_RETRY_DELAY_SECONDS << Math.min(20, stored.getAttempts() - 1));
+                            stored.setAvailableAt(now.plusSeconds(delay));
+                        }
+                        outboxEventRepository.save(stored);
+                    }));
+        } catch (RuntimeException e) {
+            // The lease runs out and the event is dispatched again
+            logger.error("Could not release outbox event {}: {}", event.getId(), e.getMessage(), e);
+        }
+
+        if (event.getAttempts() >= maxAttempts) {
+            logger.error("Outbox event {} ({}, userId={}) failed after {} attempts, parked: {}",
+                    event.getId(), event.getEventType(), event.getUserId(), event.getAttempts(), message, error);
+        } else {
+            logger.warn("Outbox event {} ({}, userId={}) failed on attempt {}, will retry: {}",
+                    event.getId(), event.getEventType(), event.getUserId(), event.getAttempts(), message);
+        }
+    }
+}
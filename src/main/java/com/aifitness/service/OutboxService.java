@@ -0,0 +1,82 @@
+package com.aifitness.service;
+
+import com.aifitness.entity.EventType;
+import com.aifitness.entity.OutboxEvent;
+import com.aifitness.entity.OutboxEventType;
+import com.aifitness.entity.User;
+import com.aifitness.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+/**
+ * Outbox Service
+ *
+ * Records side effects of a domain write as outbox events. Publishing requires the caller's
+ * transaction, so an event exists exactly when the change that caused it was committed;
+ * OutboxDispatcher carries it out afterwards.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Adds an event to the outbox in the current transaction.
+     *
+     * @param type Type of side effect
+     * @param userId ID of the user the event belongs to
+     * @param payload Event data
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEventType type, Long userId, Map<String, String> payload) {
+        try {
+            outboxEventRepository.save(new OutboxEvent(type, userId, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload cannot be serialized: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds a gamification reward to the outbox in the current transaction. The activity date is
+     * fixed now (UTC), so a delayed or retried dispatch still credits the day of the activity.
+     *
+     * @param user The user
+     * @param type The event type
+     * @param sourceId The source ID (e.g., weeklyProgressId, mealPlanId)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishGamificationEvent(User user, EventType type, String sourceId) {
+        publish(OutboxEventType.GAMIFICATION_EVENT, user.getId(), Map.of(
+                "type", type.name(),
+                "sourceId", sourceId,
+                "activityDate", LocalDate.now(ZoneOffset.UTC).toString()));
+    }
+
+    /**
+     * Reads the data of an event.
+     */
+    public Map<String, String> payloadOf(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), new TypeReference<Map<String, String>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed outbox payload for event " + event.getId(), e);
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.aifitness.service;
 import com.aifitness.dto.*;
 import com.aifitness.entity.User;
 import com.aifitness.repository.UserRepository;
+import com.aifitness.security.AuthenticatedUserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
 /**
  * Profile Service
  * 
@@ -26,14 +29,17 @@ public class ProfileService {
     private final UserRepository userRepository;
     private final BodyMetricsService bodyMetricsService;
     private final NutritionService nutritionService;
+    private final AuthenticatedUserCache userCache;
     
     @Autowired
     public ProfileService(UserRepository userRepository, 
                          BodyMetricsService bodyMetricsService,
-                         NutritionService nutritionService) {
+                         NutritionService nutritionService,
+                         AuthenticatedUserCache userCache) {
         this.userRepository = userRepository;
         this.bodyMetricsService = bodyMetricsService;
         this.nutritionService = nutritionService;
+        this.userCache = userCache;
     }
     
     /**
@@ -109,6 +115,35 @@ public class ProfileService {
         return user;
     }
     
+    /**
+     * Saves the user's meal preferences (already sanitized).
+     * 
+     * Only the preference columns are written, so XP, streaks and badges updated by other
+     * requests in the meantime are kept.
+     * 
+     * @param userId The user ID
+     * @param request Meal preferences; null fields clear the preference
+     * @throws RuntimeException "User not found" if the user does not exist
+     */
+    public void saveMealPreferences(Long userId, MealPreferencesRequest request) {
+        int updated = userRepository.updateMealPreferences(
+                userId,
+                request.getPreferredFoods(),
+                request.getDislikedFoods(),
+                request.getAllergies(),
+                request.getDietaryRestriction(),
+                request.getFavoriteCuisines(),
+                request.getCookingTimePreference(),
+                request.getBudgetPerDay(),
+                LocalDateTime.now());
+        if (updated == 0) {
+            throw new RuntimeException("User not found");
+        }
+        
+        // The users row was written without going through the entity
+        userCache.invalidate(userId);
+    }
+    
     /**
      * Updates specific profile fields (partial update).
      * 
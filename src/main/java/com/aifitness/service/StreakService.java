@@ -0,0 +1,159 @@
+package com.aifitness.service;
+
+import com.aifitness.repository.ActivityCalendarRepository;
+import com.aifitness.repository.UserRewardRepository;
+import com.aifitness.security.AuthenticatedUserCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Streak Service
+ *
+ * Derives streaks from the user's activity calendar (see ActivityCalendar) instead of keeping
+ * running counters, so an event delivered late or out of order, or a check-in logged for a past
+ * day, lands on its own day and the streaks are simply recomputed. users.current_streak_days and
+ * longest_streak_days are a copy refreshed on every calendar write; reads use getStreaks, which
+ * also notices a streak that lapsed since the last activity.
+ *
+ * Streak freezes: a missed day within the last freeze.window-days days can be covered by a
+ * freeze, at most freeze.max-per-month per calendar month. A frozen day keeps the streak going
+ * but does not add to its length.
+ */
+@Service
+@Transactional
+public class StreakService {
+
+    /**
+     * Current and longest streak in days
+     */
+    public record Streaks(int currentStreakDays, int longestStreakDays) {
+    }
+
+    private final ActivityCalendarRepository activityCalendarRepository;
+    private final UserRewardRepository userRewardRepository;
+    private final AuthenticatedUserCache userCache;
+    private final int freezeMaxPerMonth;
+    private final int freezeWindowDays;
+
+    @Autowired
+    public StreakService(ActivityCalendarRepository activityCalendarRepository,
+                         UserRewardRepository userRewardRepository,
+                         AuthenticatedUserCache userCache,
+                         @Value("${streak.freeze.max-per-month:2}") int freezeMaxPerMonth,
+                         @Value("${streak.freeze.window-days:7}") int freezeWindowDays) {
+        this.activityCalendarRepository = activityCalendarRepository;
+        this.userRewardRepository = userRewardRepository;
+        this.userCache = userCache;
+        this.freezeMaxPerMonth = freezeMaxPerMonth;
+        this.freezeWindowDays = freezeWindowDays;
+    }
+
+    /**
+     * Marks a day as active, then adds the XP and refreshes the streak columns in one write of
+     * the users row. Marking is idempotent; callers make the XP grant idempotent.
+     *
+     * @param userId The user ID
+     * @param day The UTC day of the activity
+     * @param xp XP earned by the activity (0 for none)
+     * @return Gamification totals after the update, or empty if the user does not exist
+     */
+    public Optional<UserRewardRepository.RewardTotals> recordActivity(Long userId, LocalDate day, int xp) {
+        activityCalendarRepository.markActive(userId, day);
+        return refresh(userId, load(userId), day, xp, day);
+    }
+
+    /**
+     * Covers a missed day with a streak freeze and refreshes the user's streak columns.
+     * Freezing a day that is already frozen changes nothing.
+     *
+     * @param userId The user ID
+     * @param day The missed UTC day
+     * @return Gamification totals after the update, or empty if the user does not exist
+     * @throws IllegalArgumentException if the day is outside the freeze window, was active,
+     *                                  or the month's freezes are used up
+     */
+    public Optional<UserRewardRepository.RewardTotals> freeze(Long userId, LocalDate day) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if (!day.isBefore(today) || day.isBefore(today.minusDays(freezeWindowDays))) {
+            throw new IllegalArgumentException(
+                    "A streak freeze can only cover one of the last " + freezeWindowDays + " days");
+        }
+
+        ActivityCalendar calendar = load(userId);
+        if (calendar.isActive(day)) {
+            throw new IllegalArgumentException("There is activity on " + day + ", no freeze needed");
+        }
+        if (calendar.isFrozen(day)) {
+            return refresh(userId, calendar, day, 0, null);
+        }
+
+        // Mark first: the upsert locks the year's row, so concurrent freezes count each other
+        activityCalendarRepository.markFrozen(userId, day);
+        calendar = load(userId);
+        LocalDate monthStart = day.withDayOfMonth(1);
+        if (calendar.frozenDaysBetween(monthStart, monthStart.plusMonths(1).minusDays(1)) > freezeMaxPerMonth) {
+            // Rolls the mark back with the transaction
+            throw new IllegalArgumentException(
+                    "No streak freezes left for " + day.getMonth() + " (" + freezeMaxPerMonth + " per month)");
+        }
+        return refresh(userId, calendar, day, 0, null);
+    }
+
+    /**
+     * Recomputes the user's active days from their gamification events and check-ins and
+     * refreshes the streak columns, e.g. after an import of past check-ins.
+     *
+     * @param userId The user ID
+     * @return Gamification totals after the update, or empty if the user does not exist
+     */
+    public Optional<UserRewardRepository.RewardTotals> rebuild(Long userId) {
+        activityCalendarRepository.rebuildActiveDays(userId);
+        return refresh(userId, load(userId), LocalDate.now(ZoneOffset.UTC), 0, null);
+    }
+
+    /**
+     * Computes the user's streaks as of today (UTC) from the calendar.
+     *
+     * The longest streak never goes below the stored one, which may predate the calendar.
+     *
+     * @param userId The user ID
+     * @param storedLongestStreakDays The user's longest_streak_days (may be null)
+     * @return Current and longest streak
+     */
+    @Transactional(readOnly = true)
+    public Streaks getStreaks(Long userId, Integer storedLongestStreakDays) {
+        Streaks streaks = load(userId).streaks(LocalDate.now(ZoneOffset.UTC));
+        int storedLongest = storedLongestStreakDays != null ? storedLongestStreakDays : 0;
+        return new Streaks(streaks.currentStreakDays(), Math.max(storedLongest, streaks.longestStreakDays()));
+    }
+
+    /**
+     * Stores streaks as of today, or as of the given day if it is ahead of UTC today
+     * (a check-in logged for the user's local date), together with any XP earned.
+     */
+    private Optional<UserRewardRepository.RewardTotals> refresh(Long userId, ActivityCalendar calendar, LocalDate day,
+                                                                int xp, LocalDate activityDate) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Streaks streaks = calendar.streaks(day.isAfter(today) ? day : today);
+        Optional<UserRewardRepository.RewardTotals> totals = userRewardRepository.applyActivity(
+                userId, xp, activityDate, streaks.currentStreakDays(), streaks.longestStreakDays());
+
+        // The users row was written without going through the entity
+        userCache.invalidate(userId);
+        return totals;
+    }
+
+    private ActivityCalendar load(Long userId) {
+        ActivityCalendar calendar = new ActivityCalendar();
+        for (ActivityCalendarRepository.YearBitmaps year : activityCalendarRepository.findByUserId(userId)) {
+            calendar.putYear(year.year(), year.activeDays(), year.frozenDays());
+        }
+        return calendar;
+    }
+}
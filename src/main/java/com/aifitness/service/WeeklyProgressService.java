@@ -1,16 +1,21 @@
 package com.aifitness.service;
 
+import com.aifitness.dto.HistoryPageResponse;
 import com.aifitness.dto.WeeklyProgressRequest;
 import com.aifitness.dto.WeeklyProgressResponse;
+import com.aifitness.entity.EventType;
+import com.aifitness.entity.OutboxEventType;
 import com.aifitness.entity.User;
 import com.aifitness.entity.WeeklyProgress;
 import com.aifitness.repository.WeeklyProgressRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -24,10 +29,13 @@ import java.util.stream.Collectors;
 public class WeeklyProgressService {
     
     private final WeeklyProgressRepository weeklyProgressRepository;
+    private final OutboxService outboxService;
     
     @Autowired
-    public WeeklyProgressService(WeeklyProgressRepository weeklyProgressRepository) {
+    public WeeklyProgressService(WeeklyProgressRepository weeklyProgressRepository,
+                                 OutboxService outboxService) {
         this.weeklyProgressRepository = weeklyProgressRepository;
+        this.outboxService = outboxService;
     }
     
     /**
@@ -62,7 +70,13 @@ public class WeeklyProgressService {
         progress.setCaloriesAverage(request.getCaloriesAverage());
         
         // Save to database
-        progress = weeklyProgressRepository.save(progress);
+        progress = weeklyProgressRepository.saveAndFlush(progress);
+        
+        // Side effects run after commit via the outbox: weekly weigh-ins feed the weight trend
+        // when there is no daily weight that day, and logging progress earns XP
+        outboxService.publish(OutboxEventType.WEEKLY_PROGRESS_SAVED, user.getId(),
+                Map.of("weekStartDate", progress.getWeekStartDate().toString()));
+        outboxService.publishGamificationEvent(user, EventType.WEEKLY_PROGRESS, progress.getId().toString());
         
         // Convert to response DTO
         return convertToResponse(progress);
@@ -71,27 +85,49 @@ public class WeeklyProgressService {
     /**
      * Gets recent weekly progress entries for a user.
      * 
-     * @param user The user
+     * @param userId The user ID
      * @param lastNWeeks Number of weeks to retrieve (default: 8)
      * @return List of weekly progress responses, ordered by week start date descending
      */
-    public List<WeeklyProgressResponse> getRecentProgressForUser(User user, int lastNWeeks) {
+    public List<WeeklyProgressResponse> getRecentProgressForUser(Long userId, int lastNWeeks) {
         // Ensure lastNWeeks is reasonable (between 1 and 52)
         int weeks = Math.max(1, Math.min(52, lastNWeeks));
         
-        // Get recent entries
+        // Get recent entries (limited in SQL)
         List<WeeklyProgress> progressList = weeklyProgressRepository
-                .findByUserOrderByWeekStartDateDesc(user);
+                .findByUserIdOrderByWeekStartDateDesc(userId, PageRequest.of(0, weeks));
         
-        // Limit to lastNWeeks
-        List<WeeklyProgress> limitedList = progressList.stream()
-                .limit(weeks)
+        // Convert to response DTOs
+        return progressList.stream()
+                .map(this::convertToResponse)
                 .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets one page of a user's weekly progress history using keyset pagination on (user_id, week_start_date).
+     * 
+     * @param userId The user ID
+     * @param before Only weeks starting before this date; null for the most recent page
+     * @param limit Page size (between 1 and 52)
+     * @return Page of weekly progress entries, ordered by week start date descending, with the cursor for the next page
+     */
+    public HistoryPageResponse<WeeklyProgressResponse> getProgressHistory(Long userId, LocalDate before, int limit) {
+        int size = Math.max(1, Math.min(52, limit));
         
-        // Convert to response DTOs
-        return limitedList.stream()
+        // Fetch one extra row to know whether an older page exists
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<WeeklyProgress> progressList = before == null
+                ? weeklyProgressRepository.findByUserIdOrderByWeekStartDateDesc(userId, page)
+                : weeklyProgressRepository.findByUserIdAndWeekStartDateBeforeOrderByWeekStartDateDesc(userId, before, page);
+        
+        boolean hasMore = progressList.size() > size;
+        List<WeeklyProgress> pageItems = hasMore ? progressList.subList(0, size) : progressList;
+        LocalDate nextBefore = hasMore ? pageItems.get(pageItems.size() - 1).getWeekStartDate() : null;
+        
+        List<WeeklyProgressResponse> items = pageItems.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
+        return new HistoryPageResponse<>(items, nextBefore, hasMore);
     }
     
     /**
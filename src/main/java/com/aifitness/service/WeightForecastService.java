@@ -0,0 +1,352 @@
+package com.aifitness.service;
+
+import com.aifitness.dto.WeightForecastResponse;
+import com.aifitness.entity.DailyCheckIn;
+import com.aifitness.entity.User;
+import com.aifitness.entity.UserTrendState;
+import com.aifitness.entity.WeeklyProgress;
+import com.aifitness.entity.WeightForecastModel;
+import com.aifitness.repository.DailyCheckInRepository;
+import com.aifitness.repository.UserRepository;
+import com.aifitness.repository.UserTrendStateRepository;
+import com.aifitness.repository.WeeklyProgressRepository;
+import com.aifitness.repository.WeightForecastModelRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Weight Forecast Service
+ *
+ * Fits and caches one damped-trend weight model per user (weight_forecast_models) and serves
+ * forecasts from it. Serving reads two rows (the model and the trend state) and costs O(days
+ * forecast), however long the user's history is.
+ *
+ * Model inputs:
+ * - Weights of the last FIT_WINDOW_DAYS days; a weekly progress weight fills its week start
+ *   date when there is no check-in weight that day (same rule as CheckInTrendService)
+ * - Energy balance: average logged calories from weekly progress (last 4 weeks) minus the TDEE
+ *   from NutritionService, at KCAL_PER_KG kcal per kg
+ *
+ * A model is refitted only when it is stale: the user's trend state changed after the fit
+ * (a check-in or weekly weight arrived), or the model is older than MAX_MODEL_AGE_DAYS, which
+ * picks up profile (TDEE) changes. Stale models are refitted on read for that user, and the
+ * refit job keeps them fresh in bulk so reads rarely have to.
+ *
+ * The refit job loads users in chunks (forecast.refit.chunk-size) inside a transaction, fits
+ * the chunk on a fork-join pool (forecast.refit.parallelism, default CPU count) outside any
+ * transaction, and saves the chunk in a second transaction.
+ */
+@Service
+public class WeightForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeightForecastService.class);
+
+    public static final int MAX_FORECAST_DAYS = 90;
+
+    private static final int FIT_WINDOW_DAYS = 120;
+    private static final int MIN_OBSERVATIONS = 10;
+    private static final int MAX_MODEL_AGE_DAYS = 7;
+    private static final int CALORIE_WINDOW_DAYS = 28;
+    private static final double KCAL_PER_KG = 7700.0;
+
+    /**
+     * Users fitted sequentially by one fork-join leaf task
+     */
+    private static final int USERS_PER_TASK = 16;
+
+    private final WeightForecastModelRepository modelRepository;
+    private final UserTrendStateRepository trendStateRepository;
+    private final DailyCheckInRepository dailyCheckInRepository;
+    private final WeeklyProgressRepository weeklyProgressRepository;
+    private final UserRepository userRepository;
+    private final NutritionService nutritionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool fitPool;
+    private final int chunkSize;
+
+    /**
+     * Weights and energy balance of one user, ready to fit
+     */
+    private record FitInput(Long userId, LocalDate[] dates, double[] weights, Double energyBalanceRate) {
+    }
+
+    @Autowired
+    public WeightForecastService(WeightForecastModelRepository modelRepository,
+                                 UserTrendStateRepository trendStateRepository,
+                                 DailyCheckInRepository dailyCheckInRepository,
+                                 WeeklyProgressRepository weeklyProgressRepository,
+                                 UserRepository userRepository,
+                                 NutritionService nutritionService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${forecast.refit.parallelism:0}") int parallelism,
+                                 @Value("${forecast.refit.chunk-size:500}") int chunkSize) {
+        this.modelRepository = modelRepository;
+        this.trendStateRepository = trendStateRepository;
+        this.dailyCheckInRepository = dailyCheckInRepository;
+        this.weeklyProgressRepository = weeklyProgressRepository;
+        this.userRepository = userRepository;
+        this.nutritionService = nutritionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fitPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Forecasts a user's weight for the days after a date.
+     *
+     * @param userId The user ID
+     * @param from Forecast starts the day after this date (usually today)
+     * @param days Number of days (between 1 and MAX_FORECAST_DAYS)
+     * @return Forecast with 80% and 95% bands, or INSUFFICIENT_DATA without a fitted model
+     */
+    public WeightForecastResponse getForecast(Long userId, LocalDate from, int days) {
+        int horizon = Math.max(1, Math.min(MAX_FORECAST_DAYS, days));
+        WeightForecastModel model = getModel(userId);
+
+        WeightForecastResponse response = new WeightForecastResponse();
+        response.setFittedAt(model.getFittedAt());
+        response.setLastWeightDate(model.getLastWeightDate());
+        if (!model.isFitted()) {
+            response.setStatus(WeightForecastResponse.STATUS_INSUFFICIENT_DATA);
+            return response;
+        }
+
+        DampedTrendFitter.Fit fit = new DampedTrendFitter.Fit(model.getAlpha(), model.getBeta(), model.getPhi(),
+                model.getLevel(), model.getTrend(), model.getSigma());
+        response.setStatus(WeightForecastResponse.STATUS_FORECAST);
+        response.setSmoothedWeight(round(model.getLevel()));
+        response.setTrendPerWeek(round(model.getTrend() * 7));
+        response.setEnergyBalancePerWeek(model.getEnergyBalanceRate() != null
+                ? round(model.getEnergyBalanceRate() * 7) : null);
+        for (DampedTrendFitter.Point point : DampedTrendFitter.forecast(fit, model.getEnergyBalanceRate(),
+                model.getLastWeightDate(), from, horizon)) {
+            response.getPoints().add(new WeightForecastResponse.ForecastPoint(point.date(),
+                    round(point.expected()), round(point.lower80()), round(point.upper80()),
+                    round(point.lower95()), round(point.upper95())));
+        }
+        return response;
+    }
+
+    /**
+     * Gets the user's cached model, refitting it first if it is missing or stale.
+     *
+     * Two concurrent first reads both fit a new model; the second insert violates the unique
+     * user_id constraint, and that read returns the model the first one stored.
+     */
+    public WeightForecastModel getModel(Long userId) {
+        WeightForecastModel model = modelRepository.findByUserId(userId).orElse(null);
+        UserTrendState state = trendStateRepository.findByUserId(userId).orElse(null);
+        if (model != null && !isStale(model, state)) {
+            return model;
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                List<FitInput> inputs = loadInputs(List.of(userId));
+                return saveModels(inputs, fitAll(inputs)).get(0);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return modelRepository.findByUserId(userId).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Refits every stale model, one chunk of users at a time, fitting each chunk in parallel.
+     */
+    @Scheduled(cron = "${forecast.refit.cron:0 30 3 * * *}")
+    public void refitStaleModels() {
+        long started = System.currentTimeMillis();
+        LocalDateTime staleBefore = LocalDateTime.now().minusDays(MAX_MODEL_AGE_DAYS);
+        long afterUserId = 0;
+        int refitted = 0;
+        int failedChunks = 0;
+
+        while (true) {
+            List<Long> userIds = modelRepository.findUserIdsNeedingRefit(afterUserId, staleBefore, chunkSize);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            afterUserId = userIds.get(userIds.size() - 1);
+            try {
+                List<FitInput> inputs = transactionTemplate.execute(status -> loadInputs(userIds));
+                Map<Long, DampedTrendFitter.Fit> fits = fitAll(inputs);
+                transactionTemplate.execute(status -> saveModels(inputs, fits));
+                refitted += userIds.size();
+            } catch (RuntimeException e) {
+                // Skip the chunk; its users stay stale and are picked up by the next run or on read
+                failedChunks++;
+                logger.error("Forecast refit failed for users {}..{}: {}",
+                        userIds.get(0), afterUserId, e.getMessage(), e);
+            }
+        }
+        logger.info("Forecast refit: {} models in {} ms ({} chunks failed, parallelism {})",
+                refitted, System.currentTimeMillis() - started, failedChunks, fitPool.getParallelism());
+    }
+
+    private boolean isStale(WeightForecastModel model, UserTrendState state) {
+        if (model.getFittedAt().isBefore(LocalDateTime.now().minusDays(MAX_MODEL_AGE_DAYS))) {
+            return true;
+        }
+        return state != null && state.getUpdatedAt() != null && state.getUpdatedAt().isAfter(model.getFittedAt());
+    }
+
+    /**
+     * Loads the weights and energy balance of a chunk of users with three queries.
+     */
+    private List<FitInput> loadInputs(List<Long> userIds) {
+        LocalDate today = LocalDate.now();
+        LocalDate fitFrom = today.minusDays(FIT_WINDOW_DAYS);
+        LocalDate caloriesFrom = today.minusDays(CALORIE_WINDOW_DAYS);
+
+        Map<Long, TreeMap<LocalDate, Double>> weightsByUser = new HashMap<>();
+        Map<Long, List<Double>> caloriesByUser = new HashMap<>();
+        for (WeeklyProgress progress : weeklyProgressRepository
+                .findByUserIdInAndWeekStartDateGreaterThanEqual(userIds, fitFrom)) {
+            Long userId = progress.getUser().getId();
+            if (progress.getWeight() != null) {
+                weightsByUser.computeIfAbsent(userId, id -> new TreeMap<>())
+                        .put(progress.getWeekStartDate(), progress.getWeight());
+            }
+            if (progress.getCaloriesAverage() != null && !progress.getWeekStartDate().isBefore(caloriesFrom)) {
+                caloriesByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(progress.getCaloriesAverage());
+            }
+        }
+        // Check-in weights replace weekly weights on the same day
+        for (DailyCheckIn checkIn : dailyCheckInRepository
+                .findByUserIdInAndWeightIsNotNullAndDateGreaterThanEqual(userIds, fitFrom)) {
+            weightsByUser.computeIfAbsent(checkIn.getUser().getId(), id -> new TreeMap<>())
+                    .put(checkIn.getDate(), checkIn.getWeight());
+        }
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<FitInput> inputs = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            TreeMap<LocalDate, Double> weights = weightsByUser.getOrDefault(userId, new TreeMap<>());
+            LocalDate[] dates = weights.keySet().toArray(new LocalDate[0]);
+            double[] values = weights.values().stream().mapToDouble(Double::doubleValue).toArray();
+            inputs.add(new FitInput(userId, dates, values,
+                    energyBalanceRate(users.get(userId), caloriesByUser.get(userId))));
+        }
+        return inputs;
+    }
+
+    /**
+     * @return (average logged calories - TDEE) / KCAL_PER_KG in kg/day, or null if either is unknown
+     */
+    private Double energyBalanceRate(User user, List<Double> calories) {
+        if (user == null || calories == null || calories.isEmpty() || !user.hasCompleteProfile()) {
+            return null;
+        }
+        double bmr = nutritionService.calculateBMR(user.getWeight(), user.getHeight(), user.getAge(), user.getSex());
+        double tdee = nutritionService.calculateTDEE(bmr, user.getActivityLevel());
+        double averageCalories = calories.stream().mapToDouble(Double::doubleValue).average().orElse(tdee);
+        return (averageCalories - tdee) / KCAL_PER_KG;
+    }
+
+    /**
+     * Fits every input on the fork-join pool. Users without enough weights get no entry.
+     */
+    private Map<Long, DampedTrendFitter.Fit> fitAll(List<FitInput> inputs) {
+        if (inputs.size() <= USERS_PER_TASK) {
+            return new FitTask(inputs, 0, inputs.size()).compute();
+        }
+        return fitPool.invoke(new FitTask(inputs, 0, inputs.size()));
+    }
+
+    /**
+     * Splits the inputs in halves until a range is small enough to fit sequentially.
+     */
+    private static final class FitTask extends RecursiveTask<Map<Long, DampedTrendFitter.Fit>> {
+
+        private final List<FitInput> inputs;
+        private final int from;
+        private final int to;
+
+        FitTask(List<FitInput> inputs, int from, int to) {
+            this.inputs = inputs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, DampedTrendFitter.Fit> compute() {
+            if (to - from <= USERS_PER_TASK) {
+                Map<Long, DampedTrendFitter.Fit> fits = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    FitInput input = inputs.get(i);
+                    if (input.weights().length >= MIN_OBSERVATIONS) {
+                        DampedTrendFitter.Fit fit = DampedTrendFitter.fit(input.dates(), input.weights());
+                        if (fit != null) {
+                            fits.put(input.userId(), fit);
+                        }
+                    }
+                }
+                return fits;
+            }
+            int middle = (from + to) >>> 1;
+            FitTask left = new FitTask(inputs, from, middle);
+            left.fork();
+            Map<Long, DampedTrendFitter.Fit> fits = new FitTask(inputs, middle, to).compute();
+            fits.putAll(left.join());
+            return fits;
+        }
+    }
+
+    private List<WeightForecastModel> saveModels(List<FitInput> inputs, Map<Long, DampedTrendFitter.Fit> fits) {
+        Map<Long, WeightForecastModel> existing = modelRepository
+                .findByUserIdIn(inputs.stream().map(FitInput::userId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(model -> model.getUser().getId(), Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+
+        List<WeightForecastModel> models = new ArrayList<>(inputs.size());
+        for (FitInput input : inputs) {
+            WeightForecastModel model = existing.get(input.userId());
+            if (model == null) {
+                model = new WeightForecastModel(userRepository.getReferenceById(input.userId()));
+            }
+            DampedTrendFitter.Fit fit = fits.get(input.userId());
+            model.setObservations(input.weights().length);
+            model.setLastWeightDate(input.dates().length > 0 ? input.dates()[input.dates().length - 1] : null);
+            model.setAlpha(fit != null ? fit.alpha() : null);
+            model.setBeta(fit != null ? fit.beta() : null);
+            model.setPhi(fit != null ? fit.phi() : null);
+            model.setLevel(fit != null ? fit.level() : null);
+            model.setTrend(fit != null ? fit.trend() : null);
+            model.setSigma(fit != null ? fit.sigma() : null);
+            model.setEnergyBalanceRate(input.energyBalanceRate());
+            model.setFittedAt(now);
+            models.add(model);
+        }
+        return modelRepository.saveAll(models);
+    }
+
+    private static Double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fitPool.shutdownNow();
+    }
+}
@@ -0,0 +1,175 @@
+package com.aifitness.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * XP Leaderboard
+ *
+ * In-memory order-statistic index of users by XP:
+ * - a Fenwick tree over XP values counts users per XP, so the rank of a user
+ *   (1 + users with more XP) is a prefix sum in O(log maxXp)
+ * - a sorted set ordered by XP descending, then user ID, yields the top K in O(log n + K)
+ *
+ * Users with no XP are not on the board. Ranks are competition ranks: users with the
+ * same XP share a rank. Reads share a read lock, so they run concurrently; XP changes take
+ * the write lock and cost O(log n). The tree doubles when a user passes its largest XP.
+ */
+final class XpLeaderboard {
+
+    private static final int INITIAL_MAX_XP = 1024;
+
+    private static final Comparator<Standing> ORDER =
+            Comparator.comparingLong(Standing::xp).reversed().thenComparingLong(Standing::userId);
+
+    /**
+     * A user's place on the board; rank is 0 in the sorted set and filled in on reads
+     */
+    record Standing(long userId, long xp, long rank) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Long> xpByUser = new HashMap<>();
+    private final TreeSet<Standing> byXp = new TreeSet<>(ORDER);
+    private long[] tree = new long[INITIAL_MAX_XP + 1];
+
+    /**
+     * Adds XP to a user.
+     *
+     * @param userId The user ID
+     * @param xp XP to add (positive)
+     */
+    void add(long userId, long xp) {
+        if (xp <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Long previous = xpByUser.remove(userId);
+            long total = (previous != null ? previous : 0) + xp;
+            if (previous != null) {
+                byXp.remove(new Standing(userId, previous, 0));
+                update(previous, -1);
+            }
+            ensureCapacity(total);
+            xpByUser.put(userId, total);
+            byXp.add(new Standing(userId, total, 0));
+            update(total, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a user's standing.
+     *
+     * @param userId The user ID
+     * @return The standing, or null if the user has no XP on this board
+     */
+    Standing standingOf(long userId) {
+        lock.readLock().lock();
+        try {
+            Long xp = xpByUser.get(userId);
+            return xp != null ? new Standing(userId, xp, rankOf(xp)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the top users, best first.
+     *
+     * @param limit Maximum number of users
+     * @return Up to limit standings
+     */
+    List<Standing> top(int limit) {
+        lock.readLock().lock();
+        try {
+            List<Standing> top = new ArrayList<>(Math.min(limit, byXp.size()));
+            Iterator<Standing> it = byXp.iterator();
+            long rank = 0;
+            long previousXp = -1;
+            for (int position = 1; position <= limit && it.hasNext(); position++) {
+                Standing standing = it.next();
+                if (standing.xp() != previousXp) {
+                    rank = position;
+                    previousXp = standing.xp();
+                }
+                top.add(new Standing(standing.userId(), standing.xp(), rank));
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of users on the board
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return xpByUser.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 1 + number of users with more XP; caller holds a lock
+     */
+    private long rankOf(long xp) {
+        return 1 + xpByUser.size() - prefixCount(xp);
+    }
+
+    /**
+     * Number of users with at most the given XP
+     */
+    private long prefixCount(long xp) {
+        long count = 0;
+        for (int i = (int) Math.min(xp, tree.length - 1); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private void update(long xp, long delta) {
+        for (int i = (int) xp; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Doubles the tree until it covers the XP value, rebuilding it from the users in O(n)
+     */
+    private void ensureCapacity(long xp) {
+        if (xp < tree.length) {
+            return;
+        }
+        int size = tree.length - 1;
+        while (size < xp) {
+            if (size > Integer.MAX_VALUE / 2) {
+                throw new IllegalStateException("XP out of leaderboard range: " + xp);
+            }
+            size *= 2;
+        }
+        long[] grown = new long[size + 1];
+        for (long userXp : xpByUser.values()) {
+            grown[(int) userXp]++;
+        }
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                grown[parent] += grown[i];
+            }
+        }
+        tree = grown;
+    }
+}
@@ -0,0 +1,223 @@
+package com.aifitness.util;
+
+/**
+ * Dangerous Input Scanner
+ *
+ * Single-pass replacement for the regex checks StringSanitizer used to run one after another.
+ * It reports a match exactly when at least one of these (case-insensitive, ASCII only) would be found:
+ * - SQL:      ;\s*(drop|truncate)\s+table   ;\s*delete\s+from   --   /*
+ * - XSS:      <\s*&#47;?\s*(script|iframe|object|embed)[^>]*>   javascript:   (onerror|onload|onclick)\s*=
+ * - Command:  ||   &&   `   $(
+ * - Encoding: %3C   %3E   &#x   \x followed by two hex digits
+ *
+ * Each position is dispatched on its first character and checked against fixed-length keywords.
+ * The only variable-length steps are whitespace runs, and every run directly follows a single
+ * trigger (";", "<", "/" or a keyword), so it is read at most once per trigger. Together with the
+ * precomputed position of the last '>' this keeps the scan linear in the input length with no
+ * backtracking and no allocation.
+ */
+final class DangerousInputScanner {
+
+    private DangerousInputScanner() {
+    }
+
+    /**
+     * @param input Text to scan
+     * @return true if the input contains a dangerous pattern
+     */
+    static boolean containsDangerousContent(CharSequence input) {
+        int length = input.length();
+        int lastGreaterThan = lastIndexOf(input, '>');
+
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            switch (c) {
+                case ';':
+                    if (matchesSqlStatement(input, i + 1)) {
+                        return true;
+                    }
+                    break;
+                case '-':
+                    if (charAt(input, i + 1) == '-') {
+                        return true;
+                    }
+                    break;
+                case '/':
+                    if (charAt(input, i + 1) == '*') {
+                        return true;
+                    }
+                    break;
+                case '<':
+                    if (matchesDangerousTag(input, i + 1, lastGreaterThan)) {
+                        return true;
+                    }
+                    break;
+                case '|':
+                    if (charAt(input, i + 1) == '|') {
+                        return true;
+                    }
+                    break;
+                case '&': {
+                    char next = charAt(input, i + 1);
+                    if (next == '&' || (next == '#' && lower(charAt(input, i + 2)) == 'x')) {
+                        return true;
+                    }
+                    break;
+                }
+                case '`':
+                    return true;
+                case '$':
+                    if (charAt(input, i + 1) == '(') {
+                        return true;
+                    }
+                    break;
+                case '%':
+                    if (charAt(input, i + 1) == '3') {
+                        char next = lower(charAt(input, i + 2));
+                        if (next == 'c' || next == 'e') {
+                            return true;
+                        }
+                    }
+                    break;
+                case '\\':
+                    if (lower(charAt(input, i + 1)) == 'x'
+                            && isHexDigit(charAt(input, i + 2))
+                            && isHexDigit(charAt(input, i + 3))) {
+                        return true;
+                    }
+                    break;
+                case 'j':
+                case 'J':
+                    if (keywordAt(input, i, "javascript:")) {
+                        return true;
+                    }
+                    break;
+                case 'o':
+                case 'O':
+                    if (matchesEventHandler(input, i)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * After ';': \s*(drop|truncate)\s+table or \s*delete\s+from
+     */
+    private static boolean matchesSqlStatement(CharSequence input, int from) {
+        int i = skipWhitespace(input, from);
+        if (keywordAt(input, i, "drop")) {
+            return followedByWord(input, i + 4, "table");
+        }
+        if (keywordAt(input, i, "truncate")) {
+            return followedByWord(input, i + 8, "table");
+        }
+        if (keywordAt(input, i, "delete")) {
+            return followedByWord(input, i + 6, "from");
+        }
+        return false;
+    }
+
+    /**
+     * \s+ then the keyword
+     */
+    private static boolean followedByWord(CharSequence input, int from, String keyword) {
+        int i = skipWhitespace(input, from);
+        return i > from && keywordAt(input, i, keyword);
+    }
+
+    /**
+     * After '<': \s*&#47;?\s*(script|iframe|object|embed)[^>]*>
+     * "[^>]*>" only needs some '>' after the tag name, which is true if the last '>' is there.
+     */
+    private static boolean matchesDangerousTag(CharSequence input, int from, int lastGreaterThan) {
+        int i = skipWhitespace(input, from);
+        if (charAt(input, i) == '/') {
+            i = skipWhitespace(input, i + 1);
+        }
+        int nameEnd;
+        if (keywordAt(input, i, "script") || keywordAt(input, i, "iframe") || keywordAt(input, i, "object")) {
+            nameEnd = i + 6;
+        } else if (keywordAt(input, i, "embed")) {
+            nameEnd = i + 5;
+        } else {
+            return false;
+        }
+        return lastGreaterThan >= nameEnd;
+    }
+
+    /**
+     * (onerror|onload|onclick)\s*=
+     */
+    private static boolean matchesEventHandler(CharSequence input, int from) {
+        int nameEnd;
+        if (keywordAt(input, from, "onerror")) {
+            nameEnd = from + 7;
+        } else if (keywordAt(input, from, "onload")) {
+            nameEnd = from + 6;
+        } else if (keywordAt(input, from, "onclick")) {
+            nameEnd = from + 7;
+        } else {
+            return false;
+        }
+        return charAt(input, skipWhitespace(input, nameEnd)) == '=';
+    }
+
+    /**
+     * Case-insensitive (ASCII) comparison of the lower-case keyword at the position
+     */
+    private static boolean keywordAt(CharSequence input, int from, String keyword) {
+        if (from + keyword.length() > input.length()) {
+            return false;
+        }
+        for (int k = 0; k < keyword.length(); k++) {
+            if (lower(input.charAt(from + k)) != keyword.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same whitespace set as regex \s: space, \t, \n, \x0B, \f, \r
+     */
+    private static int skipWhitespace(CharSequence input, int from) {
+        int i = from;
+        while (i < input.length()) {
+            char c = input.charAt(i);
+            if (c != ' ' && (c < '\t' || c > '\r')) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int lastIndexOf(CharSequence input, char target) {
+        for (int i = input.length() - 1; i >= 0; i--) {
+            if (input.charAt(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The char at the index, or 0 past the end
+     */
+    private static char charAt(CharSequence input, int index) {
+        return index < input.length() ? input.charAt(index) : 0;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
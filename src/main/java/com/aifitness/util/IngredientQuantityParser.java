@@ -0,0 +1,223 @@
+package com.aifitness.util;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ingredient Quantity Parser
+ *
+ * Parses free-text ingredient quantities ("200g", "150g cooked", "1/2 cup", "2 large")
+ * into a numeric amount, a canonical unit and an optional qualifier, and formats
+ * aggregated amounts back into display text.
+ *
+ * Canonical units:
+ * - Mass is converted to grams ("g")
+ * - Volume is converted to millilitres ("ml")
+ * - Everything else is a count unit kept in singular form ("slice", "large", "piece")
+ */
+public final class IngredientQuantityParser {
+
+    private static final String GRAMS = "g";
+    private static final String MILLILITRES = "ml";
+    private static final String PIECE = "piece";
+
+    /**
+     * Unit aliases → canonical unit and conversion factor. Plurals are found through
+     * singular() ("tablespoons" → "tablespoon"); only irregular ones are listed.
+     */
+    private static final Map<String, UnitConversion> UNITS = Map.ofEntries(
+        Map.entry("g", new UnitConversion(GRAMS, 1.0)),
+        Map.entry("gram", new UnitConversion(GRAMS, 1.0)),
+        Map.entry("grams", new UnitConversion(GRAMS, 1.0)),
+        Map.entry("kg", new UnitConversion(GRAMS, 1000.0)),
+        Map.entry("mg", new UnitConversion(GRAMS, 0.001)),
+        Map.entry("oz", new UnitConversion(GRAMS, 28.35)),
+        Map.entry("ounce", new UnitConversion(GRAMS, 28.35)),
+        Map.entry("lb", new UnitConversion(GRAMS, 453.6)),
+        Map.entry("lbs", new UnitConversion(GRAMS, 453.6)),
+        Map.entry("pound", new UnitConversion(GRAMS, 453.6)),
+        Map.entry("ml", new UnitConversion(MILLILITRES, 1.0)),
+        Map.entry("l", new UnitConversion(MILLILITRES, 1000.0)),
+        Map.entry("liter", new UnitConversion(MILLILITRES, 1000.0)),
+        Map.entry("litre", new UnitConversion(MILLILITRES, 1000.0)),
+        Map.entry("tsp", new UnitConversion(MILLILITRES, 5.0)),
+        Map.entry("teaspoon", new UnitConversion(MILLILITRES, 5.0)),
+        Map.entry("tbsp", new UnitConversion(MILLILITRES, 15.0)),
+        Map.entry("tablespoon", new UnitConversion(MILLILITRES, 15.0)),
+        Map.entry("cup", new UnitConversion(MILLILITRES, 240.0)),
+        Map.entry("cups", new UnitConversion(MILLILITRES, 240.0))
+    );
+
+    private IngredientQuantityParser() {
+    }
+
+    private static final class UnitConversion {
+        private final String canonicalUnit;
+        private final double factor;
+
+        private UnitConversion(String canonicalUnit, double factor) {
+            this.canonicalUnit = canonicalUnit;
+            this.factor = factor;
+        }
+    }
+
+    /**
+     * Parsed ingredient quantity. Quantity and unit are null when the text has no leading number.
+     */
+    public static final class ParsedQuantity {
+        private final Double quantity;
+        private final String unit;
+        private final String qualifier;
+
+        private ParsedQuantity(Double quantity, String unit, String qualifier) {
+            this.quantity = quantity;
+            this.unit = unit;
+            this.qualifier = qualifier;
+        }
+
+        public Double getQuantity() {
+            return quantity;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public String getQualifier() {
+            return qualifier;
+        }
+    }
+
+    /**
+     * Parses a quantity text such as "150g cooked" into (150.0, "g", "cooked").
+     *
+     * @param quantityText The raw quantity text (may be null)
+     * @return Parsed quantity; quantity and unit are null if the text is not numeric
+     */
+    public static ParsedQuantity parse(String quantityText) {
+        if (quantityText == null || quantityText.isBlank()) {
+            return new ParsedQuantity(null, null, null);
+        }
+        String text = quantityText.trim().toLowerCase(Locale.ROOT);
+        int length = text.length();
+
+        // Leading amount: integer, decimal, fraction ("1/2") or mixed number ("1 1/2")
+        int pos = 0;
+        double amount = 0;
+        boolean hasAmount = false;
+        while (pos < length) {
+            int start = pos;
+            while (pos < length && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos == start) {
+                break;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                return new ParsedQuantity(null, null, quantityText.trim());
+            }
+            if (pos < length && text.charAt(pos) == '/') {
+                int denominatorStart = ++pos;
+                while (pos < length && Character.isDigit(text.charAt(pos))) {
+                    pos++;
+                }
+                if (pos == denominatorStart) {
+                    return new ParsedQuantity(null, null, quantityText.trim());
+                }
+                double denominator = Double.parseDouble(text.substring(denominatorStart, pos));
+                value = denominator == 0 ? 0 : value / denominator;
+            }
+            amount += value;
+            hasAmount = true;
+            // Allow one space before the fractional part of a mixed number
+            if (pos + 1 < length && text.charAt(pos) == ' ' && Character.isDigit(text.charAt(pos + 1))) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (!hasAmount) {
+            return new ParsedQuantity(null, null, quantityText.trim());
+        }
+
+        while (pos < length && text.charAt(pos) == ' ') {
+            pos++;
+        }
+        int unitStart = pos;
+        while (pos < length && Character.isLetter(text.charAt(pos))) {
+            pos++;
+        }
+        String unitToken = text.substring(unitStart, pos);
+        String qualifier = text.substring(pos).trim();
+
+        if (unitToken.isEmpty()) {
+            return new ParsedQuantity(amount, PIECE, emptyToNull(qualifier));
+        }
+        UnitConversion conversion = UNITS.get(unitToken);
+        if (conversion == null) {
+            conversion = UNITS.get(singular(unitToken));
+        }
+        if (conversion != null) {
+            return new ParsedQuantity(amount * conversion.factor, conversion.canonicalUnit, emptyToNull(qualifier));
+        }
+        return new ParsedQuantity(amount, singular(unitToken), emptyToNull(qualifier));
+    }
+
+    /**
+     * Formats an aggregated amount in a canonical unit, e.g. (1250, "g", "cooked") → "1.25kg cooked".
+     *
+     * @param quantity Amount in the canonical unit
+     * @param unit Canonical unit
+     * @param qualifier Optional qualifier
+     * @return Display text
+     */
+    public static String format(double quantity, String unit, String qualifier) {
+        String text;
+        if (GRAMS.equals(unit)) {
+            text = quantity >= 1000 ? formatNumber(quantity / 1000) + "kg" : formatNumber(quantity) + GRAMS;
+        } else if (MILLILITRES.equals(unit)) {
+            text = quantity >= 1000 ? formatNumber(quantity / 1000) + "l" : formatNumber(quantity) + MILLILITRES;
+        } else if (unit == null || unit.isEmpty()) {
+            text = formatNumber(quantity);
+        } else {
+            text = formatNumber(quantity) + " " + (quantity > 1 && isCountNoun(unit) ? plural(unit) : unit);
+        }
+        return qualifier == null || qualifier.isEmpty() ? text : text + " " + qualifier;
+    }
+
+    private static String formatNumber(double value) {
+        double rounded = Math.round(value * 100) / 100.0;
+        if (rounded == Math.rint(rounded)) {
+            return Long.toString((long) rounded);
+        }
+        return Double.toString(rounded);
+    }
+
+    private static String singular(String unit) {
+        if (unit.length() > 3 && unit.endsWith("es") && (unit.endsWith("ches") || unit.endsWith("shes"))) {
+            return unit.substring(0, unit.length() - 2);
+        }
+        if (unit.length() > 3 && unit.endsWith("s") && !unit.endsWith("ss")) {
+            return unit.substring(0, unit.length() - 1);
+        }
+        return unit;
+    }
+
+    private static String plural(String unit) {
+        return unit.endsWith("ch") || unit.endsWith("sh") ? unit + "es" : unit + "s";
+    }
+
+    /**
+     * Size words ("large", "medium", "small") read as adjectives and are not pluralized.
+     */
+    private static boolean isCountNoun(String unit) {
+        return !("large".equals(unit) || "medium".equals(unit) || "small".equals(unit));
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
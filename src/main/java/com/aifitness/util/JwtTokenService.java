@@ -1,23 +1,33 @@
 package com.aifitness.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT Token Service
  * 
  * Handles JWT token generation and validation.
  * Uses HS256 algorithm with a secret key for signing tokens.
+ * 
+ * The signing key and parser are built once. Tokens that passed verification are kept in a
+ * bounded cache keyed by the token's SHA-256 hash until they expire, so a client sending the
+ * same token on every request pays for signature verification and claim parsing once.
  */
 @Service
 public class JwtTokenService {
@@ -28,15 +38,26 @@ public class JwtTokenService {
     @Value("${jwt.expiration}")
     private Long expiration; // in milliseconds
     
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    
     /**
-     * Gets the secret key for signing JWT tokens.
+     * Builds the secret key for signing JWT tokens.
      * 
      * SECURITY: The secret key is stored in application.properties.
      * In production, use environment variables or a secure key management service.
      */
-    private SecretKey getSigningKey() {
+    @PostConstruct
+    void initSigningKey() {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
     
     /**
@@ -63,10 +84,54 @@ public class JwtTokenService {
                 .subject(username)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
+    /**
+     * Verifies the token signature and expiry once and returns its claims.
+     * 
+     * @param token The JWT token
+     * @return The verified token, or null if the token is malformed, forged or expired
+     */
+    public VerifiedToken parseAndValidate(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String cacheKey = hash(token);
+        VerifiedToken cached = verifiedTokens.get(cacheKey);
+        if (cached != null) {
+            if (cached.expiresAtMillis > now) {
+                return cached;
+            }
+            verifiedTokens.remove(cacheKey, cached);
+            return null;
+        }
+        
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (Exception e) {
+            return null;
+        }
+        Date expiresAt = claims.getExpiration();
+        if (expiresAt == null || !expiresAt.after(new Date(now))) {
+            return null;
+        }
+        
+        VerifiedToken verified = new VerifiedToken(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("email", String.class),
+                expiresAt.getTime());
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            evict(now);
+        }
+        verifiedTokens.put(cacheKey, verified);
+        return verified;
+    }
+    
     /**
      * Validates a JWT token.
      * 
@@ -74,73 +139,98 @@ public class JwtTokenService {
      * @return true if token is valid, false otherwise
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
+        return parseAndValidate(token) != null;
     }
     
     /**
      * Extracts username from JWT token.
      * 
      * @param token The JWT token
-     * @return The username (subject)
+     * @return The username (subject), or null if the token is invalid
      */
     public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        VerifiedToken verified = parseAndValidate(token);
+        return verified != null ? verified.getUsername() : null;
     }
     
     /**
      * Extracts user ID from JWT token.
      * 
      * @param token The JWT token
-     * @return The user ID
+     * @return The user ID, or null if the token is invalid
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
-        return claims.get("userId", Long.class);
+        VerifiedToken verified = parseAndValidate(token);
+        return verified != null ? verified.getUserId() : null;
     }
     
     /**
      * Extracts expiration date from JWT token.
      * 
      * @param token The JWT token
-     * @return The expiration date
+     * @return The expiration date, or null if the token is invalid
      */
     public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+        VerifiedToken verified = parseAndValidate(token);
+        return verified != null ? new Date(verified.getExpiresAtMillis()) : null;
     }
     
     /**
-     * Extracts a specific claim from the token.
+     * Makes room in the verified-token cache: drops expired tokens first and,
+     * if that is not enough, arbitrary entries until a quarter of the capacity is free.
      */
-    private <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        Claims claims = getAllClaimsFromToken(token);
-        return claimsResolver.apply(claims);
+    private void evict(long now) {
+        verifiedTokens.values().removeIf(verified -> verified.expiresAtMillis <= now);
+        int target = verifiedCacheSize - Math.max(1, verifiedCacheSize / 4);
+        Iterator<String> keys = verifiedTokens.keySet().iterator();
+        while (verifiedTokens.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
     }
     
     /**
-     * Extracts all claims from the token.
+     * SHA-256 of the token, so raw bearer tokens are never kept in memory as map keys.
      */
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
     
     /**
-     * Checks if the token is expired.
+     * Immutable claims of a token that passed signature and expiry checks.
      */
-    private Boolean isTokenExpired(String token) {
-        Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    public static final class VerifiedToken {
+        private final Long userId;
+        private final String username;
+        private final String email;
+        private final long expiresAtMillis;
+        
+        private VerifiedToken(Long userId, String username, String email, long expiresAtMillis) {
+            this.userId = userId;
+            this.username = username;
+            this.email = email;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+        
+        public Long getUserId() {
+            return userId;
+        }
+        
+        public String getUsername() {
+            return username;
+        }
+        
+        public String getEmail() {
+            return email;
+        }
+        
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
     }
 }
-
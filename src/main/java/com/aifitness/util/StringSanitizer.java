@@ -1,7 +1,5 @@
 package com.aifitness.util;
 
-import java.util.regex.Pattern;
-
 /**
  * String Sanitization Utility
  * 
@@ -14,26 +12,12 @@ import java.util.regex.Pattern;
  * - Rejects SQL injection patterns
  * - Rejects XSS patterns
  * - Rejects command injection patterns
+ * 
+ * Dangerous patterns are detected by {@link DangerousInputScanner} in a single linear pass,
+ * so long crafted inputs cannot trigger regex backtracking.
  */
 public class StringSanitizer {
     
-    // Guard rails for obviously malicious payloads while still allowing rich text feedback.
-    private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile(
-        "(?i)(;\\s*(drop|truncate)\\s+table|;\\s*delete\\s+from|--|/\\*)"
-    );
-    
-    private static final Pattern XSS_PATTERN = Pattern.compile(
-        "(?i)(<\\s*/?\\s*(script|iframe|object|embed)[^>]*>|javascript:|onerror\\s*=|onload\\s*=|onclick\\s*=)"
-    );
-    
-    private static final Pattern COMMAND_INJECTION_PATTERN = Pattern.compile(
-        "(?i)((\\|\\|)|(\\&\\&)|(`)|\\$\\()"
-    );
-    
-    private static final Pattern ENCODING_PATTERN = Pattern.compile(
-        "(?i)(%3C|%3E|&#x)|\\\\x[0-9a-f]{2}"
-    );
-    
     /**
      * Sanitizes a string by:
      * - Trimming whitespace
@@ -51,10 +35,37 @@ public class StringSanitizer {
         // Trim whitespace
         String sanitized = input.trim();
         
-        // Remove control characters (except newline, tab, carriage return)
-        sanitized = sanitized.replaceAll("[\\x00-\\x08\\x0B\\x0C\\x0E-\\x1F\\x7F]", "");
-        
-        return sanitized;
+        // Remove control characters (except newline, tab, carriage return);
+        // only allocate when there is something to remove
+        int firstControl = indexOfControlCharacter(sanitized, 0);
+        if (firstControl < 0) {
+            return sanitized;
+        }
+        StringBuilder cleaned = new StringBuilder(sanitized.length());
+        cleaned.append(sanitized, 0, firstControl);
+        for (int i = firstControl + 1; i < sanitized.length(); i++) {
+            char c = sanitized.charAt(i);
+            if (!isRemovedControlCharacter(c)) {
+                cleaned.append(c);
+            }
+        }
+        return cleaned.toString();
+    }
+    
+    private static int indexOfControlCharacter(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            if (isRemovedControlCharacter(value.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Control characters removed by sanitize: \x00-\x08, \x0B, \x0C, \x0E-\x1F and \x7F
+     */
+    private static boolean isRemovedControlCharacter(char c) {
+        return (c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0x7F;
     }
     
     /**
@@ -84,19 +95,7 @@ public class StringSanitizer {
         String sanitized = sanitize(input);
         
         // Check for dangerous patterns
-        if (SQL_INJECTION_PATTERN.matcher(sanitized).find()) {
-            throw new IllegalArgumentException("Input contains potentially dangerous content");
-        }
-        
-        if (XSS_PATTERN.matcher(sanitized).find()) {
-            throw new IllegalArgumentException("Input contains potentially dangerous content");
-        }
-        
-        if (COMMAND_INJECTION_PATTERN.matcher(sanitized).find()) {
-            throw new IllegalArgumentException("Input contains potentially dangerous content");
-        }
-        
-        if (ENCODING_PATTERN.matcher(sanitized).find()) {
+        if (DangerousInputScanner.containsDangerousContent(sanitized)) {
             throw new IllegalArgumentException("Input contains potentially dangerous content");
         }
         
@@ -115,19 +114,7 @@ public class StringSanitizer {
             return;
         }
         
-        if (SQL_INJECTION_PATTERN.matcher(input).find()) {
-            throw new IllegalArgumentException("Input contains potentially dangerous content");
-        }
-        
-        if (XSS_PATTERN.matcher(input).find()) {
-            throw new IllegalArgumentException("Input contains potentially dangerous content");
-        }
-        
-        if (COMMAND_INJECTION_PATTERN.matcher(input).find()) {
-            throw new IllegalArgumentException("Input contains potentially dangerous content");
-        }
-        
-        if (ENCODING_PATTERN.matcher(input).find()) {
+        if (DangerousInputScanner.containsDangerousContent(input)) {
             throw new IllegalArgumentException("Input contains potentially dangerous content");
         }
     }
@@ -0,0 +1,7 @@
+-- Migration: Add precomputed plan document to meal_plans
+-- Version: 19
+-- Description: Stores the fully rendered meal plan response (JSON bytes) and its strong ETag
+-- so reads can serve the document without re-deriving it from the entries
+
+ALTER TABLE meal_plans ADD COLUMN IF NOT EXISTS plan_document BYTEA;
+ALTER TABLE meal_plans ADD COLUMN IF NOT EXISTS plan_document_etag VARCHAR(64);
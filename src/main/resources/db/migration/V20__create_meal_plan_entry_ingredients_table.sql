@@ -0,0 +1,19 @@
+-- Migration: Create meal_plan_entry_ingredients table
+-- Version: 20
+-- Description: Normalizes meal plan entry ingredients into rows with a parsed quantity
+-- and canonical unit so grocery lists can be aggregated with a single GROUP BY
+
+CREATE TABLE IF NOT EXISTS meal_plan_entry_ingredients (
+    id BIGSERIAL PRIMARY KEY,
+    entry_id BIGINT NOT NULL,
+    name VARCHAR(200) NOT NULL,
+    normalized_name VARCHAR(200) NOT NULL,
+    quantity DOUBLE PRECISION,
+    unit VARCHAR(20),
+    qualifier VARCHAR(50),
+    quantity_text VARCHAR(100),
+    CONSTRAINT fk_meal_plan_entry_ingredients_entry FOREIGN KEY (entry_id) REFERENCES meal_plan_entries(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_meal_plan_entry_ingredients_entry
+    ON meal_plan_entry_ingredients (entry_id);
@@ -0,0 +1,59 @@
+-- Migration: Create daily_checkin_rollups table
+-- Version: 21
+-- Description: Per-user ISO week and calendar month aggregates of daily check-ins, so coach
+-- and progress screens read one row per period instead of one row per day. Rows are refreshed
+-- whenever a check-in in the period is saved; existing check-ins are backfilled below.
+
+CREATE TABLE IF NOT EXISTS daily_checkin_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    period_type VARCHAR(10) NOT NULL,
+    period_start DATE NOT NULL,
+    days_logged INTEGER NOT NULL DEFAULT 0,
+    workout_count INTEGER NOT NULL DEFAULT 0,
+    steps_total BIGINT NOT NULL DEFAULT 0,
+    steps_days INTEGER NOT NULL DEFAULT 0,
+    weight_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    weight_days INTEGER NOT NULL DEFAULT 0,
+    weight_min DOUBLE PRECISION,
+    weight_max DOUBLE PRECISION,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_daily_checkin_rollups_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT uq_daily_checkin_rollups_period UNIQUE (user_id, period_type, period_start)
+);
+
+-- Backfill: ISO weeks (date_trunc('week') starts on Monday)
+INSERT INTO daily_checkin_rollups (user_id, period_type, period_start, days_logged, workout_count,
+                                   steps_total, steps_days, weight_sum, weight_days, weight_min, weight_max)
+SELECT user_id,
+       'WEEK',
+       CAST(date_trunc('week', date) AS DATE),
+       COUNT(*),
+       COUNT(*) FILTER (WHERE workout_done),
+       COALESCE(SUM(steps), 0),
+       COUNT(steps),
+       COALESCE(SUM(weight), 0),
+       COUNT(weight),
+       MIN(weight),
+       MAX(weight)
+FROM daily_checkins
+GROUP BY user_id, CAST(date_trunc('week', date) AS DATE)
+ON CONFLICT (user_id, period_type, period_start) DO NOTHING;
+
+-- Backfill: calendar months
+INSERT INTO daily_checkin_rollups (user_id, period_type, period_start, days_logged, workout_count,
+                                   steps_total, steps_days, weight_sum, weight_days, weight_min, weight_max)
+SELECT user_id,
+       'MONTH',
+       CAST(date_trunc('month', date) AS DATE),
+       COUNT(*),
+       COUNT(*) FILTER (WHERE workout_done),
+       COALESCE(SUM(steps), 0),
+       COUNT(steps),
+       COALESCE(SUM(weight), 0),
+       COUNT(weight),
+       MIN(weight),
+       MAX(weight)
+FROM daily_checkins
+GROUP BY user_id, CAST(date_trunc('month', date) AS DATE)
+ON CONFLICT (user_id, period_type, period_start) DO NOTHING;
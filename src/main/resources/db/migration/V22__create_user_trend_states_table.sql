@@ -0,0 +1,33 @@
+-- Migration: Create user_trend_states table
+-- Version: 22
+-- Description: One row per user with the running state of the insights trend engine: weight
+-- EWMA, exponentially weighted regression sums, the CUSUM change-point statistic and day
+-- bitmasks for the rolling adherence windows. The row is updated in O(1) when a check-in or
+-- weekly progress entry is saved, so insight reads never rescan history. Rows for existing
+-- users are built from their recent history the first time their insights are read.
+
+CREATE TABLE IF NOT EXISTS user_trend_states (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    last_checkin_date DATE,
+    logged_mask BIGINT NOT NULL DEFAULT 0,
+    workout_mask BIGINT NOT NULL DEFAULT 0,
+    step_goal_mask BIGINT NOT NULL DEFAULT 0,
+    first_weight_date DATE,
+    last_weight_date DATE,
+    last_weight DOUBLE PRECISION,
+    weight_count INTEGER NOT NULL DEFAULT 0,
+    weight_ewma DOUBLE PRECISION,
+    reg_weight_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    reg_x_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    reg_y_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    reg_xx_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    reg_xy_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    cusum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    baseline_rate DOUBLE PRECISION,
+    change_point_date DATE,
+    change_point_ewma DOUBLE PRECISION,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_user_trend_states_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT uq_user_trend_states_user UNIQUE (user_id)
+);
@@ -0,0 +1,23 @@
+-- Migration: Create weight_forecast_models table
+-- Version: 23
+-- Description: Cached per-user weight forecast models: damped-trend parameters and state fitted
+-- to the user's recent weights, plus the energy-balance rate from TDEE and logged calories.
+-- A model is refitted only after the user's trend state changes (or once it is a week old),
+-- either on the first forecast read or by the batch refit job.
+
+CREATE TABLE IF NOT EXISTS weight_forecast_models (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    observations INTEGER NOT NULL DEFAULT 0,
+    last_weight_date DATE,
+    alpha DOUBLE PRECISION,
+    beta DOUBLE PRECISION,
+    phi DOUBLE PRECISION,
+    level DOUBLE PRECISION,
+    trend DOUBLE PRECISION,
+    sigma DOUBLE PRECISION,
+    energy_balance_rate DOUBLE PRECISION,
+    fitted_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_weight_forecast_models_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT uq_weight_forecast_models_user UNIQUE (user_id)
+);
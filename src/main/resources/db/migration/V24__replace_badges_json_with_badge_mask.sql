@@ -0,0 +1,30 @@
+-- Migration: Replace users.badges JSON with a badge bitmask
+-- Version: 24
+-- Description: Badges were stored as a JSON array string that had to be parsed and re-serialized
+-- on every gamification event, status read and coach context. They are now a BIGINT bitmask over
+-- the badge registry (com.aifitness.service.Badge); the bit positions below must match it.
+-- Existing JSON badges are converted, unknown names are dropped, and the JSON column is removed.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS badge_mask BIGINT NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET badge_mask = converted.mask
+FROM (
+    SELECT id,
+           COALESCE(BIT_OR(CASE badge
+               WHEN 'FIRST_LOG' THEN 1
+               WHEN 'STREAK_3' THEN 2
+               WHEN 'STREAK_7' THEN 4
+               WHEN 'STREAK_30' THEN 8
+               WHEN 'XP_100' THEN 16
+               WHEN 'XP_500' THEN 32
+           END), 0) AS mask
+    FROM users,
+         jsonb_array_elements_text(CAST(badges AS jsonb)) AS badge
+    WHERE badges IS NOT NULL
+      AND btrim(badges) LIKE '[%'
+    GROUP BY id
+) AS converted
+WHERE u.id = converted.id;
+
+ALTER TABLE users DROP COLUMN IF EXISTS badges;
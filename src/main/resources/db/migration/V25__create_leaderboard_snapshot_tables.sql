@@ -0,0 +1,28 @@
+-- Migration: Create leaderboard snapshot tables
+-- Version: 25
+-- Description: Per-user XP totals of the all-time and weekly leaderboards, so the in-memory
+-- leaderboards start from these rows instead of aggregating every gamification event. A periodic
+-- job folds events created before events_before into the totals and advances the watermark;
+-- on startup only events from the watermark on are aggregated. The first run folds all events.
+
+CREATE TABLE IF NOT EXISTS leaderboard_xp_totals (
+    board VARCHAR(10) NOT NULL,
+    period_start DATE NOT NULL,
+    user_id BIGINT NOT NULL,
+    xp BIGINT NOT NULL,
+    PRIMARY KEY (board, period_start, user_id),
+    CONSTRAINT fk_leaderboard_xp_totals_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS leaderboard_snapshot_state (
+    id INTEGER PRIMARY KEY,
+    events_before TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO leaderboard_snapshot_state (id, events_before)
+VALUES (1, TIMESTAMP '1970-01-01 00:00:00')
+ON CONFLICT (id) DO NOTHING;
+
+-- Watermark range scans over events
+CREATE INDEX IF NOT EXISTS idx_gamification_events_created_at ON gamification_events(created_at);
@@ -0,0 +1,23 @@
+-- Migration: Create outbox_events table
+-- Version: 26
+-- Description: Transactional outbox for side effects of domain writes (gamification rewards,
+-- insight trend updates). Rows are inserted in the same transaction as the domain change and
+-- drained in batches by OutboxDispatcher, which deletes a row once its handler has committed.
+-- available_at is both the retry backoff and the lease of a claimed row; rows that exhaust
+-- their attempts are kept with failed_at set for inspection.
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    user_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    available_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000),
+    failed_at TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT fk_outbox_events_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Pending rows in dispatch order
+CREATE INDEX IF NOT EXISTS idx_outbox_events_pending ON outbox_events(available_at, id) WHERE failed_at IS NULL;
@@ -0,0 +1,41 @@
+-- Migration: Create user_activity_calendars table
+-- Version: 27
+-- Description: Per-user activity calendar as bitmaps, one row per user and UTC year. Bit n of a
+-- bitmap is day-of-year n + 1 (bit n is bit n % 8 of byte n / 8, the numbering of set_bit), so
+-- the 48 bytes read as 6 little-endian longs cover the 366 days of a leap year.
+-- active_days marks days with a gamification event or a daily check-in; frozen_days marks missed
+-- days covered by a streak freeze. Streaks are computed from these bitmaps (StreakService).
+-- Backfills active_days from existing gamification_events and daily_checkins.
+
+CREATE TABLE IF NOT EXISTS user_activity_calendars (
+    user_id BIGINT NOT NULL,
+    year INTEGER NOT NULL,
+    active_days BYTEA NOT NULL DEFAULT decode(repeat('00', 48), 'hex'),
+    frozen_days BYTEA NOT NULL DEFAULT decode(repeat('00', 48), 'hex'),
+    PRIMARY KEY (user_id, year),
+    CONSTRAINT chk_user_activity_calendars_size CHECK (length(active_days) = 48 AND length(frozen_days) = 48),
+    CONSTRAINT fk_user_activity_calendars_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- One byte per 8 days, assembled into a hex string per user and year
+WITH activity_days AS (
+    SELECT user_id, event_date AS day FROM gamification_events
+    UNION
+    SELECT user_id, date AS day FROM daily_checkins
+),
+day_bytes AS (
+    SELECT user_id,
+           EXTRACT(YEAR FROM day)::INTEGER AS year,
+           (EXTRACT(DOY FROM day)::INTEGER - 1) / 8 AS byte_index,
+           BIT_OR(1 << ((EXTRACT(DOY FROM day)::INTEGER - 1) % 8)) AS byte_value
+    FROM activity_days
+    GROUP BY 1, 2, 3
+)
+INSERT INTO user_activity_calendars (user_id, year, active_days)
+SELECT y.user_id, y.year,
+       decode(string_agg(lpad(to_hex(COALESCE(b.byte_value, 0)), 2, '0'), '' ORDER BY i), 'hex')
+FROM (SELECT DISTINCT user_id, year FROM day_bytes) y
+CROSS JOIN generate_series(0, 47) AS i
+LEFT JOIN day_bytes b ON b.user_id = y.user_id AND b.year = y.year AND b.byte_index = i
+GROUP BY y.user_id, y.year
+ON CONFLICT (user_id, year) DO NOTHING;
@@ -0,0 +1,25 @@
+-- Migration: Convert ingredient rows stored with plural mass and volume units
+-- Version: 28
+-- Description: IngredientQuantityParser looked up units before singularizing them, so
+-- "2 tablespoons", "1.5 liters", "2 lbs" or "4 ounces" were stored as count units
+-- ("tablespoon", "liter", "lbs", "ounce"). Convert those rows to g / ml with the parser's factors
+-- so they aggregate with the rest of the grocery list.
+
+UPDATE meal_plan_entry_ingredients
+SET quantity = quantity * CASE unit
+        WHEN 'tablespoon' THEN 15.0
+        WHEN 'tbsp' THEN 15.0
+        WHEN 'teaspoon' THEN 5.0
+        WHEN 'tsp' THEN 5.0
+        WHEN 'liter' THEN 1000.0
+        WHEN 'litre' THEN 1000.0
+        WHEN 'lbs' THEN 453.6
+        WHEN 'pound' THEN 453.6
+        WHEN 'ounce' THEN 28.35
+    END,
+    unit = CASE
+        WHEN unit IN ('lbs', 'pound', 'ounce') THEN 'g'
+        ELSE 'ml'
+    END
+WHERE quantity IS NOT NULL
+  AND unit IN ('tablespoon', 'tbsp', 'teaspoon', 'tsp', 'liter', 'litre', 'lbs', 'pound', 'ounce');
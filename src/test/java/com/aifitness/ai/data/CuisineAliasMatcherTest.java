@@ -0,0 +1,70 @@
+package com.aifitness.ai.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CuisineAliasMatcherTest {
+
+    private static final int ITALIAN = 0;
+    private static final int KOREAN = 1;
+    private static final int MEDITERRANEAN = 2;
+    private static final int JAPANESE = 3;
+
+    private static final CuisineAliasMatcher MATCHER = CuisineAliasMatcher.compile(List.of(
+            List.of("Ý", "Italian"),
+            List.of("Hàn", "Hàn Quốc", "Korean"),
+            List.of("Địa Trung Hải", "Mediterranean"),
+            List.of("Nhật", "Japan")));
+
+    @Test
+    void matchesShortAliasesAsWholeWords() {
+        assertMatches("món Ý", ITALIAN);
+        assertMatches("Hàn, Nhật", KOREAN, JAPANESE);
+        assertMatches("y;han", ITALIAN, KOREAN);
+    }
+
+    @Test
+    void ignoresShortAliasesInsideWords() {
+        assertMatches("yogurt");
+        assertMatches("thanh đạm");
+        assertMatches("hanoi street food");
+        assertMatches("spicy");
+    }
+
+    @Test
+    void matchesLongerAliasesAtWordStart() {
+        assertMatches("Japanese", JAPANESE);
+        assertMatches("nonjapan");
+        assertMatches("ITALIAN food", ITALIAN);
+    }
+
+    @Test
+    void foldsDiacriticsAndSeparators() {
+        assertMatches("Địa Trung Hải", MEDITERRANEAN);
+        assertMatches("dia-trung-hai", MEDITERRANEAN);
+        assertMatches("Hàn Quốc", KOREAN);
+        assertEquals("dia trung hai", CuisineAliasMatcher.fold("Địa Trung Hải"));
+    }
+
+    @Test
+    void countsOnlyNewlyMarkedTargets() {
+        boolean[] matched = new boolean[MATCHER.getTargetCount()];
+        assertEquals(2, MATCHER.match("Korean, Hàn Quốc, Ý", matched));
+        assertEquals(1, MATCHER.match("Italian, Japan", matched));
+        assertArrayEquals(new boolean[] {true, true, false, true}, matched);
+    }
+
+    private static void assertMatches(String input, int... targets) {
+        boolean[] expected = new boolean[MATCHER.getTargetCount()];
+        for (int target : targets) {
+            expected[target] = true;
+        }
+        boolean[] matched = new boolean[MATCHER.getTargetCount()];
+        MATCHER.match(input, matched);
+        assertArrayEquals(expected, matched, input);
+    }
+}
@@ -0,0 +1,147 @@
+package com.aifitness.ai.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MealSubstitutionIndexTest {
+
+    private static final int ALL_DIETS = MealSubstitutionIndex.DIET_OMNIVORE | MealSubstitutionIndex.DIET_VEGETARIAN
+            | MealSubstitutionIndex.DIET_VEGAN;
+
+    @Test
+    void nearestMatchesBruteForce() {
+        List<MealSubstitutionIndex.Candidate> candidates = randomCatalog(new Random(42), 300);
+        MealSubstitutionIndex index = MealSubstitutionIndex.build(candidates);
+        double[] scale = scale(candidates);
+
+        Random queries = new Random(7);
+        for (int q = 0; q < 50; q++) {
+            double[] target = {200 + queries.nextInt(700), queries.nextInt(60), queries.nextInt(100), queries.nextInt(40)};
+            for (int k : new int[] {1, 5, 20}) {
+                List<MealSubstitutionIndex.Match> found = index.nearest("LUNCH",
+                        target[0], target[1], target[2], target[3], k, MealSubstitutionIndex.DIET_OMNIVORE, 0, null);
+                assertNearest(bruteForce(candidates, scale, "LUNCH", target, k, c -> true), found);
+            }
+        }
+    }
+
+    @Test
+    void skipsCandidatesFailingMasksAndFilter() {
+        List<MealSubstitutionIndex.Candidate> candidates = randomCatalog(new Random(3), 200);
+        MealSubstitutionIndex index = MealSubstitutionIndex.build(candidates);
+        double[] scale = scale(candidates);
+        double[] target = {500, 30, 50, 15};
+
+        Predicate<MealSubstitutionIndex.Candidate> accept = c ->
+                (c.getDietMask() & MealSubstitutionIndex.DIET_VEGAN) != 0
+                        && (c.getAllergenMask() & MealSubstitutionIndex.ALLERGEN_SOY) == 0
+                        && !c.getName().endsWith("7");
+        List<MealSubstitutionIndex.Match> found = index.nearest("LUNCH", target[0], target[1], target[2], target[3],
+                10, MealSubstitutionIndex.DIET_VEGAN, MealSubstitutionIndex.ALLERGEN_SOY,
+                c -> !c.getName().endsWith("7"));
+
+        assertNearest(bruteForce(candidates, scale, "LUNCH", target, 10, accept), found);
+        found.forEach(match -> assertTrue(accept.test(match.getCandidate()), match.getCandidate().getName()));
+    }
+
+    @Test
+    void returnsNothingForUnknownMealTypeOrNonPositiveK() {
+        MealSubstitutionIndex index = MealSubstitutionIndex.build(randomCatalog(new Random(1), 20));
+
+        assertTrue(index.nearest("BRUNCH", 500, 30, 50, 15, 3, MealSubstitutionIndex.DIET_OMNIVORE, 0, null).isEmpty());
+        assertTrue(index.nearest(null, 500, 30, 50, 15, 3, MealSubstitutionIndex.DIET_OMNIVORE, 0, null).isEmpty());
+        assertTrue(index.nearest("LUNCH", 500, 30, 50, 15, 0, MealSubstitutionIndex.DIET_OMNIVORE, 0, null).isEmpty());
+    }
+
+    @Test
+    void returnsAllCandidatesWhenKExceedsSize() {
+        List<MealSubstitutionIndex.Candidate> candidates = List.of(
+                new MealSubstitutionIndex.Candidate("SNACK", "Apple", 95, 0, 25, 0, "[]", ALL_DIETS),
+                new MealSubstitutionIndex.Candidate("SNACK", "Banana", 105, 1, 27, 0, "[]", ALL_DIETS),
+                new MealSubstitutionIndex.Candidate("SNACK", "Peanut butter toast", 300, 10, 30, 16, "[]", ALL_DIETS));
+        MealSubstitutionIndex index = MealSubstitutionIndex.build(candidates);
+
+        List<MealSubstitutionIndex.Match> found = index.nearest("SNACK", 100, 1, 26, 0, 10,
+                MealSubstitutionIndex.DIET_OMNIVORE, 0, null);
+        assertEquals(3, found.size());
+        assertEquals("Peanut butter toast", found.get(2).getCandidate().getName());
+    }
+
+    private static void assertNearest(List<Double> expectedDistances, List<MealSubstitutionIndex.Match> found) {
+        assertEquals(expectedDistances.size(), found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(expectedDistances.get(i), found.get(i).getDistance(), 1e-9);
+        }
+    }
+
+    /**
+     * Squared distances of the k nearest accepted candidates, closest first
+     */
+    private static List<Double> bruteForce(List<MealSubstitutionIndex.Candidate> candidates, double[] scale,
+                                           String mealType, double[] target, int k,
+                                           Predicate<MealSubstitutionIndex.Candidate> accept) {
+        return candidates.stream()
+                .filter(c -> c.getMealType().equals(mealType) && accept.test(c))
+                .map(c -> {
+                    double[] macros = {c.getCalories(), c.getProtein(), c.getCarbs(), c.getFats()};
+                    double sum = 0;
+                    for (int d = 0; d < macros.length; d++) {
+                        double diff = (macros[d] - target[d]) * scale[d];
+                        sum += diff * diff;
+                    }
+                    return sum;
+                })
+                .sorted(Comparator.naturalOrder())
+                .limit(k)
+                .toList();
+    }
+
+    /**
+     * 1 / population standard deviation per macro, as the index scales them
+     */
+    private static double[] scale(List<MealSubstitutionIndex.Candidate> candidates) {
+        double[] scale = new double[4];
+        for (int d = 0; d < scale.length; d++) {
+            final int dimension = d;
+            double[] values = candidates.stream().mapToDouble(c -> switch (dimension) {
+                case 0 -> c.getCalories();
+                case 1 -> c.getProtein();
+                case 2 -> c.getCarbs();
+                default -> c.getFats();
+            }).toArray();
+            double mean = 0;
+            for (double value : values) {
+                mean += value / values.length;
+            }
+            double variance = 0;
+            for (double value : values) {
+                variance += (value - mean) * (value - mean) / values.length;
+            }
+            scale[d] = 1.0 / Math.sqrt(variance);
+        }
+        return scale;
+    }
+
+    private static List<MealSubstitutionIndex.Candidate> randomCatalog(Random random, int size) {
+        String[] mealTypes = {"BREAKFAST", "LUNCH", "DINNER"};
+        String[] ingredients = {"[\"rice\",\"tofu\"]", "[\"chicken\",\"rice\"]", "[\"lentils\",\"spinach\"]",
+                "[\"salmon\",\"quinoa\"]", "[\"oats\",\"banana\"]"};
+        List<MealSubstitutionIndex.Candidate> candidates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String ingredientsJson = ingredients[random.nextInt(ingredients.length)];
+            candidates.add(new MealSubstitutionIndex.Candidate(
+                    mealTypes[i % mealTypes.length], "Meal " + i,
+                    150 + random.nextInt(850), random.nextInt(70), random.nextInt(120), random.nextInt(50),
+                    ingredientsJson, MealSubstitutionIndex.inferDietMask(ingredientsJson)));
+        }
+        return candidates;
+    }
+}
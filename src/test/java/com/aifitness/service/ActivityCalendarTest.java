@@ -0,0 +1,119 @@
+package com.aifitness.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityCalendarTest {
+
+    @Test
+    void countsCurrentStreakUpToTodayOrYesterday() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.putYear(2024, days(2024, "2024-03-01", "2024-03-02", "2024-03-03"), null);
+
+        assertStreaks(calendar, "2024-03-03", 3, 3);
+        // Today has no activity yet, so the run ending yesterday is still current
+        assertStreaks(calendar, "2024-03-04", 3, 3);
+        assertStreaks(calendar, "2024-03-05", 0, 3);
+    }
+
+    @Test
+    void continuesStreaksAcrossYearBoundary() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.putYear(2023, days(2023, "2023-12-30", "2023-12-31"), null);
+        calendar.putYear(2024, days(2024, "2024-01-01", "2024-01-02"), null);
+
+        assertStreaks(calendar, "2024-01-02", 4, 4);
+    }
+
+    @Test
+    void continuesStreaksFromLastDayOfLeapYear() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.putYear(2024, days(2024, "2024-12-31"), null);
+        calendar.putYear(2025, days(2025, "2025-01-01"), null);
+
+        assertTrue(calendar.isActive(LocalDate.parse("2024-12-31")));
+        assertStreaks(calendar, "2025-01-01", 2, 2);
+    }
+
+    @Test
+    void doesNotJoinRunsOfNonConsecutiveYears() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.putYear(2022, days(2022, "2022-12-30", "2022-12-31"), null);
+        calendar.putYear(2024, days(2024, "2024-01-01"), null);
+
+        assertStreaks(calendar, "2024-01-01", 1, 2);
+    }
+
+    @Test
+    void frozenDaysBridgeGapsWithoutCounting() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.putYear(2024,
+                days(2024, "2024-05-01", "2024-05-02", "2024-05-04"),
+                days(2024, "2024-05-03"));
+
+        assertTrue(calendar.isFrozen(LocalDate.parse("2024-05-03")));
+        assertFalse(calendar.isActive(LocalDate.parse("2024-05-03")));
+        assertStreaks(calendar, "2024-05-04", 3, 3);
+        assertEquals(1, calendar.frozenDaysBetween(LocalDate.parse("2024-05-01"), LocalDate.parse("2024-05-31")));
+        assertEquals(0, calendar.frozenDaysBetween(LocalDate.parse("2024-05-04"), LocalDate.parse("2024-05-31")));
+    }
+
+    @Test
+    void frozenDayAcrossYearBoundaryKeepsStreak() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.putYear(2023, days(2023, "2023-12-30"), days(2023, "2023-12-31"));
+        calendar.putYear(2024, days(2024, "2024-01-01"), null);
+
+        assertStreaks(calendar, "2024-01-01", 2, 2);
+    }
+
+    @Test
+    void measuresRunsSpanningWordBoundaries() {
+        // Days 60..140 of 2024 cross the first and second 64-bit words
+        LocalDate first = LocalDate.ofYearDay(2024, 61);
+        String[] run = new String[81];
+        for (int i = 0; i < run.length; i++) {
+            run[i] = first.plusDays(i).toString();
+        }
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.putYear(2024, days(2024, run), null);
+
+        assertStreaks(calendar, first.plusDays(80).toString(), 81, 81);
+    }
+
+    @Test
+    void emptyCalendarHasNoStreak() {
+        assertStreaks(new ActivityCalendar(), "2024-01-01", 0, 0);
+    }
+
+    private static void assertStreaks(ActivityCalendar calendar, String today, int current, int longest) {
+        StreakService.Streaks streaks = calendar.streaks(LocalDate.parse(today));
+        assertEquals(current, streaks.currentStreakDays(), "current streak on " + today);
+        assertEquals(longest, streaks.longestStreakDays(), "longest streak on " + today);
+    }
+
+    /**
+     * Encodes days of one year the way they are stored: 6 little-endian words, bit n is day n + 1
+     */
+    private static byte[] days(int year, String... dates) {
+        long[] words = new long[ActivityCalendar.WORDS_PER_YEAR];
+        for (String date : dates) {
+            LocalDate day = LocalDate.parse(date);
+            assertEquals(year, day.getYear());
+            int bit = day.getDayOfYear() - 1;
+            words[bit >>> 6] |= 1L << bit;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(ActivityCalendar.BYTES_PER_YEAR).order(ByteOrder.LITTLE_ENDIAN);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,103 @@
+package com.aifitness.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DampedTrendFitterTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void needsMoreThanWarmUpWeights() {
+        assertNull(DampedTrendFitter.fit(dates(5, 1), new double[] {80, 80, 80, 80, 80}));
+        assertNotNull(DampedTrendFitter.fit(dates(6, 1), new double[] {80, 80, 80, 80, 80, 80}));
+    }
+
+    @Test
+    void constantSeriesHasFlatTrendAndNoSpread() {
+        double[] weights = new double[30];
+        Arrays.fill(weights, 72.5);
+        DampedTrendFitter.Fit fit = DampedTrendFitter.fit(dates(30, 1), weights);
+
+        assertEquals(72.5, fit.level(), 1e-9);
+        assertEquals(0, fit.trend(), 1e-9);
+        assertEquals(0, fit.sigma(), 1e-9);
+    }
+
+    @Test
+    void followsLinearLossWithDailyAndIrregularGaps() {
+        // 0.1 kg/day loss, weighed daily and then every 3 days
+        for (int gap : new int[] {1, 3}) {
+            int n = 60;
+            double[] weights = new double[n];
+            for (int i = 0; i < n; i++) {
+                weights[i] = 90 - 0.1 * gap * i;
+            }
+            DampedTrendFitter.Fit fit = DampedTrendFitter.fit(dates(n, gap), weights);
+
+            assertTrue(fit.trend() < 0, "trend with gap " + gap);
+            assertEquals(weights[n - 1], fit.level(), 0.5, "level with gap " + gap);
+        }
+    }
+
+    @Test
+    void forecastDampsTrendTowardsEnergyBalanceRate() {
+        DampedTrendFitter.Fit fit = new DampedTrendFitter.Fit(0.3, 0.1, 0.9, 80, -0.2, 0.5);
+        List<DampedTrendFitter.Point> points = DampedTrendFitter.forecast(fit, -0.05, START, START, 60);
+
+        assertEquals(60, points.size());
+        double mean = 80;
+        double phiPower = 1;
+        for (int h = 1; h <= 60; h++) {
+            phiPower *= 0.9;
+            mean += phiPower * -0.2 + (1 - phiPower) * -0.05;
+            assertEquals(START.plusDays(h), points.get(h - 1).date());
+            assertEquals(mean, points.get(h - 1).expected(), 1e-9);
+        }
+        // Far out, a day's change is the energy-balance rate
+        assertEquals(-0.05, points.get(59).expected() - points.get(58).expected(), 1e-3);
+    }
+
+    @Test
+    void forecastWithoutRateFlattensOut() {
+        DampedTrendFitter.Fit fit = new DampedTrendFitter.Fit(0.3, 0.1, 0.8, 80, -0.2, 0.5);
+        List<DampedTrendFitter.Point> points = DampedTrendFitter.forecast(fit, null, START, START, 90);
+
+        // Total change converges to b·φ / (1 - φ)
+        assertEquals(80 - 0.2 * 0.8 / 0.2, points.get(89).expected(), 1e-6);
+    }
+
+    @Test
+    void forecastSkipsDaysBeforeStartAndWidensBands() {
+        DampedTrendFitter.Fit fit = new DampedTrendFitter.Fit(0.3, 0.1, 0.9, 80, -0.1, 0.4);
+        List<DampedTrendFitter.Point> all = DampedTrendFitter.forecast(fit, null, START, START, 14);
+        List<DampedTrendFitter.Point> later = DampedTrendFitter.forecast(fit, null, START, START.plusDays(4), 10);
+
+        assertEquals(all.subList(4, 14), later);
+        for (int i = 0; i < all.size(); i++) {
+            DampedTrendFitter.Point point = all.get(i);
+            assertTrue(point.lower95() < point.lower80() && point.lower80() < point.expected());
+            assertTrue(point.expected() < point.upper80() && point.upper80() < point.upper95());
+            if (i > 0) {
+                assertTrue(point.upper95() - point.lower95() > all.get(i - 1).upper95() - all.get(i - 1).lower95());
+            }
+        }
+        assertEquals(0.4 * 1.96, all.get(0).upper95() - all.get(0).expected(), 1e-9);
+    }
+
+    private static LocalDate[] dates(int n, int gap) {
+        LocalDate[] dates = new LocalDate[n];
+        for (int i = 0; i < n; i++) {
+            dates[i] = START.plusDays((long) i * gap);
+        }
+        return dates;
+    }
+}
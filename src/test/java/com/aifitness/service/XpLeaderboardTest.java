@@ -0,0 +1,82 @@
+package com.aifitness.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class XpLeaderboardTest {
+
+    @Test
+    void ranksByXpWithSharedRanksForTies() {
+        XpLeaderboard board = new XpLeaderboard();
+        board.add(1, 100);
+        board.add(2, 300);
+        board.add(3, 100);
+        board.add(4, 50);
+
+        assertEquals(1, board.standingOf(2).rank());
+        assertEquals(2, board.standingOf(1).rank());
+        assertEquals(2, board.standingOf(3).rank());
+        assertEquals(4, board.standingOf(4).rank());
+
+        List<XpLeaderboard.Standing> top = board.top(10);
+        assertEquals(List.of(
+                new XpLeaderboard.Standing(2, 300, 1),
+                new XpLeaderboard.Standing(1, 100, 2),
+                new XpLeaderboard.Standing(3, 100, 2),
+                new XpLeaderboard.Standing(4, 50, 4)), top);
+    }
+
+    @Test
+    void updatesMoveUsersAndAccumulateXp() {
+        XpLeaderboard board = new XpLeaderboard();
+        board.add(1, 100);
+        board.add(2, 200);
+        board.add(1, 150);
+
+        assertEquals(2, board.size());
+        assertEquals(new XpLeaderboard.Standing(1, 250, 1), board.standingOf(1));
+        assertEquals(new XpLeaderboard.Standing(2, 200, 2), board.standingOf(2));
+        assertEquals(List.of(new XpLeaderboard.Standing(1, 250, 1)), board.top(1));
+    }
+
+    @Test
+    void breaksTieWhenOneUserGainsXp() {
+        XpLeaderboard board = new XpLeaderboard();
+        board.add(1, 100);
+        board.add(2, 100);
+        assertEquals(1, board.standingOf(2).rank());
+
+        board.add(2, 1);
+        assertEquals(1, board.standingOf(2).rank());
+        assertEquals(2, board.standingOf(1).rank());
+    }
+
+    @Test
+    void keepsRanksWhenTreeGrows() {
+        XpLeaderboard board = new XpLeaderboard();
+        board.add(1, 1000);
+        board.add(2, 500);
+        // Past the initial capacity of the XP tree
+        board.add(3, 5000);
+        board.add(2, 4500);
+
+        assertEquals(1, board.standingOf(3).rank());
+        assertEquals(1, board.standingOf(2).rank());
+        assertEquals(3, board.standingOf(1).rank());
+    }
+
+    @Test
+    void ignoresNonPositiveXpAndUnknownUsers() {
+        XpLeaderboard board = new XpLeaderboard();
+        board.add(1, 0);
+        board.add(2, -5);
+
+        assertEquals(0, board.size());
+        assertNull(board.standingOf(1));
+        assertEquals(List.of(), board.top(5));
+    }
+}
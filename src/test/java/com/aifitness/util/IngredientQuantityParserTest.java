@@ -0,0 +1,62 @@
+package com.aifitness.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IngredientQuantityParserTest {
+
+    @Test
+    void convertsMassAndVolumeUnits() {
+        assertParsed("200g", 200, "g", null);
+        assertParsed("150g cooked", 150, "g", "cooked");
+        assertParsed("1.5 kg", 1500, "g", null);
+        assertParsed("1/2 cup", 120, "ml", null);
+        assertParsed("1 1/2 tbsp", 22.5, "ml", null);
+    }
+
+    @Test
+    void convertsPluralUnits() {
+        assertParsed("2 tablespoons", 30, "ml", null);
+        assertParsed("3 teaspoons", 15, "ml", null);
+        assertParsed("1.5 liters", 1500, "ml", null);
+        assertParsed("2 cups", 480, "ml", null);
+        assertParsed("2 lbs", 907.2, "g", null);
+        assertParsed("1 pound", 453.6, "g", null);
+        assertParsed("4 ounces", 113.4, "g", null);
+        assertParsed("1 ounce", 28.35, "g", null);
+    }
+
+    @Test
+    void keepsOtherUnitsAsSingularCounts() {
+        assertParsed("2 slices", 2, "slice", null);
+        assertParsed("3 pinches", 3, "pinch", null);
+        assertParsed("2 large", 2, "large", null);
+        assertParsed("3", 3, "piece", null);
+    }
+
+    @Test
+    void nonNumericTextIsKeptAsQualifier() {
+        IngredientQuantityParser.ParsedQuantity parsed = IngredientQuantityParser.parse("to taste");
+        assertNull(parsed.getQuantity());
+        assertNull(parsed.getUnit());
+        assertEquals("to taste", parsed.getQualifier());
+    }
+
+    @Test
+    void formatsAggregatedAmounts() {
+        assertEquals("1.25kg cooked", IngredientQuantityParser.format(1250, "g", "cooked"));
+        assertEquals("45ml", IngredientQuantityParser.format(45, "ml", null));
+        assertEquals("3 slices", IngredientQuantityParser.format(3, "slice", null));
+        assertEquals("2 pinches", IngredientQuantityParser.format(2, "pinch", null));
+        assertEquals("2 large", IngredientQuantityParser.format(2, "large", null));
+    }
+
+    private static void assertParsed(String text, double quantity, String unit, String qualifier) {
+        IngredientQuantityParser.ParsedQuantity parsed = IngredientQuantityParser.parse(text);
+        assertEquals(quantity, parsed.getQuantity(), 1e-9, text);
+        assertEquals(unit, parsed.getUnit(), text);
+        assertEquals(qualifier, parsed.getQualifier(), text);
+    }
+}
@@ -0,0 +1,142 @@
+package com.aifitness.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that DangerousInputScanner gives the same verdicts as the regexes StringSanitizer
+ * used before it, and that it stays linear on inputs that made those regexes backtrack.
+ */
+class StringSanitizerTest {
+
+    // The patterns StringSanitizer used before DangerousInputScanner; the reference verdicts
+    private static final List<Pattern> REGEX_PATTERNS = List.of(
+            Pattern.compile("(?i)(;\\s*(drop|truncate)\\s+table|;\\s*delete\\s+from|--|/\\*)"),
+            Pattern.compile("(?i)(<\\s*/?\\s*(script|iframe|object|embed)[^>]*>|javascript:|onerror\\s*=|onload\\s*=|onclick\\s*=)"),
+            Pattern.compile("(?i)((\\|\\|)|(\\&\\&)|(`)|\\$\\()"),
+            Pattern.compile("(?i)(%3C|%3E|&#x)|\\\\x[0-9a-f]{2}"));
+
+    private static final List<String> DANGEROUS = List.of(
+            "'; DROP TABLE users",
+            "x;\n\ttruncate   TABLE meals",
+            "1;delete from users",
+            "admin'--",
+            "a /* comment */",
+            "<script>alert(1)</script>",
+            "< / IFRAME src=x >",
+            "<object data=x>",
+            "<embed>",
+            "<scripture>",
+            "JavaScript:alert(1)",
+            "<img src=x onerror = alert(1)>",
+            "<body ONLOAD=init()>",
+            "<a onclick=x>",
+            "ls || rm",
+            "a && b",
+            "`id`",
+            "$(whoami)",
+            "%3Cscript%3E",
+            "&#x3C;",
+            "\\x3c");
+
+    private static final List<String> SAFE = List.of(
+            "",
+            "I ran 5 km today and felt great!",
+            "Protein: 120g; carbs: 200g",
+            "drop table tennis from my plan",
+            "- bullet point",
+            "1/2 cup oats",
+            "< script without a closing bracket",
+            "<b>bold</b>",
+            "java script",
+            "onerror",
+            "on load = fine",
+            "salt | pepper",
+            "fish & chips",
+            "it costs $5 (approx)",
+            "100% 3 times",
+            "&#65;",
+            "\\x3g",
+            "Café au lait, phở, bánh mì");
+
+    @Test
+    void knownPayloadsAreRejected() {
+        for (String input : DANGEROUS) {
+            assertTrue(regexVerdict(input), "regex should reject: " + input);
+            assertTrue(DangerousInputScanner.containsDangerousContent(input), "scanner should reject: " + input);
+            assertThrows(IllegalArgumentException.class, () -> StringSanitizer.validate(input), input);
+        }
+    }
+
+    @Test
+    void safeInputsAreAccepted() {
+        for (String input : SAFE) {
+            assertFalse(regexVerdict(input), "regex should accept: " + input);
+            assertFalse(DangerousInputScanner.containsDangerousContent(input), "scanner should accept: " + input);
+            assertEquals(input.trim(), StringSanitizer.validateAndSanitize(input));
+        }
+    }
+
+    @Test
+    void randomInputsMatchRegexVerdicts() {
+        // Fragments of every pattern plus look-alikes, including non-ASCII letters that
+        // Unicode case folding would map to ASCII ('ſ' -> 's', Kelvin sign -> 'k')
+        String[] tokens = {
+                "<", ">", "/", " ", "\t", "\n", ";", "-", "*", "|", "&", "`", "$", "(", "#", "%", "\\", "=", ":",
+                "script", "SCRIPT", "sCrIpT", "ſcript", "iframe", "object", "embed", "javascript", "JAVASCRIPT",
+                "onerror", "onload", "onclick", "ONCLICK", "drop", "truncate", "delete", "table", "from", "TABLE",
+                "3c", "3C", "3e", "x", "X", "1f", "g", "a", "é", "K", "k"};
+        Random random = new Random(42);
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int t = 0; t < length; t++) {
+                input.append(tokens[random.nextInt(tokens.length)]);
+            }
+            String text = input.toString();
+            assertEquals(regexVerdict(text), DangerousInputScanner.containsDangerousContent(text),
+                    () -> "verdict differs for: " + text);
+        }
+    }
+
+    @Test
+    void unclosedTagsStayLinear() {
+        // The XSS regex retried [^>]* from every '<' to the end of the input: about 9 s at 40 KB
+        String small = "< script".repeat(250);
+        assertEquals(regexVerdict(small), DangerousInputScanner.containsDangerousContent(small));
+
+        String large = "< script".repeat(5_000);
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertFalse(DangerousInputScanner.containsDangerousContent(large));
+            assertEquals(large, StringSanitizer.validateAndSanitize(large));
+        });
+    }
+
+    @Test
+    void sanitizeTrimsAndStripsControlCharacters() {
+        assertEquals("", StringSanitizer.sanitize(null));
+        assertEquals("a\tb\nc\rd", StringSanitizer.sanitize("  a\u0000\tb\n\u001Fc\r\u007Fd \u000B"));
+        assertEquals("plain", StringSanitizer.sanitize("plain"));
+        assertNull(StringSanitizer.sanitizeOrNull(" \u0001 "));
+    }
+
+    private static boolean regexVerdict(String input) {
+        for (Pattern pattern : REGEX_PATTERNS) {
+            if (pattern.matcher(input).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}